@@ -0,0 +1,76 @@
+package com.TETOSOFT.bench;
+
+import java.awt.GraphicsConfiguration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import com.TETOSOFT.graphics.Sprite;
+import com.TETOSOFT.tilegame.GameEngine;
+import com.TETOSOFT.tilegame.MapLoader;
+import com.TETOSOFT.tilegame.TileMap;
+import com.TETOSOFT.tilegame.WorldSnapshot;
+import com.TETOSOFT.tilegame.headless.HeadlessRuntime;
+import com.TETOSOFT.tilegame.sprites.Creature;
+
+/**
+ * Shared setup for the JMH benchmarks: real maps and images, loaded the
+ * same way as the headless runtime.
+ *
+ * <pre>
+ * ant -Djmh.lib.dir=/path/to/jmh/jars bench
+ * ant -Djmh.lib.dir=... -Dbench.args="CollisionBenchmark -p sprites=1000" bench
+ * </pre>
+ * Results go to {@code build/bench/jmh-<timestamp>.json}; compare two runs
+ * with any JMH result viewer or a diff of the {@code primaryMetric} scores.
+ * Run from the project directory: maps and images are read from disk.
+ */
+final class BenchFixtures {
+
+    /** Window size the renderer benchmarks draw at. */
+    static final int WIDTH  = 1920;
+    static final int HEIGHT = 1080;
+
+    private static MapLoader shared;
+
+    private BenchFixtures() {
+    }
+
+    static synchronized MapLoader loader() {
+        if (shared == null) shared = new MapLoader(imageConfiguration());
+        return shared;
+    }
+
+    static GraphicsConfiguration imageConfiguration() {
+        return HeadlessRuntime.imageConfiguration();
+    }
+
+    /** A fresh copy of map {@code number} (1-based). */
+    static TileMap loadMap(int number) {
+        TileMap map = loader().newLoaderSharingAssets().loadMap(number);
+        if (map == null) throw new IllegalStateException("No existe el mapa " + number);
+        return map;
+    }
+
+    /** The player followed by every creature of the map, awake. */
+    static Creature[] creatures(TileMap map) {
+        List<Creature> list = new ArrayList<>();
+        list.add((Creature) map.getPlayer());
+        Iterator<Sprite> it = map.getSprites();
+        while (it.hasNext()) {
+            Sprite s = it.next();
+            if (s instanceof Creature) {
+                ((Creature) s).wakeUp();
+                list.add((Creature) s);
+            }
+        }
+        return list.toArray(new Creature[0]);
+    }
+
+    /** A PLAYING snapshot of {@code map}, as the renderer receives it. */
+    static WorldSnapshot snapshot(TileMap map, int mapNumber) {
+        WorldSnapshot snap = new WorldSnapshot();
+        snap.capture(GameEngine.GameState.PLAYING, 0, 0, map, 3, 42, mapNumber, false);
+        return snap;
+    }
+}
@@ -0,0 +1,60 @@
+package com.TETOSOFT.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.TETOSOFT.assets.SpriteFactory;
+import com.TETOSOFT.graphics.Sprite;
+import com.TETOSOFT.tilegame.TileMap;
+import com.TETOSOFT.tilegame.sprites.Player;
+import com.TETOSOFT.tilegame.systems.CollisionSystem;
+
+/**
+ * {@link CollisionSystem#checkPlayerCollisions} against {@code sprites}
+ * grubs, none of them touching the player: the full scan the game pays
+ * every tick.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class CollisionBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int sprites;
+
+    private final CollisionSystem collision = new CollisionSystem(new CollisionSystem.Listener() {
+        @Override public void onCoinCollected() { }
+        @Override public void onGoalReached()   { }
+        @Override public void onPlayerDied()    { }
+    });
+
+    private TileMap map;
+    private Player player;
+
+    @Setup(Level.Trial)
+    public void populate() {
+        SpriteFactory factory = new SpriteFactory(BenchFixtures.loader().getAssets());
+        map = new TileMap(sprites + 16, 16);
+        player = (Player) factory.getPlayer();
+        player.setX(0);
+        player.setY(0);
+        map.setPlayer(player);
+
+        // En fila a la derecha del jugador, sin solaparse con él
+        for (int i = 0; i < sprites; i++) {
+            Sprite grub = factory.getGrub();
+            grub.setX(player.getWidth() + 64 + i * 48);
+            grub.setY(0);
+            map.addSprite(grub);
+        }
+    }
+
+    @Benchmark
+    public void checkPlayerCollisions() {
+        collision.checkPlayerCollisions(player, map, false);
+    }
+}
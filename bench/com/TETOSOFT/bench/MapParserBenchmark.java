@@ -0,0 +1,39 @@
+package com.TETOSOFT.bench;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.TETOSOFT.assets.AssetManager;
+import com.TETOSOFT.assets.MapParser;
+import com.TETOSOFT.assets.SpriteFactory;
+import com.TETOSOFT.tilegame.TileMap;
+
+/** {@link MapParser#parse} of each real map, images already cached. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class MapParserBenchmark {
+
+    @Param({"1", "2", "3", "4"})
+    public int map;
+
+    private MapParser parser;
+    private String path;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        AssetManager assets = BenchFixtures.loader().getAssets();
+        parser = new MapParser(assets, new SpriteFactory(assets));
+        path = "maps/map" + map + ".txt";
+    }
+
+    @Benchmark
+    public TileMap parse() throws IOException {
+        return parser.parse(path);
+    }
+}
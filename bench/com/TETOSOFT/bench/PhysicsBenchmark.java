@@ -0,0 +1,75 @@
+package com.TETOSOFT.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.TETOSOFT.core.GameOptions;
+import com.TETOSOFT.tilegame.TileMap;
+import com.TETOSOFT.tilegame.sprites.Creature;
+import com.TETOSOFT.tilegame.systems.PhysicsSystem;
+
+/**
+ * {@link PhysicsSystem} over every creature of a real map: one score is
+ * one tick for the whole map.
+ *
+ * Creatures keep moving during an iteration (some fall off the map and
+ * stop), so positions are restored before each one.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class PhysicsBenchmark {
+
+    @Param({"1", "2", "3", "4"})
+    public int map;
+
+    private final PhysicsSystem physics = new PhysicsSystem();
+    private final long stepMs = GameOptions.tickStepMillis();
+
+    private TileMap tileMap;
+    private Creature[] creatures;
+    private float[] start;
+
+    @Setup(Level.Trial)
+    public void loadMap() {
+        tileMap   = BenchFixtures.loadMap(map);
+        creatures = BenchFixtures.creatures(tileMap);
+        start     = new float[creatures.length * 4];
+        for (int i = 0; i < creatures.length; i++) {
+            Creature c = creatures[i];
+            start[i * 4]     = c.getX();
+            start[i * 4 + 1] = c.getY();
+            start[i * 4 + 2] = c.getVelocityX();
+            start[i * 4 + 3] = c.getVelocityY();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetPositions() {
+        for (int i = 0; i < creatures.length; i++) {
+            Creature c = creatures[i];
+            c.setX(start[i * 4]);
+            c.setY(start[i * 4 + 1]);
+            c.setVelocityX(start[i * 4 + 2]);
+            c.setVelocityY(start[i * 4 + 3]);
+        }
+    }
+
+    @Benchmark
+    public void update(Blackhole bh) {
+        for (Creature c : creatures)
+            bh.consume(physics.update(c, tileMap, stepMs));
+    }
+
+    /** The probe the movement code runs twice per creature and tick. */
+    @Benchmark
+    public void getTileCollision(Blackhole bh) {
+        for (Creature c : creatures)
+            bh.consume(physics.getTileCollision(c, tileMap, c.getX() + 1, c.getY() + 1));
+    }
+}
@@ -0,0 +1,80 @@
+package com.TETOSOFT.bench;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.TETOSOFT.assets.AssetManager;
+import com.TETOSOFT.core.GameOptions;
+import com.TETOSOFT.graphics.CRTOverlay;
+import com.TETOSOFT.tilegame.TileMap;
+import com.TETOSOFT.tilegame.TileMapDrawer;
+import com.TETOSOFT.tilegame.WorldSnapshot;
+import com.TETOSOFT.tilegame.systems.HudRenderer;
+
+/**
+ * The in-game renderers drawing a map 1 frame into a
+ * {@link BenchFixtures#WIDTH} x {@link BenchFixtures#HEIGHT} offscreen
+ * image, with the same parallax layers as the game.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmark {
+
+    private final long stepMs = GameOptions.tickStepMillis();
+
+    private BufferedImage target;
+    private Graphics2D g;
+    private WorldSnapshot snap;
+    private TileMapDrawer drawer;
+    private CRTOverlay crt;
+    private HudRenderer hud;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        AssetManager assets = BenchFixtures.loader().getAssets();
+        TileMap map = BenchFixtures.loadMap(1);
+        snap = BenchFixtures.snapshot(map, 1);
+
+        drawer = new TileMapDrawer();
+        drawer.addParallaxLayer(assets.loadImage("bg_layer1.png"), 0.0f);
+        drawer.addParallaxLayer(assets.loadImage("bg_layer2.png"), 0.2f);
+        drawer.addParallaxLayer(assets.loadImage("bg_layer3.png"), 0.4f);
+        drawer.addParallaxLayer(assets.loadImage("bg_layer4.png"), 0.7f);
+        crt = new CRTOverlay();
+        hud = new HudRenderer();
+
+        target = BenchFixtures.imageConfiguration()
+                .createCompatibleImage(BenchFixtures.WIDTH, BenchFixtures.HEIGHT);
+        g = target.createGraphics();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        g.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage tileMapDraw() {
+        drawer.draw(g, snap, BenchFixtures.WIDTH, BenchFixtures.HEIGHT, 0.5f);
+        return target;
+    }
+
+    @Benchmark
+    public BufferedImage crtOverlayDraw() {
+        crt.draw(g, BenchFixtures.WIDTH, BenchFixtures.HEIGHT, stepMs);
+        return target;
+    }
+
+    @Benchmark
+    public BufferedImage hudDraw() {
+        hud.draw(g, snap, BenchFixtures.WIDTH);
+        return target;
+    }
+}
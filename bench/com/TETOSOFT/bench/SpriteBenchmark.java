@@ -0,0 +1,50 @@
+package com.TETOSOFT.bench;
+
+import java.awt.Image;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.TETOSOFT.assets.AssetManager;
+import com.TETOSOFT.assets.SpriteFactory;
+import com.TETOSOFT.core.GameOptions;
+import com.TETOSOFT.graphics.Animation;
+import com.TETOSOFT.tilegame.sprites.Creature;
+
+/** Per-sprite costs: one animation step and cloning a creature prototype. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class SpriteBenchmark {
+
+    private final long stepMs = GameOptions.tickStepMillis();
+
+    private Animation animation;
+    private Creature prototype;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        AssetManager assets = BenchFixtures.loader().getAssets();
+        Image frame = assets.loadImage("grub1.png");
+        animation = new Animation();
+        for (int i = 0; i < 4; i++)
+            animation.addFrame(frame, 100);
+        animation.start();
+
+        prototype = (Creature) new SpriteFactory(assets).getGrub();
+    }
+
+    @Benchmark
+    public int animationUpdate() {
+        animation.update(stepMs);
+        return animation.getCurrFrameIndex();
+    }
+
+    @Benchmark
+    public Object creatureClone() {
+        return prototype.clone();
+    }
+}
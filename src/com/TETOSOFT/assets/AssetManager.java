@@ -3,13 +3,24 @@ package com.TETOSOFT.assets;
 import java.awt.*;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.imageio.ImageIO;
 import javax.swing.ImageIcon;
 
+import com.TETOSOFT.core.GameConstants;
+import com.TETOSOFT.core.GameEvents;
+import com.TETOSOFT.core.GameOptions;
+import com.TETOSOFT.core.StartupTrace;
+import com.TETOSOFT.graphics.ImageRegion;
+import com.TETOSOFT.graphics.TextureAtlas;
+
 /**
  * Loads images from disk and caches them so each file is only read once.
  * Also provides mirror/flip helpers used when building sprite sheets.
@@ -17,14 +28,33 @@ import javax.swing.ImageIcon;
  * Carga primero desde el classpath (dentro del JAR), probando la extensión
  * en minúsculas y en mayúsculas. Si no encuentra el recurso cae en la ruta
  * relativa al directorio de trabajo (modo dev).
+ *
+ * Every loaded image is converted once to an image compatible with the
+ * {@link GraphicsConfiguration} (same pixel layout as the screen, so Java2D
+ * can cache it in video memory and blit it without converting pixels) with
+ * the transparency its pixels actually need: opaque, bitmask or
+ * translucent. With the startup trace on, each conversion is a
+ * {@code convert} span carrying the blit time before and after.
+ *
+ * Tiles and sprite frames go through {@link #pack(Image)} into a
+ * {@link TextureAtlas} and are drawn as {@link ImageRegion}s of its pages;
+ * mirrored and flipped copies are made once per image.
  */
 public class AssetManager {
 
     private final GraphicsConfiguration gc;
-    private final Map<String, Image> cache = new HashMap<>();
+    // Concurrente: varios mundos (batch headless) comparten las mismas imágenes
+    private final Map<String, Image> cache = new ConcurrentHashMap<>();
+    // Por identidad (Image no redefine equals): región en el atlas, copia espejada y volteada.
+    // Débiles: los frames intermedios (recortes del sheet) no se quedan en memoria
+    private final Map<Image, ImageRegion> packed = Collections.synchronizedMap(new WeakHashMap<>());
+    private final Map<Image, Image> mirrored = Collections.synchronizedMap(new WeakHashMap<>());
+    private final Map<Image, Image> flipped  = Collections.synchronizedMap(new WeakHashMap<>());
+    private final TextureAtlas atlas;
 
     public AssetManager(GraphicsConfiguration gc) {
         this.gc = gc;
+        this.atlas = GameOptions.textureAtlas() ? new TextureAtlas(gc) : null;
     }
 
     /**
@@ -37,6 +67,111 @@ public class AssetManager {
     }
 
     private Image loadFromClasspathOrDisk(String name) {
+        Object event = GameEvents.assetDecode();
+        StartupTrace.Span span = StartupTrace.begin("decode", name);
+        Image img = decode(name);
+        if (span != null) {
+            int w = Math.max(0, img.getWidth(null));
+            int h = Math.max(0, img.getHeight(null));
+            span.arg("width", w).arg("height", h).arg("bytes", 4L * w * h).close();
+        }
+        if (event != null) {
+            int w = Math.max(0, img.getWidth(null));
+            int h = Math.max(0, img.getHeight(null));
+            GameEvents.commitAssetDecode(event, name, w, h, 4L * w * h);
+        }
+        return toCompatible(name, img);
+    }
+
+    // -------------------------------------------------------------------------
+    // Conversión a imagen compatible
+    // -------------------------------------------------------------------------
+
+    /**
+     * Copy of {@code img} compatible with the graphics configuration, with
+     * the transparency detected from its pixels. An image that failed to
+     * load is returned as is.
+     */
+    private Image toCompatible(String name, Image img) {
+        int w = img.getWidth(null);
+        int h = img.getHeight(null);
+        if (w <= 0 || h <= 0) return img;
+
+        StartupTrace.Span span = StartupTrace.begin("convert", name);
+        BufferedImage argb = toIntArgb(img, w, h);
+        int transparency = detectTransparency(argb);
+        BufferedImage out = gc.createCompatibleImage(w, h, transparency);
+        Graphics2D g = out.createGraphics();
+        try {
+            g.setComposite(AlphaComposite.Src);
+            g.drawImage(argb, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        if (span != null) {
+            span.close();
+            span.arg("transparency", TRANSPARENCY_NAMES[transparency])
+                .arg("blitBeforeUs", blitMicros(img, w, h))
+                .arg("blitAfterUs", blitMicros(out, w, h));
+        }
+        return out;
+    }
+
+    private static final String[] TRANSPARENCY_NAMES = { "?", "opaque", "bitmask", "translucent" };
+
+    private static BufferedImage toIntArgb(Image img, int w, int h) {
+        if (img instanceof BufferedImage && ((BufferedImage) img).getType() == BufferedImage.TYPE_INT_ARGB)
+            return (BufferedImage) img;
+        BufferedImage argb = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = argb.createGraphics();
+        try {
+            g.drawImage(img, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return argb;
+    }
+
+    /** {@link Transparency#OPAQUE} if no pixel has alpha, BITMASK if all are 0 or 255, else TRANSLUCENT. */
+    private static int detectTransparency(BufferedImage argb) {
+        int w = argb.getWidth();
+        int[] row = new int[w];
+        int result = Transparency.OPAQUE;
+        for (int y = 0; y < argb.getHeight(); y++) {
+            argb.getRGB(0, y, w, 1, row, 0, w);
+            for (int pixel : row) {
+                int alpha = pixel >>> 24;
+                if (alpha == 0xff) continue;
+                if (alpha != 0) return Transparency.TRANSLUCENT;
+                result = Transparency.BITMASK;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Microseconds one blit of {@code img} takes onto an opaque compatible
+     * image (what a frame draws onto), median of a few after a warm-up.
+     */
+    private double blitMicros(Image img, int w, int h) {
+        BufferedImage target = gc.createCompatibleImage(w, h, Transparency.OPAQUE);
+        Graphics2D g = target.createGraphics();
+        long[] times = new long[GameConstants.STARTUP_TRACE_BLIT_SAMPLES];
+        try {
+            g.drawImage(img, 0, 0, null);
+            for (int i = 0; i < times.length; i++) {
+                long t0 = System.nanoTime();
+                g.drawImage(img, 0, 0, null);
+                times[i] = System.nanoTime() - t0;
+            }
+        } finally {
+            g.dispose();
+        }
+        Arrays.sort(times);
+        return Math.round(times[times.length / 2] / 100.0) / 10.0;
+    }
+
+    private Image decode(String name) {
         // 1. Intentar cargar desde dentro del JAR con el nombre tal cual
         Image img = tryClasspath("/images/" + name);
         if (img != null) return img;
@@ -54,8 +189,16 @@ public class AssetManager {
             if (img != null) return img;
         }
 
-        // 4. Fallback: ruta relativa al directorio de trabajo (modo desarrollo)
-        img = new ImageIcon("images/" + name).getImage();
+        // 4. Fallback: ruta relativa al directorio de trabajo (modo desarrollo).
+        //    En Linux el disco distingue mayúsculas: probar también las variantes
+        String path = "images/" + name;
+        if (!new File(path).exists() && dot >= 0) {
+            String upper = "images/" + name.substring(0, dot) + name.substring(dot).toUpperCase();
+            String lower = "images/" + name.substring(0, dot) + name.substring(dot).toLowerCase();
+            if (new File(upper).exists()) path = upper;
+            else if (new File(lower).exists()) path = lower;
+        }
+        img = new ImageIcon(path).getImage();
         if (img.getWidth(null) <= 0) {
             System.err.println("[AssetManager] No se encontró la imagen: " + name);
         }
@@ -75,12 +218,36 @@ public class AssetManager {
 
     /** Returns a horizontally mirrored copy of the given image. */
     public Image getMirrorImage(Image image) {
-        return getScaledImage(image, -1, 1);
+        return mirrored.computeIfAbsent(image, i -> getScaledImage(i, -1, 1));
     }
 
     /** Returns a vertically flipped copy of the given image. */
     public Image getFlippedImage(Image image) {
-        return getScaledImage(image, 1, -1);
+        return flipped.computeIfAbsent(image, i -> getScaledImage(i, 1, -1));
+    }
+
+    /**
+     * Returns the region of the texture atlas {@code image} was packed
+     * into, the same region every time it is packed. With
+     * {@code -Dgame.atlas=false}, or if it does not fit in a page, the
+     * region is the whole of {@code image}.
+     */
+    public ImageRegion pack(Image image) {
+        return packed.computeIfAbsent(image, atlas != null ? atlas::add : ImageRegion::of);
+    }
+
+    /**
+     * Done packing: trims the atlas pages to the width they use
+     * ({@link TextureAtlas#trim()}). Images packed afterwards go to new
+     * pages.
+     */
+    public void finishPacking() {
+        if (atlas != null) atlas.trim();
+    }
+
+    /** The atlas tiles and sprite frames are packed into, or null if it is off. */
+    public TextureAtlas getAtlas() {
+        return atlas;
     }
 
     // -------------------------------------------------------------------------
@@ -92,8 +259,10 @@ public class AssetManager {
                 (scaleX - 1) * src.getWidth(null) / 2,
                 (scaleY - 1) * src.getHeight(null) / 2);
 
-        Image dst = gc.createCompatibleImage(
-                src.getWidth(null), src.getHeight(null), Transparency.BITMASK);
+        // Conserva la transparencia de la imagen ya convertida
+        int transparency = src instanceof BufferedImage
+                ? ((BufferedImage) src).getTransparency() : Transparency.BITMASK;
+        Image dst = gc.createCompatibleImage(src.getWidth(null), src.getHeight(null), transparency);
         Graphics2D g = (Graphics2D) dst.getGraphics();
         g.drawImage(src, transform, null);
         g.dispose();
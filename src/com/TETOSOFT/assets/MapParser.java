@@ -1,12 +1,14 @@
 package com.TETOSOFT.assets;
 
-import java.awt.Image;
 import java.io.*;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import com.TETOSOFT.core.GameEvents;
+import com.TETOSOFT.core.StartupTrace;
+import com.TETOSOFT.graphics.ImageRegion;
 import com.TETOSOFT.graphics.Sprite;
 import com.TETOSOFT.tilegame.TileMap;
 import com.TETOSOFT.tilegame.TileMapDrawer;
@@ -27,7 +29,7 @@ public class MapParser {
     private final SpriteFactory spriteFactory;
 
     /** Tile images indexed by letter (index 0 = 'A'). */
-    private final List<Image> tileImages = new ArrayList<>();
+    private final List<ImageRegion> tileImages = new ArrayList<>();
 
     /**
      * Maps a map-file character to the prototype sprite that should be placed
@@ -38,7 +40,10 @@ public class MapParser {
     public MapParser(AssetManager assets, SpriteFactory spriteFactory) {
         this.assets        = assets;
         this.spriteFactory = spriteFactory;
-        loadTileImages();
+        try (StartupTrace.Span s = StartupTrace.begin("loadTileImages")) {
+            loadTileImages();
+            if (s != null) s.arg("tiles", tileImages.size());
+        }
         spriteMap = buildSpriteMap();
     }
 
@@ -51,6 +56,7 @@ public class MapParser {
      * {@link TileMap}, or throws {@link IOException} if the file cannot be read.
      */
     public TileMap parse(String path) throws IOException {
+        Object event = GameEvents.mapParse();
         List<String> lines = readLines(path);
         int width  = lines.stream().mapToInt(String::length).max().orElse(0);
         int height = lines.size();
@@ -76,6 +82,10 @@ public class MapParser {
         player.setY(height);
         map.setPlayer(player);
 
+        if (event != null) {
+            GameEvents.commitMapParse(event, path, width, height, map.getSpriteCount(),
+                    lines.stream().mapToInt(String::length).sum());
+        }
         return map;
     }
 
@@ -96,7 +106,8 @@ public class MapParser {
 
     /**
      * Carga las imágenes de tiles (A.png, B.png, ...) desde el classpath
-     * (dentro del JAR) o desde disco en modo desarrollo.
+     * (dentro del JAR) o desde disco en modo desarrollo, empaquetadas en el
+     * atlas.
      */
     private void loadTileImages() {
         char ch = 'A';
@@ -107,7 +118,7 @@ public class MapParser {
                     && !new File("images/" + name).exists()) {
                 break;
             }
-            tileImages.add(assets.loadImage(name));
+            tileImages.add(assets.pack(assets.loadImage(name)));
             ch++;
         }
     }
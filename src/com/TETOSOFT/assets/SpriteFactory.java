@@ -3,6 +3,7 @@ package com.TETOSOFT.assets;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 
+import com.TETOSOFT.core.StartupTrace;
 import com.TETOSOFT.graphics.Animation;
 import com.TETOSOFT.graphics.Sprite;
 import com.TETOSOFT.tilegame.sprites.*;
@@ -12,7 +13,9 @@ import com.TETOSOFT.tilegame.sprites.*;
  * when populating a level.
  *
  * All image transforms (mirror, flip) are applied here so that the rest of
- * the code never needs to know about sprite sheet layout.
+ * the code never needs to know about sprite sheet layout. Every animation
+ * frame is packed into the texture atlas ({@link AssetManager#pack}) and
+ * drawn as a region of its page.
  */
 public class SpriteFactory {
 
@@ -27,15 +30,26 @@ public class SpriteFactory {
     private final Sprite flySprite;
     private final Sprite variantFlySprite; // prototipo para VariantFly
 
+    @SuppressWarnings("try")
     public SpriteFactory(AssetManager assets) {
         this.assets = assets;
-        playerSprite     = buildPlayerSprite();
-        flySprite        = buildFlySprite();
-        grubSprite       = buildGrubSprite();
-        variantFlySprite = buildVariantFlySprite();
-        coinSprite       = buildCoinSprite();
-        musicSprite      = buildMusicSprite();
-        goalSprite       = buildGoalSprite();
+        try (StartupTrace.Span s = StartupTrace.begin("player")) {
+            playerSprite = buildPlayerSprite();
+        }
+        try (StartupTrace.Span s = StartupTrace.begin("fly")) {
+            flySprite = buildFlySprite();
+        }
+        try (StartupTrace.Span s = StartupTrace.begin("grub")) {
+            grubSprite = buildGrubSprite();
+        }
+        try (StartupTrace.Span s = StartupTrace.begin("variant fly")) {
+            variantFlySprite = buildVariantFlySprite();
+        }
+        try (StartupTrace.Span s = StartupTrace.begin("power-ups")) {
+            coinSprite  = buildCoinSprite();
+            musicSprite = buildMusicSprite();
+            goalSprite  = buildGoalSprite();
+        }
     }
 
     // -------------------------------------------------------------------------
@@ -100,7 +114,7 @@ public class SpriteFactory {
         Animation deadLeft  = createPlayerAnim(sheet, true,  true);
 
         Player player = new Player(left, right, deadLeft, deadRight);
-        player.setDuckImage(assets.loadImage("player_duck.png"));
+        player.setDuckImage(assets.pack(assets.loadImage("player_duck.png")));
         return player;
     }
 
@@ -146,9 +160,9 @@ public class SpriteFactory {
         }
 
         Animation anim = new Animation();
-        for (int i : WALK_FRAMES) anim.addFrame(frames[i], 100);
-        anim.addFrame(frames[IDLE_FRAME], 100);
-        anim.addFrame(frames[JUMP_FRAME], 100);
+        for (int i : WALK_FRAMES) anim.addFrame(assets.pack(frames[i]), 100);
+        anim.addFrame(assets.pack(frames[IDLE_FRAME]), 100);
+        anim.addFrame(assets.pack(frames[JUMP_FRAME]), 100);
         return anim;
     }
 
@@ -185,10 +199,10 @@ public class SpriteFactory {
 
     private Animation createFlyAnim(Image i1, Image i2, Image i3) {
         Animation anim = new Animation();
-        anim.addFrame(i1, 50);
-        anim.addFrame(i2, 50);
-        anim.addFrame(i3, 50);
-        anim.addFrame(i2, 50);
+        anim.addFrame(assets.pack(i1), 50);
+        anim.addFrame(assets.pack(i2), 50);
+        anim.addFrame(assets.pack(i3), 50);
+        anim.addFrame(assets.pack(i2), 50);
         return anim;
     }
 
@@ -207,8 +221,8 @@ public class SpriteFactory {
 
     private Animation createGrubAnim(Image i1, Image i2) {
         Animation anim = new Animation();
-        anim.addFrame(i1, 100);
-        anim.addFrame(i2, 100);
+        anim.addFrame(assets.pack(i1), 100);
+        anim.addFrame(assets.pack(i2), 100);
         return anim;
     }
 
@@ -216,7 +230,7 @@ public class SpriteFactory {
         Animation anim = new Animation();
         // Los archivos en el JAR son coin1.PNG...coin5.PNG — AssetManager los resuelve
         for (int i = 1; i <= 5; i++)
-            anim.addFrame(assets.loadImage("coin" + i + ".png"), 250);
+            anim.addFrame(assets.pack(assets.loadImage("coin" + i + ".png")), 250);
         return new PowerUp.Star(anim);
     }
 
@@ -224,13 +238,13 @@ public class SpriteFactory {
         Animation anim = new Animation();
         // En el JAR no existen music1-3.png; se usan star1-3.PNG como fallback visual
         for (int i = 1; i <= 3; i++)
-            anim.addFrame(assets.loadImage("star" + i + ".png"), 150);
+            anim.addFrame(assets.pack(assets.loadImage("star" + i + ".png")), 150);
         return new PowerUp.Music(anim);
     }
 
     private Sprite buildGoalSprite() {
         Animation anim = new Animation();
-        anim.addFrame(assets.loadImage("heart.png"), 150);
+        anim.addFrame(assets.pack(assets.loadImage("heart.png")), 150);
         return new PowerUp.Goal(anim);
     }
 
@@ -0,0 +1,205 @@
+package com.TETOSOFT.core;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Cost attribution per sprite class: live count, spawns, removals, and the
+ * nanoseconds spent updating and drawing each type, plus how many tile
+ * collision queries and sprite AABB tests the tick made.
+ *
+ * <pre>
+ * long t = EntityStats.begin();
+ * physics.update(creature, map, elapsed);
+ * EntityStats.updated(creature.getClass(), t);
+ * </pre>
+ *
+ * Off unless {@code -Dgame.entityStats=file} is given ({@link #begin()}
+ * returns 0 and every other call returns at once). While on, the one world
+ * that opted in ({@code GameWorld.setExportsEntityStats}) calls
+ * {@link #exportIfDue} every tick; once a second it counts the live
+ * sprites and appends one JSON line with the counters of that second
+ * (deltas, not totals) to the file:
+ *
+ * <pre>
+ * {"t":12.0,"ticks":59,"tileQueries":3540,"aabbTests":1888,"types":{"Grub":{"live":14,"spawns":0,"deaths":1,"updates":826,"updateUs":410.2,"draws":840,"drawUs":233.9},...}}
+ * </pre>
+ *
+ * so a soak run can be plotted per type. Counters are atomic (the parallel
+ * systems and the render thread record concurrently) and the export is
+ * synchronized; the live count is that of the world that exports, so the
+ * other worlds running at the same time only add to the counters.
+ */
+public final class EntityStats {
+
+    // Campos por tipo, en el array plano de contadores
+    private static final int SPAWNS    = 0;
+    private static final int DEATHS    = 1;
+    private static final int UPDATES   = 2;
+    private static final int UPDATE_NS = 3;
+    private static final int DRAWS     = 4;
+    private static final int DRAW_NS   = 5;
+    private static final int FIELDS    = 6;
+
+    private static final int MAX_TYPES = GameConstants.ENTITY_STATS_MAX_TYPES;
+
+    private static final String path = GameOptions.entityStatsFile();
+    private static final boolean enabled = path != null;
+
+    private static final AtomicLongArray counters = new AtomicLongArray(MAX_TYPES * FIELDS);
+    private static final AtomicLongArray queries  = new AtomicLongArray(2); // tiles, AABB
+
+    // Registro de tipos: índice 0 = "otros" cuando se llena
+    private static final String[] names = new String[MAX_TYPES];
+    private static volatile int typeCount = 1;
+    static {
+        names[0] = "other";
+    }
+    private static final ClassValue<Integer> TYPES = new ClassValue<Integer>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            return register(type);
+        }
+    };
+
+    // Exportación (con el monitor de la clase)
+    private static final int[] live = new int[MAX_TYPES];
+    private static long started;
+    private static long nextExport;
+    private static int  ticks;
+    private static PrintWriter out;
+
+    private EntityStats() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Index of {@code type} for {@link #drawn(int, long)}; 0 when disabled. */
+    public static int typeOf(Class<?> type) {
+        return enabled ? TYPES.get(type) : 0;
+    }
+
+    // -------------------------------------------------------------------------
+    // Registro
+    // -------------------------------------------------------------------------
+
+    /** Start of a measured update or draw: the current nanoTime, or 0 if disabled. */
+    public static long begin() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /** One sprite of {@code type} updated, started at {@link #begin()}. */
+    public static void updated(Class<?> type, long start) {
+        if (start == 0) return;
+        int base = TYPES.get(type) * FIELDS;
+        counters.addAndGet(base + UPDATE_NS, System.nanoTime() - start);
+        counters.incrementAndGet(base + UPDATES);
+    }
+
+    /** One sprite of type {@code index} ({@link #typeOf}) drawn, started at {@link #begin()}. */
+    public static void drawn(int index, long start) {
+        if (start == 0) return;
+        int base = index * FIELDS;
+        counters.addAndGet(base + DRAW_NS, System.nanoTime() - start);
+        counters.incrementAndGet(base + DRAWS);
+    }
+
+    /** A sprite of {@code type} was added to a running map. */
+    public static void spawned(Class<?> type) {
+        if (enabled) counters.incrementAndGet(TYPES.get(type) * FIELDS + SPAWNS);
+    }
+
+    /** A sprite of {@code type} left the map (killed or collected). */
+    public static void removed(Class<?> type) {
+        if (enabled) counters.incrementAndGet(TYPES.get(type) * FIELDS + DEATHS);
+    }
+
+    /** One tile collision query ({@code PhysicsSystem.getTileCollision}). */
+    public static void tileQuery() {
+        if (enabled) queries.incrementAndGet(0);
+    }
+
+    /** One sprite-vs-sprite bounding box test. */
+    public static void aabbTest() {
+        if (enabled) queries.incrementAndGet(1);
+    }
+
+    // -------------------------------------------------------------------------
+    // Exportación
+    // -------------------------------------------------------------------------
+
+    /**
+     * Called by the simulation after every tick. Once a second, counts the
+     * live sprites ({@code player} plus {@code sprites}) and appends a line.
+     */
+    public static synchronized void exportIfDue(Object player, Iterator<?> sprites) {
+        if (!enabled) return;
+        ticks++;
+        long now = System.nanoTime();
+        if (started == 0) {
+            started = now;
+            nextExport = now + GameConstants.ENTITY_STATS_INTERVAL_MS * 1_000_000L;
+            return;
+        }
+        if (now - nextExport < 0) return;
+        nextExport = now + GameConstants.ENTITY_STATS_INTERVAL_MS * 1_000_000L;
+
+        Arrays.fill(live, 0);
+        if (player != null) live[TYPES.get(player.getClass())]++;
+        while (sprites.hasNext()) live[TYPES.get(sprites.next().getClass())]++;
+
+        StringBuilder line = new StringBuilder(256);
+        line.append(String.format(Locale.ROOT, "{\"t\":%.1f,\"ticks\":%d,\"tileQueries\":%d,\"aabbTests\":%d,\"types\":{",
+                (now - started) / 1e9, ticks, queries.getAndSet(0, 0), queries.getAndSet(1, 0)));
+        ticks = 0;
+        boolean first = true;
+        for (int i = 0, n = typeCount; i < n; i++) {
+            int base = i * FIELDS;
+            long spawns = counters.getAndSet(base + SPAWNS, 0);
+            long deaths = counters.getAndSet(base + DEATHS, 0);
+            long updates = counters.getAndSet(base + UPDATES, 0);
+            long updateNs = counters.getAndSet(base + UPDATE_NS, 0);
+            long draws = counters.getAndSet(base + DRAWS, 0);
+            long drawNs = counters.getAndSet(base + DRAW_NS, 0);
+            if (live[i] == 0 && spawns == 0 && deaths == 0 && updates == 0 && draws == 0) continue;
+            if (!first) line.append(',');
+            first = false;
+            line.append(String.format(Locale.ROOT,
+                    "\"%s\":{\"live\":%d,\"spawns\":%d,\"deaths\":%d,\"updates\":%d,\"updateUs\":%.1f,\"draws\":%d,\"drawUs\":%.1f}",
+                    names[i], live[i], spawns, deaths, updates, updateNs / 1e3, draws, drawNs / 1e3));
+        }
+        line.append("}}");
+        write(line.toString());
+    }
+
+    private static void write(String line) {
+        if (out == null) {
+            try {
+                out = new PrintWriter(new FileWriter(path, true));
+                System.out.println("[EntityStats] escribiendo en " + path);
+            } catch (IOException ex) {
+                System.err.println("[EntityStats] no se pudo abrir " + path + ": " + ex);
+                return;
+            }
+        }
+        out.println(line);
+        out.flush();
+    }
+
+    private static synchronized int register(Class<?> type) {
+        int n = typeCount;
+        if (n == MAX_TYPES) return 0;
+        // com.x.PowerUp$Star -> PowerUp.Star
+        String name = type.getName();
+        names[n] = name.substring(name.lastIndexOf('.') + 1).replace('$', '.');
+        typeCount = n + 1;
+        return n;
+    }
+}
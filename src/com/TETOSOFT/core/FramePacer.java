@@ -0,0 +1,244 @@
+package com.TETOSOFT.core;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Caps the frame rate of the game loop without burning a whole core.
+ *
+ * {@link #sync()} is called once per frame, right after the frame has been
+ * presented. It parks the thread for most of the remaining frame time and
+ * only spins for the last stretch, whose length is learnt from how much the
+ * OS actually oversleeps. That keeps sub-millisecond precision near the
+ * deadline while the CPU stays idle most of the frame.
+ *
+ * A target of {@code 0} fps means uncapped (benchmark mode): {@link #sync()}
+ * only records statistics.
+ *
+ * Pacing statistics are recomputed once per second and can be read from any
+ * thread.
+ */
+public class FramePacer {
+
+    /** Used when the display does not report its refresh rate. */
+    public static final int DEFAULT_REFRESH_RATE = 60;
+
+    private static final long ONE_SECOND = 1_000_000_000L;
+    private static final long ONE_MS     = 1_000_000L;
+    private static final long MAX_SLEEP_SAMPLE = 4 * ONE_MS;
+
+    private final int  targetFps;
+    private final long periodNanos;
+
+    /** Next frame deadline (absolute nanoTime). */
+    private long deadline;
+
+    // Estimación adaptativa de cuánto se pasa parkNanos(1 ms)
+    private double sleepEstimate = 2 * ONE_MS;
+    private double sleepMean     = 2 * ONE_MS;
+    private double sleepM2       = 0;
+    private long   sleepSamples  = 1;
+
+    // Acumuladores de la ventana actual (solo los toca el hilo del bucle)
+    private long windowStart;
+    private long windowFrames;
+    private long windowSleepNanos;
+    private long windowSpinNanos;
+    private long windowMaxFrame;
+    /** CPU del hilo al abrir la ventana; -1 hasta el primer sync() tras reset(). */
+    private long windowCpuStart = -1;
+    private long lastFrameEnd;
+    private long lastWorkNanos;
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final boolean cpuTimeSupported = threads.isCurrentThreadCpuTimeSupported();
+
+    // Estadísticas publicadas (lectura desde cualquier hilo)
+    private volatile float fps;
+    private volatile float avgFrameMillis;
+    private volatile float maxFrameMillis;
+    private volatile float sleepShare;
+    private volatile float spinShare;
+    private volatile float cpuLoad = -1f;
+
+    /**
+     * @param targetFps frames per second to hold, or {@code 0} for uncapped
+     */
+    public FramePacer(int targetFps) {
+        this.targetFps   = Math.max(0, targetFps);
+        this.periodNanos = this.targetFps > 0 ? ONE_SECOND / this.targetFps : 0;
+        reset();
+    }
+
+    /**
+     * Builds a pacer from {@link GameOptions#fpsCap(int)}.
+     *
+     * @param displayRefreshRate refresh rate reported by the display in Hz,
+     *                           or {@code 0} if unknown
+     */
+    public static FramePacer fromOptions(int displayRefreshRate) {
+        int refresh = displayRefreshRate > 0 ? displayRefreshRate : DEFAULT_REFRESH_RATE;
+        return new FramePacer(GameOptions.fpsCap(refresh));
+    }
+
+    /** Restarts the deadline and the statistics window (e.g. after a stall). */
+    public final void reset() {
+        long now = System.nanoTime();
+        deadline     = now + periodNanos;
+        lastFrameEnd = now;
+        startWindow(now);
+        // reset() puede venir de otro hilo (el constructor corre en init()):
+        // la base de CPU se toma en el primer sync(), desde el hilo del bucle
+        windowCpuStart = -1;
+    }
+
+    /**
+     * Waits until the next frame deadline and records the frame in the
+     * statistics. Must be called from the loop thread once per frame.
+     */
+    public void sync() {
+        if (cpuTimeSupported && windowCpuStart < 0) {
+            // La ventana empieza aquí: CPU y tiempo medidos desde el mismo instante
+            windowCpuStart = threads.getCurrentThreadCpuTime();
+            windowStart    = System.nanoTime();
+        }
+        long frameEnd = System.nanoTime();
+        long frameTime = frameEnd - lastFrameEnd;
+        lastWorkNanos = frameTime;
+        if (frameTime > windowMaxFrame) windowMaxFrame = frameTime;
+
+        if (periodNanos > 0) {
+            waitUntilDeadline();
+
+            long now = System.nanoTime();
+            deadline += periodNanos;
+            // Si vamos más de un frame tarde no intentamos recuperar: se
+            // reengancha al ritmo desde ahora en lugar de encadenar frames
+            if (now - deadline > periodNanos) {
+                deadline = now + periodNanos;
+            }
+        }
+
+        lastFrameEnd = System.nanoTime();
+        windowFrames++;
+        if (lastFrameEnd - windowStart >= ONE_SECOND) {
+            publishWindow(lastFrameEnd);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Statistics
+    // -------------------------------------------------------------------------
+
+    /** Target frame rate, or {@code 0} when uncapped. */
+    public int getTargetFps() { return targetFps; }
+
+    public boolean isUncapped() { return targetFps == 0; }
+
+    /**
+     * Work time of the last frame passed to {@link #sync()} (pacing wait
+     * excluded), in ns. Loop thread only.
+     */
+    public long getLastWorkNanos() { return lastWorkNanos; }
+
+    /** Frames presented during the last full second. */
+    public float getFps() { return fps; }
+
+    /** Average time between presents over the last second, in ms. */
+    public float getAverageFrameMillis() { return avgFrameMillis; }
+
+    /** Longest frame of the last second (work only, pacing wait excluded), in ms. */
+    public float getMaxFrameMillis() { return maxFrameMillis; }
+
+    /** Fraction of the last second spent parked by the pacer (0-1). */
+    public float getSleepShare() { return sleepShare; }
+
+    /** Fraction of the last second spent spin-waiting by the pacer (0-1). */
+    public float getSpinShare() { return spinShare; }
+
+    /**
+     * CPU time used by the loop thread over the last second divided by wall
+     * time (0-1), or {@code -1} if the JVM cannot measure thread CPU time.
+     */
+    public float getCpuLoad() { return cpuLoad; }
+
+    @Override
+    public String toString() {
+        return String.format("target=%s fps=%.1f avg=%.2fms max=%.2fms sleep=%.0f%% spin=%.0f%% cpu=%s",
+                targetFps > 0 ? targetFps + "" : "uncapped",
+                fps, avgFrameMillis, maxFrameMillis,
+                sleepShare * 100, spinShare * 100,
+                cpuLoad < 0 ? "n/a" : String.format("%.0f%%", cpuLoad * 100));
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    private void waitUntilDeadline() {
+        long start = System.nanoTime();
+
+        // 1. Dormir en tramos de 1 ms mientras quede margen de sobra
+        long now = start;
+        while (deadline - now > sleepEstimate) {
+            LockSupport.parkNanos(ONE_MS);
+            long after = System.nanoTime();
+            updateSleepEstimate(after - now);
+            now = after;
+        }
+        long slept = now - start;
+
+        // 2. Espera activa el último tramo para clavar el deadline
+        while (deadline - now > 0) {
+            Thread.yield();
+            now = System.nanoTime();
+        }
+
+        windowSleepNanos += slept;
+        windowSpinNanos  += now - start - slept;
+    }
+
+    /**
+     * Welford running mean/variance of the real duration of a 1 ms park.
+     * Sleeping stops once the remaining time is below mean + 1 stddev.
+     * Samples are clamped so a single scheduler hiccup cannot turn the whole
+     * frame into a spin-wait.
+     */
+    private void updateSleepEstimate(long observed) {
+        observed = Math.min(observed, MAX_SLEEP_SAMPLE);
+        // Ventana acotada para adaptarse si cambia la carga del sistema
+        if (sleepSamples > 1000) {
+            sleepSamples = 1;
+            sleepMean    = sleepEstimate;
+            sleepM2      = 0;
+        }
+        sleepSamples++;
+        double delta = observed - sleepMean;
+        sleepMean += delta / sleepSamples;
+        sleepM2   += delta * (observed - sleepMean);
+        double stddev = Math.sqrt(sleepM2 / (sleepSamples - 1));
+        sleepEstimate = Math.min(sleepMean + stddev, periodNanos / 2.0);
+    }
+
+    private void publishWindow(long now) {
+        double elapsed = now - windowStart;
+        fps            = (float) (windowFrames * (double) ONE_SECOND / elapsed);
+        avgFrameMillis = (float) (elapsed / windowFrames / ONE_MS);
+        maxFrameMillis = (float) windowMaxFrame / ONE_MS;
+        sleepShare     = (float) (windowSleepNanos / elapsed);
+        spinShare      = (float) (windowSpinNanos / elapsed);
+        long cpu = cpuTimeSupported ? threads.getCurrentThreadCpuTime() : -1;
+        if (cpu >= 0 && windowCpuStart >= 0) cpuLoad = (float) ((cpu - windowCpuStart) / elapsed);
+        startWindow(now);
+        windowCpuStart = cpu;
+    }
+
+    private void startWindow(long now) {
+        windowStart      = now;
+        windowFrames     = 0;
+        windowSleepNanos = 0;
+        windowSpinNanos  = 0;
+        windowMaxFrame   = 0;
+    }
+}
@@ -0,0 +1,199 @@
+package com.TETOSOFT.core;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Times the phases of a frame with {@code System.nanoTime()} into one
+ * {@link Histogram} per {@link Phase}.
+ *
+ * <pre>
+ * long t = FrameProfiler.begin();
+ * ... tiles ...
+ * FrameProfiler.end(FrameProfiler.Phase.DRAW_TILES, t);
+ * </pre>
+ *
+ * Recording is off until {@link #setEnabled(boolean)} (or
+ * {@code -Dgame.profiler=true}); while off, {@link #begin()} returns 0 and
+ * {@link #end} returns at once. While on, recording is a nanoTime read and
+ * an atomic increment: it never allocates or locks, so it does not change
+ * what it measures. Phases recorded from worker threads (parallel systems)
+ * are fine.
+ *
+ * A reader calls {@link #collect()} now and then (the overlay, once a
+ * second) to move the counts into an "interval" view and a running total;
+ * {@link #writeCsv} dumps the totals.
+ */
+public final class FrameProfiler {
+
+    /** Measured phases, in the order they appear in the overlay and CSV. */
+    public enum Phase {
+        /** Whole simulation tick. */
+        TICK("tick"),
+        INPUT("  input"),
+        PLAYER_PHYSICS("  physics player"),
+        CREATURE_PHYSICS("  physics creatures"),
+        COLLISION("  collision"),
+        SPRITE_UPDATE("  sprite update"),
+        /** Whole draw call. */
+        DRAW("draw"),
+        DRAW_BACKGROUND("  background"),
+        DRAW_TILES("  tiles"),
+        DRAW_SPRITES("  sprites"),
+        DRAW_HUD("  hud"),
+        DRAW_CRT("  crt"),
+        /** ScreenManager.update: BufferStrategy.show + Toolkit.sync. */
+        PRESENT("present"),
+        /** Time parked/spinning in the frame pacer. */
+        PACING("pacing"),
+        /** Key press to the present of the first frame showing it ({@link InputLatency}). */
+        LATENCY_JUMP("latency jump"),
+        LATENCY_MOVE_LEFT("latency moveLeft"),
+        LATENCY_MOVE_RIGHT("latency moveRight"),
+        LATENCY_SPRINT("latency sprint");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+
+        /** Label for the overlay; sub-phases are indented. */
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+    private static final Histogram[] HISTOGRAMS = new Histogram[PHASES.length];
+    static {
+        for (int i = 0; i < HISTOGRAMS.length; i++) HISTOGRAMS[i] = new Histogram();
+    }
+
+    private static volatile boolean enabled = Boolean.getBoolean("game.profiler");
+    private static volatile boolean everEnabled = enabled;
+
+    // Lado lector (synchronized: overlay y volcado a CSV)
+    private static final long[][] interval    = new long[PHASES.length][Histogram.BUCKETS];
+    private static final long[]   intervalMax = new long[PHASES.length];
+    private static final long[][] total       = new long[PHASES.length][Histogram.BUCKETS];
+    private static final long[]   totalMax    = new long[PHASES.length];
+    private static long lastCollect = System.nanoTime();
+    private static long intervalNanos;
+
+    private FrameProfiler() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean on) {
+        enabled = on;
+        if (on) everEnabled = true;
+    }
+
+    /** Whether anything was recorded this session (worth a CSV). */
+    public static boolean wasUsed() {
+        return everEnabled;
+    }
+
+    /** Start of a measured section: the current nanoTime, or 0 if disabled. */
+    public static long begin() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /** End of a section started with {@link #begin()}. */
+    public static void end(Phase phase, long start) {
+        if (start != 0) HISTOGRAMS[phase.ordinal()].record(System.nanoTime() - start);
+    }
+
+    /** Records an already measured duration. */
+    public static void record(Phase phase, long nanos) {
+        if (enabled) HISTOGRAMS[phase.ordinal()].record(nanos);
+    }
+
+    // -------------------------------------------------------------------------
+    // Lectura
+    // -------------------------------------------------------------------------
+
+    /**
+     * Moves everything recorded since the previous call into the interval
+     * view (replacing it) and the running totals.
+     */
+    public static synchronized void collect() {
+        long now = System.nanoTime();
+        intervalNanos = now - lastCollect;
+        lastCollect = now;
+        for (int p = 0; p < PHASES.length; p++) {
+            Arrays.fill(interval[p], 0);
+            intervalMax[p] = HISTOGRAMS[p].drainTo(interval[p]);
+            for (int i = 0; i < Histogram.BUCKETS; i++) total[p][i] += interval[p][i];
+            totalMax[p] = Math.max(totalMax[p], intervalMax[p]);
+        }
+    }
+
+    /**
+     * Statistics of the last interval for {@code phase}:
+     * {@code out = {count, p50, p95, p99, max}} (times in ns).
+     */
+    public static synchronized void intervalStats(Phase phase, long[] out) {
+        stats(interval[phase.ordinal()], intervalMax[phase.ordinal()], out);
+    }
+
+    /** Length of the last interval, in ns. */
+    public static synchronized long getIntervalNanos() {
+        return intervalNanos;
+    }
+
+    /**
+     * Collects and writes the session totals as CSV (one row per phase,
+     * times in microseconds).
+     */
+    public static synchronized void writeCsv(String path) throws IOException {
+        collect();
+        long[] s = new long[5];
+        try (PrintWriter out = new PrintWriter(new FileWriter(path))) {
+            out.println("phase,count,mean_us,p50_us,p95_us,p99_us,max_us");
+            for (Phase phase : PHASES) {
+                long[] buckets = total[phase.ordinal()];
+                stats(buckets, totalMax[phase.ordinal()], s);
+                out.printf(Locale.ROOT, "%s,%d,%.1f,%.1f,%.1f,%.1f,%.1f%n",
+                        phase.name().toLowerCase(Locale.ROOT), s[0],
+                        Histogram.mean(buckets, s[0]) / 1e3, s[1] / 1e3, s[2] / 1e3, s[3] / 1e3, s[4] / 1e3);
+            }
+        }
+    }
+
+    /**
+     * If the profiler was used this session, writes
+     * {@code profiler-yyyyMMdd-HHmmss.csv} in the working directory and
+     * reports where. Errors are printed, never thrown.
+     */
+    public static void dumpCsvIfUsed() {
+        if (!everEnabled) return;
+        String path = "profiler-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".csv";
+        try {
+            writeCsv(path);
+            System.out.println("[FrameProfiler] CSV guardado en " + path);
+        } catch (IOException ex) {
+            System.err.println("[FrameProfiler] no se pudo guardar " + path + ": " + ex);
+        }
+    }
+
+    private static void stats(long[] buckets, long max, long[] out) {
+        long n = Histogram.count(buckets);
+        out[0] = n;
+        out[1] = Histogram.percentile(buckets, n, 0.50);
+        out[2] = Histogram.percentile(buckets, n, 0.95);
+        out[3] = Histogram.percentile(buckets, n, 0.99);
+        // El bucket tiene ~3 % de error; el máximo exacto es mejor cota
+        out[4] = max;
+        for (int i = 1; i <= 3; i++) out[i] = Math.min(out[i], max);
+    }
+}
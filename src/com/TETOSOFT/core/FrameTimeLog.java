@@ -0,0 +1,90 @@
+package com.TETOSOFT.core;
+
+import java.util.Arrays;
+
+/**
+ * Records the time between consecutive frames over a fixed window and
+ * summarises it (mean, percentiles, hitches).
+ *
+ * Meant for one-off measurements such as the first seconds of play: the
+ * sample array is allocated up front and recording stops once the window
+ * has elapsed or the array is full. {@link #frame} must always be called
+ * from the same thread.
+ */
+public final class FrameTimeLog {
+
+    private final String label;
+    private final long   windowNanos;
+    private final long[] samples;
+
+    private int     count;
+    private long    firstFrame = -1;
+    private long    lastFrame;
+    private boolean finished;
+
+    /**
+     * @param label       name printed in the summary
+     * @param windowNanos how long to record, from the first frame
+     * @param maxFrames   sample capacity
+     */
+    public FrameTimeLog(String label, long windowNanos, int maxFrames) {
+        this.label       = label;
+        this.windowNanos = windowNanos;
+        this.samples     = new long[maxFrames];
+    }
+
+    /**
+     * Records a frame presented at {@code now}. The first call only starts
+     * the window.
+     *
+     * @return {@code true} exactly once, on the frame that completes the window
+     */
+    public boolean frame(long now) {
+        if (finished) return false;
+        if (firstFrame < 0) {
+            firstFrame = lastFrame = now;
+            return false;
+        }
+        samples[count++] = now - lastFrame;
+        lastFrame = now;
+        if (now - firstFrame >= windowNanos || count == samples.length) {
+            finished = true;
+            return true;
+        }
+        return false;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public int getFrameCount() {
+        return count;
+    }
+
+    /**
+     * One-line summary. {@code budgetNanos} is the frame budget used to count
+     * hitches (frames longer than twice the budget); pass 0 to skip it.
+     */
+    public String summary(long budgetNanos) {
+        if (count == 0) return label + ": sin frames";
+
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        long total = 0, hitches = 0;
+        for (long s : sorted) {
+            total += s;
+            if (budgetNanos > 0 && s > 2 * budgetNanos) hitches++;
+        }
+        return String.format("%s: %d frames en %.1f s, media %.2f ms, p50 %.2f, p95 %.2f, "
+                        + "p99 %.2f, max %.2f ms, tirones (>2x presupuesto) %d",
+                label, count, total / 1e9, total / 1e6 / count,
+                percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.95) / 1e6,
+                percentile(sorted, 0.99) / 1e6, sorted[count - 1] / 1e6, hitches);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int i = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, i))];
+    }
+}
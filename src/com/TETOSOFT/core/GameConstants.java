@@ -16,6 +16,91 @@ public final class GameConstants {
     public static final int WINDOW_WIDTH = 1920;
     public static final int WINDOW_HEIGHT = 1080;
 
+    // -------------------------------------------------------------------------
+    // Game loop
+    // -------------------------------------------------------------------------
+    /** Simulation ticks per second in fixed-step mode (60, 120 or 240). */
+    public static final int TICK_RATE = 120;
+    /**
+     * Max ticks run in one frame to catch up after a hitch. Beyond this the
+     * backlog is dropped so a long stall cannot snowball.
+     */
+    public static final int MAX_CATCH_UP_TICKS = 5;
+
+    /**
+     * Static screens (menus, pause) are only re-presented when they change,
+     * plus once every this many ms in case the window contents were lost.
+     */
+    public static final int STATIC_SCREEN_REFRESH_MS = 1000;
+
+    // -------------------------------------------------------------------------
+    // Quality governor
+    // -------------------------------------------------------------------------
+    /** Frames the governor takes the percentile over. */
+    public static final int QUALITY_WINDOW_FRAMES = 120;
+    /** Frames between two evaluations. */
+    public static final int QUALITY_EVAL_FRAMES = 30;
+    /** Percentile of frame work time compared against the budget. */
+    public static final double QUALITY_PERCENTILE = 0.95;
+    /** Step down when the percentile exceeds budget x this ratio... */
+    public static final double QUALITY_DOWN_RATIO = 1.15;
+    /** ...for this many evaluations in a row. */
+    public static final int QUALITY_DOWN_EVALS = 2;
+    /** Step up when the percentile stays under budget x this ratio... */
+    public static final double QUALITY_UP_RATIO = 0.65;
+    /** ...for this many evaluations in a row. */
+    public static final int QUALITY_UP_EVALS = 6;
+
+    // -------------------------------------------------------------------------
+    // JIT warm-up
+    // -------------------------------------------------------------------------
+    /** Simulated ticks per map during the optional warm-up in the main menu. */
+    public static final int WARM_UP_TICKS_PER_MAP = 3000;
+    /** The warm-up renders one offscreen frame every this many ticks. */
+    public static final int WARM_UP_RENDER_EVERY = 4;
+    /** Length of the frame-time measurement taken after the first JUGAR. */
+    public static final int STARTUP_MEASURE_SECONDS = 10;
+    /** Slowest image decodes listed in the startup trace summary. */
+    public static final int STARTUP_TRACE_TOP_DECODES = 8;
+    /** Timed blits per image, before and after conversion, in the startup trace. */
+    public static final int STARTUP_TRACE_BLIT_SAMPLES = 15;
+
+    // -------------------------------------------------------------------------
+    // Replays / regression suite
+    // -------------------------------------------------------------------------
+    /** Allowed slowdown of p95/p99 against the stored baseline (0.25 = 25 %). */
+    public static final double REGRESSION_TOLERANCE = 0.25;
+    /** The regression runner renders one offscreen frame every this many world ticks. */
+    public static final int REGRESSION_RENDER_EVERY = 8;
+    /** Timed passes per replay; their samples are pooled before taking percentiles. */
+    public static final int REGRESSION_PASSES = 3;
+
+    // -------------------------------------------------------------------------
+    // Texture atlas
+    // -------------------------------------------------------------------------
+    /** Largest width in pixels of a texture atlas page; wider images are not packed. */
+    public static final int ATLAS_PAGE_WIDTH = 1024;
+
+    // -------------------------------------------------------------------------
+    // Parallax
+    // -------------------------------------------------------------------------
+    /** Pre-scaled copies kept per layer: one per render scale in use (1.0, 0.75, 0.5). */
+    public static final int PARALLAX_SCALED_COPIES = 3;
+
+    // -------------------------------------------------------------------------
+    // Software raster
+    // -------------------------------------------------------------------------
+    /** Horizontal bands per thread of the software raster; more bands balance uneven rows. */
+    public static final int RASTER_BANDS_PER_THREAD = 4;
+
+    // -------------------------------------------------------------------------
+    // Tile chunk cache
+    // -------------------------------------------------------------------------
+    /** Tiles per side of a pre-rendered chunk (16 x 64 px = 1024 px). */
+    public static final int TILE_CHUNK_TILES = 16;
+    /** Chunk images kept at most (4 MB each); a 1080p screen shows up to 3 x 2. */
+    public static final int TILE_CHUNK_CACHE_MAX = 8;
+
     // -------------------------------------------------------------------------
     // Physics
     // -------------------------------------------------------------------------
@@ -58,4 +143,30 @@ public final class GameConstants {
     /** Coins needed to earn an extra life. */
     public static final int COINS_PER_EXTRA_LIFE = 100;
     public static final int STARTING_LIVES = 6;
+
+    // -------------------------------------------------------------------------
+    // Hitch watchdog
+    // -------------------------------------------------------------------------
+    /** Frames longer than this (ms) are logged with stack samples. */
+    public static final int HITCH_DEADLINE_MS = 50;
+    /** How often the watchdog looks at the frame in progress (ms). */
+    public static final int HITCH_POLL_MS = 5;
+    /** Stack samples taken of a late frame, and the ms between them. */
+    public static final int HITCH_STACK_SAMPLES = 3;
+    public static final int HITCH_SAMPLE_INTERVAL_MS = 10;
+    /** Frames kept per stack sample; the loop's own frames are at the bottom. */
+    public static final int HITCH_STACK_DEPTH = 24;
+    /** Longest wait (ms) for a late frame to end before logging it anyway. */
+    public static final int HITCH_MAX_WAIT_MS = 5000;
+    /** Rotating hitch log: bytes per file and number of files. */
+    public static final int HITCH_LOG_BYTES = 1 << 20;
+    public static final int HITCH_LOG_FILES = 5;
+
+    // -------------------------------------------------------------------------
+    // Entity stats
+    // -------------------------------------------------------------------------
+    /** Sprite classes tracked separately; the rest are counted as "other". */
+    public static final int ENTITY_STATS_MAX_TYPES = 32;
+    /** Milliseconds between exported lines. */
+    public static final int ENTITY_STATS_INTERVAL_MS = 1000;
 }
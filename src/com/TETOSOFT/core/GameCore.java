@@ -1,6 +1,7 @@
 package com.TETOSOFT.core;
 
 import java.awt.*;
+import java.util.concurrent.locks.LockSupport;
 import javax.swing.ImageIcon;
 
 import com.TETOSOFT.graphics.ScreenManager;
@@ -8,27 +9,69 @@ import com.TETOSOFT.graphics.ScreenManager;
 /**
  * Abstract base class that owns the game loop.
  * Subclasses implement {@link #draw(Graphics2D)} and may override
- * {@link #update(long)}.
+ * {@link #update(long)} and {@link #draw(Graphics2D, float)}.
  */
 public abstract class GameCore {
 
     protected static final int FONT_SIZE = 18;
 
-    private boolean isRunning;
+    /** Name of the dedicated thread that runs {@link #gameLoop()}. */
+    public static final String LOOP_THREAD_NAME = "game-loop";
+    /** Name of the render thread used with {@code -Dgame.renderThread=true}. */
+    public static final String RENDER_THREAD_NAME = "game-render";
+
+    private volatile boolean isRunning;
     protected ScreenManager screen;
+    protected FramePacer pacer;
+    protected QualityGovernor quality;
+    private HitchWatchdog hitches;
+    // Memoria reservada por frame (hilo que dibuja) y por vuelta del hilo de ticks
+    private volatile AllocationCounter frameAlloc;
+    private volatile AllocationCounter tickAlloc;
+    /** nanoTime at which init() returned; start of the startup trace's first frame. */
+    private long initEnd;
+
+    private final boolean logPacerStats = GameOptions.logPacerStats();
+    private long nextStatsLog;
+
+    // Pantalla estática: el hilo que dibuja espera en frameGate y, con hilo
+    // de render, el de ticks en tickGate. La entrada despierta a los dos.
+    private final IdleGate frameGate = new IdleGate();
+    private final IdleGate tickGate  = new IdleGate();
+    /** El hilo de render está esperando entrada (solo con hilo de render). */
+    private volatile boolean renderIdle;
 
     /** Signals the game loop to stop after the current frame. */
     public void stop() {
         isRunning = false;
+        wakeUp();
+    }
+
+    /** Ends any wait for input now. */
+    private void wakeUp() {
+        frameGate.signal();
+        tickGate.signal();
     }
 
-    /** Entry point: initialises the window then runs the game loop. */
+    /**
+     * Entry point: initialises the window then runs the game loop on a
+     * dedicated high-priority thread, waiting for it to finish.
+     */
+    @SuppressWarnings("try")
     public void run() {
         try {
-            init();
-            gameLoop();
+            try (StartupTrace.Span s = StartupTrace.begin("init")) {
+                init();
+            }
+            initEnd = System.nanoTime();
+            Thread loop = new Thread(this::gameLoop, LOOP_THREAD_NAME);
+            loop.setPriority(Thread.MAX_PRIORITY);
+            loop.start();
+            joinUninterruptibly(loop);
         } finally {
+            if (hitches != null) hitches.stop();
             screen.restoreScreen();
+            FrameProfiler.dumpCsvIfUsed();
             lazilyExit();
         }
     }
@@ -37,15 +80,29 @@ public abstract class GameCore {
      * Opens the window and marks the game as running.
      * Subclasses should call {@code super.init()} first.
      */
+    @SuppressWarnings("try")
     public void init() {
         screen = new ScreenManager();
-        screen.setFullScreenMode();
+        try (StartupTrace.Span s = StartupTrace.begin("ScreenManager.setFullScreenMode")) {
+            screen.setFullScreenMode();
+        }
 
         Window window = screen.getWindow();
         window.setFont(new Font("Dialog", Font.PLAIN, FONT_SIZE));
         window.setBackground(Color.BLACK);
         window.setForeground(Color.WHITE);
 
+        pacer = FramePacer.fromOptions(screen.getRefreshRate());
+        quality = QualityGovernor.fromOptions(pacer);
+        hitches = HitchWatchdog.fromOptions(this::describeFrameContext);
+        // Cualquier entrada puede cambiar una pantalla estática. Se despierta
+        // al bucle cuando el evento ya llegó a los InputManager, no antes:
+        // los AWTEventListener se llaman antes que los de la ventana
+        Runnable wake = this::wakeUp;
+        Toolkit.getDefaultToolkit().addAWTEventListener(e -> EventQueue.invokeLater(wake),
+                AWTEvent.KEY_EVENT_MASK | AWTEvent.MOUSE_EVENT_MASK | AWTEvent.MOUSE_WHEEL_EVENT_MASK
+                        | AWTEvent.WINDOW_EVENT_MASK | AWTEvent.FOCUS_EVENT_MASK);
+
         isRunning = true;
     }
 
@@ -53,27 +110,272 @@ public abstract class GameCore {
         return new ImageIcon(fileName).getImage();
     }
 
-    /** Runs the fixed-step game loop until {@link #stop()} is called. */
+    /**
+     * Runs the game loop until {@link #stop()} is called, in fixed-step or
+     * variable-step mode depending on {@link GameOptions#isFixedStep()}.
+     * Fixed-step mode can additionally move rendering to its own thread
+     * ({@link GameOptions#useRenderThread()}).
+     */
     private void gameLoop() {
-        long currTime = System.currentTimeMillis();
+        if (!GameOptions.isFixedStep()) {
+            variableStepLoop();
+        } else if (GameOptions.useRenderThread()) {
+            pipelinedLoop();
+        } else {
+            fixedStepLoop();
+        }
+    }
+
+    /**
+     * Legacy loop: one update per frame with whatever time elapsed since the
+     * previous one. Kept selectable ({@code -Dgame.loop=variable}) for
+     * comparison.
+     */
+    private void variableStepLoop() {
+        long currTime = System.nanoTime();
+        AllocationCounter alloc = frameAlloc = newAllocationCounter();
 
         while (isRunning) {
-            long elapsedTime = System.currentTimeMillis() - currTime;
-            currTime += elapsedTime;
+            if (hitches != null) hitches.frameStart();
+            if (alloc != null) alloc.sample();
+            Object frame = GameEvents.frame();
+            long seen = frameGate.generation();
+            long elapsedTime = (System.nanoTime() - currTime) / 1_000_000L;
+            currTime += elapsedTime * 1_000_000L;
+
+            tick(elapsedTime);
+            boolean drawn = render(1f);
+            if (!drawn && waitsForInput()) {
+                awaitInput(frameGate, seen);
+                currTime = System.nanoTime(); // el rato esperando no se simula
+            } else {
+                pace(drawn);
+            }
+            if (frame != null) commitFrame(frame, 1, drawn);
+        }
+    }
+
+    /**
+     * Fixed-step loop: the simulation always advances in ticks of
+     * {@link GameOptions#tickStepMillis()} so physics cost per tick is
+     * constant and a slow frame cannot make creatures tunnel through tiles.
+     * Leftover time is passed to {@link #draw(Graphics2D, float)} as the
+     * interpolation factor between the previous and the current tick.
+     */
+    private void fixedStepLoop() {
+        int  stepMs    = GameOptions.tickStepMillis();
+        long stepNanos = stepMs * 1_000_000L;
+        int  maxSteps  = GameOptions.maxCatchUpTicks();
 
-            update(elapsedTime);
+        long prevTime    = System.nanoTime();
+        long accumulator = 0;
+        AllocationCounter alloc = frameAlloc = newAllocationCounter();
 
-            Graphics2D g = screen.getGraphics();
-            draw(g);
-            g.dispose();
-            screen.update();
+        while (isRunning) {
+            if (hitches != null) hitches.frameStart();
+            if (alloc != null) alloc.sample();
+            Object frame = GameEvents.frame();
+            long seen = frameGate.generation();
+            long now = System.nanoTime();
+            accumulator += now - prevTime;
+            prevTime = now;
+
+            int steps = 0;
+            while (accumulator >= stepNanos && steps < maxSteps) {
+                tick(stepMs);
+                accumulator -= stepNanos;
+                steps++;
+            }
+            // Too far behind (GC, window drag, breakpoint): drop the backlog
+            if (accumulator >= stepNanos) {
+                accumulator %= stepNanos;
+            }
+
+            boolean drawn = render((float) accumulator / stepNanos);
+            if (!drawn && waitsForInput()) {
+                awaitInput(frameGate, seen);
+                // Sin atrasos por el rato esperando: un tick enseguida para la entrada
+                prevTime    = System.nanoTime();
+                accumulator = stepNanos;
+            } else {
+                pace(drawn);
+            }
+            if (frame != null) commitFrame(frame, steps, drawn);
         }
     }
 
+    /**
+     * Two-thread variant of {@link #fixedStepLoop()}. This thread only runs
+     * ticks and hands each result to {@link #publishTick(long)}; the render
+     * thread draws whatever was published last with
+     * {@link #drawPublished(Graphics2D, long)}, so one frame is presented
+     * while the next tick is being simulated on another core.
+     */
+    private void pipelinedLoop() {
+        Thread renderer = new Thread(this::renderLoop, RENDER_THREAD_NAME);
+        renderer.setPriority(Thread.MAX_PRIORITY);
+        renderer.start();
+
+        int  stepMs    = GameOptions.tickStepMillis();
+        long stepNanos = stepMs * 1_000_000L;
+        int  maxSteps  = GameOptions.maxCatchUpTicks();
+
+        long prevTime    = System.nanoTime();
+        long accumulator = 0;
+        boolean woke     = false;
+        AllocationCounter alloc = tickAlloc = newAllocationCounter();
+
+        try {
+            while (isRunning) {
+                if (alloc != null) alloc.sample();
+                long seen = tickGate.generation();
+                long now = System.nanoTime();
+                accumulator += now - prevTime;
+                prevTime = now;
+
+                int steps = 0;
+                while (accumulator >= stepNanos && steps < maxSteps) {
+                    tick(stepMs);
+                    accumulator -= stepNanos;
+                    steps++;
+                }
+                if (accumulator >= stepNanos) {
+                    accumulator %= stepNanos;
+                }
+                if (steps > 0) {
+                    publishTick(now - accumulator);
+                    // El render pudo mirar antes de este tick: que vuelva a mirar
+                    if (woke) frameGate.signal();
+                    woke = false;
+                }
+
+                // Pantalla estática en el render: nada que simular hasta que haya entrada
+                if (renderIdle && waitsForInput()) {
+                    tickGate.await(seen, GameConstants.STATIC_SCREEN_REFRESH_MS);
+                    prevTime    = System.nanoTime();
+                    accumulator = stepNanos;
+                    woke        = true;
+                    continue;
+                }
+
+                // Nada que dibujar aquí: dormir hasta el siguiente tick
+                long wait = stepNanos - accumulator;
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+            }
+        } finally {
+            isRunning = false;
+            wakeUp();
+            joinUninterruptibly(renderer);
+        }
+    }
+
+    private void renderLoop() {
+        AllocationCounter alloc = frameAlloc = newAllocationCounter();
+        try {
+            while (isRunning) {
+                if (hitches != null) hitches.frameStart();
+                if (alloc != null) alloc.sample();
+                Object frame = GameEvents.frame();
+                long seen = frameGate.generation();
+                boolean drawn = !isFrameUnchanged();
+                if (drawn && renderIdle) {
+                    renderIdle = false;
+                    tickGate.signal(); // vuelve a haber frames: el hilo de ticks sigue
+                }
+                if (drawn) {
+                    Graphics2D g = screen.getGraphics();
+                    long t = FrameProfiler.begin();
+                    drawPublished(g, System.nanoTime());
+                    FrameProfiler.end(FrameProfiler.Phase.DRAW, t);
+                    g.dispose();
+                    present();
+                }
+                if (!drawn && waitsForInput()) {
+                    renderIdle = true;
+                    awaitInput(frameGate, seen);
+                } else {
+                    pace(drawn);
+                }
+                // Los ticks corren en el otro hilo (eventos Tick)
+                if (frame != null) commitFrame(frame, 0, drawn);
+            }
+        } finally {
+            // Sin render no tiene sentido seguir simulando
+            isRunning = false;
+            wakeUp();
+        }
+    }
+
+    /**
+     * Waits for the next frame deadline, feeds the frame time to the quality
+     * governor and optionally logs pacing stats. Only frames that were drawn
+     * and {@linkplain #isGameplayFrame() are gameplay} reach the governor:
+     * menus, pauses and skipped frames cost next to nothing and would let
+     * the level climb back up while nobody is playing.
+     */
+    private void pace(boolean drawn) {
+        long t = FrameProfiler.begin();
+        pacer.sync();
+        FrameProfiler.end(FrameProfiler.Phase.PACING, t);
+        if (drawn && isGameplayFrame()) quality.frame(pacer.getLastWorkNanos());
+        if (logPacerStats && System.nanoTime() - nextStatsLog > 0) {
+            nextStatsLog = System.nanoTime() + 5_000_000_000L;
+            System.out.println("[FramePacer] " + pacer + " quality=" + quality.getLevel());
+        }
+    }
+
+    /**
+     * Static screen on ({@link #waitsForInput()}): instead of pacing at the
+     * display rate, sleeps until an input event, the other loop thread or
+     * {@link GameConstants#STATIC_SCREEN_REFRESH_MS}, when the frame is
+     * re-presented anyway. The pacer restarts afterwards so the wait does
+     * not count as a frame.
+     */
+    private void awaitInput(IdleGate gate, long seen) {
+        if (hitches != null) hitches.idle();
+        long t = FrameProfiler.begin();
+        gate.await(seen, GameConstants.STATIC_SCREEN_REFRESH_MS);
+        FrameProfiler.end(FrameProfiler.Phase.PACING, t);
+        pacer.reset();
+    }
+
+    /** Draws and presents a frame unless it is unchanged; returns whether it did. */
+    private boolean render(float alpha) {
+        if (isFrameUnchanged()) return false;
+        Graphics2D g = screen.getGraphics();
+        long t = FrameProfiler.begin();
+        draw(g, alpha);
+        FrameProfiler.end(FrameProfiler.Phase.DRAW, t);
+        g.dispose();
+        present();
+        return true;
+    }
+
+    private void commitFrame(Object frame, int ticks, boolean drawn) {
+        GameEvents.commitFrame(frame, ticks, drawn, quality.getLevel().name());
+    }
+
+    private void present() {
+        long t = FrameProfiler.begin();
+        screen.update();
+        FrameProfiler.end(FrameProfiler.Phase.PRESENT, t);
+        StartupTrace.firstFramePresented(initEnd);
+        framePresented(System.nanoTime());
+    }
+
+    private void tick(long elapsedTime) {
+        long t = FrameProfiler.begin();
+        update(elapsedTime);
+        FrameProfiler.end(FrameProfiler.Phase.TICK, t);
+    }
+
     /**
      * Updates game state. Default implementation does nothing.
      *
-     * @param elapsedTime milliseconds since the last frame
+     * @param elapsedTime milliseconds since the last tick (constant in
+     *                    fixed-step mode)
      */
     public void update(long elapsedTime) {
     }
@@ -81,6 +383,130 @@ public abstract class GameCore {
     /** Renders the current frame. */
     public abstract void draw(Graphics2D g);
 
+    /**
+     * Renders the current frame blended {@code alpha} of the way from the
+     * previous simulation tick to the current one. Default ignores alpha.
+     *
+     * @param alpha interpolation factor in {@code [0, 1)}
+     */
+    public void draw(Graphics2D g, float alpha) {
+        draw(g);
+    }
+
+    /**
+     * Render-thread mode, simulation side: called on the loop thread after
+     * the ticks of each iteration to hand the new state to the renderer.
+     * Default does nothing.
+     *
+     * @param tickTime nanoTime at which the last tick was due
+     */
+    protected void publishTick(long tickTime) {
+    }
+
+    /**
+     * Render-thread mode, render side: draws the state last handed over by
+     * {@link #publishTick(long)}. Must not touch live simulation objects.
+     * Default calls {@link #draw(Graphics2D)}.
+     *
+     * @param now current nanoTime, for interpolating towards the next tick
+     */
+    protected void drawPublished(Graphics2D g, long now) {
+        draw(g);
+    }
+
+    /**
+     * Render on demand: return {@code true} when the next frame would look
+     * exactly like the one on screen, and the loop skips drawing and
+     * presenting it (ticks and pacing go on as usual). Called on the thread
+     * that draws, right before {@link #draw(Graphics2D, float)} or
+     * {@link #drawPublished(Graphics2D, long)}. Default: always redraw.
+     */
+    protected boolean isFrameUnchanged() {
+        return false;
+    }
+
+    /**
+     * True if, while {@link #isFrameUnchanged()} holds, nothing but input
+     * can change the frame, so the loop may sleep until the next input
+     * event (or {@link GameConstants#STATIC_SCREEN_REFRESH_MS}) instead of
+     * ticking and pacing at the display rate. Called on the loop threads.
+     * Default: false.
+     */
+    protected boolean waitsForInput() {
+        return false;
+    }
+
+    /**
+     * True if the frame just drawn shows the game being played, so its time
+     * counts for the {@link QualityGovernor}; otherwise the level is held.
+     * Called on the thread that draws, after the frame. Default: true.
+     */
+    protected boolean isGameplayFrame() {
+        return true;
+    }
+
+    /**
+     * Called on the thread that draws right after a frame reached the
+     * screen ({@code show} + {@code sync}), with the nanoTime it did.
+     * Default: nothing.
+     */
+    protected void framePresented(long presentNanos) {
+    }
+
+    /**
+     * One-line description of what the game is doing ("state=PLAYING map=2")
+     * for the hitch log. Called from the watchdog thread while a frame is
+     * late, so it must only read fields. Default: empty.
+     */
+    protected String describeFrameContext() {
+        return "";
+    }
+
+    /** Returns the quality governor; {@link QualityGovernor#getLevel()} is thread-safe. */
+    public QualityGovernor getQuality() {
+        return quality;
+    }
+
+    /** Returns the pacer of the running loop (statistics are thread-safe). */
+    public FramePacer getPacer() {
+        return pacer;
+    }
+
+    /**
+     * Bytes allocated by the thread that draws, sampled once per frame
+     * (pacing wait included); {@code null} before the loop starts or if the
+     * JVM cannot count them.
+     */
+    public AllocationCounter getFrameAllocation() {
+        return frameAlloc;
+    }
+
+    /**
+     * With {@code -Dgame.renderThread=true}, bytes allocated by the tick
+     * thread per turn of its loop; otherwise {@code null} (the ticks are
+     * part of {@link #getFrameAllocation()}).
+     */
+    public AllocationCounter getTickAllocation() {
+        return tickAlloc;
+    }
+
+    /** Counter for the calling thread, or {@code null} if not supported. */
+    private static AllocationCounter newAllocationCounter() {
+        return AllocationCounter.isSupported() ? new AllocationCounter() : null;
+    }
+
+    private static void joinUninterruptibly(Thread thread) {
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
     /**
      * Waits 2 seconds for the JVM to exit on its own, then forces
      * {@code System.exit(0)}. Needed when the Java Sound system is active.
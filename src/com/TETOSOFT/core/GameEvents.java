@@ -0,0 +1,137 @@
+package com.TETOSOFT.core;
+
+/**
+ * Entry point for the game's Java Flight Recorder events.
+ *
+ * The event classes live in {@code com.TETOSOFT.core.jfr} and extend
+ * {@code jdk.jfr.Event}, which older Java 8 runtimes do not have; the Ant
+ * build leaves that package out when the JDK has no {@code jdk.jfr}. Only
+ * this class knows it exists, and only by name: span events are opaque
+ * handles returned by the factories below and closed by the matching
+ * {@code commit*} helper, and instant events are emitted through static
+ * helpers. Without JFR, or with JFR but no recording running, the
+ * factories return {@code null} and the helpers return at once, so the
+ * tick and frame allocate nothing (the JIT does not always manage to
+ * scalar-replace an event that spans a whole tick).
+ *
+ * <pre>
+ * java -XX:StartFlightRecording=filename=kiosk.jfr,settings=profile -jar SuperMiroGame.jar
+ * </pre>
+ * and open the file in JDK Mission Control (category "SuperMiro").
+ */
+public final class GameEvents {
+
+    /**
+     * What {@code com.TETOSOFT.core.jfr.JfrRecorder} implements. Span
+     * factories return {@code null} when no recording is running; commits
+     * receive only non-null spans.
+     */
+    public interface Recorder {
+        boolean isRecording();
+
+        Object frame();
+        void commitFrame(Object span, int ticks, boolean drawn, String qualityLevel);
+
+        Object tick();
+        void commitTick(Object span, int mapNumber, int entities, long elapsed);
+
+        Object mapLoad();
+        void commitMapLoad(Object span, int mapNumber, boolean reload, boolean found, int entities);
+
+        Object mapParse();
+        void commitMapParse(Object span, String path, int width, int height, int entities, int characters);
+
+        Object assetDecode();
+        void commitAssetDecode(Object span, String name, int width, int height, long bytesDecoded);
+
+        void spriteSpawned(String type, float x, float y, int entities);
+        void blockBroken(int tileX, int tileY);
+        void stateChanged(String from, String to, int mapNumber);
+    }
+
+    private static final Recorder RECORDER = load();
+
+    /** Whether {@code jdk.jfr} and the event classes exist in this runtime. */
+    public static final boolean AVAILABLE = RECORDER != null;
+
+    private GameEvents() {
+    }
+
+    /** Whether a JFR recording is running (events can be committed). */
+    public static boolean isRecording() {
+        return RECORDER != null && RECORDER.isRecording();
+    }
+
+    // -------------------------------------------------------------------------
+    // Span events: begin() ya llamado; el llamante cierra con su commit*()
+    // -------------------------------------------------------------------------
+
+    public static Object frame() {
+        return RECORDER != null ? RECORDER.frame() : null;
+    }
+
+    public static void commitFrame(Object frame, int ticks, boolean drawn, String qualityLevel) {
+        if (frame != null) RECORDER.commitFrame(frame, ticks, drawn, qualityLevel);
+    }
+
+    public static Object tick() {
+        return RECORDER != null ? RECORDER.tick() : null;
+    }
+
+    public static void commitTick(Object tick, int mapNumber, int entities, long elapsed) {
+        if (tick != null) RECORDER.commitTick(tick, mapNumber, entities, elapsed);
+    }
+
+    public static Object mapLoad() {
+        return RECORDER != null ? RECORDER.mapLoad() : null;
+    }
+
+    public static void commitMapLoad(Object load, int mapNumber, boolean reload, boolean found, int entities) {
+        if (load != null) RECORDER.commitMapLoad(load, mapNumber, reload, found, entities);
+    }
+
+    public static Object mapParse() {
+        return RECORDER != null ? RECORDER.mapParse() : null;
+    }
+
+    public static void commitMapParse(Object parse, String path, int width, int height,
+                                      int entities, int characters) {
+        if (parse != null) RECORDER.commitMapParse(parse, path, width, height, entities, characters);
+    }
+
+    public static Object assetDecode() {
+        return RECORDER != null ? RECORDER.assetDecode() : null;
+    }
+
+    public static void commitAssetDecode(Object decode, String name, int width, int height, long bytesDecoded) {
+        if (decode != null) RECORDER.commitAssetDecode(decode, name, width, height, bytesDecoded);
+    }
+
+    // -------------------------------------------------------------------------
+    // Instant events
+    // -------------------------------------------------------------------------
+
+    public static void spriteSpawned(String type, float x, float y, int entities) {
+        if (RECORDER != null) RECORDER.spriteSpawned(type, x, y, entities);
+    }
+
+    public static void blockBroken(int tileX, int tileY) {
+        if (RECORDER != null) RECORDER.blockBroken(tileX, tileY);
+    }
+
+    public static void stateChanged(String from, String to, int mapNumber) {
+        if (RECORDER != null) RECORDER.stateChanged(from, to, mapNumber);
+    }
+
+    /** The JFR recorder, or {@code null} without {@code jdk.jfr} or without the jfr package. */
+    private static Recorder load() {
+        try {
+            ClassLoader loader = GameEvents.class.getClassLoader();
+            Class.forName("jdk.jfr.Event", false, loader);
+            return (Recorder) Class.forName("com.TETOSOFT.core.jfr.JfrRecorder", true, loader)
+                    .getConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError ex) {
+            return null;
+        }
+    }
+}
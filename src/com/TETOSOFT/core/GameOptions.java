@@ -0,0 +1,279 @@
+package com.TETOSOFT.core;
+
+/**
+ * Runtime switches read from system properties ({@code -Dgame.xxx=...}).
+ *
+ * Defaults come from {@link GameConstants}; the properties only exist so the
+ * kiosk launcher and the test machines can change behaviour without a
+ * rebuild. Add them to {@code run.jvmargs} in {@code nbproject/project.properties}
+ * to use them from NetBeans.
+ */
+public final class GameOptions {
+
+    private GameOptions() {
+    }
+
+    // -------------------------------------------------------------------------
+    // Game loop
+    // -------------------------------------------------------------------------
+
+    /**
+     * {@code -Dgame.loop=fixed|variable}. Fixed-step is the default; the
+     * variable loop is kept for comparison and passes the raw frame time to
+     * {@link GameCore#update(long)}.
+     */
+    public static boolean isFixedStep() {
+        return !"variable".equalsIgnoreCase(System.getProperty("game.loop", "fixed"));
+    }
+
+    /**
+     * {@code -Dgame.tickRate=60|120|240}. Any other value falls back to
+     * {@link GameConstants#TICK_RATE}.
+     */
+    public static int tickRate() {
+        int hz = Integer.getInteger("game.tickRate", GameConstants.TICK_RATE);
+        return (hz == 60 || hz == 120 || hz == 240) ? hz : GameConstants.TICK_RATE;
+    }
+
+    /**
+     * Length of one simulation tick in whole milliseconds. The simulation
+     * works in integer ms, so 60/120/240 Hz become 17/8/4 ms ticks
+     * (58.8/125/250 Hz real) and game time always matches wall time.
+     */
+    public static int tickStepMillis() {
+        return Math.round(1000f / tickRate());
+    }
+
+    /** {@code -Dgame.maxCatchUp=N}: ticks a single frame may run to catch up. */
+    public static int maxCatchUpTicks() {
+        return Math.max(1, Integer.getInteger("game.maxCatchUp", GameConstants.MAX_CATCH_UP_TICKS));
+    }
+
+    /**
+     * {@code -Dgame.fps=display|uncapped|N}. Frame rate the loop is paced to:
+     * the display refresh rate (default), no cap at all (benchmark mode), or
+     * a fixed number of frames per second.
+     *
+     * @param displayRefreshRate refresh rate to use for {@code display}
+     * @return target fps, or {@code 0} for uncapped
+     */
+    public static int fpsCap(int displayRefreshRate) {
+        String value = System.getProperty("game.fps", "display").trim();
+        if (value.equalsIgnoreCase("display")) return displayRefreshRate;
+        if (value.equalsIgnoreCase("uncapped")) return 0;
+        try {
+            return Math.max(0, Integer.parseInt(value));
+        } catch (NumberFormatException ex) {
+            System.err.println("[GameOptions] game.fps no válido: " + value);
+            return displayRefreshRate;
+        }
+    }
+
+    /** {@code -Dgame.pacerStats=true}: print pacing statistics every few seconds. */
+    public static boolean logPacerStats() {
+        return Boolean.getBoolean("game.pacerStats");
+    }
+
+    /**
+     * {@code -Dgame.renderThread=true}: simulate on the loop thread and draw
+     * on a separate render thread fed by world snapshots. Only used with the
+     * fixed-step loop.
+     */
+    public static boolean useRenderThread() {
+        return Boolean.getBoolean("game.renderThread");
+    }
+
+    /**
+     * {@code -Dgame.systems=serial|parallel}. Parallel runs independent tick
+     * systems of a world concurrently (see
+     * {@link SystemScheduler}) when there are two or more cores; serial,
+     * the default, runs them in the same order on the loop thread.
+     */
+    public static boolean parallelSystems() {
+        return "parallel".equalsIgnoreCase(System.getProperty("game.systems", "serial"));
+    }
+
+    // -------------------------------------------------------------------------
+    // Rendering
+    // -------------------------------------------------------------------------
+
+    /** {@code -Dgame.crt=false}: disable the CRT overlay (on by default). */
+    public static boolean crtOverlay() {
+        return !"false".equalsIgnoreCase(System.getProperty("game.crt", "true"));
+    }
+
+    /**
+     * {@code -Dgame.renderer=java2d|software}. Software draws the in-game
+     * frame with {@link com.TETOSOFT.graphics.SoftwareRaster SoftwareRaster}
+     * into an {@code int[]} framebuffer on several cores, always at full
+     * resolution; java2d, the default, draws through the
+     * {@code BufferStrategy}'s Graphics.
+     */
+    public static boolean softwareRenderer() {
+        return "software".equalsIgnoreCase(System.getProperty("game.renderer", "java2d"));
+    }
+
+    /** {@code -Dgame.rasterThreads=N}: threads of the software raster (default: one per core). */
+    public static int rasterThreads() {
+        return Math.max(1, Integer.getInteger("game.rasterThreads", Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * {@code -Dgame.overdraw=true}: start with the overdraw heat map on (F3
+     * toggles it in game).
+     */
+    public static boolean overdrawView() {
+        return Boolean.getBoolean("game.overdraw");
+    }
+
+    /**
+     * Tiles and sprite frames packed into a few texture atlas pages
+     * (default); {@code -Dgame.atlas=false} keeps one image each.
+     */
+    public static boolean textureAtlas() {
+        return !"false".equalsIgnoreCase(System.getProperty("game.atlas", "true"));
+    }
+
+    /**
+     * {@code -Dgame.volatileBackgrounds=true}: draw the parallax backgrounds
+     * from {@link com.TETOSOFT.graphics.VolatileCopy VolatileImage} copies
+     * (video memory, restored when lost) instead of the managed images.
+     */
+    public static boolean volatileBackgrounds() {
+        return Boolean.getBoolean("game.volatileBackgrounds");
+    }
+
+    /**
+     * {@code -Dgame.parallaxStrip=true}: pre-scale each parallax layer into
+     * a strip as wide as the screen plus one repetition, so it is drawn
+     * with a single blit (more memory per layer).
+     */
+    public static boolean parallaxStrip() {
+        return Boolean.getBoolean("game.parallaxStrip");
+    }
+
+    /**
+     * {@code -Dgame.quality=auto|ultra|high|medium|low|minimum} (or 0-4).
+     * Anything but {@code auto} pins the {@link QualityGovernor} to that
+     * level, for testing.
+     *
+     * @return the forced level, or {@code null} for automatic
+     */
+    public static QualityLevel forcedQualityLevel() {
+        String value = System.getProperty("game.quality", "auto").trim();
+        if (value.equalsIgnoreCase("auto")) return null;
+        QualityLevel[] levels = QualityLevel.values();
+        try {
+            int i = Integer.parseInt(value);
+            if (i >= 0 && i < levels.length) return levels[i];
+        } catch (NumberFormatException ex) {
+            for (QualityLevel level : levels)
+                if (level.name().equalsIgnoreCase(value)) return level;
+        }
+        System.err.println("[GameOptions] game.quality no válido: " + value);
+        return null;
+    }
+
+    // -------------------------------------------------------------------------
+    // Warm-up
+    // -------------------------------------------------------------------------
+
+    /**
+     * {@code -Dgame.warmUp=true}: while the main menu is shown, run every map
+     * for a few thousand ticks and offscreen frames in the background so the
+     * first real frames run on compiled code.
+     */
+    public static boolean warmUp() {
+        return Boolean.getBoolean("game.warmUp");
+    }
+
+    /** {@code -Dgame.warmUpTicks=N}: simulated ticks per map during the warm-up. */
+    public static int warmUpTicksPerMap() {
+        return Math.max(0, Integer.getInteger("game.warmUpTicks", GameConstants.WARM_UP_TICKS_PER_MAP));
+    }
+
+    /**
+     * {@code -Dgame.measureStartup=true}: print frame-time statistics for the
+     * first {@link GameConstants#STARTUP_MEASURE_SECONDS} seconds after the
+     * first JUGAR. Run once with and once without {@code game.warmUp} to
+     * compare.
+     */
+    public static boolean measureStartup() {
+        return Boolean.getBoolean("game.measureStartup");
+    }
+
+    /**
+     * {@code -Dgame.startupTrace=file}: trace every init step up to the
+     * first frame, print a summary and write {@code file} as a Chrome trace
+     * ({@code true} writes {@code startup-trace.json}). {@code null} by default.
+     */
+    public static String startupTraceFile() {
+        String v = System.getProperty("game.startupTrace");
+        return "true".equalsIgnoreCase(v) ? "startup-trace.json" : v;
+    }
+
+    // -------------------------------------------------------------------------
+    // Replays
+    // -------------------------------------------------------------------------
+
+    /**
+     * {@code -Dgame.record=dir}: record every game from JUGAR until it goes
+     * back to a menu into {@code dir} as a replay file. {@code null} (the
+     * default) records nothing.
+     */
+    public static String replayRecordDir() {
+        return System.getProperty("game.record");
+    }
+
+    /**
+     * {@code -Dgame.replay=file}: start straight into the game playing back
+     * this replay, then hand control back to the keyboard.
+     */
+    public static String replayFile() {
+        return System.getProperty("game.replay");
+    }
+
+    /**
+     * {@code -Dgame.regression.tolerance=0.25}: how much worse than the
+     * baseline p95/p99 may get before the regression runner fails.
+     */
+    public static double regressionTolerance() {
+        String v = System.getProperty("game.regression.tolerance");
+        if (v == null) return GameConstants.REGRESSION_TOLERANCE;
+        try {
+            return Math.max(0, Double.parseDouble(v));
+        } catch (NumberFormatException ex) {
+            return GameConstants.REGRESSION_TOLERANCE;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Hitch watchdog
+    // -------------------------------------------------------------------------
+
+    /**
+     * {@code -Dgame.hitchMs=50}: frames longer than this many milliseconds
+     * are logged by the {@link HitchWatchdog}; 0 turns it off.
+     */
+    public static int hitchDeadlineMillis() {
+        return Integer.getInteger("game.hitchMs", GameConstants.HITCH_DEADLINE_MS);
+    }
+
+    /** {@code -Dgame.hitchLog=dir}: where the hitch logs go (default: working directory). */
+    public static String hitchLogDir() {
+        return System.getProperty("game.hitchLog", ".");
+    }
+
+    // -------------------------------------------------------------------------
+    // Entity stats
+    // -------------------------------------------------------------------------
+
+    /**
+     * {@code -Dgame.entityStats=file}: append per-sprite-type counters to
+     * {@code file} once a second as JSON lines (see {@link EntityStats}).
+     * {@code null} (the default) records nothing.
+     */
+    public static String entityStatsFile() {
+        return System.getProperty("game.entityStats");
+    }
+}
@@ -0,0 +1,104 @@
+package com.TETOSOFT.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of durations with fixed log-linear buckets.
+ *
+ * Values are recorded in microseconds: 1 µs buckets up to 64 µs, then 32
+ * buckets per power of two (about 3 % error) up to ~1 s; anything longer
+ * lands in the last bucket (the exact maximum is kept apart).
+ * {@link #record(long)} is one atomic increment and never allocates, so it
+ * can be called from any number of threads on the hot path.
+ */
+public final class Histogram {
+
+    private static final int LINEAR     = 64;   // buckets de 1 µs
+    private static final int LINEAR_EXP = 6;    // log2(LINEAR)
+    private static final int SUB_BITS   = 5;    // 32 sub-buckets por octava
+    private static final int SUB        = 1 << SUB_BITS;
+    private static final int MAX_EXP    = 20;   // 2^20 µs ≈ 1 s
+
+    /** Number of buckets; the size of the arrays passed to {@link #drainTo}. */
+    public static final int BUCKETS = LINEAR + (MAX_EXP - LINEAR_EXP + 1) * SUB;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+
+    /** Records a duration in nanoseconds. */
+    public void record(long nanos) {
+        counts.incrementAndGet(bucketOf(nanos / 1000));
+        long m;
+        while (nanos > (m = max.get())) {
+            if (max.compareAndSet(m, nanos)) break;
+        }
+    }
+
+    /**
+     * Adds the counts accumulated since the last drain to {@code into} and
+     * resets them, bucket by bucket with {@code getAndSet}, so nothing
+     * recorded concurrently is lost.
+     *
+     * @return the maximum recorded since the last drain, in ns
+     */
+    public long drainTo(long[] into) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long c = counts.getAndSet(i, 0);
+            if (c != 0) into[i] += c;
+        }
+        return max.getAndSet(0);
+    }
+
+    // -------------------------------------------------------------------------
+    // Bucket maths (also used to read drained arrays)
+    // -------------------------------------------------------------------------
+
+    static int bucketOf(long micros) {
+        if (micros < LINEAR) return (int) Math.max(0, micros);
+        int exp = 63 - Long.numberOfLeadingZeros(micros);
+        if (exp > MAX_EXP) return BUCKETS - 1;
+        int sub = (int) ((micros >> (exp - SUB_BITS)) & (SUB - 1));
+        return LINEAR + (exp - LINEAR_EXP) * SUB + sub;
+    }
+
+    /** Upper bound of bucket {@code i}, in ns. */
+    public static long bucketUpperNanos(int i) {
+        if (i < LINEAR) return (i + 1) * 1000L;
+        int exp = LINEAR_EXP + (i - LINEAR) / SUB;
+        int sub = (i - LINEAR) % SUB;
+        long lower = (1L << exp) + ((long) sub << (exp - SUB_BITS));
+        return (lower + (1L << (exp - SUB_BITS))) * 1000L;
+    }
+
+    /** Total samples in a drained array. */
+    public static long count(long[] buckets) {
+        long n = 0;
+        for (long c : buckets) n += c;
+        return n;
+    }
+
+    /**
+     * Percentile {@code p} (0-1) of a drained array, as the upper bound of
+     * the bucket it falls in, in ns; 0 if empty.
+     */
+    public static long percentile(long[] buckets, long total, double p) {
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(p * total);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) return bucketUpperNanos(i);
+        }
+        return bucketUpperNanos(buckets.length - 1);
+    }
+
+    /** Approximate mean of a drained array (bucket upper bounds), in ns. */
+    public static long mean(long[] buckets, long total) {
+        if (total == 0) return 0;
+        double sum = 0;
+        for (int i = 0; i < buckets.length; i++)
+            if (buckets[i] != 0) sum += buckets[i] * (double) bucketUpperNanos(i);
+        return (long) (sum / total);
+    }
+}
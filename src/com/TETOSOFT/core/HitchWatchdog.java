@@ -0,0 +1,233 @@
+package com.TETOSOFT.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Watches the frame in progress from a daemon thread and, when it runs past
+ * the deadline, samples the stack of the thread drawing it a few times and
+ * logs the frame together with the GC and JIT activity around it.
+ *
+ * The loop only calls {@link #frameStart()} (a couple of volatile writes); all the
+ * work happens on the watchdog thread. Entries go to a rotating log
+ * ({@code hitches-0.log} is the newest), opened on the first hitch:
+ *
+ * <pre>
+ * HITCH frame=5120 duration=83.4 ms deadline=50 ms thread=game-loop state=PLAYING map=2
+ *   gc: G1 Young Generation +1 (11 ms)
+ *   jit: +34 ms
+ *   sample 1 at +51 ms:
+ *     at com.TETOSOFT.assets.MapParser.parse(MapParser.java:63)
+ * </pre>
+ *
+ * so {@code grep -A3 "sample 1" hitches-*.log} tells what the loop was
+ * doing. GC and JIT figures cover the frame plus up to one poll interval
+ * before it.
+ */
+public final class HitchWatchdog implements Runnable {
+
+    private static final String THREAD_NAME = "hitch-watchdog";
+    private static final Logger LOG = Logger.getLogger("com.TETOSOFT.hitches");
+
+    private final long deadlineNanos;
+    private final Supplier<String> context;
+    private final String logPattern;
+
+    // Escritos por el hilo del frame
+    private volatile long   frameNumber;
+    private volatile long   frameStart;
+    private volatile Thread frameThread;
+    /** Sin frame en curso: el hilo espera entrada ({@link #idle()}). */
+    private volatile boolean idle;
+
+    private volatile boolean running = true;
+    private boolean logOpened;
+
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private final CompilationMXBean jit = ManagementFactory.getCompilationMXBean();
+
+    /**
+     * @param deadlineMillis frames longer than this are logged
+     * @param context        short description of what the game is doing
+     *                       ("state=PLAYING map=2"); called from the watchdog thread
+     * @param logPattern     {@link FileHandler} pattern of the log files
+     */
+    public HitchWatchdog(int deadlineMillis, Supplier<String> context, String logPattern) {
+        this.deadlineNanos = deadlineMillis * 1_000_000L;
+        this.context       = context;
+        this.logPattern    = logPattern;
+    }
+
+    /**
+     * The watchdog configured by {@link GameOptions#hitchDeadlineMillis()},
+     * already running, or {@code null} when disabled.
+     */
+    public static HitchWatchdog fromOptions(Supplier<String> context) {
+        int deadline = GameOptions.hitchDeadlineMillis();
+        if (deadline <= 0) return null;
+        File dir = new File(GameOptions.hitchLogDir());
+        HitchWatchdog watchdog = new HitchWatchdog(deadline, context,
+                new File(dir, "hitches-%g.log").getPath());
+        watchdog.start();
+        return watchdog;
+    }
+
+    public void start() {
+        Thread t = new Thread(this, THREAD_NAME);
+        t.setDaemon(true);
+        t.start();
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    /** Called by the thread that draws, at the start of every frame. */
+    public void frameStart() {
+        if (frameThread == null) frameThread = Thread.currentThread();
+        frameStart = System.nanoTime();
+        idle = false;
+        frameNumber++;
+    }
+
+    /**
+     * Called by the thread that draws before it sleeps waiting for input
+     * (static screen): the wait is not a frame and is never reported.
+     */
+    public void idle() {
+        idle = true;
+    }
+
+    // -------------------------------------------------------------------------
+    // Hilo del watchdog
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void run() {
+        long seenFrame = -1;
+        boolean reported = false;
+        long[] previous = activity(), baseline = previous;
+
+        while (running) {
+            long[] now = activity();
+            long frame = frameNumber;
+            long start = frameStart;
+            if (frame != seenFrame) {
+                seenFrame = frame;
+                reported  = false;
+                baseline  = previous; // tomado antes de que empezara este frame
+            } else if (!reported && !idle && frame > 0 && System.nanoTime() - start > deadlineNanos) {
+                reported = true;
+                report(frame, start, baseline);
+            }
+            previous = now;
+            sleep(GameConstants.HITCH_POLL_MS);
+        }
+    }
+
+    private void report(long frame, long start, long[] baseline) {
+        Thread thread = frameThread;
+        String where = context.get();
+
+        StringBuilder samples = new StringBuilder();
+        for (int i = 1; i <= GameConstants.HITCH_STACK_SAMPLES && frameNumber == frame; i++) {
+            long at = System.nanoTime() - start;
+            StackTraceElement[] stack = thread.getStackTrace();
+            if (frameNumber != frame) break; // el frame acabó mientras tanto
+            samples.append(String.format("  sample %d at +%d ms:%n", i, at / 1_000_000L));
+            int depth = Math.min(stack.length, GameConstants.HITCH_STACK_DEPTH);
+            for (int j = 0; j < depth; j++)
+                samples.append("    at ").append(stack[j]).append(System.lineSeparator());
+            if (stack.length > depth)
+                samples.append("    ... ").append(stack.length - depth).append(" more").append(System.lineSeparator());
+            sleep(GameConstants.HITCH_SAMPLE_INTERVAL_MS);
+        }
+
+        // Esperar a que acabe el frame para saber cuánto duró
+        long giveUp = System.nanoTime() + GameConstants.HITCH_MAX_WAIT_MS * 1_000_000L;
+        while (frameNumber == frame && running && System.nanoTime() < giveUp)
+            sleep(1);
+        boolean ended = frameNumber != frame;
+        long duration = (ended ? frameStart : System.nanoTime()) - start;
+        long[] after = activity();
+
+        StringBuilder entry = new StringBuilder();
+        entry.append(String.format("HITCH frame=%d duration=%s%.1f ms deadline=%d ms thread=%s %s%n",
+                frame, ended ? "" : ">", duration / 1e6, deadlineNanos / 1_000_000L,
+                thread.getName(), where));
+        entry.append("  gc:");
+        boolean anyGc = false;
+        for (int i = 0; i < collectors.size(); i++) {
+            long count = after[2 * i] - baseline[2 * i];
+            if (count <= 0) continue;
+            anyGc = true;
+            entry.append(String.format(" %s +%d (%d ms)", collectors.get(i).getName(), count,
+                    after[2 * i + 1] - baseline[2 * i + 1]));
+        }
+        entry.append(anyGc ? "" : " none").append(System.lineSeparator());
+        long jitMs = after[after.length - 1] - baseline[baseline.length - 1];
+        entry.append(jitMs >= 0 ? String.format("  jit: +%d ms%n", jitMs) : String.format("  jit: n/a%n"));
+        entry.append(samples);
+
+        log(entry.toString());
+        System.out.printf("[HitchWatchdog] frame %d: %.0f ms (%s)%n", frame, duration / 1e6, where);
+    }
+
+    /** {@code {count0, time0, count1, time1, ..., jitMillis}}; -1 where unsupported. */
+    private long[] activity() {
+        long[] a = new long[collectors.size() * 2 + 1];
+        for (int i = 0; i < collectors.size(); i++) {
+            a[2 * i]     = collectors.get(i).getCollectionCount();
+            a[2 * i + 1] = collectors.get(i).getCollectionTime();
+        }
+        a[a.length - 1] = jit != null && jit.isCompilationTimeMonitoringSupported()
+                ? jit.getTotalCompilationTime() : -1;
+        return a;
+    }
+
+    private void log(String entry) {
+        if (!logOpened) {
+            logOpened = true;
+            try {
+                File parent = new File(logPattern).getAbsoluteFile().getParentFile();
+                if (parent != null) parent.mkdirs();
+                FileHandler handler = new FileHandler(logPattern,
+                        GameConstants.HITCH_LOG_BYTES, GameConstants.HITCH_LOG_FILES, true);
+                handler.setFormatter(new Formatter() {
+                    private final SimpleDateFormat time = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+
+                    @Override
+                    public String format(LogRecord record) {
+                        return time.format(new Date(record.getMillis())) + " " + record.getMessage();
+                    }
+                });
+                LOG.addHandler(handler);
+                LOG.setUseParentHandlers(false);
+            } catch (IOException ex) {
+                // Sin fichero: que al menos salga por consola
+                System.err.println("[HitchWatchdog] no se pudo abrir " + logPattern + ": " + ex);
+            }
+        }
+        LOG.log(Level.WARNING, entry);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.TETOSOFT.core;
+
+/**
+ * Where a loop thread sleeps while the frame on screen cannot change until
+ * something happens: {@link #await(long, long)} returns on the next
+ * {@link #signal()} (an input event, or the other loop thread needing this
+ * one) or after a timeout.
+ *
+ * The waiter reads {@link #generation()} at the start of its turn and
+ * passes it to {@code await}, so a signal that arrives while the turn runs
+ * is not lost: {@code await} then returns at once. Nothing is allocated.
+ */
+final class IdleGate {
+
+    /** Señales recibidas; solo se escribe con el monitor. */
+    private volatile long generation;
+
+    long generation() {
+        return generation;
+    }
+
+    synchronized void signal() {
+        generation++;
+        notifyAll();
+    }
+
+    /**
+     * Sleeps until a signal newer than {@code seen} or {@code timeoutMillis}.
+     *
+     * @return {@code true} if woken by a signal
+     */
+    synchronized boolean await(long seen, long timeoutMillis) {
+        long deadline = System.nanoTime() + timeoutMillis * 1_000_000L;
+        try {
+            while (generation == seen) {
+                long left = (deadline - System.nanoTime()) / 1_000_000L;
+                if (left <= 0) return false;
+                wait(left);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,87 @@
+package com.TETOSOFT.core;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Input-to-present latency per player action, recorded into the
+ * {@code LATENCY_*} phases of the {@link FrameProfiler} (so it shows in
+ * the F2 view and the CSV).
+ *
+ * A measurement starts at the nanoTime the key event was handled on the
+ * AWT thread ({@link com.TETOSOFT.input.GameAction#takePressTime()}),
+ * goes through the tick that read the press ({@link #consumed}) and ends
+ * when the first frame drawn from that tick or a later one has been
+ * presented ({@link #presented}), after {@code BufferStrategy.show} and
+ * {@code Toolkit.sync}. Ticks are numbered by {@link #endTick()}; a frame
+ * knows the number of the last tick it shows. That works the same whether
+ * the frame is drawn on the loop thread or on the render thread.
+ *
+ * Only one press per action is in flight: a second press read before the
+ * first one reached the screen is not measured. Nothing is recorded while
+ * the profiler is off.
+ */
+public final class InputLatency {
+
+    /** Measured actions and the profiler phase each one goes to. */
+    public enum Action {
+        JUMP(FrameProfiler.Phase.LATENCY_JUMP),
+        MOVE_LEFT(FrameProfiler.Phase.LATENCY_MOVE_LEFT),
+        MOVE_RIGHT(FrameProfiler.Phase.LATENCY_MOVE_RIGHT),
+        SPRINT(FrameProfiler.Phase.LATENCY_SPRINT);
+
+        private final FrameProfiler.Phase phase;
+
+        Action(FrameProfiler.Phase phase) {
+            this.phase = phase;
+        }
+    }
+
+    private static final Action[] ACTIONS = Action.values();
+
+    // Por acción: nanoTime de la pulsación y tick que la leyó (0 = nada en vuelo).
+    // consumedAt se escribe después de pressTime, así quien lo ve != 0 ve el tiempo bueno
+    private static final AtomicLongArray pressTime  = new AtomicLongArray(ACTIONS.length);
+    private static final AtomicLongArray consumedAt = new AtomicLongArray(ACTIONS.length);
+
+    /** Ticks terminados; solo lo escribe el hilo de los ticks. */
+    private static volatile long ticks;
+
+    private InputLatency() {
+    }
+
+    /**
+     * Tick thread: {@code action} was pressed at {@code pressNanos} and the
+     * current tick acted on it. {@code pressNanos == 0} is ignored.
+     */
+    public static void consumed(Action action, long pressNanos) {
+        if (pressNanos == 0 || !FrameProfiler.isEnabled()) return;
+        int i = action.ordinal();
+        if (consumedAt.get(i) != 0) return; // la anterior aún no ha llegado a pantalla
+        pressTime.set(i, pressNanos);
+        consumedAt.set(i, ticks + 1);
+    }
+
+    /** Tick thread: end of a tick; its number is the new {@link #currentTick()}. */
+    public static void endTick() {
+        ticks++;
+    }
+
+    /** Number of the last finished tick, to store with what is drawn from it. */
+    public static long currentTick() {
+        return ticks;
+    }
+
+    /**
+     * Thread that presents: a frame showing the world up to tick
+     * {@code tick} reached the screen at {@code presentNanos}.
+     */
+    public static void presented(long tick, long presentNanos) {
+        for (int i = 0; i < ACTIONS.length; i++) {
+            long at = consumedAt.get(i);
+            if (at == 0 || at > tick) continue;
+            long pressed = pressTime.get(i);
+            if (consumedAt.compareAndSet(i, at, 0))
+                FrameProfiler.record(ACTIONS[i].phase, presentNanos - pressed);
+        }
+    }
+}
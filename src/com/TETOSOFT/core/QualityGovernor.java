@@ -0,0 +1,134 @@
+package com.TETOSOFT.core;
+
+import java.util.Arrays;
+
+/**
+ * Holds the frame-time budget by trading visual quality for speed.
+ *
+ * Every frame reports how long its work took (pacing wait excluded). Every
+ * {@link GameConstants#QUALITY_EVAL_FRAMES} frames the governor takes a
+ * percentile of the last {@link GameConstants#QUALITY_WINDOW_FRAMES} and
+ * moves one {@link QualityLevel} at a time:
+ * <ul>
+ *   <li>down after {@link GameConstants#QUALITY_DOWN_EVALS} evaluations in a
+ *       row above the budget times {@link GameConstants#QUALITY_DOWN_RATIO};</li>
+ *   <li>up after {@link GameConstants#QUALITY_UP_EVALS} evaluations in a row
+ *       below the budget times {@link GameConstants#QUALITY_UP_RATIO}.</li>
+ * </ul>
+ * The gap between both thresholds and the longer wait before going up keep
+ * it from oscillating. After a change the window is cleared so the next
+ * decision only sees frames drawn at the new level.
+ *
+ * {@link #frame(long)} is called from the thread that presents frames;
+ * {@link #getLevel()} can be read from any thread.
+ */
+public class QualityGovernor {
+
+    /** Notified on the presenting thread when the level changes. */
+    public interface Listener {
+        void onQualityChanged(QualityLevel from, QualityLevel to, float percentileMillis);
+    }
+
+    private final long budgetNanos;
+    private final boolean forced;
+
+    private final long[] window  = new long[GameConstants.QUALITY_WINDOW_FRAMES];
+    private final long[] scratch = new long[GameConstants.QUALITY_WINDOW_FRAMES];
+    private int  next;
+    private int  filled;
+    private int  sinceEval;
+    private int  overEvals;
+    private int  underEvals;
+
+    private volatile QualityLevel level;
+    private volatile float lastPercentileMillis;
+    private Listener listener;
+
+    /**
+     * @param budgetNanos frame budget to hold
+     * @param start       initial level
+     * @param forced      if {@code true} the level never changes (testing)
+     */
+    public QualityGovernor(long budgetNanos, QualityLevel start, boolean forced) {
+        this.budgetNanos = budgetNanos;
+        this.level       = start;
+        this.forced      = forced;
+    }
+
+    /**
+     * Builds a governor for the pacer's frame rate (60 fps budget when
+     * uncapped) honouring {@link GameOptions#forcedQualityLevel()}.
+     */
+    public static QualityGovernor fromOptions(FramePacer pacer) {
+        int fps = pacer.isUncapped() ? FramePacer.DEFAULT_REFRESH_RATE : pacer.getTargetFps();
+        QualityLevel forced = GameOptions.forcedQualityLevel();
+        return new QualityGovernor(1_000_000_000L / fps,
+                forced != null ? forced : QualityLevel.ULTRA, forced != null);
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /** Records the work time of one frame and re-evaluates when due. */
+    public void frame(long workNanos) {
+        if (forced) return;
+
+        window[next] = workNanos;
+        next = (next + 1) % window.length;
+        if (filled < window.length) filled++;
+
+        if (++sinceEval < GameConstants.QUALITY_EVAL_FRAMES || filled < window.length) return;
+        sinceEval = 0;
+
+        long p = percentile();
+        lastPercentileMillis = p / 1e6f;
+
+        if (p > budgetNanos * GameConstants.QUALITY_DOWN_RATIO) {
+            underEvals = 0;
+            if (++overEvals >= GameConstants.QUALITY_DOWN_EVALS) change(level.lower());
+        } else if (p < budgetNanos * GameConstants.QUALITY_UP_RATIO) {
+            overEvals = 0;
+            if (++underEvals >= GameConstants.QUALITY_UP_EVALS) change(level.higher());
+        } else {
+            overEvals = underEvals = 0;
+        }
+    }
+
+    public QualityLevel getLevel() {
+        return level;
+    }
+
+    public boolean isForced() {
+        return forced;
+    }
+
+    public long getBudgetNanos() {
+        return budgetNanos;
+    }
+
+    /** Percentile frame time of the last evaluation, in ms (0 before the first). */
+    public float getLastPercentileMillis() {
+        return lastPercentileMillis;
+    }
+
+    private void change(QualityLevel to) {
+        overEvals = underEvals = 0;
+        if (to == level) return;
+
+        QualityLevel from = level;
+        level  = to;
+        filled = 0;
+        next   = 0;
+        System.out.printf("[QualityGovernor] %s -> %s (p%.0f %.2f ms, presupuesto %.2f ms)%n",
+                from, to, GameConstants.QUALITY_PERCENTILE * 100, lastPercentileMillis, budgetNanos / 1e6);
+        if (listener != null) listener.onQualityChanged(from, to, lastPercentileMillis);
+    }
+
+    private long percentile() {
+        System.arraycopy(window, 0, scratch, 0, window.length);
+        Arrays.sort(scratch);
+        int i = (int) Math.ceil(GameConstants.QUALITY_PERCENTILE * scratch.length) - 1;
+        return scratch[Math.max(0, i)];
+    }
+}
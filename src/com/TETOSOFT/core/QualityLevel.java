@@ -0,0 +1,57 @@
+package com.TETOSOFT.core;
+
+/**
+ * Quality steps used by {@link QualityGovernor}, from best looking to
+ * cheapest. Each step only ever removes work compared with the one before.
+ */
+public enum QualityLevel {
+
+    //        grain  vignette layers                     scale  simulation distance
+    ULTRA    (true,  true,    QualityLevel.UNLIMITED,    1.00f, QualityLevel.UNLIMITED),
+    HIGH     (false, true,    QualityLevel.UNLIMITED,    1.00f, QualityLevel.UNLIMITED),
+    MEDIUM   (false, false,   2,                         1.00f, 1024),
+    LOW      (false, false,   1,                         0.75f, 512),
+    MINIMUM  (false, false,   0,                         0.50f, 256);
+
+    /** "No limit" for the layer count and the simulation distance. */
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private final boolean grain;
+    private final boolean vignette;
+    private final int     parallaxLayers;
+    private final float   renderScale;
+    private final int     simulationDistance;
+
+    QualityLevel(boolean grain, boolean vignette, int parallaxLayers,
+                 float renderScale, int simulationDistance) {
+        this.grain              = grain;
+        this.vignette           = vignette;
+        this.parallaxLayers     = parallaxLayers;
+        this.renderScale        = renderScale;
+        this.simulationDistance = simulationDistance;
+    }
+
+    /** CRT film grain pass. */
+    public boolean hasGrain()           { return grain; }
+    /** CRT vignette pass. */
+    public boolean hasVignette()        { return vignette; }
+    /** Parallax layers drawn, farthest first ({@link #UNLIMITED} = all). */
+    public int   getParallaxLayers()    { return parallaxLayers; }
+    /** Resolution of the world pass relative to the screen (HUD stays native). */
+    public float getRenderScale()       { return renderScale; }
+    /**
+     * Pixels beyond each side of the view within which enemies keep being
+     * simulated ({@link #UNLIMITED} = whole map).
+     */
+    public int   getSimulationDistance() { return simulationDistance; }
+
+    /** One step cheaper, or this level if it is already the cheapest. */
+    public QualityLevel lower() {
+        return ordinal() + 1 < values().length ? values()[ordinal() + 1] : this;
+    }
+
+    /** One step better, or this level if it is already the best. */
+    public QualityLevel higher() {
+        return ordinal() > 0 ? values()[ordinal() - 1] : this;
+    }
+}
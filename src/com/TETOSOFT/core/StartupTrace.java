@@ -0,0 +1,234 @@
+package com.TETOSOFT.core;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Nested timeline of the startup, from JVM launch to the first frame on
+ * screen.
+ *
+ * <pre>
+ * try (StartupTrace.Span s = StartupTrace.begin("MapLoader")) {
+ *     ...
+ * }
+ * </pre>
+ *
+ * The body rarely touches {@code s}; methods that open spans like this
+ * carry {@code @SuppressWarnings("try")} so {@code -Xlint} stays quiet.
+ *
+ * Off unless {@code -Dgame.startupTrace=file} is given; then
+ * {@link #begin} returns {@code null} (try-with-resources skips a null
+ * resource) and nothing is allocated. While on, spans are kept per thread
+ * with their nesting depth and optional arguments (image size and decoded
+ * bytes for decodes, blit time before and after for image conversions). {@link #firstFramePresented(long)} closes the timeline:
+ * prints an indented summary plus the slowest decodes and writes the spans
+ * as a Chrome trace ({@code chrome://tracing}, Perfetto), where nesting is
+ * shown by time containment per thread. Later calls record nothing.
+ */
+public final class StartupTrace {
+
+    private static final String path = GameOptions.startupTraceFile();
+    private static volatile boolean enabled = path != null;
+
+    /** nanoTime that corresponds to the JVM start (t = 0 in the trace). */
+    private static final long origin;
+    static {
+        long sinceStart = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+        origin = System.nanoTime() - Math.max(0, sinceStart) * 1_000_000L;
+    }
+    private static final long traceInit = System.nanoTime();
+    /** Thread that touched the tracer first (main); the others are named in the summary. */
+    private static final Thread mainThread = Thread.currentThread();
+
+    private static final List<Span> spans = new ArrayList<>();
+    private static final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[1]);
+
+    /** One finished or running step. Close it on the thread that opened it. */
+    public static final class Span implements AutoCloseable {
+        final String name;
+        final Thread thread;
+        final int    depth;
+        final long   start;
+        long end;
+        Map<String, Object> args;
+
+        Span(String name, Thread thread, int depth, long start) {
+            this.name   = name;
+            this.thread = thread;
+            this.depth  = depth;
+            this.start  = start;
+        }
+
+        /** Adds an argument shown in the trace viewer (and, for decodes, the summary). */
+        public Span arg(String key, Object value) {
+            if (args == null) args = new LinkedHashMap<>();
+            args.put(key, value);
+            return this;
+        }
+
+        @Override
+        public void close() {
+            if (end != 0) return;
+            end = System.nanoTime();
+            StartupTrace.depth.get()[0]--;
+        }
+
+        double millis() {
+            return ((end != 0 ? end : System.nanoTime()) - start) / 1e6;
+        }
+    }
+
+    private StartupTrace() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Opens a span on this thread, or returns {@code null} when not tracing. */
+    public static Span begin(String name) {
+        if (!enabled) return null;
+        int[] d = depth.get();
+        Span span = new Span(name, Thread.currentThread(), d[0]++, System.nanoTime());
+        synchronized (spans) {
+            spans.add(span);
+        }
+        return span;
+    }
+
+    /** {@code begin(name + " " + detail)}, concatenating only when tracing. */
+    public static Span begin(String name, String detail) {
+        return enabled ? begin(name + " " + detail) : null;
+    }
+
+    /**
+     * Records the first frame (from {@code sinceNanos}, the end of init, to
+     * now), then prints the summary, writes the trace and stops tracing.
+     * Called by the loop after every present; only the first call does anything.
+     */
+    public static void firstFramePresented(long sinceNanos) {
+        if (!enabled) return;
+        synchronized (StartupTrace.class) {
+            if (!enabled) return;
+            enabled = false;
+        }
+        long now = System.nanoTime();
+        Span first = new Span("first frame", Thread.currentThread(), 0, sinceNanos);
+        first.end = now;
+        List<Span> all;
+        synchronized (spans) {
+            spans.add(first);
+            all = new ArrayList<>(spans);
+        }
+        Span jvm = new Span("JVM + class loading", mainThread, 0, origin);
+        jvm.end = traceInit;
+        all.add(0, jvm);
+
+        printSummary(all, now);
+        try {
+            writeChromeTrace(all, path);
+            System.out.println("[StartupTrace] traza guardada en " + path + " (abrir en chrome://tracing)");
+        } catch (IOException ex) {
+            System.err.println("[StartupTrace] no se pudo guardar " + path + ": " + ex);
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Salida
+    // -------------------------------------------------------------------------
+
+    private static void printSummary(List<Span> all, long now) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "[StartupTrace] primer frame a %.1f ms del arranque de la JVM%n",
+                (now - origin) / 1e6));
+        long decodeBytes = 0;
+        double decodeMs = 0;
+        List<Span> decodes = new ArrayList<>();
+        int converts = 0;
+        double convertMs = 0, blitBefore = 0, blitAfter = 0;
+        for (Span s : all) {
+            if (s.args != null && s.args.containsKey("bytes")) {
+                decodes.add(s);
+                decodeBytes += ((Number) s.args.get("bytes")).longValue();
+                decodeMs += s.millis();
+                continue; // van en su propia tabla
+            }
+            if (s.args != null && s.args.containsKey("blitAfterUs")) {
+                converts++;
+                convertMs  += s.millis();
+                blitBefore += ((Number) s.args.get("blitBeforeUs")).doubleValue();
+                blitAfter  += ((Number) s.args.get("blitAfterUs")).doubleValue();
+                continue; // solo el total
+            }
+            sb.append(String.format(Locale.ROOT, "  %8.1f ms %9.1f ms  ", (s.start - origin) / 1e6, s.millis()));
+            for (int i = 0; i < s.depth; i++) sb.append("  ");
+            sb.append(s.name);
+            if (s.thread != mainThread && s.depth == 0)
+                sb.append("  [").append(s.thread.getName()).append(']');
+            sb.append(System.lineSeparator());
+        }
+        sb.append(String.format(Locale.ROOT, "  %d imágenes decodificadas: %.1f ms, %.1f MB%n",
+                decodes.size(), decodeMs, decodeBytes / (1024.0 * 1024.0)));
+        Collections.sort(decodes, Comparator.comparingDouble(Span::millis).reversed());
+        for (int i = 0; i < Math.min(GameConstants.STARTUP_TRACE_TOP_DECODES, decodes.size()); i++) {
+            Span s = decodes.get(i);
+            sb.append(String.format(Locale.ROOT, "    %7.1f ms %8.1f KB  %s%n",
+                    s.millis(), ((Number) s.args.get("bytes")).longValue() / 1024.0, s.name));
+        }
+        if (converts > 0) {
+            sb.append(String.format(Locale.ROOT,
+                    "  %d imágenes convertidas a compatibles: %.1f ms; un blit de cada una: %.1f us antes, %.1f us después (x%.1f)%n",
+                    converts, convertMs, blitBefore, blitAfter, blitBefore / Math.max(1e-3, blitAfter)));
+        }
+        System.out.print(sb);
+    }
+
+    /** Trace Event Format: one complete ("X") event per span, times in µs. */
+    private static void writeChromeTrace(List<Span> all, String file) throws IOException {
+        try (PrintWriter out = new PrintWriter(new FileWriter(file))) {
+            out.println("{\"traceEvents\":[");
+            Map<Long, String> threads = new LinkedHashMap<>();
+            boolean firstEvent = true;
+            for (Span s : all) {
+                threads.put(s.thread.getId(), s.thread.getName());
+                if (!firstEvent) out.println(',');
+                firstEvent = false;
+                out.printf(Locale.ROOT, "{\"name\":\"%s\",\"ph\":\"X\",\"pid\":1,\"tid\":%d,\"ts\":%.1f,\"dur\":%.1f",
+                        escape(s.name), s.thread.getId(), (s.start - origin) / 1e3, s.millis() * 1e3);
+                if (s.args != null) {
+                    out.print(",\"args\":{");
+                    boolean firstArg = true;
+                    for (Map.Entry<String, Object> a : s.args.entrySet()) {
+                        if (!firstArg) out.print(',');
+                        firstArg = false;
+                        Object v = a.getValue();
+                        out.print("\"" + escape(a.getKey()) + "\":"
+                                + (v instanceof Number ? v.toString() : "\"" + escape(String.valueOf(v)) + "\""));
+                    }
+                    out.print('}');
+                }
+                out.print('}');
+            }
+            for (Map.Entry<Long, String> t : threads.entrySet()) {
+                out.println(',');
+                out.printf("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":%d,\"args\":{\"name\":\"%s\"}}",
+                        t.getKey(), escape(t.getValue()));
+            }
+            out.println();
+            out.println("],\"displayTimeUnit\":\"ms\"}");
+        }
+    }
+
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
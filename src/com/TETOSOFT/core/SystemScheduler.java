@@ -0,0 +1,345 @@
+package com.TETOSOFT.core;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs the systems of one simulation tick in dependency order.
+ *
+ * Every system declares the resources (an enum chosen by the caller) it
+ * reads and writes, plus explicit {@code after} constraints. {@link #build()}
+ * turns that into a task graph and rejects it when two systems touch the
+ * same resource, at least one of them writing, with no order declared
+ * between them: that would be a data race in parallel mode and an
+ * accidental dependency on registration order in serial mode.
+ *
+ * Systems are grouped in waves (longest path from a root); systems of the
+ * same wave never conflict, so in parallel mode the calling thread runs the
+ * first system of each wave while the rest go to a work-stealing pool, and
+ * waits for them before the next wave. Every parallel scheduler of the
+ * process shares that pool; it is created by the first
+ * {@link #setParallel(boolean) setParallel(true)} and shut down when the
+ * last one calls {@link #shutdown()}. Serial mode runs the same order on the
+ * calling thread. The declarations are trusted: the scheduler cannot see
+ * what a system really touches.
+ *
+ * <pre>
+ * scheduler.system("creature-physics", this::creaturePhysics)
+ *          .reads(TILES, SPRITE_LIST).writes(CREATURES);
+ * scheduler.system("collision", this::collision)
+ *          .writes(PLAYER, CREATURES).after("creature-physics");
+ * scheduler.build();
+ * </pre>
+ *
+ * @param <R> resource type
+ */
+public final class SystemScheduler<R extends Enum<R>> {
+
+    /** Fluent declaration returned by {@link #system}. */
+    public final class Declaration {
+        private final Node node;
+
+        private Declaration(Node node) {
+            this.node = node;
+        }
+
+        @SafeVarargs
+        public final Declaration reads(R... resources) {
+            for (R r : resources) node.reads.add(r);
+            return this;
+        }
+
+        @SafeVarargs
+        public final Declaration writes(R... resources) {
+            for (R r : resources) node.writes.add(r);
+            return this;
+        }
+
+        /** This system runs after the named ones (declared before or after it). */
+        public Declaration after(String... systems) {
+            for (String s : systems) node.after.add(s);
+            return this;
+        }
+    }
+
+    private final class Node extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final String name;
+        final Runnable body;
+        final EnumSet<R> reads;
+        final EnumSet<R> writes;
+        final List<String> after = new ArrayList<>();
+        int  index;
+        int  wave;
+        /** Bit i set when node i must run before this one (transitively). */
+        long predecessors;
+
+        Node(String name, Runnable body) {
+            this.name   = name;
+            this.body   = body;
+            this.reads  = EnumSet.noneOf(resourceType);
+            this.writes = EnumSet.noneOf(resourceType);
+        }
+
+        @Override
+        protected void compute() {
+            body.run();
+        }
+    }
+
+    /** Limited by the predecessor bit masks. */
+    private static final int MAX_SYSTEMS = 64;
+
+    private final Class<R> resourceType;
+    private final List<Node> nodes = new ArrayList<>();
+    private List<List<Node>> waves;
+    private List<Node>       order;
+
+    /** Pool compartido por los schedulers en paralelo y cuántos lo usan. */
+    private static ForkJoinPool sharedPool;
+    private static int          sharedPoolUsers;
+
+    private ForkJoinPool pool;
+
+    public SystemScheduler(Class<R> resourceType) {
+        this.resourceType = resourceType;
+    }
+
+    /** Declares a system. Must be called before {@link #build()}. */
+    public Declaration system(String name, Runnable body) {
+        if (waves != null) throw new IllegalStateException("Scheduler ya construido");
+        for (Node n : nodes)
+            if (n.name.equals(name)) throw new IllegalArgumentException("Sistema repetido: " + name);
+        if (nodes.size() == MAX_SYSTEMS) throw new IllegalStateException("Máximo " + MAX_SYSTEMS + " sistemas");
+        Node node = new Node(name, body);
+        node.index = nodes.size();
+        nodes.add(node);
+        return new Declaration(node);
+    }
+
+    /**
+     * Resolves the {@code after} constraints, checks the declarations and
+     * computes the waves.
+     *
+     * @throws IllegalStateException on unknown names, cycles or conflicts
+     */
+    public SystemScheduler<R> build() {
+        List<String> problems = checkDeclarations();
+        if (!problems.isEmpty())
+            throw new IllegalStateException("Declaraciones de sistemas incompatibles:\n  "
+                    + String.join("\n  ", problems));
+
+        int depth = 0;
+        for (Node n : order) {
+            n.wave = 0;
+            for (Node p : nodes)
+                if ((n.predecessors & (1L << p.index)) != 0) n.wave = Math.max(n.wave, p.wave + 1);
+            depth = Math.max(depth, n.wave + 1);
+        }
+        List<List<Node>> byWave = new ArrayList<>();
+        for (int i = 0; i < depth; i++) byWave.add(new ArrayList<>());
+        for (Node n : nodes) byWave.get(n.wave).add(n);
+
+        List<Node> flat = new ArrayList<>();
+        for (List<Node> wave : byWave) flat.addAll(wave);
+        waves = byWave;
+        order = flat;
+        return this;
+    }
+
+    /**
+     * Everything wrong with the current declarations: unknown {@code after}
+     * names, cycles, and pairs of systems that share a resource (at least
+     * one writing it) without an order between them. Empty when
+     * {@link #build()} would succeed.
+     */
+    public List<String> checkDeclarations() {
+        List<String> problems = new ArrayList<>();
+
+        for (Node n : nodes) {
+            n.predecessors = 0;
+            for (String name : n.after) {
+                Node p = find(name);
+                if (p == null) problems.add(n.name + ": after(\"" + name + "\") no existe");
+                else n.predecessors |= 1L << p.index;
+            }
+        }
+        if (!problems.isEmpty()) return problems;
+
+        // Cierre transitivo (n <= 64: basta con iterar hasta que no cambie)
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Node n : nodes) {
+                long closure = n.predecessors;
+                for (Node p : nodes)
+                    if ((n.predecessors & (1L << p.index)) != 0) closure |= p.predecessors;
+                if (closure != n.predecessors) {
+                    n.predecessors = closure;
+                    changed = true;
+                }
+            }
+        }
+
+        for (Node n : nodes)
+            if ((n.predecessors & (1L << n.index)) != 0) problems.add(n.name + ": dependencia circular");
+        if (!problems.isEmpty()) return problems;
+
+        // Orden topológico estable (por orden de declaración)
+        List<Node> sorted = new ArrayList<>(nodes);
+        sorted.sort((a, b) -> Long.bitCount(a.predecessors) != Long.bitCount(b.predecessors)
+                ? Long.bitCount(a.predecessors) - Long.bitCount(b.predecessors)
+                : a.index - b.index);
+        order = sorted;
+
+        for (int i = 0; i < nodes.size(); i++) {
+            for (int j = i + 1; j < nodes.size(); j++) {
+                Node a = nodes.get(i), b = nodes.get(j);
+                boolean ordered = (a.predecessors & (1L << b.index)) != 0
+                        || (b.predecessors & (1L << a.index)) != 0;
+                if (ordered) continue;
+                EnumSet<R> shared = conflicts(a, b);
+                if (!shared.isEmpty())
+                    problems.add(a.name + " y " + b.name + " comparten " + shared + " sin orden declarado");
+            }
+        }
+        return problems;
+    }
+
+    /**
+     * Switches between serial execution on the calling thread and the
+     * shared work-stealing pool. Parallel only pays off with two or more
+     * cores; the caller decides (see {@link #shouldRunParallel()}).
+     */
+    public void setParallel(boolean parallel) {
+        if (parallel == (pool != null)) return;
+        if (parallel) {
+            pool = acquirePool();
+        } else {
+            pool = null;
+            releasePool();
+        }
+    }
+
+    /** {@code true} when the machine has a core besides the calling thread's. */
+    public static boolean shouldRunParallel() {
+        return Runtime.getRuntime().availableProcessors() >= 2;
+    }
+
+    public boolean isParallel() {
+        return pool != null;
+    }
+
+    /** Runs every system once, in dependency order. */
+    public void run() {
+        if (pool == null) {
+            for (int i = 0; i < order.size(); i++)
+                order.get(i).body.run();
+        } else {
+            for (int i = 0; i < waves.size(); i++)
+                runWave(waves.get(i));
+        }
+    }
+
+    /**
+     * Goes back to serial mode; the shared pool stops when no scheduler
+     * uses it any more. The scheduler can still run afterwards.
+     */
+    public void shutdown() {
+        setParallel(false);
+    }
+
+    /** Human-readable waves, e.g. {@code [player-physics, creature-physics] -> [collision]}. */
+    @Override
+    public String toString() {
+        if (waves == null) return "SystemScheduler (sin construir)";
+        StringBuilder sb = new StringBuilder();
+        for (List<Node> wave : waves) {
+            if (sb.length() > 0) sb.append(" -> ");
+            sb.append('[');
+            for (int i = 0; i < wave.size(); i++) {
+                if (i > 0) sb.append(", ");
+                sb.append(wave.get(i).name);
+            }
+            sb.append(']');
+        }
+        return sb.toString();
+    }
+
+    // -------------------------------------------------------------------------
+    // Private helpers
+    // -------------------------------------------------------------------------
+
+    /**
+     * El hilo que llama ejecuta el primer sistema y el pool el resto. No se
+     * usa invoke()/join(): desde fuera del pool reservan memoria en cada
+     * tick. La espera es activa porque un sistema dura microsegundos.
+     */
+    private void runWave(List<Node> wave) {
+        for (int i = 1; i < wave.size(); i++) {
+            Node n = wave.get(i);
+            n.reinitialize();
+            pool.execute(n);
+        }
+        try {
+            wave.get(0).body.run();
+        } finally {
+            for (int i = 1; i < wave.size(); i++) {
+                Node n = wave.get(i);
+                while (!n.isDone()) Thread.yield();
+            }
+        }
+        for (int i = 1; i < wave.size(); i++) {
+            Node n = wave.get(i);
+            if (n.isCompletedAbnormally()) {
+                Throwable t = n.getException();
+                if (t instanceof RuntimeException) throw (RuntimeException) t;
+                if (t instanceof Error) throw (Error) t;
+                throw new IllegalStateException("Sistema " + n.name + " falló", t);
+            }
+        }
+    }
+
+    private static synchronized ForkJoinPool acquirePool() {
+        if (sharedPool == null)
+            sharedPool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+        sharedPoolUsers++;
+        // La primera tarea que un hilo manda al pool le crea su cola (unos
+        // 2 KB): mejor aquí que en el primer tick. Quien construye el mundo
+        // suele ser quien lo actualiza.
+        sharedPool.submit(() -> { }).join();
+        return sharedPool;
+    }
+
+    private static synchronized void releasePool() {
+        if (--sharedPoolUsers == 0) {
+            sharedPool.shutdown();
+            sharedPool = null;
+        }
+    }
+
+    private Node find(String name) {
+        for (Node n : nodes)
+            if (n.name.equals(name)) return n;
+        return null;
+    }
+
+    private EnumSet<R> conflicts(Node a, Node b) {
+        EnumSet<R> shared = EnumSet.copyOf(a.writes);
+        shared.retainAll(union(b.reads, b.writes));
+        EnumSet<R> other = EnumSet.copyOf(b.writes);
+        other.retainAll(union(a.reads, a.writes));
+        shared.addAll(other);
+        return shared;
+    }
+
+    private EnumSet<R> union(EnumSet<R> x, EnumSet<R> y) {
+        EnumSet<R> u = EnumSet.copyOf(x);
+        u.addAll(y);
+        return u;
+    }
+}
@@ -0,0 +1,56 @@
+package com.TETOSOFT.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Lock-free single-producer / single-consumer triple buffer.
+ *
+ * The producer fills {@link #back()} and calls {@link #publish()}; the
+ * consumer calls {@link #acquire()} and always gets the most recently
+ * published slot. Neither side ever waits for the other: the producer can
+ * publish several times between two reads (intermediate states are simply
+ * skipped) and the consumer can re-read the same slot if nothing new
+ * arrived. The three slots are allocated once and reused.
+ */
+public final class TripleBuffer<T> {
+
+    /** Bit set in {@link #middle} when it holds a slot the consumer has not seen. */
+    private static final int FRESH = 4;
+    private static final int INDEX = 3;
+
+    private final Object[] slots = new Object[3];
+
+    /** Producer-owned slot index. */
+    private int back = 0;
+    /** Consumer-owned slot index. */
+    private int front = 1;
+    /** Slot in transit plus the {@link #FRESH} flag. */
+    private final AtomicInteger middle = new AtomicInteger(2);
+
+    public TripleBuffer(Supplier<T> factory) {
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = factory.get();
+        }
+    }
+
+    /** Producer side: the slot to fill before the next {@link #publish()}. */
+    @SuppressWarnings("unchecked")
+    public T back() {
+        return (T) slots[back];
+    }
+
+    /** Producer side: hands {@link #back()} to the consumer and takes a free slot. */
+    public void publish() {
+        back = middle.getAndSet(back | FRESH) & INDEX;
+    }
+
+    /** Consumer side: returns the latest published slot. */
+    @SuppressWarnings("unchecked")
+    public T acquire() {
+        if ((middle.get() & FRESH) != 0) {
+            front = middle.getAndSet(front) & INDEX;
+        }
+        return (T) slots[front];
+    }
+}
@@ -0,0 +1,29 @@
+package com.TETOSOFT.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("supermiro.AssetDecode")
+@Label("Asset Decode")
+@Category({"SuperMiro", "Loading"})
+@Description("Loading and decoding an image the first time it is requested.")
+final class AssetDecodeEvent extends Event {
+
+    @Label("Name")
+    public String name;
+
+    @Label("Width")
+    public int width;
+
+    @Label("Height")
+    public int height;
+
+    @Label("Bytes Decoded")
+    @Description("Size of the decoded image at 32 bits per pixel")
+    @DataAmount
+    public long bytesDecoded;
+}
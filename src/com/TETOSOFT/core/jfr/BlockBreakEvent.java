@@ -0,0 +1,20 @@
+package com.TETOSOFT.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("supermiro.BlockBreak")
+@Label("Block Break")
+@Category({"SuperMiro", "Simulation"})
+@Description("A tile broken from below.")
+final class BlockBreakEvent extends Event {
+
+    @Label("Tile X")
+    public int tileX;
+
+    @Label("Tile Y")
+    public int tileY;
+}
@@ -0,0 +1,25 @@
+package com.TETOSOFT.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("supermiro.Frame")
+@Label("Frame")
+@Category({"SuperMiro", "Game loop"})
+@Description("One iteration of the game loop: ticks, draw, present and pacing.")
+final class FrameEvent extends Event {
+
+    @Label("Ticks")
+    @Description("Simulation ticks run in this iteration")
+    public int ticks;
+
+    @Label("Drawn")
+    @Description("False when the frame was skipped as unchanged")
+    public boolean drawn;
+
+    @Label("Quality Level")
+    public String qualityLevel;
+}
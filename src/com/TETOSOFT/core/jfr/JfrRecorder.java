@@ -0,0 +1,166 @@
+package com.TETOSOFT.core.jfr;
+
+import com.TETOSOFT.core.GameEvents;
+
+/**
+ * The JFR side of {@link GameEvents}, which loads it by name only when
+ * {@code jdk.jfr} exists. The event classes of this package are not used
+ * anywhere else.
+ */
+public final class JfrRecorder implements GameEvents.Recorder {
+
+    /** Whether some recording is running; kept by {@link RecordingWatch}. */
+    static volatile boolean recording;
+
+    public JfrRecorder() {
+        RecordingWatch.install();
+    }
+
+    @Override
+    public boolean isRecording() {
+        return recording;
+    }
+
+    // -------------------------------------------------------------------------
+    // Span events
+    // -------------------------------------------------------------------------
+
+    @Override
+    public Object frame() {
+        if (!recording) return null;
+        FrameEvent e = new FrameEvent();
+        e.begin();
+        return e;
+    }
+
+    @Override
+    public void commitFrame(Object span, int ticks, boolean drawn, String qualityLevel) {
+        FrameEvent e = (FrameEvent) span;
+        if (e.shouldCommit()) {
+            e.ticks = ticks;
+            e.drawn = drawn;
+            e.qualityLevel = qualityLevel;
+            e.commit();
+        }
+    }
+
+    @Override
+    public Object tick() {
+        if (!recording) return null;
+        TickEvent e = new TickEvent();
+        e.begin();
+        return e;
+    }
+
+    @Override
+    public void commitTick(Object span, int mapNumber, int entities, long elapsed) {
+        TickEvent e = (TickEvent) span;
+        if (e.shouldCommit()) {
+            e.mapNumber = mapNumber;
+            e.entities  = entities;
+            e.elapsed   = elapsed;
+            e.commit();
+        }
+    }
+
+    @Override
+    public Object mapLoad() {
+        if (!recording) return null;
+        MapLoadEvent e = new MapLoadEvent();
+        e.begin();
+        return e;
+    }
+
+    @Override
+    public void commitMapLoad(Object span, int mapNumber, boolean reload, boolean found, int entities) {
+        MapLoadEvent e = (MapLoadEvent) span;
+        if (e.shouldCommit()) {
+            e.mapNumber = mapNumber;
+            e.reload    = reload;
+            e.found     = found;
+            e.entities  = entities;
+            e.commit();
+        }
+    }
+
+    @Override
+    public Object mapParse() {
+        if (!recording) return null;
+        MapParseEvent e = new MapParseEvent();
+        e.begin();
+        return e;
+    }
+
+    @Override
+    public void commitMapParse(Object span, String path, int width, int height, int entities, int characters) {
+        MapParseEvent e = (MapParseEvent) span;
+        if (e.shouldCommit()) {
+            e.path       = path;
+            e.width      = width;
+            e.height     = height;
+            e.entities   = entities;
+            e.characters = characters;
+            e.commit();
+        }
+    }
+
+    @Override
+    public Object assetDecode() {
+        if (!recording) return null;
+        AssetDecodeEvent e = new AssetDecodeEvent();
+        e.begin();
+        return e;
+    }
+
+    @Override
+    public void commitAssetDecode(Object span, String name, int width, int height, long bytesDecoded) {
+        AssetDecodeEvent e = (AssetDecodeEvent) span;
+        if (e.shouldCommit()) {
+            e.name         = name;
+            e.width        = width;
+            e.height       = height;
+            e.bytesDecoded = bytesDecoded;
+            e.commit();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Instant events
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void spriteSpawned(String type, float x, float y, int entities) {
+        if (!recording) return;
+        SpriteSpawnEvent e = new SpriteSpawnEvent();
+        if (e.shouldCommit()) {
+            e.spriteType = type;
+            e.x = x;
+            e.y = y;
+            e.entities = entities;
+            e.commit();
+        }
+    }
+
+    @Override
+    public void blockBroken(int tileX, int tileY) {
+        if (!recording) return;
+        BlockBreakEvent e = new BlockBreakEvent();
+        if (e.shouldCommit()) {
+            e.tileX = tileX;
+            e.tileY = tileY;
+            e.commit();
+        }
+    }
+
+    @Override
+    public void stateChanged(String from, String to, int mapNumber) {
+        if (!recording) return;
+        StateTransitionEvent e = new StateTransitionEvent();
+        if (e.shouldCommit()) {
+            e.from = from;
+            e.to = to;
+            e.mapNumber = mapNumber;
+            e.commit();
+        }
+    }
+}
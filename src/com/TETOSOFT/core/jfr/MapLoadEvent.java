@@ -0,0 +1,28 @@
+package com.TETOSOFT.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("supermiro.MapLoad")
+@Label("Map Load")
+@Category({"SuperMiro", "Loading"})
+@Description("Loading or reloading a map through MapLoader.")
+final class MapLoadEvent extends Event {
+
+    @Label("Map")
+    public int mapNumber;
+
+    @Label("Reload")
+    @Description("True when the current map was reloaded after a death")
+    public boolean reload;
+
+    @Label("Found")
+    @Description("False when the map does not exist (end of the game)")
+    public boolean found;
+
+    @Label("Entities")
+    public int entities;
+}
@@ -0,0 +1,31 @@
+package com.TETOSOFT.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("supermiro.MapParse")
+@Label("Map Parse")
+@Category({"SuperMiro", "Loading"})
+@Description("Reading and parsing a map file into a TileMap.")
+final class MapParseEvent extends Event {
+
+    @Label("Path")
+    public String path;
+
+    @Label("Width")
+    @Description("Width in tiles")
+    public int width;
+
+    @Label("Height")
+    @Description("Height in tiles")
+    public int height;
+
+    @Label("Entities")
+    public int entities;
+
+    @Label("Characters Read")
+    public int characters;
+}
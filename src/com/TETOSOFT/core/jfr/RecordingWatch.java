@@ -0,0 +1,34 @@
+package com.TETOSOFT.core.jfr;
+
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * Keeps {@link JfrRecorder#isRecording()} up to date.
+ */
+final class RecordingWatch implements FlightRecorderListener {
+
+    static void install() {
+        FlightRecorder.addListener(new RecordingWatch());
+    }
+
+    @Override
+    public void recorderInitialized(FlightRecorder recorder) {
+        update(recorder);
+    }
+
+    @Override
+    public void recordingStateChanged(Recording recording) {
+        update(FlightRecorder.getFlightRecorder());
+    }
+
+    private static void update(FlightRecorder recorder) {
+        boolean running = false;
+        for (Recording r : recorder.getRecordings()) {
+            if (r.getState() == RecordingState.RUNNING) running = true;
+        }
+        JfrRecorder.recording = running;
+    }
+}
@@ -0,0 +1,27 @@
+package com.TETOSOFT.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("supermiro.SpriteSpawn")
+@Label("Sprite Spawn")
+@Category({"SuperMiro", "Simulation"})
+@Description("A sprite created during play, e.g. a fly from a SpawnerGrub.")
+final class SpriteSpawnEvent extends Event {
+
+    @Label("Sprite Type")
+    public String spriteType;
+
+    @Label("X")
+    public float x;
+
+    @Label("Y")
+    public float y;
+
+    @Label("Entities")
+    @Description("Sprites in the map after the spawn")
+    public int entities;
+}
@@ -0,0 +1,23 @@
+package com.TETOSOFT.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("supermiro.StateTransition")
+@Label("State Transition")
+@Category({"SuperMiro", "Game loop"})
+@Description("A change of screen state in GameEngine.")
+final class StateTransitionEvent extends Event {
+
+    @Label("From")
+    public String from;
+
+    @Label("To")
+    public String to;
+
+    @Label("Map")
+    public int mapNumber;
+}
@@ -0,0 +1,26 @@
+package com.TETOSOFT.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("supermiro.Tick")
+@Label("Simulation Tick")
+@Category({"SuperMiro", "Game loop"})
+@Description("One update of the game world.")
+final class TickEvent extends Event {
+
+    @Label("Map")
+    public int mapNumber;
+
+    @Label("Entities")
+    @Description("Sprites in the map, player excluded")
+    public int entities;
+
+    @Label("Elapsed")
+    @Timespan(Timespan.MILLISECONDS)
+    public long elapsed;
+}
@@ -1,11 +1,11 @@
 package com.TETOSOFT.graphics;
 
-import java.awt.Image;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
- * A time-based sprite animation made up of a sequence of frames.
+ * A time-based sprite animation made up of a sequence of frames, each an
+ * {@link ImageRegion} (usually of a texture atlas page).
  */
 public class Animation {
 
@@ -29,7 +29,7 @@ public class Animation {
         return new Animation(frames, totalDuration);
     }
 
-    public synchronized void addFrame(Image image, long duration) {
+    public synchronized void addFrame(ImageRegion image, long duration) {
         totalDuration += duration;
         frames.add(new AnimFrame(image, totalDuration));
     }
@@ -95,7 +95,7 @@ public class Animation {
 
     public synchronized int getCurrFrameIndex() { return currFrameIndex; }
 
-    public synchronized Image getImage() {
+    public synchronized ImageRegion getImage() {
         if (frames.isEmpty()) return null;
         return getFrame(currFrameIndex).image;
     }
@@ -114,10 +114,10 @@ public class Animation {
     // -------------------------------------------------------------------------
 
     private static class AnimFrame {
-        final Image image;
-        final long  endTime;
+        final ImageRegion image;
+        final long        endTime;
 
-        AnimFrame(Image image, long endTime) {
+        AnimFrame(ImageRegion image, long endTime) {
             this.image   = image;
             this.endTime = endTime;
         }
@@ -12,11 +12,15 @@ import java.awt.image.BufferedImage;
  * - Parpadeo sutil de pantalla
  * - Ruido de grano
  *
- * Uso: llamar a {@link #draw(Graphics2D, int, int)} al final de
+ * Uso: llamar a {@link #draw(Graphics2D, int, int, long)} al final de
  * GameEngine.draw(),
- * después de dibujar todo lo demás. No modifica ningún otro sistema.
+ * después de dibujar todo lo demás. No modifica ningún otro sistema. Con el
+ * raster por software, {@link #draw(RenderTarget, int, int, long)}.
  *
- * Para activar/desactivar: {@link #setEnabled(boolean)}
+ * Para activar/desactivar: {@link #setEnabled(boolean)}; el grano y el
+ * vignette también por separado ({@link #setGrainEnabled(boolean)},
+ * {@link #setVignetteEnabled(boolean)}), que es lo que usa el gobernador de
+ * calidad.
  * Para ajustar intensidad: modificar las constantes al inicio de la clase.
  */
 public class CRTOverlay {
@@ -38,25 +42,46 @@ public class CRTOverlay {
     private static final int FLICKER_INTERVAL = 6000;
     /** Intensidad del parpadeo (0.0 = sin parpadeo, 0.08 = apenas perceptible). */
     private static final float FLICKER_STRENGTH = 0.04f;
-    /** Activa el grano de ruido analógico. */
-    private static final boolean ENABLE_GRAIN = true;
     /** Intensidad del grano (0-255). */
     private static final int GRAIN_INTENSITY = 18;
+    /** Pasos en que se apaga cada pulso de parpadeo. */
+    private static final int FLICKER_STEPS = 10;
+    /** Lado de las baldosas de grano en píxeles. */
+    private static final int GRAIN_TILE = 256;
+    /**
+     * Baldosas de grano distintas que se pregeneran (256 KB cada una). Cada
+     * celda de la pantalla toma una al azar y todo el mosaico se desplaza
+     * al azar en x e y cada frame, así que no se ve la repetición.
+     */
+    private static final int GRAIN_TEXTURES = 4;
+    /** Una mota por cada tantos píxeles. */
+    private static final int GRAIN_PIXELS_PER_DOT = 400;
 
     // -------------------------------------------------------------------------
     // Estado interno
     // -------------------------------------------------------------------------
 
     private boolean enabled = true;
+    private boolean grainEnabled = true;
+    private boolean vignetteEnabled = true;
 
     private BufferedImage scanlinesCache;
     private BufferedImage vignetteCache;
+    /**
+     * Anillo de baldosas de grano: translúcidas, con la intensidad en el
+     * alfa y transparentes fuera de las motas. Se crean la primera vez que
+     * se dibuja grano (no dependen de la resolución); null = aún no.
+     */
+    private BufferedImage[] grainRing;
     private int cachedWidth = -1;
     private int cachedHeight = -1;
 
     private long flickerTimer = 0;
-    private float flickerAlpha = 0f;
-    private long grainSeed = 0;
+    private int flickerStep = 0;
+    /** Semilla fija: la misma secuencia de grano en cada ejecución (las comparaciones headless lo necesitan). */
+    private final java.util.Random grainRng = new java.util.Random(0);
+    /** Envoltorio reutilizado: draw() no reserva memoria en cada frame. */
+    private final Java2DTarget java2d = new Java2DTarget();
 
     // -------------------------------------------------------------------------
     // API pública
@@ -70,6 +95,23 @@ public class CRTOverlay {
         return enabled;
     }
 
+    /** Activa el grano de ruido analógico. */
+    public void setGrainEnabled(boolean grainEnabled) {
+        this.grainEnabled = grainEnabled;
+    }
+
+    public boolean isGrainEnabled() {
+        return grainEnabled;
+    }
+
+    public void setVignetteEnabled(boolean vignetteEnabled) {
+        this.vignetteEnabled = vignetteEnabled;
+    }
+
+    public boolean isVignetteEnabled() {
+        return vignetteEnabled;
+    }
+
     /**
      * Dibuja el efecto CRT encima del frame actual.
      * Llamar al final de GameEngine.draw(), después de todo lo demás.
@@ -78,37 +120,42 @@ public class CRTOverlay {
         if (!enabled)
             return;
 
-        rebuildCacheIfNeeded(width, height);
-
         Composite original = g.getComposite();
+        g.setComposite(AlphaComposite.SrcOver);
+        draw(java2d.of(g), width, height, elapsedTime);
+        g.setComposite(original);
+    }
+
+    /** Igual que {@link #draw(Graphics2D, int, int, long)} sobre cualquier destino. */
+    public void draw(RenderTarget g, int width, int height, long elapsedTime) {
+        if (!enabled)
+            return;
+
+        rebuildCacheIfNeeded(width, height);
 
         // 1. Scanlines
-        g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, SCANLINE_ALPHA));
-        g.drawImage(scanlinesCache, 0, 0, null);
+        g.drawImage(scanlinesCache, 0, 0, SCANLINE_ALPHA);
 
         // 2. Vignette
-        g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 1.0f));
-        g.drawImage(vignetteCache, 0, 0, null);
+        if (vignetteEnabled) {
+            g.drawImage(vignetteCache, 0, 0);
+        }
 
         // 3. Parpadeo
         flickerTimer += elapsedTime;
         if (flickerTimer > FLICKER_INTERVAL) {
             flickerTimer = 0;
-            flickerAlpha = FLICKER_STRENGTH;
+            flickerStep = FLICKER_STEPS;
         }
-        if (flickerAlpha > 0) {
-            g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, flickerAlpha));
-            g.setColor(Color.WHITE);
-            g.fillRect(0, 0, width, height);
-            flickerAlpha = Math.max(0, flickerAlpha - 0.004f);
+        if (flickerStep > 0) {
+            g.fillRect(0, 0, width, height, Color.WHITE, FLICKER_STRENGTH * flickerStep / FLICKER_STEPS);
+            flickerStep--;
         }
 
         // 4. Grano de ruido
-        if (ENABLE_GRAIN) {
+        if (grainEnabled) {
             drawGrain(g, width, height);
         }
-
-        g.setComposite(original);
     }
 
     // -------------------------------------------------------------------------
@@ -167,20 +214,44 @@ public class CRTOverlay {
     // Grano
     // -------------------------------------------------------------------------
 
-    private void drawGrain(Graphics2D g, int width, int height) {
-        grainSeed = (grainSeed * 6364136223846793005L + 1442695040888963407L);
-        java.util.Random rng = new java.util.Random(grainSeed);
+    /**
+     * La pantalla se cubre con baldosas de {@link #GRAIN_TILE} px, cada
+     * celda con una del anillo elegida al azar y el mosaico desplazado al
+     * azar en x e y: unos blits pequeños de imágenes que Java2D puede
+     * guardar en memoria de vídeo, y nada de trabajo por mota.
+     */
+    private void drawGrain(RenderTarget g, int width, int height) {
+        if (grainRing == null) buildGrainRing(g.getDeviceConfiguration());
 
-        int particles = (width * height) / 400;
-        g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER,
-                GRAIN_INTENSITY / 255f));
+        java.util.Random rng = grainRng;
+        int ox = rng.nextInt(GRAIN_TILE);
+        int oy = rng.nextInt(GRAIN_TILE);
+        for (int y = -oy; y < height; y += GRAIN_TILE) {
+            for (int x = -ox; x < width; x += GRAIN_TILE) {
+                g.drawImage(grainRing[rng.nextInt(GRAIN_TEXTURES)], x, y);
+            }
+        }
+    }
 
-        for (int i = 0; i < particles; i++) {
-            int x = rng.nextInt(width);
-            int y = rng.nextInt(height);
-            int bright = rng.nextInt(200) + 55;
-            g.setColor(new Color(bright, bright, bright));
-            g.fillRect(x, y, 1, 1);
+    /**
+     * Motas sueltas de brillo al azar, una por cada
+     * {@link #GRAIN_PIXELS_PER_DOT} píxeles. Se escriben con setRGB (por el
+     * raster, sin sacar el array): así la imagen sigue siendo gestionada y
+     * Java2D puede cachearla en la tarjeta.
+     */
+    private void buildGrainRing(GraphicsConfiguration gc) {
+        java.util.Random rng = grainRng;
+        int alpha = GRAIN_INTENSITY << 24;
+        int dots = GRAIN_TILE * GRAIN_TILE / GRAIN_PIXELS_PER_DOT;
+        grainRing = new BufferedImage[GRAIN_TEXTURES];
+        for (int t = 0; t < GRAIN_TEXTURES; t++) {
+            BufferedImage img = gc.createCompatibleImage(GRAIN_TILE, GRAIN_TILE, Transparency.TRANSLUCENT);
+            for (int i = 0; i < dots; i++) {
+                int bright = rng.nextInt(200) + 55;
+                img.setRGB(rng.nextInt(GRAIN_TILE), rng.nextInt(GRAIN_TILE),
+                        alpha | bright << 16 | bright << 8 | bright);
+            }
+            grainRing[t] = img;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,380 @@
+package com.TETOSOFT.graphics;
+
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.BufferedImageOp;
+import java.awt.image.ImageObserver;
+import java.awt.image.RenderedImage;
+import java.awt.image.renderable.RenderableImage;
+import java.text.AttributedCharacterIterator;
+import java.util.Map;
+
+/**
+ * {@link Graphics2D} that draws through to another one and records every
+ * primitive in an {@link OverdrawStats}: one call, its screen bounding box
+ * and whether it blends.
+ *
+ * Debug only: every call reads the transform and the clip back from the
+ * real Graphics, which allocates. Code that draws marks its stages with
+ * {@link #pass(Graphics2D, OverdrawStats.Pass)}, a no-op on any other
+ * Graphics.
+ *
+ * Offscreen buffers that end up scaled on screen (the reduced-resolution
+ * world) can be wrapped too: {@code heatScaleX/Y} map their pixels to
+ * screen pixels so the heat map stays in screen space.
+ */
+public class CountingGraphics extends Graphics2D {
+
+    private final Graphics2D    g;
+    private final OverdrawStats stats;
+    private final double        heatScaleX, heatScaleY;
+
+    public CountingGraphics(Graphics2D g, OverdrawStats stats) {
+        this(g, stats, 1, 1);
+    }
+
+    public CountingGraphics(Graphics2D g, OverdrawStats stats, double heatScaleX, double heatScaleY) {
+        this.g          = g;
+        this.stats      = stats;
+        this.heatScaleX = heatScaleX;
+        this.heatScaleY = heatScaleY;
+    }
+
+    /** Marks the start of a stage of the frame when {@code g} is counting. */
+    public static void pass(Graphics2D g, OverdrawStats.Pass pass) {
+        if (g instanceof CountingGraphics) ((CountingGraphics) g).stats.setPass(pass);
+    }
+
+    // -------------------------------------------------------------------------
+    // Recuento
+    // -------------------------------------------------------------------------
+
+    /** A primitive covering the user-space rectangle (x, y, w, h). */
+    private void count(double x, double y, double w, double h, boolean translucentSource) {
+        boolean blend = translucentSource || !isOpaqueComposite();
+        Rectangle clip = g.getClipBounds();
+        if (clip != null) {
+            double x0 = Math.max(x, clip.x), y0 = Math.max(y, clip.y);
+            double x1 = Math.min(x + w, clip.x + (double) clip.width);
+            double y1 = Math.min(y + h, clip.y + (double) clip.height);
+            x = x0;
+            y = y0;
+            w = x1 - x0;
+            h = y1 - y0;
+        }
+        if (w <= 0 || h <= 0) {
+            stats.record(0, 0, 0, 0, blend);
+            return;
+        }
+
+        AffineTransform t = g.getTransform();
+        double minX, minY, maxX, maxY;
+        if ((t.getType() & ~AffineTransform.TYPE_TRANSLATION) == 0) {
+            minX = x + t.getTranslateX();
+            minY = y + t.getTranslateY();
+            maxX = minX + w;
+            maxY = minY + h;
+        } else {
+            double[] c = { x, y, x + w, y, x, y + h, x + w, y + h };
+            t.transform(c, 0, c, 0, 4);
+            minX = Math.min(Math.min(c[0], c[2]), Math.min(c[4], c[6]));
+            maxX = Math.max(Math.max(c[0], c[2]), Math.max(c[4], c[6]));
+            minY = Math.min(Math.min(c[1], c[3]), Math.min(c[5], c[7]));
+            maxY = Math.max(Math.max(c[1], c[3]), Math.max(c[5], c[7]));
+        }
+        stats.record((int) Math.floor(minX * heatScaleX), (int) Math.floor(minY * heatScaleY),
+                (int) Math.ceil(maxX * heatScaleX), (int) Math.ceil(maxY * heatScaleY), blend);
+    }
+
+    private void count(Rectangle2D r, boolean translucentSource) {
+        count(r.getX(), r.getY(), r.getWidth(), r.getHeight(), translucentSource);
+    }
+
+    private boolean isOpaqueComposite() {
+        Composite c = g.getComposite();
+        if (!(c instanceof AlphaComposite)) return false;
+        AlphaComposite ac = (AlphaComposite) c;
+        return ac.getAlpha() >= 1f
+                && (ac.getRule() == AlphaComposite.SRC_OVER || ac.getRule() == AlphaComposite.SRC);
+    }
+
+    private boolean isTranslucentPaint() {
+        Paint p = g.getPaint();
+        return p != null && p.getTransparency() == Transparency.TRANSLUCENT;
+    }
+
+    private static boolean isTranslucent(Image img) {
+        return img instanceof Transparency
+                && ((Transparency) img).getTransparency() == Transparency.TRANSLUCENT;
+    }
+
+    private void countImage(Image img, double x, double y, double w, double h) {
+        if (img == null) return;
+        if (w < 0) w = img.getWidth(null);
+        if (h < 0) h = img.getHeight(null);
+        count(x, y, w, h, isTranslucent(img));
+    }
+
+    private void countText(String s, float x, float y) {
+        FontMetrics fm = g.getFontMetrics();
+        count(x, y - fm.getAscent(), fm.stringWidth(s), fm.getAscent() + fm.getDescent(), true);
+    }
+
+    // -------------------------------------------------------------------------
+    // Primitivas contadas
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void draw(Shape s) {
+        count(g.getStroke().createStrokedShape(s).getBounds2D(), isTranslucentPaint());
+        g.draw(s);
+    }
+
+    @Override
+    public void fill(Shape s) {
+        count(s.getBounds2D(), isTranslucentPaint());
+        g.fill(s);
+    }
+
+    @Override
+    public boolean drawImage(Image img, AffineTransform xform, ImageObserver obs) {
+        if (img != null) {
+            Rectangle2D r = xform.createTransformedShape(
+                    new Rectangle(0, 0, img.getWidth(null), img.getHeight(null))).getBounds2D();
+            count(r, isTranslucent(img));
+        }
+        return g.drawImage(img, xform, obs);
+    }
+
+    @Override
+    public void drawImage(BufferedImage img, BufferedImageOp op, int x, int y) {
+        countImage(img, x, y, -1, -1);
+        g.drawImage(img, op, x, y);
+    }
+
+    @Override
+    public void drawRenderedImage(RenderedImage img, AffineTransform xform) {
+        count(xform.createTransformedShape(new Rectangle(0, 0, img.getWidth(), img.getHeight())).getBounds2D(),
+                true);
+        g.drawRenderedImage(img, xform);
+    }
+
+    @Override
+    public void drawRenderableImage(RenderableImage img, AffineTransform xform) {
+        count(xform.createTransformedShape(new Rectangle2D.Float(img.getMinX(), img.getMinY(),
+                img.getWidth(), img.getHeight())).getBounds2D(), true);
+        g.drawRenderableImage(img, xform);
+    }
+
+    @Override
+    public void drawString(String str, int x, int y) {
+        countText(str, x, y);
+        g.drawString(str, x, y);
+    }
+
+    @Override
+    public void drawString(String str, float x, float y) {
+        countText(str, x, y);
+        g.drawString(str, x, y);
+    }
+
+    @Override
+    public void drawString(AttributedCharacterIterator it, int x, int y) {
+        drawString(it, (float) x, (float) y);
+    }
+
+    @Override
+    public void drawString(AttributedCharacterIterator it, float x, float y) {
+        Rectangle2D r = g.getFontMetrics().getStringBounds(it, it.getBeginIndex(), it.getEndIndex(), g);
+        count(x + r.getX(), y + r.getY(), r.getWidth(), r.getHeight(), true);
+        g.drawString(it, x, y);
+    }
+
+    @Override
+    public void drawGlyphVector(GlyphVector gv, float x, float y) {
+        Rectangle2D r = gv.getLogicalBounds();
+        count(x + r.getX(), y + r.getY(), r.getWidth(), r.getHeight(), true);
+        g.drawGlyphVector(gv, x, y);
+    }
+
+    @Override
+    public void drawLine(int x1, int y1, int x2, int y2) {
+        count(Math.min(x1, x2), Math.min(y1, y2), Math.abs(x2 - x1) + 1, Math.abs(y2 - y1) + 1,
+                isTranslucentPaint());
+        g.drawLine(x1, y1, x2, y2);
+    }
+
+    @Override
+    public void fillRect(int x, int y, int width, int height) {
+        count(x, y, width, height, isTranslucentPaint());
+        g.fillRect(x, y, width, height);
+    }
+
+    @Override
+    public void drawRect(int x, int y, int width, int height) {
+        count(x, y, width + 1, height + 1, isTranslucentPaint());
+        g.drawRect(x, y, width, height);
+    }
+
+    @Override
+    public void clearRect(int x, int y, int width, int height) {
+        count(x, y, width, height, false);
+        g.clearRect(x, y, width, height);
+    }
+
+    @Override
+    public void drawRoundRect(int x, int y, int width, int height, int arcWidth, int arcHeight) {
+        count(x, y, width + 1, height + 1, isTranslucentPaint());
+        g.drawRoundRect(x, y, width, height, arcWidth, arcHeight);
+    }
+
+    @Override
+    public void fillRoundRect(int x, int y, int width, int height, int arcWidth, int arcHeight) {
+        count(x, y, width, height, isTranslucentPaint());
+        g.fillRoundRect(x, y, width, height, arcWidth, arcHeight);
+    }
+
+    @Override
+    public void drawOval(int x, int y, int width, int height) {
+        count(x, y, width + 1, height + 1, isTranslucentPaint());
+        g.drawOval(x, y, width, height);
+    }
+
+    @Override
+    public void fillOval(int x, int y, int width, int height) {
+        count(x, y, width, height, isTranslucentPaint());
+        g.fillOval(x, y, width, height);
+    }
+
+    @Override
+    public void drawArc(int x, int y, int width, int height, int startAngle, int arcAngle) {
+        count(x, y, width + 1, height + 1, isTranslucentPaint());
+        g.drawArc(x, y, width, height, startAngle, arcAngle);
+    }
+
+    @Override
+    public void fillArc(int x, int y, int width, int height, int startAngle, int arcAngle) {
+        count(x, y, width, height, isTranslucentPaint());
+        g.fillArc(x, y, width, height, startAngle, arcAngle);
+    }
+
+    @Override
+    public void drawPolyline(int[] xPoints, int[] yPoints, int nPoints) {
+        count(new Polygon(xPoints, yPoints, nPoints).getBounds2D(), isTranslucentPaint());
+        g.drawPolyline(xPoints, yPoints, nPoints);
+    }
+
+    @Override
+    public void drawPolygon(int[] xPoints, int[] yPoints, int nPoints) {
+        count(new Polygon(xPoints, yPoints, nPoints).getBounds2D(), isTranslucentPaint());
+        g.drawPolygon(xPoints, yPoints, nPoints);
+    }
+
+    @Override
+    public void fillPolygon(int[] xPoints, int[] yPoints, int nPoints) {
+        count(new Polygon(xPoints, yPoints, nPoints).getBounds2D(), isTranslucentPaint());
+        g.fillPolygon(xPoints, yPoints, nPoints);
+    }
+
+    @Override
+    public boolean drawImage(Image img, int x, int y, ImageObserver observer) {
+        countImage(img, x, y, -1, -1);
+        return g.drawImage(img, x, y, observer);
+    }
+
+    @Override
+    public boolean drawImage(Image img, int x, int y, int width, int height, ImageObserver observer) {
+        countImage(img, x, y, width, height);
+        return g.drawImage(img, x, y, width, height, observer);
+    }
+
+    @Override
+    public boolean drawImage(Image img, int x, int y, Color bgcolor, ImageObserver observer) {
+        countImage(img, x, y, -1, -1);
+        return g.drawImage(img, x, y, bgcolor, observer);
+    }
+
+    @Override
+    public boolean drawImage(Image img, int x, int y, int width, int height, Color bgcolor,
+                             ImageObserver observer) {
+        countImage(img, x, y, width, height);
+        return g.drawImage(img, x, y, width, height, bgcolor, observer);
+    }
+
+    @Override
+    public boolean drawImage(Image img, int dx1, int dy1, int dx2, int dy2,
+                             int sx1, int sy1, int sx2, int sy2, ImageObserver observer) {
+        countImage(img, Math.min(dx1, dx2), Math.min(dy1, dy2), Math.abs(dx2 - dx1), Math.abs(dy2 - dy1));
+        return g.drawImage(img, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, observer);
+    }
+
+    @Override
+    public boolean drawImage(Image img, int dx1, int dy1, int dx2, int dy2,
+                             int sx1, int sy1, int sx2, int sy2, Color bgcolor, ImageObserver observer) {
+        countImage(img, Math.min(dx1, dx2), Math.min(dy1, dy2), Math.abs(dx2 - dx1), Math.abs(dy2 - dy1));
+        return g.drawImage(img, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, bgcolor, observer);
+    }
+
+    @Override
+    public void copyArea(int x, int y, int width, int height, int dx, int dy) {
+        count(x + dx, y + dy, width, height, false);
+        g.copyArea(x, y, width, height, dx, dy);
+    }
+
+    // -------------------------------------------------------------------------
+    // Estado: se delega tal cual
+    // -------------------------------------------------------------------------
+
+    @Override
+    public Graphics create() {
+        return new CountingGraphics((Graphics2D) g.create(), stats, heatScaleX, heatScaleY);
+    }
+
+    @Override
+    public void dispose() {
+        g.dispose();
+    }
+
+    @Override public boolean hit(Rectangle rect, Shape s, boolean onStroke) { return g.hit(rect, s, onStroke); }
+    @Override public GraphicsConfiguration getDeviceConfiguration() { return g.getDeviceConfiguration(); }
+    @Override public void setComposite(Composite comp)     { g.setComposite(comp); }
+    @Override public void setPaint(Paint paint)            { g.setPaint(paint); }
+    @Override public void setStroke(Stroke s)              { g.setStroke(s); }
+    @Override public void setRenderingHint(RenderingHints.Key key, Object value) { g.setRenderingHint(key, value); }
+    @Override public Object getRenderingHint(RenderingHints.Key key) { return g.getRenderingHint(key); }
+    @Override public void setRenderingHints(Map<?, ?> hints) { g.setRenderingHints(hints); }
+    @Override public void addRenderingHints(Map<?, ?> hints) { g.addRenderingHints(hints); }
+    @Override public RenderingHints getRenderingHints()    { return g.getRenderingHints(); }
+    @Override public void translate(int x, int y)          { g.translate(x, y); }
+    @Override public void translate(double tx, double ty)  { g.translate(tx, ty); }
+    @Override public void rotate(double theta)             { g.rotate(theta); }
+    @Override public void rotate(double theta, double x, double y) { g.rotate(theta, x, y); }
+    @Override public void scale(double sx, double sy)      { g.scale(sx, sy); }
+    @Override public void shear(double shx, double shy)    { g.shear(shx, shy); }
+    @Override public void transform(AffineTransform tx)    { g.transform(tx); }
+    @Override public void setTransform(AffineTransform tx) { g.setTransform(tx); }
+    @Override public AffineTransform getTransform()        { return g.getTransform(); }
+    @Override public Paint getPaint()                      { return g.getPaint(); }
+    @Override public Composite getComposite()              { return g.getComposite(); }
+    @Override public void setBackground(Color color)       { g.setBackground(color); }
+    @Override public Color getBackground()                 { return g.getBackground(); }
+    @Override public Stroke getStroke()                    { return g.getStroke(); }
+    @Override public void clip(Shape s)                    { g.clip(s); }
+    @Override public FontRenderContext getFontRenderContext() { return g.getFontRenderContext(); }
+    @Override public Color getColor()                      { return g.getColor(); }
+    @Override public void setColor(Color c)                { g.setColor(c); }
+    @Override public void setPaintMode()                   { g.setPaintMode(); }
+    @Override public void setXORMode(Color c1)             { g.setXORMode(c1); }
+    @Override public Font getFont()                        { return g.getFont(); }
+    @Override public void setFont(Font font)               { g.setFont(font); }
+    @Override public FontMetrics getFontMetrics(Font f)    { return g.getFontMetrics(f); }
+    @Override public Rectangle getClipBounds()             { return g.getClipBounds(); }
+    @Override public void clipRect(int x, int y, int width, int height) { g.clipRect(x, y, width, height); }
+    @Override public void setClip(int x, int y, int width, int height)  { g.setClip(x, y, width, height); }
+    @Override public Shape getClip()                       { return g.getClip(); }
+    @Override public void setClip(Shape clip)              { g.setClip(clip); }
+}
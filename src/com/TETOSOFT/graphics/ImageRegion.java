@@ -0,0 +1,55 @@
+package com.TETOSOFT.graphics;
+
+import java.awt.Image;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+/**
+ * A rectangle of an image, drawn as if it were an image of its own: a tile
+ * or sprite frame on a {@link TextureAtlas} page, or a whole image
+ * ({@link #of(Image)}). {@link RenderTarget#drawImage(ImageRegion, int, int)}
+ * copies only the rectangle, so every region of a page shares the page's
+ * pixels and its one cached copy in video memory, unlike a
+ * {@link BufferedImage#getSubimage subimage}, which Java2D tracks and
+ * caches as a separate image.
+ *
+ * The atlas may move its regions to a smaller copy of their page once
+ * loading is done ({@link TextureAtlas#trim()}); the rectangle never
+ * changes.
+ */
+public final class ImageRegion {
+
+    private Image image;
+    private final int x, y, width, height;
+
+    public ImageRegion(Image image, int x, int y, int width, int height) {
+        this.image  = image;
+        this.x      = x;
+        this.y      = y;
+        this.width  = width;
+        this.height = height;
+    }
+
+    /** The whole of {@code image}; empty (0 x 0) if it failed to load. */
+    public static ImageRegion of(Image image) {
+        return new ImageRegion(image, 0, 0, Math.max(0, image.getWidth(null)), Math.max(0, image.getHeight(null)));
+    }
+
+    /** The image the rectangle is taken from (an atlas page or a whole image). */
+    public Image getImage() { return image; }
+
+    public int getX()      { return x; }
+    public int getY()      { return y; }
+    public int getWidth()  { return width; }
+    public int getHeight() { return height; }
+
+    /** Transparency of the image the region is on; TRANSLUCENT if unknown. */
+    public int getTransparency() {
+        return image instanceof Transparency ? ((Transparency) image).getTransparency() : Transparency.TRANSLUCENT;
+    }
+
+    /** Para {@link TextureAtlas#trim()}: la misma región en otra copia de la página. */
+    void moveTo(Image page) {
+        image = page;
+    }
+}
@@ -0,0 +1,100 @@
+package com.TETOSOFT.graphics;
+
+import java.awt.*;
+
+/**
+ * {@link RenderTarget} that draws through a {@link Graphics2D}.
+ *
+ * Reusable: {@link #of(Graphics2D)} points it at the Graphics of the
+ * current frame, so drawing through it allocates nothing. The blended
+ * primitives set their composite and put the previous one back.
+ */
+public class Java2DTarget implements RenderTarget {
+
+    /** SrcOver con alfa k/255, creado la primera vez que se usa (Java2D redondea el alfa a 8 bits). */
+    private static final AlphaComposite[] COMPOSITES = new AlphaComposite[256];
+
+    private Graphics2D g;
+
+    public Java2DTarget() {
+    }
+
+    public Java2DTarget(Graphics2D g) {
+        this.g = g;
+    }
+
+    /** Draws through {@code g} from now on; returns this target. */
+    public Java2DTarget of(Graphics2D g) {
+        this.g = g;
+        return this;
+    }
+
+    public Graphics2D getGraphics() {
+        return g;
+    }
+
+    @Override
+    public GraphicsConfiguration getDeviceConfiguration() {
+        return g.getDeviceConfiguration();
+    }
+
+    @Override
+    public void fillRect(int x, int y, int w, int h, Color color) {
+        g.setColor(color);
+        g.fillRect(x, y, w, h);
+    }
+
+    @Override
+    public void fillRect(int x, int y, int w, int h, Color color, float alpha) {
+        Composite previous = g.getComposite();
+        g.setComposite(composite(alpha));
+        g.setColor(color);
+        g.fillRect(x, y, w, h);
+        g.setComposite(previous);
+    }
+
+    @Override
+    public void drawImage(Image img, int x, int y) {
+        g.drawImage(img, x, y, null);
+    }
+
+    @Override
+    public void drawImage(Image img, int x, int y, float alpha) {
+        Composite previous = g.getComposite();
+        g.setComposite(composite(alpha));
+        g.drawImage(img, x, y, null);
+        g.setComposite(previous);
+    }
+
+    @Override
+    public void drawImage(ImageRegion region, int x, int y) {
+        int sx = region.getX(), sy = region.getY();
+        int w = region.getWidth(), h = region.getHeight();
+        g.drawImage(region.getImage(), x, y, x + w, y + h, sx, sy, sx + w, sy + h, null);
+    }
+
+    @Override
+    public boolean supportsScale() {
+        return true;
+    }
+
+    @Override
+    public void scale(double sx, double sy) {
+        g.scale(sx, sy);
+    }
+
+    @Override
+    public void pass(OverdrawStats.Pass pass) {
+        CountingGraphics.pass(g, pass);
+    }
+
+    private static AlphaComposite composite(float alpha) {
+        int k = Math.max(0, Math.min(255, (int) (alpha * 255 + 0.5f)));
+        AlphaComposite c = COMPOSITES[k];
+        if (c == null) {
+            c = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, k / 255f);
+            COMPOSITES[k] = c;
+        }
+        return c;
+    }
+}
@@ -0,0 +1,184 @@
+package com.TETOSOFT.graphics;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+import javax.imageio.ImageIO;
+
+/**
+ * What one frame drawn through {@link CountingGraphics} cost: draw calls,
+ * pixels touched and blended (composited) calls per {@link Pass}, and how
+ * many times each screen pixel was written.
+ *
+ * Pixels are counted over the device-space bounding box of every primitive
+ * clipped to the clip and the screen, so text and diagonal lines count
+ * their boxes and a transparent pixel of a sprite counts like an opaque
+ * one: it is the work the rasteriser is asked to do, not what ends up
+ * visible.
+ */
+public class OverdrawStats {
+
+    /** Stages of a frame, set by whoever draws ({@link CountingGraphics#pass}). */
+    public enum Pass {
+        CLEAR("clear"),
+        BACKGROUND("parallax"),
+        TILES("tiles"),
+        SPRITES("sprites"),
+        HUD("hud"),
+        CRT("crt"),
+        MENU("menus"),
+        /** Offscreen buffers copied to the screen (scaled world, cached menus). */
+        COMPOSE("compose"),
+        OTHER("other");
+
+        private final String label;
+
+        Pass(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private static final Pass[] PASSES = Pass.values();
+
+    /** Writes per pixel from which the heat map is white. */
+    public static final int HEAT_SATURATION = 12;
+
+    /** 0 transparent, 1..SATURATION-1 blue to red, then white. */
+    private static final int[] PALETTE = new int[HEAT_SATURATION + 1];
+    static {
+        for (int i = 1; i < HEAT_SATURATION; i++) {
+            float hue = (1 - (i - 1) / (float) (HEAT_SATURATION - 2)) * (2f / 3f);
+            PALETTE[i] = java.awt.Color.HSBtoRGB(hue, 0.85f, 1f);
+        }
+        PALETTE[HEAT_SATURATION] = 0xffffffff;
+    }
+
+    private int width, height;
+    private int[] heat = new int[0];
+
+    private final long[] calls   = new long[PASSES.length];
+    private final long[] pixels  = new long[PASSES.length];
+    private final long[] blended = new long[PASSES.length];
+    private Pass pass = Pass.OTHER;
+
+    /** Clears the counters for a {@code width x height} frame. */
+    public void beginFrame(int width, int height) {
+        if (heat.length != width * height) heat = new int[width * height];
+        else Arrays.fill(heat, 0);
+        this.width  = width;
+        this.height = height;
+        Arrays.fill(calls, 0);
+        Arrays.fill(pixels, 0);
+        Arrays.fill(blended, 0);
+        pass = Pass.OTHER;
+    }
+
+    public void setPass(Pass pass) {
+        this.pass = pass;
+    }
+
+    public Pass getPass() {
+        return pass;
+    }
+
+    public int getWidth()  { return width; }
+    public int getHeight() { return height; }
+
+    /**
+     * One draw call covering the screen rectangle {@code [x0,x1) x [y0,y1)}
+     * (already clipped by the caller, may be empty).
+     */
+    void record(int x0, int y0, int x1, int y1, boolean blend) {
+        int p = pass.ordinal();
+        calls[p]++;
+        if (blend) blended[p]++;
+        x0 = Math.max(0, x0);
+        y0 = Math.max(0, y0);
+        x1 = Math.min(width, x1);
+        y1 = Math.min(height, y1);
+        if (x0 >= x1 || y0 >= y1) return;
+        pixels[p] += (long) (x1 - x0) * (y1 - y0);
+        for (int y = y0; y < y1; y++) {
+            int row = y * width;
+            for (int x = x0; x < x1; x++) heat[row + x]++;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Resultados
+    // -------------------------------------------------------------------------
+
+    public long getCalls(Pass p)   { return calls[p.ordinal()]; }
+    public long getPixels(Pass p)  { return pixels[p.ordinal()]; }
+    public long getBlended(Pass p) { return blended[p.ordinal()]; }
+
+    public long getTotalCalls()  { return sum(calls); }
+    public long getTotalPixels() { return sum(pixels); }
+
+    /** Pixels written per screen pixel (1.0 = every pixel written once). */
+    public double getOverdraw() {
+        return width * height == 0 ? 0 : getTotalPixels() / (double) (width * height);
+    }
+
+    /** Most writes any single pixel got. */
+    public int getMaxLayers() {
+        int max = 0;
+        for (int h : heat) if (h > max) max = h;
+        return max;
+    }
+
+    /** Table of the counters, one line per pass with any call, plus a total line. */
+    public String[] summaryLines() {
+        String[] lines = new String[PASSES.length + 2];
+        int n = 0;
+        lines[n++] = String.format(Locale.ROOT, "%-10s %8s %8s %11s %8s", "pasada", "llamadas", "mezcla", "píxeles", "x pant.");
+        double screen = Math.max(1, width * height);
+        for (Pass p : PASSES) {
+            int i = p.ordinal();
+            if (calls[i] == 0) continue;
+            lines[n++] = String.format(Locale.ROOT, "%-10s %8d %8d %11d %8.2f",
+                    p.getLabel(), calls[i], blended[i], pixels[i], pixels[i] / screen);
+        }
+        lines[n++] = String.format(Locale.ROOT, "%-10s %8d %8d %11d %8.2f  (máx %d capas)",
+                "total", getTotalCalls(), sum(blended), getTotalPixels(), getOverdraw(), getMaxLayers());
+        return Arrays.copyOf(lines, n);
+    }
+
+    /**
+     * The heat map as an ARGB image: transparent where nothing was drawn,
+     * then from blue (1 write) through green and yellow to red
+     * ({@code HEAT_SATURATION - 1}), white from {@link #HEAT_SATURATION}.
+     * {@code into} is reused when it has the right size.
+     */
+    public BufferedImage toImage(BufferedImage into) {
+        BufferedImage img = into;
+        if (img == null || img.getWidth() != width || img.getHeight() != height)
+            img = new BufferedImage(Math.max(1, width), Math.max(1, height), BufferedImage.TYPE_INT_ARGB);
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int h = heat[y * width + x];
+                row[x] = PALETTE[Math.min(h, HEAT_SATURATION)];
+            }
+            img.setRGB(0, y, width, 1, row, 0, width);
+        }
+        return img;
+    }
+
+    /** Writes the heat map ({@link #toImage}) as a PNG. */
+    public void writePng(File file) throws IOException {
+        ImageIO.write(toImage(null), "png", file);
+    }
+
+    private static long sum(long[] a) {
+        long s = 0;
+        for (long v : a) s += v;
+        return s;
+    }
+}
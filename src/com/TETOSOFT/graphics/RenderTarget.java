@@ -0,0 +1,56 @@
+package com.TETOSOFT.graphics;
+
+import java.awt.Color;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+
+/**
+ * The few primitives the in-game frame is made of: the world
+ * ({@code TileMapDrawer}), the HUD ({@code HudRenderer}) and the
+ * {@link CRTOverlay} only fill rectangles and copy images at integer
+ * positions, opaque or blended over what is already there. Two backends
+ * implement them:
+ *
+ * <ul>
+ *   <li>{@link Java2DTarget}: a {@link java.awt.Graphics2D} (screen, back
+ *       buffer or offscreen image), the default.</li>
+ *   <li>{@link SoftwareRaster}: writes the pixels of an {@code int[]}
+ *       framebuffer itself, in horizontal bands on several cores, and
+ *       presents it with a single {@code drawImage}.</li>
+ * </ul>
+ *
+ * Colors and images are composed SrcOver; {@code alpha} is an extra
+ * opacity applied on top of the source's own alpha.
+ */
+public interface RenderTarget {
+
+    /** Configuration the images cached on first draw (chunks, scaled layers) are made for. */
+    GraphicsConfiguration getDeviceConfiguration();
+
+    void fillRect(int x, int y, int w, int h, Color color);
+
+    void fillRect(int x, int y, int w, int h, Color color, float alpha);
+
+    void drawImage(Image img, int x, int y);
+
+    void drawImage(Image img, int x, int y, float alpha);
+
+    /** Copies only the rectangle of {@code region} from its image, with its corner at (x, y). */
+    void drawImage(ImageRegion region, int x, int y);
+
+    /**
+     * Whether {@link #scale} is honoured. {@link SoftwareRaster} always
+     * draws at full resolution; callers with a reduced render scale check
+     * this and draw unscaled instead.
+     */
+    boolean supportsScale();
+
+    /**
+     * Scales what is drawn from now on (reduced render scale); a no-op
+     * when {@link #supportsScale()} is false.
+     */
+    void scale(double sx, double sy);
+
+    /** Marks the start of a stage of the frame for the overdraw view; a no-op unless counting. */
+    void pass(OverdrawStats.Pass pass);
+}
@@ -45,6 +45,16 @@ public class ScreenManager {
         Toolkit.getDefaultToolkit().sync();
     }
 
+    /**
+     * Refresh rate of the display showing the window in Hz, or {@code 0}
+     * ({@link DisplayMode#REFRESH_RATE_UNKNOWN}) if the driver does not say.
+     */
+    public int getRefreshRate() {
+        if (frame == null) return DisplayMode.REFRESH_RATE_UNKNOWN;
+        DisplayMode mode = frame.getGraphicsConfiguration().getDevice().getDisplayMode();
+        return mode != null ? mode.getRefreshRate() : DisplayMode.REFRESH_RATE_UNKNOWN;
+    }
+
     public JFrame getWindow() {
         return frame;
     }
@@ -0,0 +1,428 @@
+package com.TETOSOFT.graphics;
+
+import java.awt.*;
+import java.awt.image.*;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import com.TETOSOFT.core.GameConstants;
+
+/**
+ * {@link RenderTarget} that rasterizes into the {@code int[]} of a
+ * {@code TYPE_INT_RGB} framebuffer itself instead of going through Java2D,
+ * for machines whose Java2D pipeline is the software one and spends more
+ * time per call than per pixel.
+ *
+ * Draw calls are only recorded (clipped to the framebuffer, with the
+ * source pixels resolved), so a frame costs a few array writes per call.
+ * {@link #render()} then splits the framebuffer into horizontal bands
+ * ({@link GameConstants#RASTER_BANDS_PER_THREAD} per thread) and replays
+ * the whole list on each band, in parallel on a work-stealing pool: bands
+ * never share a pixel, and inside a band the calls keep their order.
+ * {@link #present(Graphics2D)} renders and copies the framebuffer to the
+ * screen with one {@code drawImage}.
+ *
+ * Sources are read straight from their {@link DataBufferInt} (an
+ * {@link ImageRegion} from its rectangle's offset in the page's array),
+ * with one loop per kind: opaque (a row copy), bitmask (copy where the
+ * alpha bit is set) and translucent (SrcOver, with Java2D's 8-bit rounding
+ * so both backends give the same pixels), plus the same with an extra
+ * alpha. Reading the array makes Java2D stop caching those images in
+ * video memory, which is why this backend is opt-in. Images in any other
+ * layout are converted once to {@code TYPE_INT_ARGB} and that copy is
+ * used from then on, so later changes to them are not seen.
+ *
+ * Not supported: render scale below 1 ({@link #supportsScale()} is false
+ * and {@link #scale} does nothing) and the overdraw view (calls are not
+ * counted). Drawing, {@link #render()} and {@link #present} happen on one
+ * thread; only the bands use the pool.
+ */
+public class SoftwareRaster implements RenderTarget {
+
+    // Tipos de orden
+    private static final int FILL        = 0;
+    private static final int FILL_ALPHA  = 1;
+    private static final int COPY        = 2;
+    private static final int BITMASK     = 3;
+    private static final int BLEND       = 4;
+    private static final int BLEND_ALPHA = 5;
+
+    // Tipos de fuente
+    private static final int SRC_OPAQUE  = 0;
+    private static final int SRC_BITMASK = 1;
+    private static final int SRC_ALPHA   = 2;
+
+    private final GraphicsConfiguration gc;
+    private final BufferedImage frame;
+    private final int[] pixels;
+    private final int width, height;
+
+    private final ForkJoinPool pool;
+    private final Band[] bands;
+    private final RecursiveAction all = new RecursiveAction() {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void compute() {
+            for (Band b : bands) b.reinitialize();
+            ForkJoinTask.invokeAll(bands);
+        }
+    };
+
+    // Lista de órdenes del frame: destino ya recortado, fuente resuelta
+    private int count;
+    private int[] ops = new int[64], xs = new int[64], ys = new int[64], ws = new int[64], hs = new int[64];
+    /** Color ARGB (rellenos) o tipo de fuente (imágenes). */
+    private int[] args = new int[64];
+    /** Alfa extra 0-255. */
+    private int[] alphas = new int[64];
+    private int[][] srcData = new int[64][];
+    private int[] srcOffsets = new int[64], srcStrides = new int[64];
+
+    /** Imágenes que no son int empaquetado: su copia en TYPE_INT_ARGB. */
+    private final Map<Image, BufferedImage> converted = new WeakHashMap<>();
+
+    /**
+     * @param gc      configuration for the images the drawing code caches
+     * @param threads bands are rendered on this many threads; 1 renders on
+     *                the calling thread
+     */
+    public SoftwareRaster(GraphicsConfiguration gc, int width, int height, int threads) {
+        this.gc     = gc;
+        this.width  = width;
+        this.height = height;
+        frame  = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        pixels = ((DataBufferInt) frame.getRaster().getDataBuffer()).getData();
+
+        int n = threads > 1 ? Math.min(height, threads * GameConstants.RASTER_BANDS_PER_THREAD) : 1;
+        bands = new Band[n];
+        for (int i = 0; i < n; i++) bands[i] = new Band(height * i / n, height * (i + 1) / n);
+        pool = threads > 1 ? new ForkJoinPool(threads) : null;
+    }
+
+    public int getWidth()  { return width; }
+    public int getHeight() { return height; }
+
+    public int getThreads() {
+        return pool == null ? 1 : pool.getParallelism();
+    }
+
+    /** The framebuffer; its contents are those of the last {@link #render()}. */
+    public BufferedImage getImage() {
+        return frame;
+    }
+
+    /** Starts a new frame: forgets the calls recorded so far. */
+    public void begin() {
+        Arrays.fill(srcData, 0, count, null);
+        count = 0;
+    }
+
+    /** Draws the recorded calls into the framebuffer. */
+    public void render() {
+        if (pool == null) {
+            bands[0].run(0, height);
+        } else {
+            all.reinitialize();
+            pool.invoke(all);
+        }
+    }
+
+    /** Renders the frame and copies it to {@code g} at (0, 0). */
+    public void present(Graphics2D g) {
+        render();
+        g.drawImage(frame, 0, 0, null);
+    }
+
+    /** Stops the band threads. */
+    public void shutdown() {
+        if (pool != null) pool.shutdown();
+    }
+
+    // -------------------------------------------------------------------------
+    // RenderTarget: solo se graban las órdenes
+    // -------------------------------------------------------------------------
+
+    @Override
+    public GraphicsConfiguration getDeviceConfiguration() {
+        return gc;
+    }
+
+    @Override
+    public void fillRect(int x, int y, int w, int h, Color color) {
+        fillRect(x, y, w, h, color, 1f);
+    }
+
+    @Override
+    public void fillRect(int x, int y, int w, int h, Color color, float alpha) {
+        int a = mul8(toByte(alpha), color.getAlpha());
+        if (a == 0) return;
+        int i = add(a == 0xff ? FILL : FILL_ALPHA, x, y, w, h);
+        if (i < 0) return;
+        args[i]   = color.getRGB();
+        alphas[i] = a;
+    }
+
+    @Override
+    public void drawImage(Image img, int x, int y) {
+        drawImage(img, x, y, 1f);
+    }
+
+    @Override
+    public void drawImage(Image img, int x, int y, float alpha) {
+        if (img == null) return;
+        BufferedImage src = source(img);
+        if (src != null) draw(src, 0, 0, src.getWidth(), src.getHeight(), x, y, toByte(alpha));
+    }
+
+    @Override
+    public void drawImage(ImageRegion region, int x, int y) {
+        if (region == null) return;
+        BufferedImage src = source(region.getImage());
+        if (src != null)
+            draw(src, region.getX(), region.getY(), region.getWidth(), region.getHeight(), x, y, 0xff);
+    }
+
+    @Override
+    public boolean supportsScale() {
+        return false;
+    }
+
+    /** Siempre a resolución completa: no hace nada (ver {@link #supportsScale()}). */
+    @Override
+    public void scale(double sx, double sy) {
+    }
+
+    @Override
+    public void pass(OverdrawStats.Pass pass) {
+    }
+
+    // -------------------------------------------------------------------------
+    // Grabación
+    // -------------------------------------------------------------------------
+
+    /**
+     * Records a copy of the {@code w x h} rectangle at ({@code sx}, {@code sy})
+     * of {@code src} to (x, y) with extra alpha {@code a} (0-255).
+     */
+    private void draw(BufferedImage src, int sx, int sy, int w, int h, int x, int y, int a) {
+        if (a == 0) return;
+
+        int kind = kindOf(src);
+        int op;
+        if (a < 0xff)                 op = BLEND_ALPHA;
+        else if (kind == SRC_OPAQUE)  op = COPY;
+        else if (kind == SRC_BITMASK) op = BITMASK;
+        else                          op = BLEND;
+
+        int i = add(op, x, y, w, h);
+        if (i < 0) return;
+        WritableRaster raster = src.getRaster();
+        int stride = ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride();
+        DataBufferInt buffer = (DataBufferInt) raster.getDataBuffer();
+        // Píxel (sx, sy) de la imagen; en una subimagen el (0, 0) no es el primero del array
+        int origin = buffer.getOffset() - raster.getSampleModelTranslateY() * stride
+                - raster.getSampleModelTranslateX() + sy * stride + sx;
+        // El rectángulo ya está recortado: saltar lo que quedó fuera
+        srcData[i]    = buffer.getData();
+        srcStrides[i] = stride;
+        srcOffsets[i] = origin + (ys[i] - y) * stride + (xs[i] - x);
+        args[i]       = kind;
+        alphas[i]     = a;
+    }
+
+    /** Records a call covering (x, y, w, h) clipped to the framebuffer; -1 if nothing is left. */
+    private int add(int op, int x, int y, int w, int h) {
+        int x0 = Math.max(x, 0), y0 = Math.max(y, 0);
+        int x1 = Math.min(x + w, width), y1 = Math.min(y + h, height);
+        if (x0 >= x1 || y0 >= y1) return -1;
+        if (count == ops.length) grow();
+        int i = count++;
+        ops[i] = op;
+        xs[i]  = x0;
+        ys[i]  = y0;
+        ws[i]  = x1 - x0;
+        hs[i]  = y1 - y0;
+        return i;
+    }
+
+    private void grow() {
+        int n = ops.length * 2;
+        ops        = Arrays.copyOf(ops, n);
+        xs         = Arrays.copyOf(xs, n);
+        ys         = Arrays.copyOf(ys, n);
+        ws         = Arrays.copyOf(ws, n);
+        hs         = Arrays.copyOf(hs, n);
+        args       = Arrays.copyOf(args, n);
+        alphas     = Arrays.copyOf(alphas, n);
+        srcData    = Arrays.copyOf(srcData, n);
+        srcOffsets = Arrays.copyOf(srcOffsets, n);
+        srcStrides = Arrays.copyOf(srcStrides, n);
+    }
+
+    /** {@code img} if its pixels are ints this class can read, else its converted copy; null if not loaded. */
+    private BufferedImage source(Image img) {
+        if (img instanceof BufferedImage && kindOf((BufferedImage) img) >= 0) return (BufferedImage) img;
+        BufferedImage copy = converted.get(img);
+        if (copy == null) {
+            int w = img.getWidth(null), h = img.getHeight(null);
+            if (w <= 0 || h <= 0) return null;
+            copy = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = copy.createGraphics();
+            try {
+                g.setComposite(AlphaComposite.Src);
+                g.drawImage(img, 0, 0, null);
+            } finally {
+                g.dispose();
+            }
+            converted.put(img, copy);
+        }
+        return copy;
+    }
+
+    /** Source kind of a packed-int RGB image (opaque, 1-bit or 8-bit alpha, not premultiplied); -1 otherwise. */
+    private static int kindOf(BufferedImage img) {
+        ColorModel cm = img.getColorModel();
+        WritableRaster raster = img.getRaster();
+        if (!(cm instanceof DirectColorModel) || cm.isAlphaPremultiplied()
+                || !(raster.getDataBuffer() instanceof DataBufferInt)
+                || !(raster.getSampleModel() instanceof SinglePixelPackedSampleModel))
+            return -1;
+        DirectColorModel dcm = (DirectColorModel) cm;
+        if (dcm.getRedMask() != 0xff0000 || dcm.getGreenMask() != 0xff00 || dcm.getBlueMask() != 0xff)
+            return -1;
+        if (!dcm.hasAlpha())                return SRC_OPAQUE;
+        if (dcm.getAlphaMask() == 0x1000000) return SRC_BITMASK;
+        if (dcm.getAlphaMask() == 0xff000000) return SRC_ALPHA;
+        return -1;
+    }
+
+    private static int toByte(float alpha) {
+        return Math.max(0, Math.min(255, (int) (alpha * 255 + 0.5f)));
+    }
+
+    /** a * b / 255 redondeado, igual que la tabla mul8 de Java2D. */
+    private static int mul8(int a, int b) {
+        return (a * b * 0x10101 + 0x800000) >>> 24;
+    }
+
+    // -------------------------------------------------------------------------
+    // Bandas
+    // -------------------------------------------------------------------------
+
+    private final class Band extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final int top, bottom;
+
+        Band(int top, int bottom) {
+            this.top    = top;
+            this.bottom = bottom;
+        }
+
+        @Override
+        protected void compute() {
+            run(top, bottom);
+        }
+
+        /** Replays every recorded call on rows [{@code from}, {@code to}). */
+        void run(int from, int to) {
+            for (int i = 0, n = count; i < n; i++) {
+                int y0 = Math.max(ys[i], from);
+                int y1 = Math.min(ys[i] + hs[i], to);
+                if (y0 >= y1) continue;
+                int x = xs[i], w = ws[i];
+                int dst = y0 * width + x;
+                switch (ops[i]) {
+                    case FILL:
+                        fill(dst, w, y1 - y0, args[i]);
+                        break;
+                    case FILL_ALPHA:
+                        fillAlpha(dst, w, y1 - y0, args[i], alphas[i]);
+                        break;
+                    default:
+                        int stride = srcStrides[i];
+                        int src = srcOffsets[i] + (y0 - ys[i]) * stride;
+                        blit(ops[i], args[i], alphas[i], srcData[i], src, stride, dst, w, y1 - y0);
+                        break;
+                }
+            }
+        }
+    }
+
+    private void fill(int dst, int w, int h, int rgb) {
+        for (int row = 0; row < h; row++, dst += width) {
+            Arrays.fill(pixels, dst, dst + w, rgb);
+        }
+    }
+
+    private void fillAlpha(int dst, int w, int h, int argb, int a) {
+        // Color premultiplicado una vez, como hace Java2D
+        int r = mul8(a, argb >> 16 & 0xff), g = mul8(a, argb >> 8 & 0xff), b = mul8(a, argb & 0xff);
+        int f = 0xff - a;
+        int[] p = pixels;
+        for (int row = 0; row < h; row++, dst += width) {
+            for (int j = dst, end = dst + w; j < end; j++) {
+                int d = p[j];
+                p[j] = r + mul8(f, d >> 16 & 0xff) << 16
+                     | g + mul8(f, d >> 8 & 0xff) << 8
+                     | b + mul8(f, d & 0xff);
+            }
+        }
+    }
+
+    private void blit(int op, int kind, int extra, int[] s, int src, int stride, int dst, int w, int h) {
+        int[] p = pixels;
+        switch (op) {
+            case COPY:
+                for (int row = 0; row < h; row++, src += stride, dst += width) {
+                    System.arraycopy(s, src, p, dst, w);
+                }
+                break;
+
+            case BITMASK:
+                for (int row = 0; row < h; row++, src += stride, dst += width) {
+                    for (int j = 0; j < w; j++) {
+                        int c = s[src + j];
+                        if ((c & 0x1000000) != 0) p[dst + j] = c;
+                    }
+                }
+                break;
+
+            case BLEND:
+                for (int row = 0; row < h; row++, src += stride, dst += width) {
+                    for (int j = 0; j < w; j++) {
+                        int c = s[src + j];
+                        int a = c >>> 24;
+                        if (a == 0xff) p[dst + j] = c;
+                        else if (a != 0) p[dst + j] = over(c, a, p[dst + j]);
+                    }
+                }
+                break;
+
+            default: // BLEND_ALPHA
+                for (int row = 0; row < h; row++, src += stride, dst += width) {
+                    for (int j = 0; j < w; j++) {
+                        int c = s[src + j];
+                        int a = kind == SRC_OPAQUE ? extra
+                              : kind == SRC_BITMASK ? ((c & 0x1000000) != 0 ? extra : 0)
+                              : mul8(extra, c >>> 24);
+                        if (a != 0) p[dst + j] = over(c, a, p[dst + j]);
+                    }
+                }
+                break;
+        }
+    }
+
+    /** Color {@code c} with alpha {@code a} over the opaque {@code d}, SrcOver. */
+    private static int over(int c, int a, int d) {
+        int f = 0xff - a;
+        return mul8(a, c >> 16 & 0xff) + mul8(f, d >> 16 & 0xff) << 16
+             | mul8(a, c >> 8 & 0xff) + mul8(f, d >> 8 & 0xff) << 8
+             | mul8(a, c & 0xff) + mul8(f, d & 0xff);
+    }
+}
@@ -1,7 +1,5 @@
 package com.TETOSOFT.graphics;
 
-import java.awt.Image;
-
 /**
  * A positioned, animated game object.
  */
@@ -11,6 +9,7 @@ public class Sprite {
 
     private float x, y;
     private float dx, dy;
+    private float prevX, prevY;
 
     public Sprite(Animation anim) {
         this.anim = anim;
@@ -30,6 +29,27 @@ public class Sprite {
     public void setX(float x) { this.x = x; }
     public void setY(float y) { this.y = y; }
 
+    // --- Render interpolation ----------------------------------------------
+
+    /**
+     * Remembers the current position as the start point for render
+     * interpolation. Called once at the beginning of every simulation tick.
+     */
+    public void savePreviousPosition() {
+        prevX = x;
+        prevY = y;
+    }
+
+    /** Position saved by the last {@link #savePreviousPosition()}. */
+    public float getPreviousX() { return prevX; }
+    public float getPreviousY() { return prevY; }
+
+    /** X blended {@code alpha} of the way from the previous tick to this one. */
+    public float getInterpolatedX(float alpha) { return prevX + (x - prevX) * alpha; }
+
+    /** Y blended {@code alpha} of the way from the previous tick to this one. */
+    public float getInterpolatedY(float alpha) { return prevY + (y - prevY) * alpha; }
+
     // --- Velocity ------------------------------------------------------------
 
     public float getVelocityX() { return dx; }
@@ -40,12 +60,12 @@ public class Sprite {
 
     // --- Dimensions ----------------------------------------------------------
 
-    public int getWidth()  { return anim.getImage().getWidth(null);  }
-    public int getHeight() { return anim.getImage().getHeight(null); }
+    public int getWidth()  { return anim.getImage().getWidth();  }
+    public int getHeight() { return anim.getImage().getHeight(); }
 
     // --- Rendering -----------------------------------------------------------
 
-    public Image getImage() { return anim.getImage(); }
+    public ImageRegion getImage() { return anim.getImage(); }
 
     public Object clone() {
         return new Sprite(anim);
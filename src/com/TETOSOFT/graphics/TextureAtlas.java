@@ -0,0 +1,158 @@
+package com.TETOSOFT.graphics;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.TETOSOFT.core.GameConstants;
+
+/**
+ * Packs many small images (tiles, animation frames and their mirrored and
+ * flipped variants) into a few larger images compatible with the
+ * {@link GraphicsConfiguration}. Each packed image is handed back as an
+ * {@link ImageRegion} of its page: the page is one image for Java2D (one
+ * surface, one copy in video memory), frames and tiles that are drawn
+ * together sit next to each other in memory, and the targets copy only the
+ * region's rectangle. Drawn scaled, Java2D's default nearest-neighbour
+ * sampling never reaches a neighbour's pixels.
+ *
+ * A page is a single shelf up to {@link GameConstants#ATLAS_PAGE_WIDTH}
+ * pixels wide: a row of images of about the same height (within a quarter)
+ * and the same transparency, so opaque tiles stay opaque (a plain copy
+ * instead of a blend) and bitmask sprites stay bitmask. Images are packed
+ * as they load, on the least tall page of their kind with room left, else
+ * on a new page as tall as they are. Images wider than a page are not
+ * packed. Once everything is loaded, {@link #trim()} cuts each page down
+ * to the width it uses.
+ *
+ * Packing happens at load time, before anything is drawn; it can be called
+ * from any thread.
+ */
+public class TextureAtlas {
+
+    private final GraphicsConfiguration gc;
+    private final int pageWidth;
+    private final List<Page> pages = new ArrayList<>();
+    private int  imageCount;
+    private long usedPixels;
+
+    public TextureAtlas(GraphicsConfiguration gc) {
+        this(gc, GameConstants.ATLAS_PAGE_WIDTH);
+    }
+
+    public TextureAtlas(GraphicsConfiguration gc, int pageWidth) {
+        this.gc        = gc;
+        this.pageWidth = pageWidth;
+    }
+
+    /**
+     * Copies {@code img} into a page of its transparency and returns its
+     * region there, or the whole of {@code img} if it failed to load or is
+     * wider than a page.
+     */
+    public synchronized ImageRegion add(Image img) {
+        int w = img.getWidth(null);
+        int h = img.getHeight(null);
+        if (w <= 0 || h <= 0 || w > pageWidth) return ImageRegion.of(img);
+
+        int transparency = img instanceof BufferedImage
+                ? ((BufferedImage) img).getTransparency() : Transparency.TRANSLUCENT;
+        Page page = null;
+        for (Page p : pages) {
+            // La página menos alta donde cabe: menos filas desperdiciadas
+            if (p.fits(transparency, w, h) && (page == null || p.image.getHeight() < page.image.getHeight()))
+                page = p;
+        }
+        if (page == null) {
+            page = new Page(gc.createCompatibleImage(pageWidth, h, transparency), transparency);
+            pages.add(page);
+        }
+        imageCount++;
+        usedPixels += (long) w * h;
+        return page.place(img, w, h);
+    }
+
+    /**
+     * Replaces every page with a copy as wide as the images on it and moves
+     * its regions there. Pages filled later get no more images; new ones
+     * go to new pages. Call when loading is done, before drawing.
+     */
+    public synchronized void trim() {
+        for (Page page : pages) page.trim(gc);
+    }
+
+    // -------------------------------------------------------------------------
+    // Estadísticas
+    // -------------------------------------------------------------------------
+
+    public synchronized int getPageCount() {
+        return pages.size();
+    }
+
+    /** Images packed so far. */
+    public synchronized int getImageCount() {
+        return imageCount;
+    }
+
+    /** Fraction of the pages' area covered by packed images. */
+    public synchronized double getFill() {
+        long area = 0;
+        for (Page page : pages) area += (long) page.image.getWidth() * page.image.getHeight();
+        return area == 0 ? 0 : usedPixels / (double) area;
+    }
+
+    // -------------------------------------------------------------------------
+
+    private static final class Page {
+        BufferedImage image;
+        final int transparency;
+        final List<ImageRegion> regions = new ArrayList<>();
+        /** Primera x libre. */
+        private int next;
+
+        Page(BufferedImage image, int transparency) {
+            this.image        = image;
+            this.transparency = transparency;
+        }
+
+        /** True if a {@code w x h} image of {@code transparency} belongs on this page and there is room. */
+        boolean fits(int transparency, int w, int h) {
+            int height = image.getHeight();
+            return this.transparency == transparency && h <= height && h >= height - height / 4
+                    && next + w <= image.getWidth();
+        }
+
+        /** Copies {@code img} at the first free x and returns its region. */
+        ImageRegion place(Image img, int w, int h) {
+            int x = next;
+            next += w;
+            Graphics2D g = image.createGraphics();
+            try {
+                g.setComposite(AlphaComposite.Src);
+                g.drawImage(img, x, 0, null);
+            } finally {
+                g.dispose();
+            }
+            ImageRegion region = new ImageRegion(image, x, 0, w, h);
+            regions.add(region);
+            return region;
+        }
+
+        /** Copia la página recortada al ancho usado y mueve sus regiones a la copia. */
+        void trim(GraphicsConfiguration gc) {
+            if (next == image.getWidth()) return;
+            BufferedImage trimmed = gc.createCompatibleImage(next, image.getHeight(), transparency);
+            Graphics2D g = trimmed.createGraphics();
+            try {
+                g.setComposite(AlphaComposite.Src);
+                g.drawImage(image, 0, 0, null);
+            } finally {
+                g.dispose();
+            }
+            image.flush();
+            image = trimmed;
+            for (ImageRegion region : regions) region.moveTo(trimmed);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.TETOSOFT.graphics;
+
+import java.awt.*;
+import java.awt.image.VolatileImage;
+
+/**
+ * A {@link VolatileImage} copy of an image, for large images drawn every
+ * frame (the pre-scaled parallax backgrounds). A volatile image lives in
+ * video memory on accelerated pipelines; its contents can be lost at any
+ * time (display mode change, another full-screen application, screen
+ * saver), so every
+ * draw validates it against the current configuration, copies the source
+ * in again when it was recreated or restored, and retries when the
+ * contents were lost while drawing.
+ *
+ * Only the thread that draws uses it. If no volatile image can be made the
+ * source is drawn instead.
+ */
+public class VolatileCopy {
+
+    /** Draw attempts before falling back to the source in one frame. */
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final Image source;
+    private final int   transparency;
+    private VolatileImage copy;
+
+    public VolatileCopy(Image source, int transparency) {
+        this.source       = source;
+        this.transparency = transparency;
+    }
+
+    public Image getSource() {
+        return source;
+    }
+
+    /** Draws the copy at ({@code x}, {@code y}). */
+    public void draw(Graphics2D g, int x, int y) {
+        GraphicsConfiguration gc = g.getDeviceConfiguration();
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            if (!validate(gc)) break;
+            g.drawImage(copy, x, y, null);
+            if (!copy.contentsLost()) return;
+        }
+        g.drawImage(source, x, y, null);
+    }
+
+    /** Makes {@link #copy} usable on {@code gc}; false if it cannot be created. */
+    private boolean validate(GraphicsConfiguration gc) {
+        int status = copy == null ? VolatileImage.IMAGE_INCOMPATIBLE : copy.validate(gc);
+        if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+            if (copy != null) copy.flush();
+            int w = source.getWidth(null), h = source.getHeight(null);
+            if (w <= 0 || h <= 0) return false;
+            try {
+                copy = gc.createCompatibleVolatileImage(w, h, transparency);
+            } catch (RuntimeException ex) {
+                copy = null;
+            }
+            if (copy == null) return false;
+            copy.validate(gc);
+            status = VolatileImage.IMAGE_RESTORED;
+        }
+        if (status == VolatileImage.IMAGE_RESTORED) restore();
+        return true;
+    }
+
+    private void restore() {
+        Graphics2D g = copy.createGraphics();
+        try {
+            g.setComposite(AlphaComposite.Src);
+            g.drawImage(source, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+    }
+
+    /** Releases the video memory of the copy; the next draw creates it again. */
+    public void flush() {
+        if (copy != null) copy.flush();
+        copy = null;
+    }
+}
@@ -17,6 +17,8 @@ public class GameAction {
     private final int    behavior;
     private int amount;
     private int state;
+    /** nanoTime de la última pulsación física aún no leída por {@link #takePressTime()}; 0 si no hay. */
+    private long pressTime;
 
     public GameAction(String name) {
         this(name, NORMAL);
@@ -33,6 +35,7 @@ public class GameAction {
     public void reset() {
         state  = STATE_RELEASED;
         amount = 0;
+        pressTime = 0;
     }
 
     public synchronized void tap() {
@@ -46,6 +49,8 @@ public class GameAction {
 
     public synchronized void press(int amount) {
         if (state != STATE_WAITING_FOR_RELEASE) {
+            // Solo la transición suelta -> pulsada; el autorepeat no cuenta
+            if (state == STATE_RELEASED && pressTime == 0) pressTime = System.nanoTime();
             this.amount += amount;
             state = STATE_PRESSED;
         }
@@ -55,6 +60,16 @@ public class GameAction {
         state = STATE_RELEASED;
     }
 
+    /**
+     * Returns the nanoTime of the first press since the previous call, or 0
+     * if there was none, and clears it. Used to measure input latency.
+     */
+    public synchronized long takePressTime() {
+        long t = pressTime;
+        pressTime = 0;
+        return t;
+    }
+
     public synchronized boolean isPressed() {
         return state == STATE_PRESSED || getAmount() != 0;
     }
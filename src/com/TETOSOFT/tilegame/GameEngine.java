@@ -1,19 +1,41 @@
 package com.TETOSOFT.tilegame;
 
 import java.awt.*;
-import java.util.Iterator;
-
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import com.TETOSOFT.assets.AssetManager;
+import com.TETOSOFT.core.FrameProfiler;
+import com.TETOSOFT.core.FrameTimeLog;
 import com.TETOSOFT.core.GameConstants;
 import com.TETOSOFT.core.GameCore;
-import com.TETOSOFT.graphics.Sprite;
-import com.TETOSOFT.tilegame.sprites.Creature;
-import com.TETOSOFT.tilegame.sprites.Player;
-import com.TETOSOFT.tilegame.sprites.SpawnerGrub;
+import com.TETOSOFT.core.GameEvents;
+import com.TETOSOFT.core.GameOptions;
+import com.TETOSOFT.core.InputLatency;
+import com.TETOSOFT.core.QualityLevel;
+import com.TETOSOFT.core.StartupTrace;
+import com.TETOSOFT.core.TripleBuffer;
+import com.TETOSOFT.graphics.CRTOverlay;
+import com.TETOSOFT.graphics.CountingGraphics;
+import com.TETOSOFT.graphics.OverdrawStats;
+import com.TETOSOFT.graphics.RenderTarget;
+import com.TETOSOFT.graphics.SoftwareRaster;
+import com.TETOSOFT.tilegame.headless.JitWarmUp;
+import com.TETOSOFT.tilegame.replay.Replay;
+import com.TETOSOFT.tilegame.replay.ReplayPlayer;
+import com.TETOSOFT.tilegame.replay.ReplayRecorder;
 import com.TETOSOFT.tilegame.systems.*;
 
-public class GameEngine extends GameCore implements CollisionSystem.Listener {
+/**
+ * The windowed game: screen state machine, menus and rendering around a
+ * {@link GameWorld} that holds the actual simulation.
+ */
+public class GameEngine extends GameCore {
 
-    private enum GameState {
+    public enum GameState {
         MAIN_MENU, PLAYING, PAUSED, GAME_OVER, VICTORY
     }
 
@@ -30,27 +52,30 @@ public class GameEngine extends GameCore implements CollisionSystem.Listener {
     // Botón seleccionado en los menús
     private int menuSelection = 0;
 
-    // -------------------------------------------------------------------------
-    // Game state
-    // -------------------------------------------------------------------------
-
-    private int lives = GameConstants.STARTING_LIVES;
-    private int coins = 0;
     private boolean debugHitboxes = false;
 
+    // Tabla del profiler (F2); se lee desde el hilo de render
+    private volatile boolean showProfiler = false;
+
+    // Mapa de calor de overdraw (F3); el PNG se guarda en el primer frame tras activarlo
+    private volatile boolean showOverdraw = GameOptions.overdrawView();
+    private volatile boolean overdrawPngPending = showOverdraw;
+
     // -------------------------------------------------------------------------
     // Subsystems
     // -------------------------------------------------------------------------
 
-    private TileMap map;
     private MapLoader mapLoader;
+    private GameWorld world;
     private TileMapDrawer drawer;
-    private PhysicsSystem physics;
-    private CollisionSystem collision;
     private PlayerController controller;
     private HudRenderer hud;
     private MenuRenderer menuRenderer;
     private MenuController menuController;
+    private CRTOverlay crt;
+    private final ProfilerOverlay profilerOverlay = new ProfilerOverlay();
+    private final OverdrawStats overdraw = new OverdrawStats();
+    private final OverdrawOverlay overdrawOverlay = new OverdrawOverlay();
 
     // -------------------------------------------------------------------------
     // Lifecycle
@@ -58,29 +83,120 @@ public class GameEngine extends GameCore implements CollisionSystem.Listener {
 
     private Image menuDecorImage;
 
+    /** Frames listos para dibujar; el render solo lee de aquí. */
+    private final TripleBuffer<WorldSnapshot> snapshots = new TripleBuffer<>(WorldSnapshot::new);
+    private final long tickNanos = GameOptions.tickStepMillis() * 1_000_000L;
+    private final boolean renderThread = GameOptions.isFixedStep() && GameOptions.useRenderThread();
+
+    /** Warm-up en segundo plano durante el menú (null si está desactivado). */
+    private JitWarmUp warmUp;
+    /** Medida de los primeros segundos de juego; la consume el hilo de render. */
+    private volatile FrameTimeLog startupLog;
+    private boolean startupMeasured;
+
+    /** Partida en grabación (-Dgame.record) y replay en reproducción (-Dgame.replay). */
+    private ReplayRecorder recorder;
+    private volatile ReplayPlayer replay;
+    private boolean worldTicked;
+    /** Último tick que muestra el frame dibujado (hilo de render), para la latencia de input. */
+    private long lastDrawnInputTick;
+
+    // Solo las toca el hilo que dibuja
+    /** Mundo a resolución reducida cuando la calidad baja la escala de render. */
+    private BufferedImage sceneBuffer;
+    /** Framebuffer del raster por software ({@code -Dgame.renderer=software}); null si no se usa. */
+    private SoftwareRaster raster;
+    /** El último frame dibujado era juego en marcha (para el gobernador de calidad). */
+    private boolean drewGameplay;
+    private long lastRenderTime;
+
+    // Caché de pantallas estáticas y la clave con la que se compuso
+    private BufferedImage staticFrame;
+    private GameState     staticState;
+    private int           staticSelection;
+    private QualityLevel  staticLevel;
+    private int           staticWarmUp;
+    private long          lastStaticPresent;
+
     @Override
+    @SuppressWarnings("try")
     public void init() {
         super.init();
 
-        mapLoader = new MapLoader(screen.getWindow().getGraphicsConfiguration());
-        drawer = new TileMapDrawer();
-        physics = new PhysicsSystem();
-        collision = new CollisionSystem(this);
-        controller = new PlayerController();
-        hud = new HudRenderer();
-        menuRenderer = new MenuRenderer();
-        menuController = new MenuController();
-
-        controller.init(screen.getWindow());
-        menuController.init(screen.getWindow());
+        try (StartupTrace.Span s = StartupTrace.begin("MapLoader")) {
+            mapLoader = new MapLoader(screen.getWindow().getGraphicsConfiguration());
+        }
+        try (StartupTrace.Span s = StartupTrace.begin("parallax backgrounds")) {
+            drawer = createDrawer(assets());
+        }
+        try (StartupTrace.Span s = StartupTrace.begin("world, HUD, menus")) {
+            controller = new PlayerController();
+            world = new GameWorld(mapLoader, controller);
+            world.setExportsEntityStats(true);
+            hud = new HudRenderer();
+            menuRenderer = new MenuRenderer();
+            menuController = new MenuController();
+            crt = new CRTOverlay();
+            crt.setEnabled(GameOptions.crtOverlay());
+        }
 
-        physics.setBlockHitListener((creature, tx, ty) -> map.breakTile(tx, ty));
+        try (StartupTrace.Span s = StartupTrace.begin("input")) {
+            controller.init(screen.getWindow());
+            menuController.init(screen.getWindow());
+        }
+        world.setViewWidth(screen.getWidth());
 
-        drawer.addParallaxLayer(assets().loadImage("bg_layer1.png"), 0.0f);
-        drawer.addParallaxLayer(assets().loadImage("bg_layer2.png"), 0.2f);
-        drawer.addParallaxLayer(assets().loadImage("bg_layer3.png"), 0.4f);
-        drawer.addParallaxLayer(assets().loadImage("bg_layer4.png"), 0.7f);
         menuDecorImage = assets().loadImage("cideLogo.png");
+
+        if (GameOptions.warmUp()) {
+            // Renderers propios: los del juego guardan estado por frame (chunks,
+            // capas escaladas, caché del HUD) y el warm-up sigue tras JUGAR
+            warmUp = new JitWarmUp(mapLoader, createFrameRenderer(assets()),
+                    screen.getWindow().getGraphicsConfiguration(),
+                    screen.getWidth(), screen.getHeight(), GameOptions.warmUpTicksPerMap());
+            warmUp.start();
+        }
+
+        if (GameOptions.replayFile() != null)
+            startReplay(new File(GameOptions.replayFile()));
+    }
+
+    private static TileMapDrawer createDrawer(AssetManager assets) {
+        TileMapDrawer drawer = new TileMapDrawer();
+        drawer.addParallaxLayer(assets.loadImage("bg_layer1.png"), 0.0f);
+        drawer.addParallaxLayer(assets.loadImage("bg_layer2.png"), 0.2f);
+        drawer.addParallaxLayer(assets.loadImage("bg_layer3.png"), 0.4f);
+        drawer.addParallaxLayer(assets.loadImage("bg_layer4.png"), 0.7f);
+        return drawer;
+    }
+
+    /**
+     * The in-game renderer (tiles, parallax, sprites and HUD) without a
+     * window, for tools that draw offscreen.
+     */
+    public static JitWarmUp.FrameRenderer createFrameRenderer(AssetManager assets) {
+        TileMapDrawer drawer = createDrawer(assets);
+        HudRenderer hud = new HudRenderer();
+        return new JitWarmUp.FrameRenderer() {
+            @Override
+            public void render(Graphics2D g, WorldSnapshot snap, int w, int h) {
+                drawer.draw(g, snap, w, h, 1f);
+                CountingGraphics.pass(g, OverdrawStats.Pass.HUD);
+                hud.draw(g, snap, w);
+            }
+
+            @Override
+            public void render(RenderTarget target, WorldSnapshot snap, int w, int h) {
+                drawer.draw(target, snap, w, h, 1f);
+                target.pass(OverdrawStats.Pass.HUD);
+                hud.draw(target, snap, w);
+            }
+
+            @Override
+            public long getCacheRebuilds() {
+                return drawer.getChunkCache().getMisses() + drawer.getParallaxRebuilds() + hud.getRepaints();
+            }
+        };
     }
 
     // -------------------------------------------------------------------------
@@ -89,12 +205,29 @@ public class GameEngine extends GameCore implements CollisionSystem.Listener {
 
     @Override
     public void update(long elapsedTime) {
+        if (replay != null) {
+            if (replay.advance()) elapsedTime = replay.getElapsed();
+            else finishReplay();
+        }
+        int menuInput   = menuController.poll();
+        int playerInput = controller.poll();
+        worldTicked = false;
+
+        if (menuController.isProfilerTogglePressed()) {
+            showProfiler = !showProfiler;
+            if (showProfiler) FrameProfiler.setEnabled(true);
+        }
+        if (menuController.isOverdrawTogglePressed()) {
+            showOverdraw = !showOverdraw;
+            if (showOverdraw) overdrawPngPending = true;
+        }
+
         switch (state) {
             case MAIN_MENU:
                 updateMainMenu();
                 break;
             case PLAYING:
-                updatePlaying(elapsedTime);
+                updatePlaying(elapsedTime, playerInput);
                 break;
             case PAUSED:
                 updatePaused();
@@ -106,6 +239,17 @@ public class GameEngine extends GameCore implements CollisionSystem.Listener {
                 updateVictory();
                 break;
         }
+
+        // Solo cuenta la latencia de lo que el mundo llegó a simular
+        if (worldTicked && replay == null) controller.reportConsumedPresses();
+        InputLatency.endTick();
+
+        if (recorder != null) {
+            recorder.record(elapsedTime, playerInput, menuInput,
+                    worldTicked ? Replay.WORLD_TICK : 0, world.getSimulationDistance());
+            if (state != GameState.PLAYING && state != GameState.PAUSED)
+                finishRecording();
+        }
     }
 
     private void updateMainMenu() {
@@ -128,36 +272,41 @@ public class GameEngine extends GameCore implements CollisionSystem.Listener {
         }
     }
 
-    private void updatePlaying(long elapsedTime) {
+    private void updatePlaying(long elapsedTime, int input) {
         if (menuController.isPausePressed()) {
-            state = GameState.PAUSED;
+            setState(GameState.PAUSED);
             return;
         }
 
-        Player player = (Player) map.getPlayer();
+        if ((input & PlayerController.TOGGLE_DEBUG) != 0)
+            debugHitboxes = !debugHitboxes;
 
-        // *** FIX: delegar a onPlayerDied() en vez de recargar directamente ***
-        if (player.getState() == Creature.STATE_DEAD) {
-            onPlayerDied();
-            return;
-        }
+        // En un replay manda la distancia grabada: la simulación depende de ella
+        world.setSimulationDistance(replay != null ? replay.getSimulationDistance()
+                : quality.getLevel().getSimulationDistance());
+        worldTicked = true;
 
-        boolean exitPressed = controller.update(player, elapsedTime);
-        if (exitPressed) {
-            state = GameState.MAIN_MENU;
-            menuSelection = 0;
-            return;
+        switch (world.update(input, elapsedTime)) {
+            case RUNNING:
+                break;
+            case EXITED:
+            case GAME_OVER: // sin pantalla de game over: vuelve al menú
+                setState(GameState.MAIN_MENU);
+                menuSelection = 0;
+                break;
+            case VICTORY:
+                setState(GameState.VICTORY);
+                menuSelection = 0;
+                break;
         }
-
-        if (controller.isDebugTogglePressed())
-            debugHitboxes = !debugHitboxes;
-
-        updateCreatures(elapsedTime, player);
     }
 
     private void updatePaused() {
+        // Sin ticks del mundo: fijar la interpolación para que el frame
+        // congelado no oscile
+        world.savePreviousPositions();
         if (menuController.isPausePressed() || menuController.isEscapePressed()) {
-            state = GameState.PLAYING;
+            setState(GameState.PLAYING);
         }
     }
 
@@ -173,7 +322,7 @@ public class GameEngine extends GameCore implements CollisionSystem.Listener {
                     startGame();
                     break; // Volver a jugar
                 case 1: // Menú principal
-                    state = GameState.MAIN_MENU;
+                    setState(GameState.MAIN_MENU);
                     menuSelection = 0;
                     break;
             }
@@ -192,7 +341,7 @@ public class GameEngine extends GameCore implements CollisionSystem.Listener {
                     startGame();
                     break; // Jugar de nuevo
                 case 1: // Menú principal
-                    state = GameState.MAIN_MENU;
+                    setState(GameState.MAIN_MENU);
                     menuSelection = 0;
                     break;
             }
@@ -205,86 +354,333 @@ public class GameEngine extends GameCore implements CollisionSystem.Listener {
 
     @Override
     public void draw(Graphics2D g) {
-        switch (state) {
+        draw(g, 1f);
+    }
+
+    /** Single-thread mode: capture the current state and draw it straight away. */
+    @Override
+    public void draw(Graphics2D g, float alpha) {
+        captureSnapshot(System.nanoTime());
+        render(g, snapshots.acquire(), alpha);
+    }
+
+    @Override
+    protected void publishTick(long tickTime) {
+        captureSnapshot(tickTime);
+    }
+
+    /** Render-thread mode: draw the latest snapshot, interpolated by wall time. */
+    @Override
+    protected void drawPublished(Graphics2D g, long now) {
+        WorldSnapshot snap = snapshots.acquire();
+        float alpha = (now - snap.getTickTime()) / (float) tickNanos;
+        render(g, snap, Math.max(0f, Math.min(1f, alpha)));
+    }
+
+    private void captureSnapshot(long tickTime) {
+        WorldSnapshot snap = snapshots.back();
+        snap.capture(state, menuSelection, tickTime, world.getMap(),
+                world.getLives(), world.getCoins(), world.getMapNumber(), debugHitboxes);
+        snap.setInputTick(InputLatency.currentTick());
+        snapshots.publish();
+    }
+
+    private void render(Graphics2D screenGraphics, WorldSnapshot snap, float alpha) {
+        Graphics2D g = screenGraphics;
+        boolean counting = showOverdraw;
+        if (counting) {
+            overdraw.beginFrame(screen.getWidth(), screen.getHeight());
+            g = new CountingGraphics(g, overdraw);
+        }
+
+        drewGameplay = snap.getState() == GameState.PLAYING;
+        if (snap.getState() == null) {
+            // Aún no se ha publicado ningún tick
+            g.setColor(Color.BLACK);
+            g.fillRect(0, 0, screen.getWidth(), screen.getHeight());
+            return;
+        }
+        lastDrawnInputTick = snap.getInputTick();
+
+        QualityLevel level = quality.getLevel();
+        drawer.setMaxParallaxLayers(level.getParallaxLayers());
+        crt.setGrainEnabled(level.hasGrain());
+        crt.setVignetteEnabled(level.hasVignette());
+
+        if (snap.getState() == GameState.PLAYING && GameOptions.softwareRenderer() && !counting) {
+            staticState = null;
+            drawGameSoftware(g, snap, alpha);
+            recordStartupFrame();
+        } else if (snap.getState() == GameState.PLAYING) {
+            staticState = null; // al volver a pausa hay que recomponer
+            drawGame(g, snap, alpha);
+            recordStartupFrame();
+            drawCrt(g);
+        } else {
+            drawStaticScreen(g, snap, alpha);
+        }
+
+        if (counting)
+            finishOverdrawFrame(screenGraphics);
+        if (showProfiler)
+            profilerOverlay.draw(screenGraphics, screen.getWidth(), getFrameAllocation(), getTickAllocation(),
+                    drawer.getChunkCache());
+    }
+
+    /** Pinta el mapa de calor y, si se acaba de activar, guarda el PNG y la tabla. */
+    private void finishOverdrawFrame(Graphics2D g) {
+        if (overdrawPngPending) {
+            overdrawPngPending = false;
+            File file = new File("overdraw-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".png");
+            try {
+                overdraw.writePng(file);
+                System.out.println("[GameEngine] overdraw guardado en " + file);
+            } catch (IOException ex) {
+                System.err.println("[GameEngine] no se pudo guardar " + file + ": " + ex);
+            }
+            for (String line : overdraw.summaryLines())
+                System.out.println("  " + line);
+        }
+        overdrawOverlay.draw(g, overdraw);
+    }
+
+    /** Menús, pausa, game over y victoria: todo lo que no es juego en marcha. */
+    private void composeStaticScreen(Graphics2D g, WorldSnapshot snap, float alpha) {
+        switch (snap.getState()) {
             case MAIN_MENU:
+                CountingGraphics.pass(g, OverdrawStats.Pass.MENU);
                 drawBackground(g);
-                menuRenderer.drawMainMenu(g, screen.getWidth(), screen.getHeight(), menuSelection);
-                break;
-
-            case PLAYING:
-                drawGame(g);
+                menuRenderer.drawMainMenu(g, screen.getWidth(), screen.getHeight(), snap.getMenuSelection());
+                if (warmUp != null)
+                    menuRenderer.drawStatusLine(g, screen.getWidth(), screen.getHeight(), warmUp.getStatus());
                 break;
 
             case PAUSED:
-                drawGame(g);
+                drawGame(g, snap, alpha);
+                CountingGraphics.pass(g, OverdrawStats.Pass.MENU);
                 menuRenderer.drawPause(g, screen.getWidth(), screen.getHeight());
                 break;
 
             case GAME_OVER:
+                CountingGraphics.pass(g, OverdrawStats.Pass.MENU);
                 drawBackground(g);
-                menuRenderer.drawGameOver(g, screen.getWidth(), screen.getHeight(), menuSelection);
+                menuRenderer.drawGameOver(g, screen.getWidth(), screen.getHeight(), snap.getMenuSelection());
                 break;
 
             case VICTORY:
+                CountingGraphics.pass(g, OverdrawStats.Pass.MENU);
                 drawBackground(g);
-                menuRenderer.drawVictory(g, screen.getWidth(), screen.getHeight(), menuSelection);
+                menuRenderer.drawVictory(g, screen.getWidth(), screen.getHeight(), snap.getMenuSelection());
+                break;
+
+            default:
                 break;
         }
     }
 
-    private void drawGame(Graphics2D g) {
-        drawer.draw(g, map, screen.getWidth(), screen.getHeight());
-        hud.draw(g, (Player) map.getPlayer(), lives, coins, mapLoader.currentMap, debugHitboxes, screen.getWidth());
-        if (debugHitboxes)
-            hud.drawHitboxes(g, map, screen.getWidth(), screen.getHeight());
+    private void drawCrt(Graphics2D g) {
+        long elapsedMs = crtElapsedMs();
+        long t = FrameProfiler.begin();
+        CountingGraphics.pass(g, OverdrawStats.Pass.CRT);
+        crt.draw(g, screen.getWidth(), screen.getHeight(), elapsedMs);
+        FrameProfiler.end(FrameProfiler.Phase.DRAW_CRT, t);
     }
 
-    private void drawBackground(Graphics2D g) {
-        g.setColor(Color.decode("#0C843A"));
-        g.fillRect(0, 0, screen.getWidth(), screen.getHeight());
-
-        int margin = 50;
-        if (menuDecorImage != null) {
-            int imgH = menuDecorImage.getHeight(null);
-            g.drawImage(menuDecorImage,
-                    margin,
-                    screen.getHeight() - imgH - margin,
-                    null);
-        }
+    /** Milisegundos desde el último CRT dibujado (para el parpadeo). */
+    private long crtElapsedMs() {
+        long now = System.nanoTime();
+        long elapsedMs = lastRenderTime == 0 ? 0 : (now - lastRenderTime) / 1_000_000L;
+        lastRenderTime = now;
+        return elapsedMs;
     }
 
     // -------------------------------------------------------------------------
-    // CollisionSystem.Listener
+    // Pantallas estáticas (render bajo demanda)
     // -------------------------------------------------------------------------
 
-    @Override
-    public void onCoinCollected() {
-        coins++;
-        if (coins >= GameConstants.COINS_PER_EXTRA_LIFE) {
-            lives++;
-            coins = 0;
+    /**
+     * Presents the cached frame of a static screen, composing it first if
+     * the state, the selected button, the quality level or the warm-up
+     * progress changed since it was built.
+     */
+    private void drawStaticScreen(Graphics2D g, WorldSnapshot snap, float alpha) {
+        if (!isStaticFrameCurrent(snap.getState(), snap.getMenuSelection())) {
+            int w = screen.getWidth(), h = screen.getHeight();
+            if (staticFrame == null || staticFrame.getWidth() != w || staticFrame.getHeight() != h) {
+                staticFrame = screen.createCompatibleImage(w, h, Transparency.OPAQUE);
+            }
+            Graphics2D sg = staticFrame.createGraphics();
+            if (g instanceof CountingGraphics) sg = new CountingGraphics(sg, overdraw);
+            composeStaticScreen(sg, snap, alpha);
+            drawCrt(sg);
+            sg.dispose();
+
+            staticState     = snap.getState();
+            staticSelection = snap.getMenuSelection();
+            staticLevel     = quality.getLevel();
+            staticWarmUp    = warmUpProgress();
         }
+        CountingGraphics.pass(g, OverdrawStats.Pass.COMPOSE);
+        g.drawImage(staticFrame, 0, 0, null);
+        lastStaticPresent = System.nanoTime();
+    }
+
+    private boolean isStaticFrameCurrent(GameState s, int selection) {
+        return staticFrame != null
+                && s == staticState
+                && selection == staticSelection
+                && quality.getLevel() == staticLevel
+                && warmUpProgress() == staticWarmUp;
     }
 
+    /** Changes whenever the warm-up status line would read differently. */
+    private int warmUpProgress() {
+        if (warmUp == null) return 0;
+        return warmUp.isDone() ? -1 : warmUp.getMapsDone();
+    }
+
+    /**
+     * Nothing to draw while a static screen is on and its cached frame is
+     * still valid; it is re-presented every
+     * {@link GameConstants#STATIC_SCREEN_REFRESH_MS} anyway in case the
+     * window contents were lost.
+     */
     @Override
-    public void onGoalReached() {
-        TileMap next = mapLoader.loadNextMap();
-        if (next == null) {
-            state = GameState.VICTORY;
-            menuSelection = 0;
+    protected boolean isFrameUnchanged() {
+        if (showProfiler || showOverdraw) return false; // las vistas de depuración cambian solas
+        GameState s;
+        int selection;
+        if (renderThread) {
+            WorldSnapshot snap = snapshots.acquire();
+            s = snap.getState();
+            selection = snap.getMenuSelection();
         } else {
-            map = next;
+            s = state;
+            selection = menuSelection;
         }
+        return s != null && s != GameState.PLAYING
+                && isStaticFrameCurrent(s, selection)
+                && System.nanoTime() - lastStaticPresent
+                        < GameConstants.STATIC_SCREEN_REFRESH_MS * 1_000_000L;
+    }
+
+    /**
+     * Una pantalla estática solo cambia con la entrada (el progreso del
+     * warm-up se ve con el refresco periódico); un replay en curso mete su
+     * propia entrada y necesita los ticks.
+     */
+    @Override
+    protected boolean waitsForInput() {
+        return replay == null;
+    }
+
+    /** Menús, pausa y fin de partida no cuentan: el nivel de calidad se mantiene. */
+    @Override
+    protected boolean isGameplayFrame() {
+        return drewGameplay;
+    }
+
+    /** Input latency ends here: the frame drawn from {@link #lastDrawnInputTick} is on screen. */
+    @Override
+    protected void framePresented(long presentNanos) {
+        InputLatency.presented(lastDrawnInputTick, presentNanos);
     }
 
     @Override
-    public void onPlayerDied() {
-        lives--;
-        if (lives <= 0) {
-            state = GameState.MAIN_MENU;
-            menuSelection = 0;
+    protected String describeFrameContext() {
+        GameWorld w = world;
+        return "state=" + state + " map=" + (w != null ? w.getMapNumber() : 0)
+                + " quality=" + quality.getLevel();
+    }
+
+    private void drawGame(Graphics2D g, WorldSnapshot snap, float alpha) {
+        float scale = quality.getLevel().getRenderScale();
+        if (scale < 1f) {
+            drawWorldScaled(g, snap, alpha, scale);
         } else {
-            map = mapLoader.reloadMap();
+            drawer.draw(g, snap, screen.getWidth(), screen.getHeight(), alpha);
+        }
+        long t = FrameProfiler.begin();
+        CountingGraphics.pass(g, OverdrawStats.Pass.HUD);
+        hud.draw(g, snap, screen.getWidth());
+        if (snap.isDebugHitboxes())
+            hud.drawHitboxes(g, snap, screen.getWidth(), screen.getHeight(), alpha);
+        FrameProfiler.end(FrameProfiler.Phase.DRAW_HUD, t);
+    }
+
+    /**
+     * Juego en marcha con {@code -Dgame.renderer=software}: mundo, HUD y CRT
+     * se graban en el {@link SoftwareRaster}, que los pinta en bandas en
+     * varios núcleos y los copia a {@code g} con un solo drawImage. Siempre a
+     * resolución completa (la escala de render no se aplica); las hitboxes
+     * de depuración van después, con Java2D, encima del CRT.
+     */
+    private void drawGameSoftware(Graphics2D g, WorldSnapshot snap, float alpha) {
+        int sw = screen.getWidth(), sh = screen.getHeight();
+        if (raster == null || raster.getWidth() != sw || raster.getHeight() != sh) {
+            if (raster != null) raster.shutdown();
+            raster = new SoftwareRaster(screen.getWindow().getGraphicsConfiguration(), sw, sh,
+                    GameOptions.rasterThreads());
+        }
+        raster.begin();
+        drawer.draw(raster, snap, sw, sh, alpha);
+
+        long t = FrameProfiler.begin();
+        hud.draw(raster, snap, sw);
+        FrameProfiler.end(FrameProfiler.Phase.DRAW_HUD, t);
+
+        long elapsedMs = crtElapsedMs();
+        t = FrameProfiler.begin();
+        crt.draw(raster, sw, sh, elapsedMs);
+        FrameProfiler.end(FrameProfiler.Phase.DRAW_CRT, t);
+
+        raster.present(g);
+        if (snap.isDebugHitboxes())
+            hud.drawHitboxes(g, snap, sw, sh, alpha);
+    }
+
+    /**
+     * Dibuja el mundo en un buffer a {@code scale} de la resolución y lo
+     * amplía a pantalla; el HUD se dibuja después a resolución nativa.
+     */
+    private void drawWorldScaled(Graphics2D g, WorldSnapshot snap, float alpha, float scale) {
+        int sw = screen.getWidth(), sh = screen.getHeight();
+        int w = Math.max(1, Math.round(sw * scale));
+        int h = Math.max(1, Math.round(sh * scale));
+        if (sceneBuffer == null || sceneBuffer.getWidth() != w || sceneBuffer.getHeight() != h) {
+            sceneBuffer = screen.createCompatibleImage(w, h, Transparency.OPAQUE);
+        }
+
+        Graphics2D sg = sceneBuffer.createGraphics();
+        // El mapa de calor sigue en píxeles de pantalla
+        if (g instanceof CountingGraphics) sg = new CountingGraphics(sg, overdraw, sw / (double) w, sh / (double) h);
+        drawer.draw(sg, snap, sw, sh, alpha, w, h);
+        sg.dispose();
+
+        CountingGraphics.pass(g, OverdrawStats.Pass.COMPOSE);
+        g.drawImage(sceneBuffer, 0, 0, sw, sh, null);
+    }
+
+    private void recordStartupFrame() {
+        FrameTimeLog log = startupLog;
+        if (log != null && log.frame(System.nanoTime())) {
+            int fps = pacer.getTargetFps();
+            System.out.println("[GameEngine] " + log.summary(fps > 0 ? 1_000_000_000L / fps : 0));
+            startupLog = null;
+        }
+    }
+
+    private void drawBackground(Graphics2D g) {
+        g.setColor(Color.decode("#0C843A"));
+        g.fillRect(0, 0, screen.getWidth(), screen.getHeight());
+
+        int margin = 50;
+        if (menuDecorImage != null) {
+            int imgH = menuDecorImage.getHeight(null);
+            g.drawImage(menuDecorImage,
+                    margin,
+                    screen.getHeight() - imgH - margin,
+                    null);
         }
     }
 
@@ -293,48 +689,84 @@ public class GameEngine extends GameCore implements CollisionSystem.Listener {
     // -------------------------------------------------------------------------
 
     private void startGame() {
-        lives = GameConstants.STARTING_LIVES;
-        coins = 0;
-        mapLoader.currentMap = 0;
-        map = mapLoader.loadNextMap();
-        state = GameState.PLAYING;
-        menuSelection = 0;
+        startGame(1);
     }
 
-    private com.TETOSOFT.assets.AssetManager assets() {
-        return mapLoader.getAssets();
-    }
+    private void startGame(int mapNumber) {
+        if (GameOptions.measureStartup() && !startupMeasured) {
+            startupMeasured = true;
+            String label = "primeros " + GameConstants.STARTUP_MEASURE_SECONDS + " s ("
+                    + (warmUp == null ? "sin warm-up" : warmUp.isDone() ? "warm-up completo" : "warm-up a medias")
+                    + ")";
+            startupLog = new FrameTimeLog(label, GameConstants.STARTUP_MEASURE_SECONDS * 1_000_000_000L, 20_000);
+        }
+        world.startAt(mapNumber);
+        setState(GameState.PLAYING);
+        menuSelection = 0;
 
-    private void updateCreatures(long elapsedTime, Player player) {
-        float oldPlayerY = physics.update(player, map, elapsedTime);
-        player.update(elapsedTime);
+        if (GameOptions.replayRecordDir() != null && replay == null)
+            recorder = new ReplayRecorder(mapNumber, screen.getWidth());
+    }
 
-        boolean isFalling = player.getVelocityY() >= 0 && oldPlayerY < player.getY();
-        collision.checkPlayerCollisions(player, map, isFalling);
+    // -------------------------------------------------------------------------
+    // Replays
+    // -------------------------------------------------------------------------
 
-        java.util.List<Sprite> toAdd = new java.util.ArrayList<>();
+    private void startReplay(File file) {
+        Replay r;
+        try {
+            r = Replay.read(file);
+        } catch (IOException ex) {
+            System.err.println("[Replay] no se pudo leer " + file + ": " + ex.getMessage());
+            return;
+        }
+        replay = new ReplayPlayer(r);
+        controller.replayFrom(replay);
+        menuController.replayFrom(replay);
+        startGame(r.getStartMap());
+        world.setViewWidth(r.getViewWidth());
+        System.out.println("[Replay] reproduciendo " + file + " (" + r.getTickCount() + " ticks)");
+    }
 
-        Iterator<Sprite> it = map.getSprites();
-        while (it.hasNext()) {
-            Sprite sprite = it.next();
-            if (sprite instanceof Creature) {
-                Creature creature = (Creature) sprite;
-                if (creature.getState() == Creature.STATE_DEAD) {
-                    it.remove();
-                    continue;
-                }
-                physics.update(creature, map, elapsedTime);
-            }
-            sprite.update(elapsedTime);
+    /** End of the replay: check it ended where the recording did and give the keyboard back. */
+    private void finishReplay() {
+        Replay.Outcome expected = replay.getReplay().getOutcome();
+        Replay.Outcome actual   = Replay.Outcome.of(world);
+        if (expected.equals(actual)) {
+            System.out.println("[Replay] fin, mismo resultado: " + actual);
+        } else {
+            System.err.println("[Replay] fin, el replay NO es determinista:\n  esperado " + expected
+                    + "\n  obtenido " + actual);
+        }
+        controller.replayFrom(null);
+        menuController.replayFrom(null);
+        replay = null;
+        world.setViewWidth(screen.getWidth());
+    }
 
-            if (sprite instanceof SpawnerGrub) {
-                Sprite spawn = ((SpawnerGrub) sprite).pollSpawn();
-                if (spawn != null)
-                    toAdd.add(spawn);
-            }
+    private void finishRecording() {
+        Replay r = recorder.finish(world);
+        recorder = null;
+        String name = "replay-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date())
+                + "-map" + r.getStartMap() + Replay.EXTENSION;
+        File file = new File(GameOptions.replayRecordDir(), name);
+        try {
+            file.getAbsoluteFile().getParentFile().mkdirs();
+            r.write(file);
+            System.out.println("[Replay] grabado " + file + " (" + r.getTickCount() + " ticks)");
+        } catch (IOException ex) {
+            System.err.println("[Replay] no se pudo guardar " + file + ": " + ex.getMessage());
         }
+    }
+
+    /** Cambia de pantalla; la transición queda registrada en JFR. */
+    private void setState(GameState next) {
+        if (next != state)
+            GameEvents.stateChanged(state.name(), next.name(), world.getMapNumber());
+        state = next;
+    }
 
-        for (Sprite s : toAdd)
-            map.addSprite(s);
+    private AssetManager assets() {
+        return mapLoader.getAssets();
     }
-}
\ No newline at end of file
+}
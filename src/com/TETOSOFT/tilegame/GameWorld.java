@@ -0,0 +1,452 @@
+package com.TETOSOFT.tilegame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.TETOSOFT.core.EntityStats;
+import com.TETOSOFT.core.FrameProfiler;
+import com.TETOSOFT.core.FrameProfiler.Phase;
+import com.TETOSOFT.core.GameConstants;
+import com.TETOSOFT.core.GameEvents;
+import com.TETOSOFT.core.GameOptions;
+import com.TETOSOFT.core.SystemScheduler;
+import com.TETOSOFT.graphics.Sprite;
+import com.TETOSOFT.tilegame.sprites.Creature;
+import com.TETOSOFT.tilegame.sprites.Player;
+import com.TETOSOFT.tilegame.sprites.SpawnerGrub;
+import com.TETOSOFT.tilegame.systems.CollisionSystem;
+import com.TETOSOFT.tilegame.systems.PhysicsSystem;
+import com.TETOSOFT.tilegame.systems.PlayerController;
+
+/**
+ * The simulation of one game in progress: current map, lives, coins and the
+ * systems that advance them one tick at a time.
+ *
+ * It knows nothing about windows, menus or keyboards — input arrives as a
+ * {@link PlayerController} bitmask and outcomes are reported through
+ * {@link Status} — so the same world runs inside {@link GameEngine} and in
+ * the headless tools.
+ *
+ * A tick is split into systems run by a {@link SystemScheduler}; each one
+ * declares which {@link Resource}s it reads and writes. With
+ * {@code -Dgame.systems=parallel} (and two or more cores) the player and
+ * creature systems run concurrently; the default runs the same order on the
+ * calling thread. Worlds running in parallel must be {@link #shutdown()}
+ * when dropped, so the shared pool can stop.
+ *
+ * The order is not the one of the old single-pass update, which checked
+ * the player's collisions between moving the player and moving the
+ * creatures. Now every creature moves first, so the player collides with
+ * this tick's positions; a block the player hits breaks after collisions
+ * (it used to break inside the player's physics, before the creatures
+ * moved); creatures wake up against the camera of the start of the tick;
+ * and dead creatures are removed at the end of the tick, not at the start
+ * of the next one. Outcomes over whole runs stay the same within noise
+ * (compare {@code HeadlessRuntime} stats); single frames may differ by a
+ * tick. The replays in {@code replays/} were recorded with this order.
+ */
+public class GameWorld implements CollisionSystem.Listener {
+
+    /** Data touched by the tick systems, for the scheduler declarations. */
+    public enum Resource {
+        /** Tile grid of the current map. */
+        TILES,
+        /** Tiles hit from below this tick, applied at the end of the tick. */
+        BLOCK_HITS,
+        /** Player position, velocity, animation and timers. */
+        PLAYER,
+        /** Position, velocity, state and animation of every other creature. */
+        CREATURES,
+        /** The map's sprite list itself (adding and removing sprites). */
+        SPRITE_LIST,
+        /** Creatures created by spawners this tick. */
+        SPAWN_QUEUE,
+        /** Lives, coins and map progression shown in the HUD. */
+        COUNTERS
+    }
+
+    /** Result of a tick, from the point of view of whoever owns the world. */
+    public enum Status {
+        /** Keep playing. */
+        RUNNING,
+        /** The player pressed exit. */
+        EXITED,
+        /** The last life was lost. */
+        GAME_OVER,
+        /** The goal of the last map was reached. */
+        VICTORY
+    }
+
+    private final MapLoader        mapLoader;
+    private final PlayerController controller;
+    private final PhysicsSystem    playerPhysics;
+    // Instancia aparte: el punto de caché no se puede compartir entre hilos
+    private final PhysicsSystem    creaturePhysics;
+    private final CollisionSystem  collision;
+    private final SystemScheduler<Resource> scheduler;
+
+    private TileMap map;
+    private int     lives;
+    private int     coins;
+    private Status  status = Status.RUNNING;
+
+    // Contadores acumulados (herramientas headless / batch)
+    private int deaths;
+    private int goalsReached;
+
+    /** Ancho de la vista: los enemigos se despiertan al entrar en ella. */
+    private int viewWidth = GameConstants.WINDOW_WIDTH;
+
+    /**
+     * Píxeles a cada lado de la vista dentro de los que se simulan los
+     * enemigos; más allá se quedan congelados. MAX_VALUE = todo el mapa.
+     */
+    private int simulationDistance = Integer.MAX_VALUE;
+
+    /** Solo el mundo del juego (o de una herramienta de un solo mundo) exporta EntityStats. */
+    private boolean exportsEntityStats;
+
+    // Estado del tick en curso, compartido por los sistemas
+    private TileMap tickMap;
+    private Player  tickPlayer;
+    private long    tickElapsed;
+    private int     tickOffsetX;
+    private float   oldPlayerY;
+    private int[]   blockHits = new int[16]; // pares (x, y)
+    private int     blockHitCount;
+    private final List<Sprite> spawnQueue = new ArrayList<>();
+
+    /**
+     * @param mapLoader  loads the maps of this world
+     * @param controller applies input bitmasks to the player; it does not
+     *                   need to be attached to a window
+     */
+    public GameWorld(MapLoader mapLoader, PlayerController controller) {
+        this.mapLoader  = mapLoader;
+        this.controller = controller;
+        this.playerPhysics   = new PhysicsSystem();
+        this.creaturePhysics = new PhysicsSystem();
+        this.collision       = new CollisionSystem(this);
+
+        playerPhysics.setBlockHitListener((creature, tx, ty) -> queueBlockHit(tx, ty));
+
+        scheduler = new SystemScheduler<>(Resource.class);
+        scheduler.system("player-physics", this::updatePlayerPhysics)
+                .reads(Resource.TILES).writes(Resource.PLAYER, Resource.BLOCK_HITS);
+        scheduler.system("player-animation", this::updatePlayerAnimation)
+                .writes(Resource.PLAYER).after("player-physics");
+        scheduler.system("creature-physics", this::updateCreaturePhysics)
+                .reads(Resource.TILES, Resource.SPRITE_LIST).writes(Resource.CREATURES);
+        scheduler.system("creature-animation", this::updateCreatureAnimation)
+                .reads(Resource.SPRITE_LIST).writes(Resource.CREATURES, Resource.SPAWN_QUEUE)
+                .after("creature-physics");
+        scheduler.system("collision", this::checkCollisions)
+                .writes(Resource.PLAYER, Resource.CREATURES, Resource.SPRITE_LIST, Resource.COUNTERS)
+                .after("player-animation", "creature-animation");
+        scheduler.system("block-hits", this::applyBlockHits)
+                .reads(Resource.BLOCK_HITS).writes(Resource.TILES)
+                .after("collision");
+        scheduler.system("spawn-and-cleanup", this::addSpawnsAndRemoveDead)
+                .reads(Resource.CREATURES).writes(Resource.SPRITE_LIST, Resource.SPAWN_QUEUE)
+                .after("collision");
+        scheduler.build();
+
+        // Con un solo núcleo el paralelo solo añade esperas: se queda en serie
+        if (GameOptions.parallelSystems() && SystemScheduler.shouldRunParallel())
+            scheduler.setParallel(true);
+    }
+
+    // -------------------------------------------------------------------------
+    // Lifecycle
+    // -------------------------------------------------------------------------
+
+    /** Starts a new game from the first map. */
+    public void start() {
+        startAt(1);
+    }
+
+    /**
+     * Starts a new game on map {@code mapNumber} (1-based).
+     *
+     * @throws IllegalArgumentException if the map does not exist
+     */
+    public void startAt(int mapNumber) {
+        lives  = GameConstants.STARTING_LIVES;
+        coins  = 0;
+        status = Status.RUNNING;
+        TileMap first = mapLoader.loadMap(mapNumber);
+        if (first == null)
+            throw new IllegalArgumentException("No existe el mapa " + mapNumber);
+        setMap(first);
+    }
+
+    /** Sets the width of the view used to wake enemies up (default: window width). */
+    public void setViewWidth(int viewWidth) {
+        this.viewWidth = viewWidth;
+    }
+
+    /**
+     * Sprites farther than {@code pixels} from either edge of the view are
+     * not updated (they resume where they were when they come back in
+     * range). {@code Integer.MAX_VALUE}, the default, simulates the whole map.
+     */
+    public void setSimulationDistance(int pixels) {
+        this.simulationDistance = pixels;
+    }
+
+    public int getSimulationDistance() {
+        return simulationDistance;
+    }
+
+    /**
+     * Makes this world the one that exports {@link EntityStats} once a
+     * second (with {@code -Dgame.entityStats}). Off by default, so the
+     * warm-up and batch worlds never write; turn it on for one world only.
+     */
+    public void setExportsEntityStats(boolean exports) {
+        this.exportsEntityStats = exports;
+    }
+
+    // -------------------------------------------------------------------------
+    // Tick
+    // -------------------------------------------------------------------------
+
+    /**
+     * Advances the world by one tick.
+     *
+     * @param input       {@link PlayerController} bitmask for this tick
+     * @param elapsedTime milliseconds to simulate
+     * @return {@link Status#RUNNING} unless the game ended or the player exited
+     */
+    public Status update(int input, long elapsedTime) {
+        Object event = GameEvents.tick();
+        Status result = step(input, elapsedTime);
+        if (event != null) GameEvents.commitTick(event, getMapNumber(), map.getSpriteCount(), elapsedTime);
+        return result;
+    }
+
+    private Status step(int input, long elapsedTime) {
+        status = Status.RUNNING;
+        savePreviousPositions();
+
+        Player player = (Player) map.getPlayer();
+
+        if (player.getState() == Creature.STATE_DEAD) {
+            onPlayerDied();
+            return status;
+        }
+
+        long t = FrameProfiler.begin();
+        boolean exit = controller.apply(player, input, elapsedTime);
+        FrameProfiler.end(Phase.INPUT, t);
+        if (exit)
+            return Status.EXITED;
+
+        // Los sistemas trabajan sobre el mapa del inicio del tick aunque la
+        // colisión cargue otro (meta alcanzada o muerte)
+        tickMap     = map;
+        tickPlayer  = player;
+        tickElapsed = elapsedTime;
+        tickOffsetX = TileMapDrawer.cameraOffsetX(player.getX(), viewWidth,
+                TileMapDrawer.tilesToPixels(map.getWidth()));
+
+        scheduler.run();
+
+        tickMap    = null;
+        tickPlayer = null;
+        if (exportsEntityStats && EntityStats.isEnabled())
+            EntityStats.exportIfDue(map.getPlayer(), map.getSprites());
+        return status;
+    }
+
+    /** Scheduler order, for logs. */
+    public String describeSystems() {
+        return scheduler.toString();
+    }
+
+    /** Releases this world's hold on the shared system pool (parallel mode only). */
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+
+    /**
+     * Fija la posición actual de todos los sprites como origen de la
+     * interpolación. Se llama al empezar cada tick y tras cargar un mapa,
+     * para que los sprites recién colocados no se interpolen desde (0, 0).
+     * GameEngine también lo llama en pausa para que el frame congelado no oscile.
+     */
+    public void savePreviousPositions() {
+        if (map == null) return;
+        map.getPlayer().savePreviousPosition();
+        for (int i = 0, n = map.getSpriteCount(); i < n; i++)
+            map.getSprite(i).savePreviousPosition();
+    }
+
+    // -------------------------------------------------------------------------
+    // Systems
+    // -------------------------------------------------------------------------
+
+    private void updatePlayerPhysics() {
+        long t = FrameProfiler.begin();
+        long e = EntityStats.begin();
+        oldPlayerY = playerPhysics.update(tickPlayer, tickMap, tickElapsed);
+        EntityStats.updated(Player.class, e);
+        FrameProfiler.end(Phase.PLAYER_PHYSICS, t);
+    }
+
+    private void updatePlayerAnimation() {
+        long e = EntityStats.begin();
+        tickPlayer.update(tickElapsed);
+        EntityStats.updated(Player.class, e);
+    }
+
+    private void updateCreaturePhysics() {
+        long t = FrameProfiler.begin();
+        for (int i = 0, n = tickMap.getSpriteCount(); i < n; i++) {
+            Sprite sprite = tickMap.getSprite(i);
+            if (sprite instanceof Creature && isSimulated(sprite)
+                    && ((Creature) sprite).getState() != Creature.STATE_DEAD) {
+                long e = EntityStats.begin();
+                creaturePhysics.update((Creature) sprite, tickMap, tickElapsed);
+                EntityStats.updated(sprite.getClass(), e);
+            }
+        }
+        FrameProfiler.end(Phase.CREATURE_PHYSICS, t);
+    }
+
+    private void updateCreatureAnimation() {
+        long t = FrameProfiler.begin();
+        for (int i = 0, n = tickMap.getSpriteCount(); i < n; i++) {
+            Sprite sprite = tickMap.getSprite(i);
+            if (!isSimulated(sprite)) continue;
+            if (sprite instanceof Creature && ((Creature) sprite).getState() == Creature.STATE_DEAD)
+                continue;
+
+            long e = EntityStats.begin();
+            sprite.update(tickElapsed);
+
+            if (sprite instanceof Creature) {
+                // Los enemigos se activan al entrar en la vista
+                int x = Math.round(sprite.getX()) + tickOffsetX;
+                if (x >= 0 && x < viewWidth)
+                    ((Creature) sprite).wakeUp();
+            }
+
+            if (sprite instanceof SpawnerGrub) {
+                Sprite spawn = ((SpawnerGrub) sprite).pollSpawn();
+                if (spawn != null)
+                    spawnQueue.add(spawn);
+            }
+            EntityStats.updated(sprite.getClass(), e);
+        }
+        FrameProfiler.end(Phase.SPRITE_UPDATE, t);
+    }
+
+    private void checkCollisions() {
+        long t = FrameProfiler.begin();
+        boolean isFalling = tickPlayer.getVelocityY() >= 0 && oldPlayerY < tickPlayer.getY();
+        collision.checkPlayerCollisions(tickPlayer, tickMap, isFalling);
+        FrameProfiler.end(Phase.COLLISION, t);
+    }
+
+    private void applyBlockHits() {
+        for (int i = 0; i < blockHitCount; i += 2)
+            tickMap.breakTile(blockHits[i], blockHits[i + 1]);
+        blockHitCount = 0;
+    }
+
+    private void addSpawnsAndRemoveDead() {
+        // De atrás adelante: quitar uno no mueve los que quedan por mirar
+        for (int i = tickMap.getSpriteCount() - 1; i >= 0; i--) {
+            Sprite sprite = tickMap.getSprite(i);
+            if (sprite instanceof Creature && ((Creature) sprite).getState() == Creature.STATE_DEAD) {
+                tickMap.removeSprite(i);
+                EntityStats.removed(sprite.getClass());
+            }
+        }
+        for (int i = 0; i < spawnQueue.size(); i++) {
+            Sprite s = spawnQueue.get(i);
+            s.savePreviousPosition();
+            tickMap.addSprite(s);
+            EntityStats.spawned(s.getClass());
+            GameEvents.spriteSpawned(s.getClass().getSimpleName(), s.getX(), s.getY(),
+                    tickMap.getSpriteCount());
+        }
+        spawnQueue.clear();
+    }
+
+    private void queueBlockHit(int tx, int ty) {
+        if (blockHitCount + 2 > blockHits.length)
+            blockHits = Arrays.copyOf(blockHits, blockHits.length * 2);
+        blockHits[blockHitCount++] = tx;
+        blockHits[blockHitCount++] = ty;
+    }
+
+    /**
+     * Whether a sprite is within the simulation distance of the view. Uses
+     * the position at the start of the tick so every system agrees.
+     */
+    private boolean isSimulated(Sprite sprite) {
+        // long: la distancia puede ser MAX_VALUE
+        long x = Math.round(sprite.getPreviousX()) + tickOffsetX;
+        return x >= -(long) simulationDistance - sprite.getWidth()
+                && x < (long) viewWidth + simulationDistance;
+    }
+
+    // -------------------------------------------------------------------------
+    // CollisionSystem.Listener
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void onCoinCollected() {
+        coins++;
+        if (coins >= GameConstants.COINS_PER_EXTRA_LIFE) {
+            lives++;
+            coins = 0;
+        }
+    }
+
+    @Override
+    public void onGoalReached() {
+        goalsReached++;
+        TileMap next = mapLoader.loadNextMap();
+        if (next == null) {
+            status = Status.VICTORY;
+        } else {
+            setMap(next);
+        }
+    }
+
+    @Override
+    public void onPlayerDied() {
+        deaths++;
+        lives--;
+        if (lives <= 0) {
+            status = Status.GAME_OVER;
+        } else {
+            setMap(mapLoader.reloadMap());
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Accessors
+    // -------------------------------------------------------------------------
+
+    public TileMap   getMap()          { return map; }
+    public Player    getPlayer()       { return (Player) map.getPlayer(); }
+    public int       getLives()        { return lives; }
+    public int       getCoins()        { return coins; }
+    public int       getMapNumber()    { return mapLoader.getCurrentMap(); }
+    public MapLoader getMapLoader()    { return mapLoader; }
+
+    /** Lives lost since this world was created. */
+    public int       getDeaths()       { return deaths; }
+    /** Goals reached since this world was created. */
+    public int       getGoalsReached() { return goalsReached; }
+
+    private void setMap(TileMap map) {
+        this.map = map;
+        savePreviousPositions();
+    }
+}
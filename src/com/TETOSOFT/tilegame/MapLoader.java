@@ -6,6 +6,9 @@ import java.io.IOException;
 import com.TETOSOFT.assets.AssetManager;
 import com.TETOSOFT.assets.MapParser;
 import com.TETOSOFT.assets.SpriteFactory;
+import com.TETOSOFT.core.GameEvents;
+import com.TETOSOFT.core.StartupTrace;
+import com.TETOSOFT.graphics.TextureAtlas;
 
 /**
  * Manages map progression: tracks the current map number and delegates
@@ -13,18 +16,49 @@ import com.TETOSOFT.assets.SpriteFactory;
  *
  * Image loading is handled by {@link AssetManager} and sprite construction
  * by {@link SpriteFactory}.
+ *
+ * The map number is per loader; the parser and the assets behind it are
+ * read-only once built and can be shared by several loaders (see
+ * {@link #newLoaderSharingAssets()}), one per world.
  */
 public class MapLoader {
 
-    public int currentMap = 0;
+    private int currentMap = 0;
 
     private final AssetManager assets;
     private final MapParser parser;
 
+    @SuppressWarnings("try")
     public MapLoader(GraphicsConfiguration gc) {
         assets = new AssetManager(gc);
-        SpriteFactory spriteFactory = new SpriteFactory(assets);
-        parser = new MapParser(assets, spriteFactory);
+        SpriteFactory spriteFactory;
+        try (StartupTrace.Span s = StartupTrace.begin("SpriteFactory")) {
+            spriteFactory = new SpriteFactory(assets);
+        }
+        try (StartupTrace.Span s = StartupTrace.begin("MapParser")) {
+            parser = new MapParser(assets, spriteFactory);
+            assets.finishPacking();
+            TextureAtlas atlas = assets.getAtlas();
+            if (s != null && atlas != null) {
+                s.arg("atlasPages", atlas.getPageCount())
+                 .arg("atlasImages", atlas.getImageCount())
+                 .arg("atlasFill", Math.round(atlas.getFill() * 100) / 100.0);
+            }
+        }
+    }
+
+    private MapLoader(AssetManager assets, MapParser parser) {
+        this.assets = assets;
+        this.parser = parser;
+    }
+
+    /**
+     * Returns a loader with its own map progression that reuses this
+     * loader's images, sprite prototypes and parser. Safe to use from
+     * another thread.
+     */
+    public MapLoader newLoaderSharingAssets() {
+        return new MapLoader(assets, parser);
     }
 
     /**
@@ -34,29 +68,66 @@ public class MapLoader {
         return assets;
     }
 
+    /** Number of the map last loaded (1-based), or 0 before the first load. */
+    public int getCurrentMap() {
+        return currentMap;
+    }
+
     /**
-     * Advances to the next map and returns it, wrapping around to map 1 if needed.
+     * Number of consecutive maps that exist from map 1. Parses them with a
+     * separate loader, so this loader's progression is not touched.
      */
+    public int countMaps() {
+        MapLoader probe = newLoaderSharingAssets();
+        int n = 0;
+        while (probe.loadMap(n + 1) != null)
+            n++;
+        return n;
+    }
+
     /** Avanza al siguiente mapa. Devuelve null si no hay más (victoria). */
     public TileMap loadNextMap() {
+        Object event = GameEvents.mapLoad();
         TileMap map = null;
         currentMap++;
         try {
-            map = parser.parse("maps/map" + currentMap + ".txt");
+            map = parser.parse(mapPath(currentMap));
         } catch (IOException ex) {
             // No existe el siguiente mapa → se acabaron los niveles
-            return null; // GameEngine interpretará esto como victoria
+            map = null; // GameEngine interpretará esto como victoria
         }
+        if (event != null) commit(event, map, false);
         return map;
     }
 
+    /**
+     * Jumps to map {@code mapNumber} (1-based) and returns it, or
+     * {@code null} if it does not exist.
+     */
+    public TileMap loadMap(int mapNumber) {
+        currentMap = mapNumber - 1;
+        return loadNextMap();
+    }
+
     /** Reloads the current map (used on player death). */
     public TileMap reloadMap() {
+        Object event = GameEvents.mapLoad();
+        TileMap map = null;
         try {
-            return parser.parse("maps/map" + currentMap + ".txt");
+            map = parser.parse(mapPath(currentMap));
         } catch (IOException ex) {
             ex.printStackTrace();
-            return null;
         }
+        if (event != null) commit(event, map, true);
+        return map;
+    }
+
+    private void commit(Object event, TileMap map, boolean reload) {
+        GameEvents.commitMapLoad(event, currentMap, reload, map != null,
+                map != null ? map.getSpriteCount() : 0);
+    }
+
+    private static String mapPath(int mapNumber) {
+        return "maps/map" + mapNumber + ".txt";
     }
 }
@@ -0,0 +1,284 @@
+package com.TETOSOFT.tilegame;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import com.TETOSOFT.core.GameConstants;
+import com.TETOSOFT.graphics.ImageRegion;
+import com.TETOSOFT.graphics.Java2DTarget;
+import com.TETOSOFT.graphics.RenderTarget;
+
+/**
+ * Pre-rendered tile layer: the tiles of a {@link TileMap} baked into images
+ * of {@link GameConstants#TILE_CHUNK_TILES} tiles per side, so a visible
+ * chunk costs one blit per solid rectangle of tiles (ground, platforms)
+ * instead of one per tile, and the drawer only visits visible chunks.
+ *
+ * A chunk is baked the first time it is drawn and again, lazily, the first
+ * time it is drawn after its version in the map changed
+ * ({@link TileMap#breakTile}, {@link TileMap#setTile}). At most
+ * {@link GameConstants#TILE_CHUNK_CACHE_MAX} chunk images are created; when
+ * they are all in use the one drawn least recently is reused. The images
+ * are compatible with the target they are first drawn to, so Java2D can
+ * keep them in video memory, and opaque when every tile of the chunk is:
+ * only the rectangles that have tiles are copied to the screen, so the
+ * empty cells never show, and an opaque copy is far cheaper than a blend.
+ *
+ * Not thread-safe: each drawing thread needs its own drawer and cache (the
+ * game and the JIT warm-up each have one). The counters can be read from
+ * any thread.
+ */
+public class TileChunkCache {
+
+    private static final int CHUNK_TILES  = GameConstants.TILE_CHUNK_TILES;
+    private static final int CHUNK_PIXELS = TileMapDrawer.tilesToPixels(CHUNK_TILES);
+
+    // Por imagen: la imagen, el chunk que tiene (-1 = libre) y el último frame que se usó
+    private final BufferedImage[] images;
+    private final int[]  owners;
+    private final long[] lastUse;
+    // Por imagen: rectángulos de tiles ocupados (x, y en tiles) como regiones de la imagen, y cuántos hay
+    private final int[][] rects;
+    private final ImageRegion[][] rectImages;
+    private final int[]   rectCounts;
+    private int imageCount;
+    private long frame;
+
+    // Por chunk del mapa actual (índice cx * filas + cy): imagen (-1 = ninguna) y versión horneada
+    private TileMap map;
+    private int[] slots    = new int[0];
+    private int[] versions = new int[0];
+
+    /** Tiles sin un solo píxel transparente; se mira una vez por imagen. */
+    private final Map<ImageRegion, Boolean> opaqueTiles = new IdentityHashMap<>();
+
+    private volatile long hits, misses;
+
+    public TileChunkCache() {
+        this(GameConstants.TILE_CHUNK_CACHE_MAX);
+    }
+
+    /** @param maxChunks chunk images kept at most */
+    public TileChunkCache(int maxChunks) {
+        images  = new BufferedImage[Math.max(1, maxChunks)];
+        owners  = new int[images.length];
+        lastUse = new long[images.length];
+        rects      = new int[images.length][2 * CHUNK_TILES * CHUNK_TILES];
+        rectImages = new ImageRegion[images.length][CHUNK_TILES * CHUNK_TILES];
+        rectCounts = new int[images.length];
+    }
+
+    /**
+     * Draws the tiles of {@code map} seen through a {@code screenWidth x
+     * screenHeight} view at the given camera offset, baking the chunks that
+     * are missing or stale.
+     */
+    public void draw(RenderTarget g, TileMap map, int screenWidth, int screenHeight, int offsetX, int offsetY) {
+        if (map != this.map) setMap(map);
+        frame++;
+
+        int firstX = Math.max(0, Math.floorDiv(-offsetX, CHUNK_PIXELS));
+        int lastX  = Math.min(map.getChunkColumns() - 1, Math.floorDiv(screenWidth - 1 - offsetX, CHUNK_PIXELS));
+        int firstY = Math.max(0, Math.floorDiv(-offsetY, CHUNK_PIXELS));
+        int lastY  = Math.min(map.getChunkRows() - 1, Math.floorDiv(screenHeight - 1 - offsetY, CHUNK_PIXELS));
+
+        for (int cx = firstX; cx <= lastX; cx++) {
+            for (int cy = firstY; cy <= lastY; cy++) {
+                drawChunk(g, cx, cy, cx * CHUNK_PIXELS + offsetX, cy * CHUNK_PIXELS + offsetY);
+            }
+        }
+    }
+
+    private void drawChunk(RenderTarget g, int cx, int cy, int x, int y) {
+        int chunk   = cx * map.getChunkRows() + cy;
+        int version = map.getChunkVersion(cx, cy);
+        int slot    = slots[chunk];
+
+        if (slot >= 0 && versions[chunk] == version) {
+            hits++;
+        } else {
+            misses++;
+            if (slot < 0) slot = acquire(chunk);
+            if (slot < 0) {
+                // Más chunks en pantalla que imágenes: este va tile a tile
+                drawTiles(g, cx, cy, x, y);
+                return;
+            }
+            bake(g, slot, cx, cy);
+            versions[chunk] = version;
+        }
+        lastUse[slot] = frame;
+
+        // Copiar solo los rectángulos con tiles: mezclar el cielo vacío costaría
+        // lo mismo que mezclar tiles
+        int[] r = rects[slot];
+        ImageRegion[] sub = rectImages[slot];
+        for (int i = 0, n = rectCounts[slot]; i < n; i++) {
+            g.drawImage(sub[i], x + TileMapDrawer.tilesToPixels(r[2 * i]),
+                    y + TileMapDrawer.tilesToPixels(r[2 * i + 1]));
+        }
+    }
+
+    /** Free slot for {@code chunk}: a new one while below the limit, else the least recently drawn. */
+    private int acquire(int chunk) {
+        int slot = -1;
+        if (imageCount < images.length) {
+            slot = imageCount++;
+        } else {
+            for (int i = 0; i < imageCount; i++) {
+                if (lastUse[i] == frame) continue; // ya dibujado en este frame
+                if (slot < 0 || owners[i] < 0 || (owners[slot] >= 0 && lastUse[i] < lastUse[slot])) slot = i;
+            }
+            if (slot < 0) return -1;
+            if (owners[slot] >= 0) slots[owners[slot]] = -1;
+        }
+        owners[slot] = chunk;
+        slots[chunk] = slot;
+        return slot;
+    }
+
+    private void bake(RenderTarget screen, int slot, int cx, int cy) {
+        int transparency = isOpaque(cx, cy) ? Transparency.OPAQUE : Transparency.TRANSLUCENT;
+        if (images[slot] == null || images[slot].getTransparency() != transparency) {
+            if (images[slot] != null) images[slot].flush();
+            images[slot] = screen.getDeviceConfiguration().createCompatibleImage(
+                    CHUNK_PIXELS, CHUNK_PIXELS, transparency);
+        }
+
+        Graphics2D g = images[slot].createGraphics();
+        try {
+            g.setComposite(AlphaComposite.Clear);
+            g.fillRect(0, 0, CHUNK_PIXELS, CHUNK_PIXELS);
+            g.setComposite(AlphaComposite.SrcOver);
+            drawTiles(new Java2DTarget(g), cx, cy, 0, 0);
+        } finally {
+            g.dispose();
+        }
+
+        findRects(slot, cx * CHUNK_TILES, cy * CHUNK_TILES);
+    }
+
+    /**
+     * Covers the non-empty tiles of the chunk with rectangles: each run of
+     * tiles in a row, grown down while the rows below have the same run.
+     * Each one is kept as a region of the chunk image, so drawing it copies
+     * only that rectangle.
+     */
+    private void findRects(int slot, int tx0, int ty0) {
+        boolean[][] done = new boolean[CHUNK_TILES][CHUNK_TILES];
+        int[] r = rects[slot];
+        int n = 0;
+        for (int ty = 0; ty < CHUNK_TILES; ty++) {
+            for (int tx = 0; tx < CHUNK_TILES; tx++) {
+                if (done[ty][tx] || !hasTile(tx0 + tx, ty0 + ty)) continue;
+                int w = 1;
+                while (tx + w < CHUNK_TILES && !done[ty][tx + w] && hasTile(tx0 + tx + w, ty0 + ty)) w++;
+                int h = 1;
+                while (ty + h < CHUNK_TILES && sameRun(done, tx0, ty0, tx, ty + h, w)) h++;
+                for (int j = ty; j < ty + h; j++)
+                    for (int i = tx; i < tx + w; i++) done[j][i] = true;
+                rectImages[slot][n / 2] = new ImageRegion(images[slot],
+                        TileMapDrawer.tilesToPixels(tx), TileMapDrawer.tilesToPixels(ty),
+                        TileMapDrawer.tilesToPixels(w), TileMapDrawer.tilesToPixels(h));
+                r[n++] = tx;
+                r[n++] = ty;
+                tx += w - 1;
+            }
+        }
+        rectCounts[slot] = n / 2;
+        Arrays.fill(rectImages[slot], n / 2, rectImages[slot].length, null);
+    }
+
+    /** True if row {@code ty} has exactly the run {@code [tx, tx + w)} there, not yet covered. */
+    private boolean sameRun(boolean[][] done, int tx0, int ty0, int tx, int ty, int w) {
+        if (tx > 0 && hasTile(tx0 + tx - 1, ty0 + ty) && !done[ty][tx - 1]) return false;
+        if (tx + w < CHUNK_TILES && hasTile(tx0 + tx + w, ty0 + ty)) return false;
+        for (int i = tx; i < tx + w; i++) {
+            if (done[ty][i] || !hasTile(tx0 + i, ty0 + ty)) return false;
+        }
+        return true;
+    }
+
+    private boolean hasTile(int x, int y) {
+        return map.getTile(x, y) != null;
+    }
+
+    private boolean isOpaque(int cx, int cy) {
+        int tx0 = cx * CHUNK_TILES;
+        int ty0 = cy * CHUNK_TILES;
+        for (int ty = 0; ty < CHUNK_TILES; ty++) {
+            for (int tx = 0; tx < CHUNK_TILES; tx++) {
+                ImageRegion tile = map.getTile(tx0 + tx, ty0 + ty);
+                if (tile != null && !opaqueTiles.computeIfAbsent(tile, TileChunkCache::hasNoAlpha)) return false;
+            }
+        }
+        return true;
+    }
+
+    /** True if every pixel of {@code tile} is fully opaque. */
+    private static boolean hasNoAlpha(ImageRegion tile) {
+        if (tile.getTransparency() == Transparency.OPAQUE) return true;
+        int w = tile.getWidth(), h = tile.getHeight();
+        if (w <= 0 || h <= 0) return false;
+        BufferedImage argb = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = argb.createGraphics();
+        new Java2DTarget(g).drawImage(tile, 0, 0);
+        g.dispose();
+        for (int pixel : argb.getRGB(0, 0, w, h, null, 0, w)) {
+            if (pixel >>> 24 != 0xff) return false;
+        }
+        return true;
+    }
+
+    /** Tiles of chunk ({@code cx}, {@code cy}) with its top-left corner at ({@code x}, {@code y}). */
+    private void drawTiles(RenderTarget g, int cx, int cy, int x, int y) {
+        int tx0 = cx * CHUNK_TILES;
+        int ty0 = cy * CHUNK_TILES;
+        for (int ty = 0; ty < CHUNK_TILES; ty++) {
+            for (int tx = 0; tx < CHUNK_TILES; tx++) {
+                ImageRegion tile = map.getTile(tx0 + tx, ty0 + ty);
+                if (tile != null) {
+                    g.drawImage(tile, x + TileMapDrawer.tilesToPixels(tx), y + TileMapDrawer.tilesToPixels(ty));
+                }
+            }
+        }
+    }
+
+    /** New map: every chunk is missing; the images stay for reuse. */
+    private void setMap(TileMap map) {
+        this.map = map;
+        int n = map.getChunkColumns() * map.getChunkRows();
+        if (slots.length != n) {
+            slots    = new int[n];
+            versions = new int[n];
+        }
+        Arrays.fill(slots, -1);
+        Arrays.fill(owners, -1);
+    }
+
+    // -------------------------------------------------------------------------
+    // Estadísticas
+    // -------------------------------------------------------------------------
+
+    /** Visible chunks drawn from a baked image that was up to date. */
+    public long getHits() {
+        return hits;
+    }
+
+    /** Visible chunks that had to be baked (first time, stale or evicted). */
+    public long getMisses() {
+        return misses;
+    }
+
+    /** Chunk images created so far, at most {@link #getMaxChunks()}. */
+    public int getImageCount() {
+        return imageCount;
+    }
+
+    public int getMaxChunks() {
+        return images.length;
+    }
+}
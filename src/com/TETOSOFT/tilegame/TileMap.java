@@ -1,19 +1,31 @@
 package com.TETOSOFT.tilegame;
 
-import java.awt.Image;
+import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
+import com.TETOSOFT.core.GameConstants;
+import com.TETOSOFT.core.GameEvents;
+import com.TETOSOFT.graphics.ImageRegion;
 import com.TETOSOFT.graphics.Sprite;
 
 /**
  * Stores the tile grid and the list of sprites for one level.
  * The player sprite is tracked separately from the rest.
+ *
+ * The grid is also split in chunks of {@link GameConstants#TILE_CHUNK_TILES}
+ * tiles per side, each with a version that goes up whenever one of its
+ * tiles changes, so the drawer knows which pre-rendered chunks are stale
+ * ({@link TileChunkCache}).
  */
 public class TileMap {
 
-    private final Image[][]       tiles;
-    private final LinkedList<Sprite> sprites = new LinkedList<>();
+    private final ImageRegion[][] tiles;
+    /** Versión de cada chunk (x * chunkRows + y); la leen el hilo que dibuja y el de ticks. */
+    private final AtomicIntegerArray chunkVersions;
+    private final int chunkColumns, chunkRows;
+    /** Array y no lista enlazada: recorrerla por índice no reserva iteradores. */
+    private final ArrayList<Sprite> sprites = new ArrayList<>();
     private Sprite player;
 
     /**
@@ -21,7 +33,10 @@ public class TileMap {
      * @param height map height in tiles
      */
     public TileMap(int width, int height) {
-        tiles = new Image[width][height];
+        tiles = new ImageRegion[width][height];
+        chunkColumns  = (width  + GameConstants.TILE_CHUNK_TILES - 1) / GameConstants.TILE_CHUNK_TILES;
+        chunkRows     = (height + GameConstants.TILE_CHUNK_TILES - 1) / GameConstants.TILE_CHUNK_TILES;
+        chunkVersions = new AtomicIntegerArray(chunkColumns * chunkRows);
     }
 
     // -------------------------------------------------------------------------
@@ -39,13 +54,14 @@ public class TileMap {
      * Returns the tile image at (x, y), or {@code null} if the position is
      * out of bounds or empty.
      */
-    public Image getTile(int x, int y) {
+    public ImageRegion getTile(int x, int y) {
         if (x < 0 || x >= getWidth() || y < 0 || y >= getHeight()) return null;
         return tiles[x][y];
     }
 
-    public void setTile(int x, int y, Image tile) {
+    public void setTile(int x, int y, ImageRegion tile) {
         tiles[x][y] = tile;
+        chunkChanged(x, y);
     }
 
     /**
@@ -53,11 +69,33 @@ public class TileMap {
      * Equivalente a setTile(x, y, null).
      */
     public void breakTile(int x, int y) {
-        if (x >= 0 && x < getWidth() && y >= 0 && y < getHeight()) {
+        if (x >= 0 && x < getWidth() && y >= 0 && y < getHeight() && tiles[x][y] != null) {
             tiles[x][y] = null;
+            chunkChanged(x, y);
+            GameEvents.blockBroken(x, y);
         }
     }
 
+    // -------------------------------------------------------------------------
+    // Chunks
+    // -------------------------------------------------------------------------
+
+    public int getChunkColumns() { return chunkColumns; }
+    public int getChunkRows()    { return chunkRows; }
+
+    /**
+     * Version of the chunk at chunk coordinates ({@code cx}, {@code cy});
+     * it changes every time one of its tiles does.
+     */
+    public int getChunkVersion(int cx, int cy) {
+        return chunkVersions.get(cx * chunkRows + cy);
+    }
+
+    private void chunkChanged(int x, int y) {
+        chunkVersions.incrementAndGet(
+                x / GameConstants.TILE_CHUNK_TILES * chunkRows + y / GameConstants.TILE_CHUNK_TILES);
+    }
+
     // -------------------------------------------------------------------------
     // Player
     // -------------------------------------------------------------------------
@@ -72,6 +110,19 @@ public class TileMap {
     public void addSprite(Sprite sprite)    { sprites.add(sprite); }
     public void removeSprite(Sprite sprite) { sprites.remove(sprite); }
 
-    /** Returns an iterator over all non-player sprites. */
+    /** Removes the {@code i}-th sprite; later ones move down by one. */
+    public void removeSprite(int i)         { sprites.remove(i); }
+
+    /** Number of non-player sprites. */
+    public int getSpriteCount()             { return sprites.size(); }
+
+    /** The {@code i}-th non-player sprite, {@code 0 <= i < getSpriteCount()}. */
+    public Sprite getSprite(int i)          { return sprites.get(i); }
+
+    /**
+     * Returns an iterator over all non-player sprites. Code that runs every
+     * tick or frame indexes with {@link #getSprite(int)} instead, which
+     * allocates nothing.
+     */
     public Iterator<Sprite> getSprites()    { return sprites.iterator(); }
 }
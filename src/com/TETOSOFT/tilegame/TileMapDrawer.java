@@ -1,21 +1,35 @@
 package com.TETOSOFT.tilegame;
 
 import java.awt.*;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 
-import com.TETOSOFT.graphics.Sprite;
-import com.TETOSOFT.tilegame.sprites.Creature;
-import com.TETOSOFT.tilegame.sprites.Player;
+import com.TETOSOFT.core.EntityStats;
+import com.TETOSOFT.core.FrameProfiler;
+import com.TETOSOFT.core.FrameProfiler.Phase;
+import com.TETOSOFT.core.GameConstants;
+import com.TETOSOFT.core.GameOptions;
+import com.TETOSOFT.graphics.Java2DTarget;
+import com.TETOSOFT.graphics.OverdrawStats.Pass;
+import com.TETOSOFT.graphics.RenderTarget;
+import com.TETOSOFT.graphics.VolatileCopy;
 
 /**
- * Renders a {@link TileMap} — background, tiles, and sprites — with
+ * Renders a {@link WorldSnapshot} — background, tiles, and sprites — with
  * horizontal parallax scrolling centred on the player.
  *
  * El fondo parallax se compone de N capas ordenadas de más lejana (índice 0)
  * a más cercana (último índice). Cada capa tiene un factor de velocidad entre
- * 0.0 (estática) y 1.0 (se mueve igual que el mapa).
+ * 0.0 (estática) y 1.0 (se mueve igual que el mapa). Cada capa guarda
+ * copias ya escaladas a la altura a la que se dibuja (una por escala de
+ * render en uso), así cada frame solo hace blits sin escalar.
+ *
+ * Los tiles salen de un {@link TileChunkCache}: un blit por rectángulo de
+ * tiles de cada chunk visible.
+ *
+ * Dibuja sobre un {@link RenderTarget}: un Graphics2D (Java2D) o el
+ * {@link com.TETOSOFT.graphics.SoftwareRaster SoftwareRaster}.
  */
 public class TileMapDrawer {
 
@@ -30,25 +44,143 @@ public class TileMapDrawer {
         final Image image;
         /** 0.0 = no se mueve, 1.0 = se mueve igual que el mapa. */
         final float speed;
+        /** Copias escaladas, una por altura de destino; null = hueco libre. */
+        private final ScaledLayer[] scaled = new ScaledLayer[GameConstants.PARALLAX_SCALED_COPIES];
+        private long uses;
+        /** Copias escaladas creadas hasta ahora. */
+        private volatile long builds;
 
         public ParallaxLayer(Image image, float speed) {
             this.image = image;
             this.speed = speed;
         }
+
+        /**
+         * The copy scaled to {@code height} that covers at least
+         * {@code screenWidth} when it is a strip, made on first use. When
+         * all slots are taken the copy used least recently is replaced.
+         */
+        ScaledLayer scaledTo(GraphicsConfiguration gc, int height, int screenWidth) {
+            uses++;
+            int free = 0;
+            for (int i = 0; i < scaled.length; i++) {
+                ScaledLayer copy = scaled[i];
+                if (copy != null && copy.height == height && copy.covers(screenWidth)) {
+                    copy.lastUse = uses;
+                    return copy;
+                }
+                if (copy == null || (scaled[free] != null && copy.lastUse < scaled[free].lastUse)) free = i;
+            }
+            if (scaled[free] != null) scaled[free].flush();
+            builds++;
+            ScaledLayer copy = new ScaledLayer(gc, image, height, screenWidth);
+            copy.lastUse = uses;
+            scaled[free] = copy;
+            return copy;
+        }
+
+        void flush() {
+            for (int i = 0; i < scaled.length; i++) {
+                if (scaled[i] != null) scaled[i].flush();
+                scaled[i] = null;
+            }
+        }
+    }
+
+    /**
+     * Una capa escalada a {@code height} píxeles de alto (mismo vecino más
+     * cercano que un {@code drawImage} escalado, así el resultado es igual).
+     * Con {@code -Dgame.parallaxStrip=true} la imagen se repite en horizontal
+     * hasta cubrir la pantalla más un periodo: un solo blit por frame a
+     * cambio de más memoria.
+     */
+    static final class ScaledLayer {
+        final int height;
+        /** Ancho de una repetición de la capa. */
+        final int period;
+        final BufferedImage image;
+        /** Copia en memoria de vídeo con {@code -Dgame.volatileBackgrounds=true}; si no, null. */
+        final VolatileCopy accelerated;
+        long lastUse;
+
+        ScaledLayer(GraphicsConfiguration gc, Image src, int height, int screenWidth) {
+            int srcW = src.getWidth(null), srcH = src.getHeight(null);
+            this.height = height;
+            // Escalar para que cubra exactamente la altura, manteniendo proporción en el ancho
+            int w = (int) ((float) srcW / srcH * height);
+            period = w > 0 ? w : screenWidth;
+
+            int repeats = GameOptions.parallaxStrip() ? (screenWidth + period - 1) / period + 1 : 1;
+            int transparency = src instanceof BufferedImage
+                    ? ((BufferedImage) src).getTransparency() : Transparency.TRANSLUCENT;
+            image = gc.createCompatibleImage(period * repeats, height, transparency);
+            Graphics2D g = image.createGraphics();
+            try {
+                for (int i = 0; i < repeats; i++) g.drawImage(src, i * period, 0, period, height, null);
+            } finally {
+                g.dispose();
+            }
+            accelerated = GameOptions.volatileBackgrounds() ? new VolatileCopy(image, transparency) : null;
+        }
+
+        /** True if one blit from any start in {@code (-period, 0]} covers {@code screenWidth}. */
+        boolean covers(int screenWidth) {
+            return image.getWidth() == period || image.getWidth() - period >= screenWidth;
+        }
+
+        void draw(RenderTarget t, int x) {
+            // La copia en vídeo solo sirve a Java2D; el raster por software lee los píxeles
+            if (accelerated != null && t instanceof Java2DTarget)
+                accelerated.draw(((Java2DTarget) t).getGraphics(), x, 0);
+            else t.drawImage(image, x, 0);
+        }
+
+        void flush() {
+            if (accelerated != null) accelerated.flush();
+            image.flush();
+        }
     }
 
     private final List<ParallaxLayer> layers = new ArrayList<>();
+    private final TileChunkCache chunks = new TileChunkCache();
+    /** Envoltorio reutilizado para las llamadas con Graphics2D (hilo de dibujo). */
+    private final Java2DTarget java2d = new Java2DTarget();
+
+    /** Capas que se dibujan como máximo, empezando por la más lejana. */
+    private volatile int maxParallaxLayers = Integer.MAX_VALUE;
 
     /** Añade una capa de parallax. Llamar en orden: fondo → primer plano. */
     public void addParallaxLayer(Image image, float speed) {
         layers.add(new ParallaxLayer(image, speed));
     }
 
+    /**
+     * Limita cuántas capas se dibujan (las más lejanas primero); las demás
+     * se omiten. Lo ajusta el gobernador de calidad.
+     */
+    public void setMaxParallaxLayers(int maxParallaxLayers) {
+        this.maxParallaxLayers = Math.max(0, maxParallaxLayers);
+    }
+
     /** Elimina todas las capas (útil al cambiar de nivel). */
     public void clearParallaxLayers() {
+        for (ParallaxLayer layer : layers) layer.flush();
         layers.clear();
     }
 
+    /** Caché de chunks de tiles (para ver aciertos y fallos). */
+    public TileChunkCache getChunkCache() {
+        return chunks;
+    }
+
+    /** Copias escaladas de las capas de parallax creadas hasta ahora (hilo de dibujo). */
+    public long getParallaxRebuilds() {
+        long n = 0;
+        // Por índice: se llama en cada frame y un iterador no siempre se elimina
+        for (int i = 0; i < layers.size(); i++) n += layers.get(i).builds;
+        return n;
+    }
+
     // -------------------------------------------------------------------------
     // Coordinate helpers
     // -------------------------------------------------------------------------
@@ -61,108 +193,133 @@ public class TileMapDrawer {
     // Draw
     // -------------------------------------------------------------------------
 
-    public void draw(Graphics2D g, TileMap map, int screenWidth, int screenHeight) {
-        Sprite player   = map.getPlayer();
-        int    mapWidth = tilesToPixels(map.getWidth());
-        int    mapHeight = tilesToPixels(map.getHeight());
+    /**
+     * Draws a captured frame with every sprite (and the camera) placed
+     * {@code alpha} of the way between its previous and current tick position.
+     */
+    public void draw(Graphics2D g, WorldSnapshot snap, int screenWidth, int screenHeight, float alpha) {
+        draw(g, snap, screenWidth, screenHeight, alpha, screenWidth, screenHeight);
+    }
 
-        int offsetX = screenWidth / 2 - Math.round(player.getX()) - TILE_SIZE;
-        offsetX = Math.min(offsetX, 0);
-        offsetX = Math.max(offsetX, screenWidth - mapWidth);
+    /**
+     * Same as {@link #draw(Graphics2D, WorldSnapshot, int, int, float)} into a
+     * {@code bufferWidth x bufferHeight} buffer that is later stretched to
+     * the screen (reduced render scale). The background is drawn at the
+     * buffer's resolution; then {@code g} is scaled, and left scaled, so
+     * tiles and sprites keep using screen coordinates.
+     */
+    public void draw(Graphics2D g, WorldSnapshot snap, int screenWidth, int screenHeight, float alpha,
+                     int bufferWidth, int bufferHeight) {
+        draw(java2d.of(g), snap, screenWidth, screenHeight, alpha, bufferWidth, bufferHeight);
+    }
 
-        // El mapa siempre se ancla al fondo de la pantalla
-        int offsetY = screenHeight - mapHeight;
+    /** Same as {@link #draw(Graphics2D, WorldSnapshot, int, int, float)} into any target. */
+    public void draw(RenderTarget g, WorldSnapshot snap, int screenWidth, int screenHeight, float alpha) {
+        draw(g, snap, screenWidth, screenHeight, alpha, screenWidth, screenHeight);
+    }
 
-        drawBackground(g, screenWidth, screenHeight, mapWidth, offsetX);
-        drawTiles(g, map, screenWidth, offsetX, offsetY);
-        drawSprites(g, map, screenWidth, offsetX, offsetY);
-        drawPlayer(g, player, offsetX, offsetY);
+    /**
+     * Same as {@link #draw(Graphics2D, WorldSnapshot, int, int, float, int, int)}
+     * into any target. A target that cannot scale
+     * ({@link RenderTarget#supportsScale()}) gets the frame at screen size.
+     */
+    public void draw(RenderTarget g, WorldSnapshot snap, int screenWidth, int screenHeight, float alpha,
+                     int bufferWidth, int bufferHeight) {
+        if (!g.supportsScale()) {
+            bufferWidth  = screenWidth;
+            bufferHeight = screenHeight;
+        }
+        int offsetX = snap.getOffsetX(alpha, screenWidth);
+        int offsetY = snap.getOffsetY(screenHeight);
+
+        long t = FrameProfiler.begin();
+        drawBackground(g, bufferWidth, bufferHeight, offsetX * bufferWidth / (float) screenWidth);
+        FrameProfiler.end(Phase.DRAW_BACKGROUND, t);
+
+        if (bufferWidth != screenWidth || bufferHeight != screenHeight)
+            g.scale(bufferWidth / (double) screenWidth, bufferHeight / (double) screenHeight);
+
+        t = FrameProfiler.begin();
+        g.pass(Pass.TILES);
+        chunks.draw(g, snap.getMap(), screenWidth, screenHeight, offsetX, offsetY);
+        FrameProfiler.end(Phase.DRAW_TILES, t);
+
+        t = FrameProfiler.begin();
+        g.pass(Pass.SPRITES);
+        drawSprites(g, snap, offsetX, offsetY, alpha);
+        drawPlayer(g, snap, offsetX, offsetY, alpha);
+        FrameProfiler.end(Phase.DRAW_SPRITES, t);
+    }
+
+    /** Horizontal camera offset that centres {@code playerX}, clamped to the map. */
+    public static int cameraOffsetX(float playerX, int screenWidth, int mapWidth) {
+        int offsetX = screenWidth / 2 - Math.round(playerX) - TILE_SIZE;
+        offsetX = Math.min(offsetX, 0);
+        return Math.max(offsetX, screenWidth - mapWidth);
     }
 
     // -------------------------------------------------------------------------
     // Background parallax
     // -------------------------------------------------------------------------
 
-    private void drawBackground(Graphics2D g, int sw, int sh, int mapWidth, int offsetX) {
+    /** Fondo en píxeles del destino ({@code sw x sh}); {@code offsetX} ya está en esos píxeles. */
+    private void drawBackground(RenderTarget g, int sw, int sh, float offsetX) {
         // Fondo negro si no hay capas o si ninguna cubre toda la pantalla
-        g.setColor(Color.BLACK);
-        g.fillRect(0, 0, sw, sh);
-
-        if (layers.isEmpty()) return;
+        g.pass(Pass.CLEAR);
+        g.fillRect(0, 0, sw, sh, Color.BLACK);
 
-        for (ParallaxLayer layer : layers) {
-            drawLayer(g, layer, sw, sh, mapWidth, offsetX);
+        g.pass(Pass.BACKGROUND);
+        int count = Math.min(layers.size(), maxParallaxLayers);
+        for (int i = 0; i < count; i++) {
+            drawLayer(g, layers.get(i), sw, sh, offsetX);
         }
     }
 
     /**
-     * Dibuja una capa escalándola para cubrir toda la altura de pantalla
-     * y repitiéndola horizontalmente si es necesario.
+     * Dibuja una capa cubriendo toda la altura de {@code sh}, repitiéndola
+     * horizontalmente si es necesario, con blits sin escalar de su copia
+     * escalada.
      */
-    private void drawLayer(Graphics2D g, ParallaxLayer layer,
-                           int sw, int sh, int mapWidth, int offsetX) {
+    private void drawLayer(RenderTarget g, ParallaxLayer layer, int sw, int sh, float offsetX) {
         Image img = layer.image;
-        int srcW  = img.getWidth(null);
-        int srcH  = img.getHeight(null);
+        if (img.getWidth(null) <= 0 || img.getHeight(null) <= 0) return;
 
-        if (srcW <= 0 || srcH <= 0) return;
-
-        // Escalar para que cubra exactamente la altura de pantalla,
-        // manteniendo proporción en el ancho
-        int dstH = sh;
-        int dstW = (int) ((float) srcW / srcH * dstH);
-        if (dstW <= 0) dstW = sw;
+        ScaledLayer scaled = layer.scaledTo(g.getDeviceConfiguration(), sh, sw);
+        int period = scaled.period;
 
         // Desplazamiento horizontal proporcional a la velocidad de la capa
         int scrollX = (int) (offsetX * layer.speed);
 
         // Primer X para cubrir desde el borde izquierdo
-        int startX = scrollX % dstW;
-        if (startX > 0) startX -= dstW;
+        int startX = scrollX % period;
+        if (startX > 0) startX -= period;
 
-        for (int x = startX; x < sw; x += dstW) {
-            g.drawImage(img, x, 0, dstW, dstH, null);
+        int step = scaled.image.getWidth();
+        for (int x = startX; x < sw; x += step) {
+            scaled.draw(g, x);
         }
     }
 
     // -------------------------------------------------------------------------
-    // Tiles, sprites, player
+    // Sprites, player
     // -------------------------------------------------------------------------
 
-    private void drawTiles(Graphics2D g, TileMap map, int screenWidth, int offsetX, int offsetY) {
-        int firstTileX = pixelsToTiles(-offsetX);
-        int lastTileX  = firstTileX + pixelsToTiles(screenWidth) + 1;
-
-        for (int y = 0; y < map.getHeight(); y++) {
-            for (int x = firstTileX; x <= lastTileX; x++) {
-                Image image = map.getTile(x, y);
-                if (image != null) {
-                    g.drawImage(image, tilesToPixels(x) + offsetX, tilesToPixels(y) + offsetY, null);
-                }
-            }
-        }
-    }
-
-    private void drawSprites(Graphics2D g, TileMap map, int screenWidth, int offsetX, int offsetY) {
-        Iterator<Sprite> it = map.getSprites();
-        while (it.hasNext()) {
-            Sprite sprite = it.next();
-            int x = Math.round(sprite.getX()) + offsetX;
-            int y = Math.round(sprite.getY()) + offsetY;
-            g.drawImage(sprite.getImage(), x, y, null);
-
-            if (sprite instanceof Creature && x >= 0 && x < screenWidth) {
-                ((Creature) sprite).wakeUp();
-            }
+    private void drawSprites(RenderTarget g, WorldSnapshot snap, int offsetX, int offsetY, float alpha) {
+        for (int i = 0, n = snap.getSpriteCount(); i < n; i++) {
+            int x = Math.round(snap.getSpriteX(i, alpha)) + offsetX;
+            int y = Math.round(snap.getSpriteY(i, alpha)) + offsetY;
+            long e = EntityStats.begin();
+            g.drawImage(snap.getSpriteImage(i), x, y);
+            EntityStats.drawn(snap.getSpriteType(i), e);
         }
     }
 
-    private void drawPlayer(Graphics2D g, Sprite playerSprite, int offsetX, int offsetY) {
-        Player player = (Player) playerSprite;
-        if (!player.isVisible()) return;
-        g.drawImage(player.getImage(),
-                Math.round(player.getX()) + offsetX,
-                Math.round(player.getY()) + offsetY,
-                null);
+    private void drawPlayer(RenderTarget g, WorldSnapshot snap, int offsetX, int offsetY, float alpha) {
+        if (!snap.isPlayerVisible()) return;
+        long e = EntityStats.begin();
+        g.drawImage(snap.getPlayerImage(),
+                Math.round(snap.getPlayerX(alpha)) + offsetX,
+                Math.round(snap.getPlayerY(alpha)) + offsetY);
+        EntityStats.drawn(snap.getPlayerType(), e);
     }
 }
@@ -0,0 +1,184 @@
+package com.TETOSOFT.tilegame;
+
+import java.util.Arrays;
+
+import com.TETOSOFT.core.EntityStats;
+import com.TETOSOFT.graphics.ImageRegion;
+import com.TETOSOFT.graphics.Sprite;
+import com.TETOSOFT.tilegame.sprites.Player;
+
+/**
+ * Everything needed to draw one frame, copied out of the simulation at the
+ * end of a tick.
+ *
+ * The renderer only reads snapshots, never the live sprites, so drawing can
+ * run on another thread while the next tick is simulated. Instances live in
+ * a {@link com.TETOSOFT.core.TripleBuffer} and are refilled in place with
+ * {@link #capture}; the sprite arrays only grow, so steady state allocates
+ * nothing.
+ *
+ * Tiles are not copied: the snapshot keeps a reference to the {@link TileMap}
+ * and the renderer reads the grid directly. The only concurrent change is
+ * {@link TileMap#breakTile}, and a reference write is atomic, so at worst a
+ * broken block is drawn for one more frame.
+ */
+public class WorldSnapshot {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    // -------------------------------------------------------------------------
+    // Estado de pantalla
+    // -------------------------------------------------------------------------
+
+    private GameEngine.GameState state;
+    private int  menuSelection;
+    /** nanoTime at which the captured tick was due. */
+    private long tickTime;
+    /** {@link com.TETOSOFT.core.InputLatency#currentTick()} when captured. */
+    private long inputTick;
+
+    // -------------------------------------------------------------------------
+    // Mundo
+    // -------------------------------------------------------------------------
+
+    private TileMap map;
+    private int     mapPixelWidth;
+    private int     mapPixelHeight;
+
+    private ImageRegion playerImage;
+    private float   playerPrevX, playerPrevY, playerX, playerY;
+    private boolean playerVisible;
+
+    private int     spriteCount;
+    private ImageRegion[] spriteImages = new ImageRegion[INITIAL_CAPACITY];
+    private float[] prevXs       = new float[INITIAL_CAPACITY];
+    private float[] prevYs       = new float[INITIAL_CAPACITY];
+    private float[] xs           = new float[INITIAL_CAPACITY];
+    private float[] ys           = new float[INITIAL_CAPACITY];
+    /** {@link EntityStats#typeOf} of each sprite; all 0 when stats are off. */
+    private int[]   types        = new int[INITIAL_CAPACITY];
+    private int     playerType;
+
+    // -------------------------------------------------------------------------
+    // HUD
+    // -------------------------------------------------------------------------
+
+    private int     lives;
+    private int     coins;
+    private int     mapNumber;
+    private boolean sprinting;
+    private boolean debugHitboxes;
+
+    // -------------------------------------------------------------------------
+    // Captura (hilo de simulación)
+    // -------------------------------------------------------------------------
+
+    /**
+     * Refills this snapshot from the live game. {@code map} may be
+     * {@code null} before the first game starts; only menu fields are valid
+     * then.
+     */
+    public void capture(GameEngine.GameState state, int menuSelection, long tickTime,
+                        TileMap map, int lives, int coins, int mapNumber, boolean debugHitboxes) {
+        this.state         = state;
+        this.menuSelection = menuSelection;
+        this.tickTime      = tickTime;
+        this.map           = map;
+        this.lives         = lives;
+        this.coins         = coins;
+        this.mapNumber     = mapNumber;
+        this.debugHitboxes = debugHitboxes;
+
+        if (map == null) {
+            spriteCount = 0;
+            playerImage = null;
+            return;
+        }
+
+        mapPixelWidth  = TileMapDrawer.tilesToPixels(map.getWidth());
+        mapPixelHeight = TileMapDrawer.tilesToPixels(map.getHeight());
+
+        Player player = (Player) map.getPlayer();
+        playerImage   = player.getImage();
+        playerPrevX   = player.getPreviousX();
+        playerPrevY   = player.getPreviousY();
+        playerX       = player.getX();
+        playerY       = player.getY();
+        playerVisible = player.isVisible();
+        sprinting     = player.isSprinting();
+        playerType    = EntityStats.typeOf(Player.class);
+
+        int n = 0;
+        for (int i = 0, count = map.getSpriteCount(); i < count; i++) {
+            Sprite sprite = map.getSprite(i);
+            if (n == xs.length) grow();
+            spriteImages[n] = sprite.getImage();
+            prevXs[n]       = sprite.getPreviousX();
+            prevYs[n]       = sprite.getPreviousY();
+            xs[n]           = sprite.getX();
+            ys[n]           = sprite.getY();
+            types[n]        = EntityStats.typeOf(sprite.getClass());
+            n++;
+        }
+        // Soltar referencias sobrantes del frame anterior
+        if (spriteCount > n) Arrays.fill(spriteImages, n, spriteCount, null);
+        spriteCount = n;
+    }
+
+    private void grow() {
+        int cap = xs.length * 2;
+        spriteImages = Arrays.copyOf(spriteImages, cap);
+        prevXs       = Arrays.copyOf(prevXs, cap);
+        prevYs       = Arrays.copyOf(prevYs, cap);
+        xs           = Arrays.copyOf(xs, cap);
+        ys           = Arrays.copyOf(ys, cap);
+        types        = Arrays.copyOf(types, cap);
+    }
+
+    // -------------------------------------------------------------------------
+    // Lectura (hilo de render)
+    // -------------------------------------------------------------------------
+
+    public GameEngine.GameState getState() { return state; }
+    public int  getMenuSelection()         { return menuSelection; }
+    public long getTickTime()              { return tickTime; }
+    public long getInputTick()             { return inputTick; }
+    public void setInputTick(long tick)    { inputTick = tick; }
+
+    public boolean hasWorld()      { return map != null; }
+    public TileMap getMap()        { return map; }
+    public int getMapPixelWidth()  { return mapPixelWidth; }
+    public int getMapPixelHeight() { return mapPixelHeight; }
+
+    /** Horizontal camera offset with the player interpolated by {@code alpha}. */
+    public int getOffsetX(float alpha, int screenWidth) {
+        return TileMapDrawer.cameraOffsetX(lerp(playerPrevX, playerX, alpha), screenWidth, mapPixelWidth);
+    }
+
+    /** Vertical camera offset: the map is anchored to the bottom of the screen. */
+    public int getOffsetY(int screenHeight) {
+        return screenHeight - mapPixelHeight;
+    }
+
+    public ImageRegion getPlayerImage()          { return playerImage; }
+    public float   getPlayerX(float alpha)       { return lerp(playerPrevX, playerX, alpha); }
+    public float   getPlayerY(float alpha)       { return lerp(playerPrevY, playerY, alpha); }
+    public boolean isPlayerVisible()             { return playerVisible; }
+
+    public int   getSpriteCount()                { return spriteCount; }
+    public ImageRegion getSpriteImage(int i)     { return spriteImages[i]; }
+    public float getSpriteX(int i, float alpha)  { return lerp(prevXs[i], xs[i], alpha); }
+    public float getSpriteY(int i, float alpha)  { return lerp(prevYs[i], ys[i], alpha); }
+    public int   getSpriteType(int i)            { return types[i]; }
+    public int   getPlayerType()                 { return playerType; }
+
+    public int     getLives()         { return lives; }
+    public int     getCoins()         { return coins; }
+    public int     getMapNumber()     { return mapNumber; }
+    public boolean isSprinting()      { return sprinting; }
+    public boolean isDebugHitboxes()  { return debugHitboxes; }
+
+    private static float lerp(float from, float to, float alpha) {
+        return from + (to - from) * alpha;
+    }
+}
@@ -0,0 +1,223 @@
+package com.TETOSOFT.tilegame.headless;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import com.TETOSOFT.tilegame.MapLoader;
+
+/**
+ * Runs many independent worlds at once, for soak tests and level validation.
+ *
+ * Every instance has its own {@link com.TETOSOFT.tilegame.GameWorld} (map,
+ * player, systems and map progression); only the read-only images and sprite
+ * prototypes are shared, through {@link MapLoader#newLoaderSharingAssets()}.
+ * Nothing else is shared, so throughput grows with the number of cores.
+ * Instances are spread round-robin over the maps and each one gets its own
+ * input seed.
+ *
+ * <pre>
+ * java -cp build/classes com.TETOSOFT.tilegame.headless.BatchSimulator [instances] [simMinutes] [idle|right|random] [threads] [maps...]
+ * </pre>
+ *
+ * The process exits with status 1 if any instance threw.
+ */
+public class BatchSimulator {
+
+    /** Outcome of one instance: a result, or the exception that stopped it. */
+    public static class Instance {
+        public final int    id;
+        public final int    mapNumber;
+        public final long   seed;
+        public final HeadlessRuntime.Result result;
+        public final Throwable error;
+
+        Instance(int id, int mapNumber, long seed, HeadlessRuntime.Result result, Throwable error) {
+            this.id        = id;
+            this.mapNumber = mapNumber;
+            this.seed      = seed;
+            this.result    = result;
+            this.error     = error;
+        }
+
+        public boolean failed() {
+            return error != null;
+        }
+    }
+
+    /** Aggregated outcome of a batch. */
+    public static class Report {
+        public final List<Instance> instances;
+        public final long wallNanos;
+        public final int  threads;
+
+        Report(List<Instance> instances, long wallNanos, int threads) {
+            this.instances = instances;
+            this.wallNanos = wallNanos;
+            this.threads   = threads;
+        }
+
+        public long totalTicks() {
+            long ticks = 0;
+            for (Instance i : instances)
+                if (!i.failed()) ticks += i.result.ticks;
+            return ticks;
+        }
+
+        /** Ticks simulated per wall-clock second across all threads. */
+        public double ticksPerSecond() {
+            return totalTicks() * 1e9 / Math.max(1, wallNanos);
+        }
+
+        public int failures() {
+            int n = 0;
+            for (Instance i : instances)
+                if (i.failed()) n++;
+            return n;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("%d instancias en %d hilos, %.2f s: %d ticks -> %.0f ticks/s "
+                            + "(%.0f por hilo), %d con excepción%n",
+                    instances.size(), threads, wallNanos / 1e9, totalTicks(),
+                    ticksPerSecond(), ticksPerSecond() / threads, failures()));
+
+            // Resumen por mapa: instancias, muertes, metas, game overs,
+            // victorias, entidades max, suma de medias, excepciones
+            Map<Integer, double[]> byMap = new TreeMap<>();
+            for (Instance i : instances) {
+                double[] a = byMap.computeIfAbsent(i.mapNumber, k -> new double[8]);
+                a[0]++;
+                if (i.failed()) { a[7]++; continue; }
+                HeadlessRuntime.Result r = i.result;
+                a[1] += r.deaths;
+                a[2] += r.goalsReached;
+                a[3] += r.gameOvers;
+                a[4] += r.victories;
+                a[5]  = Math.max(a[5], r.maxEntities);
+                a[6] += r.avgEntities;
+            }
+            for (Map.Entry<Integer, double[]> e : byMap.entrySet()) {
+                double[] a = e.getValue();
+                sb.append(String.format("  map %d: %.0f instancias, muertes=%.0f, metas=%.0f, game overs=%.0f, "
+                                + "victorias=%.0f, entidades max=%.0f media=%.1f, excepciones=%.0f%n",
+                        e.getKey(), a[0], a[1], a[2], a[3], a[4], a[5],
+                        a[6] / Math.max(1, a[0] - a[7]), a[7]));
+            }
+
+            for (Instance i : instances) {
+                if (i.failed())
+                    sb.append(String.format("  ! instancia %d (map %d, seed %d): %s%n",
+                            i.id, i.mapNumber, i.seed, i.error));
+            }
+            return sb.toString();
+        }
+    }
+
+    private final MapLoader shared;
+    private final int threads;
+
+    /**
+     * @param shared  loader whose assets every instance reuses; its own map
+     *                progression is not touched
+     * @param threads worker threads
+     */
+    public BatchSimulator(MapLoader shared, int threads) {
+        this.shared  = shared;
+        this.threads = threads;
+    }
+
+    /** Maps that exist in {@code maps/}: 1 .. {@link MapLoader#countMaps()}. */
+    public int[] availableMaps() {
+        int[] maps = new int[shared.countMaps()];
+        for (int i = 0; i < maps.length; i++)
+            maps[i] = i + 1;
+        return maps;
+    }
+
+    /**
+     * Runs {@code instances} worlds for {@code simMinutes} of simulated time
+     * each and waits for all of them. An exception in one instance is
+     * recorded in the report and does not stop the others.
+     */
+    public Report run(int instances, double simMinutes, int[] maps, String script) {
+        List<Callable<Instance>> tasks = new ArrayList<>(instances);
+        for (int i = 0; i < instances; i++) {
+            final int  id   = i;
+            final int  map  = maps[i % maps.length];
+            final long seed = i + 1;
+            tasks.add(() -> runInstance(id, map, seed, simMinutes, script));
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            long start = System.nanoTime();
+            List<Future<Instance>> futures = pool.invokeAll(tasks);
+            long wall = System.nanoTime() - start;
+
+            List<Instance> results = new ArrayList<>(instances);
+            for (Future<Instance> f : futures)
+                results.add(f.get());
+            return new Report(results, wall, threads);
+        } catch (InterruptedException | ExecutionException ex) {
+            throw new IllegalStateException("Batch interrumpido", ex);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private Instance runInstance(int id, int map, long seed, double simMinutes, String script) {
+        HeadlessRuntime runtime = null;
+        try {
+            runtime = new HeadlessRuntime(shared.newLoaderSharingAssets());
+            HeadlessRuntime.Result r = runtime.run(map, runtime.ticksFor(simMinutes * 60),
+                    InputScript.named(script, seed));
+            return new Instance(id, map, seed, r, null);
+        } catch (Throwable t) {
+            return new Instance(id, map, seed, null, t);
+        } finally {
+            if (runtime != null) runtime.shutdown();
+        }
+    }
+
+    public static void main(String[] args) {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+
+        int    instances = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        double minutes   = args.length > 1 ? Double.parseDouble(args[1]) : 1;
+        String script    = args.length > 2 ? args[2] : "random";
+        int    threads   = args.length > 3 ? Integer.parseInt(args[3])
+                                           : Runtime.getRuntime().availableProcessors();
+
+        BatchSimulator batch = new BatchSimulator(
+                new MapLoader(HeadlessRuntime.imageConfiguration()), threads);
+
+        int[] maps;
+        if (args.length > 4) {
+            maps = new int[args.length - 4];
+            for (int i = 0; i < maps.length; i++)
+                maps[i] = Integer.parseInt(args[4 + i]);
+        } else {
+            maps = batch.availableMaps();
+        }
+
+        Report report = batch.run(instances, minutes, maps, script);
+        System.out.print(report);
+        for (Instance i : report.instances) {
+            if (i.failed()) {
+                i.error.printStackTrace();
+                break;
+            }
+        }
+        if (report.failures() > 0) System.exit(1);
+    }
+}
@@ -0,0 +1,172 @@
+package com.TETOSOFT.tilegame.headless;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.image.BufferedImage;
+
+import com.TETOSOFT.core.FrameProfiler;
+import com.TETOSOFT.core.GameOptions;
+import com.TETOSOFT.tilegame.GameWorld;
+import com.TETOSOFT.tilegame.MapLoader;
+import com.TETOSOFT.tilegame.systems.PlayerController;
+
+/**
+ * Runs the game simulation without a window, as fast as the CPU allows.
+ *
+ * Maps, sprites and systems are built exactly as in the game but against a
+ * {@link BufferedImage} graphics configuration, and input comes from an
+ * {@link InputScript} instead of {@code InputManager}. Works with
+ * {@code java.awt.headless=true}, so it runs on the Linux build servers.
+ *
+ * <pre>
+ * java -cp build/classes com.TETOSOFT.tilegame.headless.HeadlessRuntime [map] [simSeconds] [idle|right|random]
+ * </pre>
+ */
+public class HeadlessRuntime {
+
+    /** Outcome of one {@link #run}. */
+    public static class Result {
+        public final int  mapNumber;
+        public final long ticks;
+        public final long simulatedMillis;
+        public final long wallNanos;
+        public final int  gameOvers;
+        public final int  victories;
+        /** Lives lost during the run. */
+        public final int  deaths;
+        /** Map goals reached during the run (a victory counts as one too). */
+        public final int  goalsReached;
+        /** Most non-player sprites alive in any tick. */
+        public final int  maxEntities;
+        /** Non-player sprites alive, averaged over all ticks. */
+        public final double avgEntities;
+
+        Result(int mapNumber, long ticks, long simulatedMillis, long wallNanos,
+               int gameOvers, int victories, int deaths, int goalsReached,
+               int maxEntities, double avgEntities) {
+            this.mapNumber       = mapNumber;
+            this.ticks           = ticks;
+            this.simulatedMillis = simulatedMillis;
+            this.wallNanos       = wallNanos;
+            this.gameOvers       = gameOvers;
+            this.victories       = victories;
+            this.deaths          = deaths;
+            this.goalsReached    = goalsReached;
+            this.maxEntities     = maxEntities;
+            this.avgEntities     = avgEntities;
+        }
+
+        public double ticksPerSecond() {
+            return ticks * 1e9 / Math.max(1, wallNanos);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("map %d: %d ticks (%.1f s simulados) en %.2f s -> %.0f ticks/s, "
+                            + "%.0fx tiempo real, game overs=%d, victorias=%d, muertes=%d, "
+                            + "metas=%d, entidades max=%d media=%.1f",
+                    mapNumber, ticks, simulatedMillis / 1000.0, wallNanos / 1e9,
+                    ticksPerSecond(), simulatedMillis * 1e6 / Math.max(1, wallNanos),
+                    gameOvers, victories, deaths, goalsReached, maxEntities, avgEntities);
+        }
+    }
+
+    private final GameWorld world;
+    private final int stepMs;
+
+    /** Builds a world with its own assets on an image-backed configuration. */
+    public HeadlessRuntime() {
+        this(new MapLoader(imageConfiguration()));
+    }
+
+    public HeadlessRuntime(MapLoader mapLoader) {
+        this(mapLoader, GameOptions.tickStepMillis());
+    }
+
+    public HeadlessRuntime(MapLoader mapLoader, int stepMs) {
+        this.world  = new GameWorld(mapLoader, new PlayerController());
+        this.stepMs = stepMs;
+    }
+
+    /**
+     * A graphics configuration backed by an ARGB {@link BufferedImage}. It
+     * needs no screen, so it is available with {@code java.awt.headless=true}.
+     */
+    public static GraphicsConfiguration imageConfiguration() {
+        BufferedImage probe = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = probe.createGraphics();
+        try {
+            return g.getDeviceConfiguration();
+        } finally {
+            g.dispose();
+        }
+    }
+
+    public GameWorld getWorld() {
+        return world;
+    }
+
+    /** Releases the world's hold on the shared system pool; see {@link GameWorld#shutdown()}. */
+    public void shutdown() {
+        world.shutdown();
+    }
+
+    /**
+     * Plays {@code mapNumber} for {@code ticks} ticks with {@code script}.
+     * A game over or a victory restarts the same map so the whole run
+     * measures it.
+     */
+    public Result run(int mapNumber, long ticks, InputScript script) {
+        int gameOvers = 0, victories = 0;
+        int deaths = world.getDeaths(), goals = world.getGoalsReached();
+        int maxEntities = 0;
+        long entitySum = 0;
+        world.startAt(mapNumber);
+
+        long start = System.nanoTime();
+        for (long tick = 0; tick < ticks; tick++) {
+            GameWorld.Status status = world.update(script.inputAt(tick * stepMs), stepMs);
+            int entities = world.getMap().getSpriteCount();
+            entitySum += entities;
+            if (entities > maxEntities) maxEntities = entities;
+            if (status != GameWorld.Status.RUNNING) {
+                if (status == GameWorld.Status.GAME_OVER) gameOvers++;
+                if (status == GameWorld.Status.VICTORY)   victories++;
+                world.startAt(mapNumber);
+            }
+        }
+        long wall = System.nanoTime() - start;
+
+        return new Result(mapNumber, ticks, ticks * stepMs, wall, gameOvers, victories,
+                world.getDeaths() - deaths, world.getGoalsReached() - goals,
+                maxEntities, (double) entitySum / Math.max(1, ticks));
+    }
+
+    /** Number of ticks that cover {@code seconds} of simulated time. */
+    public long ticksFor(double seconds) {
+        return Math.round(seconds * 1000 / stepMs);
+    }
+
+    public static void main(String[] args) {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+
+        int    map     = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 60;
+        String script  = args.length > 2 ? args[2] : "right";
+
+        HeadlessRuntime runtime = new HeadlessRuntime();
+        runtime.getWorld().setExportsEntityStats(true);
+        long ticks = runtime.ticksFor(seconds);
+
+        // Una pasada corta primero para que el JIT no cuente en la medida
+        try {
+            runtime.run(map, ticks / 10, InputScript.named(script, 1));
+            System.out.println(runtime.run(map, ticks, InputScript.named(script, 1)));
+        } finally {
+            runtime.shutdown();
+        }
+        FrameProfiler.dumpCsvIfUsed(); // -Dgame.profiler=true
+    }
+}
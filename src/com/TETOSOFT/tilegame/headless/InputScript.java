@@ -0,0 +1,87 @@
+package com.TETOSOFT.tilegame.headless;
+
+import java.util.Random;
+
+import com.TETOSOFT.tilegame.systems.PlayerController;
+
+/**
+ * Scripted replacement for the keyboard: returns the
+ * {@link PlayerController} input bitmask to apply at a given simulated time.
+ *
+ * Scripts are deterministic for a given seed, so two runs of the same script
+ * on the same map produce the same game.
+ */
+public interface InputScript {
+
+    /**
+     * @param timeMillis simulated milliseconds since the script started
+     * @return input bitmask for the tick starting at {@code timeMillis}
+     */
+    int inputAt(long timeMillis);
+
+    /** Never presses anything: measures enemies and spawners on their own. */
+    static InputScript idle() {
+        return t -> 0;
+    }
+
+    /** Sprints right, holding jump for 300 ms every 1.2 s. */
+    static InputScript runRight() {
+        return t -> PlayerController.MOVE_RIGHT | PlayerController.SPRINT
+                | (t % 1200 < 300 ? PlayerController.JUMP : 0);
+    }
+
+    /**
+     * Random movement: a new combination of left/right/jump/duck/sprint every
+     * 250 ms, biased to the right so the player makes progress. Never
+     * presses exit or the debug toggle.
+     */
+    static InputScript random(long seed) {
+        return new RandomInput(seed);
+    }
+
+    /**
+     * Resolves a script by name: {@code idle}, {@code right} or
+     * {@code random}.
+     *
+     * @throws IllegalArgumentException for unknown names
+     */
+    static InputScript named(String name, long seed) {
+        switch (name) {
+            case "idle":   return idle();
+            case "right":  return runRight();
+            case "random": return random(seed);
+            default:
+                throw new IllegalArgumentException("Script desconocido: " + name
+                        + " (idle | right | random)");
+        }
+    }
+
+    /** Implementación de {@link InputScript#random(long)}. */
+    final class RandomInput implements InputScript {
+
+        private static final long CHANGE_INTERVAL_MS = 250;
+
+        private final Random rng;
+        private long nextChange = 0;
+        private int  current    = 0;
+
+        RandomInput(long seed) {
+            rng = new Random(seed);
+        }
+
+        @Override
+        public int inputAt(long timeMillis) {
+            while (timeMillis >= nextChange) {
+                nextChange += CHANGE_INTERVAL_MS;
+                current = 0;
+                int dir = rng.nextInt(4);
+                if (dir == 0) current |= PlayerController.MOVE_LEFT;
+                else if (dir < 3) current |= PlayerController.MOVE_RIGHT;
+                if (rng.nextInt(3) == 0)  current |= PlayerController.JUMP;
+                if (rng.nextInt(10) == 0) current |= PlayerController.DUCK;
+                if (rng.nextBoolean())    current |= PlayerController.SPRINT;
+            }
+            return current;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.TETOSOFT.tilegame.headless;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.image.BufferedImage;
+
+import com.TETOSOFT.core.FrameTimeLog;
+import com.TETOSOFT.core.GameConstants;
+import com.TETOSOFT.core.GameOptions;
+import com.TETOSOFT.graphics.RenderTarget;
+import com.TETOSOFT.tilegame.GameEngine;
+import com.TETOSOFT.tilegame.GameWorld;
+import com.TETOSOFT.tilegame.MapLoader;
+import com.TETOSOFT.tilegame.WorldSnapshot;
+import com.TETOSOFT.tilegame.systems.PlayerController;
+
+/**
+ * Plays every map for a while on a background thread, drawing offscreen,
+ * so the JIT has compiled physics, collisions, animations and the Java2D
+ * blits before the player presses JUGAR.
+ *
+ * Worlds are private to the warm-up (see
+ * {@link MapLoader#newLoaderSharingAssets()}), and so must the renderer
+ * be: tile drawer and HUD keep per-frame state (chunk cache, scaled
+ * backgrounds, HUD image), so GameEngine passes its own instances from
+ * {@link GameEngine#createFrameRenderer}. Only the loaded images are
+ * shared with the game. The thread runs at
+ * minimum priority and yields after every frame so the menu stays smooth.
+ *
+ * <pre>
+ * java -cp build/classes com.TETOSOFT.tilegame.headless.JitWarmUp [cold|warm] [map]
+ * </pre>
+ * compares the first ten simulated seconds of a map (one tick plus one
+ * offscreen frame each) with and without a warm-up in a fresh JVM.
+ */
+public class JitWarmUp implements Runnable {
+
+    /** Draws a captured frame; GameEngine passes tile/HUD renderers of the warm-up's own. */
+    public interface FrameRenderer {
+        void render(Graphics2D g, WorldSnapshot snap, int width, int height);
+
+        /** Same frame into any {@link RenderTarget} (the software raster). */
+        void render(RenderTarget target, WorldSnapshot snap, int width, int height);
+
+        /**
+         * How many times so far a frame had to rebuild one of the
+         * renderer's cached images (tile chunks, HUD); such frames allocate
+         * on purpose. Default: 0.
+         */
+        default long getCacheRebuilds() {
+            return 0;
+        }
+    }
+
+    private static final String THREAD_NAME = "jit-warmup";
+
+    private final MapLoader shared;
+    private final FrameRenderer renderer;
+    private final GraphicsConfiguration gc;
+    private final int width, height;
+    private final int ticksPerMap;
+    private final int stepMs = GameOptions.tickStepMillis();
+
+    private volatile int     totalMaps;
+    private volatile int     mapsDone;
+    private volatile boolean done;
+    private volatile long    elapsedNanos;
+    private volatile Throwable error;
+
+    /**
+     * @param shared      loader whose assets are reused; its progression is not touched
+     * @param renderer    draws the offscreen frames
+     * @param gc          configuration of the real screen, so the same blit loops get compiled
+     * @param width       offscreen frame width
+     * @param height      offscreen frame height
+     * @param ticksPerMap simulated ticks per map
+     */
+    public JitWarmUp(MapLoader shared, FrameRenderer renderer, GraphicsConfiguration gc,
+                     int width, int height, int ticksPerMap) {
+        this.shared      = shared;
+        this.renderer    = renderer;
+        this.gc          = gc;
+        this.width       = width;
+        this.height      = height;
+        this.ticksPerMap = ticksPerMap;
+    }
+
+    /** Runs the warm-up on a low-priority daemon thread and returns at once. */
+    public void start() {
+        Thread t = new Thread(this, THREAD_NAME);
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        t.start();
+    }
+
+    @Override
+    public void run() {
+        long start = System.nanoTime();
+        long ticks = 0, frames = 0;
+        try {
+            totalMaps = shared.countMaps();
+            BufferedImage target = gc.createCompatibleImage(width, height);
+            WorldSnapshot snap = new WorldSnapshot();
+
+            for (int map = 1; map <= totalMaps; map++) {
+                GameWorld world = new GameWorld(shared.newLoaderSharingAssets(), new PlayerController());
+                world.setViewWidth(width);
+                world.startAt(map);
+                InputScript script = InputScript.random(map);
+
+                try {
+                    for (int tick = 0; tick < ticksPerMap; tick++) {
+                        if (world.update(script.inputAt((long) tick * stepMs), stepMs) != GameWorld.Status.RUNNING)
+                            world.startAt(map);
+                        ticks++;
+
+                        if (tick % GameConstants.WARM_UP_RENDER_EVERY == 0) {
+                            snap.capture(GameEngine.GameState.PLAYING, 0, System.nanoTime(), world.getMap(),
+                                    world.getLives(), world.getCoins(), map, false);
+                            Graphics2D g = target.createGraphics();
+                            try {
+                                renderer.render(g, snap, width, height);
+                            } finally {
+                                g.dispose();
+                            }
+                            frames++;
+                            Thread.yield();
+                        }
+                    }
+                } finally {
+                    world.shutdown();
+                }
+                mapsDone = map;
+            }
+        } catch (Throwable t) {
+            // Un fallo aquí no debe tumbar el juego: solo se pierde el warm-up
+            error = t;
+        } finally {
+            elapsedNanos = System.nanoTime() - start;
+            done = true;
+        }
+
+        if (error != null) {
+            System.err.println("[JitWarmUp] abortado: " + error);
+        } else {
+            System.out.printf("[JitWarmUp] %d mapas, %d ticks, %d frames en %.2f s%n",
+                    totalMaps, ticks, frames, elapsedNanos / 1e9);
+        }
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    /** Maps fully warmed up so far. */
+    public int getMapsDone() {
+        return mapsDone;
+    }
+
+    /** Short progress text for the main menu. */
+    public String getStatus() {
+        if (!done) {
+            return totalMaps == 0 ? "Preparando..."
+                    : "Preparando... mapa " + Math.min(mapsDone + 1, totalMaps) + "/" + totalMaps;
+        }
+        if (error != null) return "Warm-up abortado";
+        return String.format("Listo (warm-up %.1f s)", elapsedNanos / 1e9);
+    }
+
+    // -------------------------------------------------------------------------
+    // Medida antes / después
+    // -------------------------------------------------------------------------
+
+    public static void main(String[] args) {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+
+        boolean warm = args.length > 0 && args[0].equalsIgnoreCase("warm");
+        int     map  = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        int     w    = GameConstants.WINDOW_WIDTH;
+        int     h    = GameConstants.WINDOW_HEIGHT;
+
+        GraphicsConfiguration gc = HeadlessRuntime.imageConfiguration();
+        MapLoader loader = new MapLoader(gc);
+        FrameRenderer renderer = GameEngine.createFrameRenderer(loader.getAssets());
+
+        if (warm) {
+            new JitWarmUp(loader, renderer, gc, w, h, GameOptions.warmUpTicksPerMap()).run();
+        }
+
+        // Primeros 10 s simulados: tick + frame offscreen, tan rápido como se pueda
+        int stepMs = GameOptions.tickStepMillis();
+        long frames = GameConstants.STARTUP_MEASURE_SECONDS * 1000L / stepMs;
+        FrameTimeLog log = new FrameTimeLog(warm ? "con warm-up" : "sin warm-up",
+                Long.MAX_VALUE, (int) frames + 1);
+
+        GameWorld world = new GameWorld(loader.newLoaderSharingAssets(), new PlayerController());
+        world.setViewWidth(w);
+        world.startAt(map);
+        InputScript script = InputScript.runRight();
+        BufferedImage target = gc.createCompatibleImage(w, h);
+        WorldSnapshot snap = new WorldSnapshot();
+
+        log.frame(System.nanoTime());
+        for (long i = 0; i < frames; i++) {
+            if (world.update(script.inputAt(i * stepMs), stepMs) != GameWorld.Status.RUNNING)
+                world.startAt(map);
+            snap.capture(GameEngine.GameState.PLAYING, 0, System.nanoTime(), world.getMap(),
+                    world.getLives(), world.getCoins(), map, false);
+            Graphics2D g = target.createGraphics();
+            renderer.render(g, snap, w, h);
+            g.dispose();
+            log.frame(System.nanoTime());
+        }
+        world.shutdown();
+        System.out.println(log.summary(stepMs * 1_000_000L));
+    }
+}
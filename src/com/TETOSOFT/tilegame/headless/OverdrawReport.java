@@ -0,0 +1,76 @@
+package com.TETOSOFT.tilegame.headless;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+import com.TETOSOFT.core.GameConstants;
+import com.TETOSOFT.graphics.CRTOverlay;
+import com.TETOSOFT.graphics.CountingGraphics;
+import com.TETOSOFT.graphics.OverdrawStats;
+import com.TETOSOFT.tilegame.GameEngine;
+import com.TETOSOFT.tilegame.GameWorld;
+import com.TETOSOFT.tilegame.MapLoader;
+import com.TETOSOFT.tilegame.WorldSnapshot;
+
+/**
+ * Draws one in-game frame at {@link GameConstants#WINDOW_WIDTH} x
+ * {@link GameConstants#WINDOW_HEIGHT} through {@link CountingGraphics},
+ * with the CRT overlay at full quality, and reports the draw calls and
+ * pixels of every pass plus the overdraw heat map as a PNG. Same map,
+ * script and time give the same frame, so runs before and after a
+ * rendering change compare directly.
+ *
+ * <pre>
+ * java -cp build/classes com.TETOSOFT.tilegame.headless.OverdrawReport [map] [simSeconds] [idle|right|random] [out.png]
+ * </pre>
+ */
+public class OverdrawReport {
+
+    public static void main(String[] args) throws IOException {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+
+        int    map     = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 5;
+        String script  = args.length > 2 ? args[2] : "right";
+        File   out     = new File(args.length > 3 ? args[3] : "overdraw-map" + map + ".png");
+
+        int w = GameConstants.WINDOW_WIDTH, h = GameConstants.WINDOW_HEIGHT;
+        GraphicsConfiguration gc = HeadlessRuntime.imageConfiguration();
+        MapLoader loader = new MapLoader(gc);
+        HeadlessRuntime runtime = new HeadlessRuntime(loader);
+        runtime.getWorld().setViewWidth(w);
+        runtime.run(map, runtime.ticksFor(seconds), InputScript.named(script, map));
+        runtime.shutdown();
+
+        GameWorld world = runtime.getWorld();
+        WorldSnapshot snap = new WorldSnapshot();
+        snap.capture(GameEngine.GameState.PLAYING, 0, System.nanoTime(), world.getMap(),
+                world.getLives(), world.getCoins(), world.getMapNumber(), false);
+
+        JitWarmUp.FrameRenderer renderer = GameEngine.createFrameRenderer(loader.getAssets());
+        CRTOverlay crt = new CRTOverlay();
+        BufferedImage target = gc.createCompatibleImage(w, h);
+        OverdrawStats stats = new OverdrawStats();
+        stats.beginFrame(w, h);
+
+        Graphics2D g = new CountingGraphics(target.createGraphics(), stats);
+        try {
+            renderer.render(g, snap, w, h);
+            CountingGraphics.pass(g, OverdrawStats.Pass.CRT);
+            crt.draw(g, w, h, 16);
+        } finally {
+            g.dispose();
+        }
+
+        System.out.println("map " + map + ", " + seconds + " s (" + script + "), " + w + "x" + h + ":");
+        for (String line : stats.summaryLines())
+            System.out.println("  " + line);
+        stats.writePng(out);
+        System.out.println("Mapa de calor guardado en " + out);
+    }
+}
@@ -0,0 +1,132 @@
+package com.TETOSOFT.tilegame.headless;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.Locale;
+
+import com.TETOSOFT.core.GameOptions;
+import com.TETOSOFT.graphics.CRTOverlay;
+import com.TETOSOFT.graphics.SoftwareRaster;
+import com.TETOSOFT.tilegame.GameEngine;
+import com.TETOSOFT.tilegame.GameWorld;
+import com.TETOSOFT.tilegame.MapLoader;
+import com.TETOSOFT.tilegame.WorldSnapshot;
+import com.TETOSOFT.tilegame.systems.PlayerController;
+
+/**
+ * Times the in-game frame (world, HUD and CRT overlay at full quality) at
+ * 1920x1080 with each backend: Java2D into a compatible image, and the
+ * {@link SoftwareRaster} on one thread and on {@code threads} threads,
+ * presented into a compatible image like the game presents it to the
+ * screen. Every backend plays the same map with the same script from the
+ * start, so their last frames must match; the pixels that differ from the
+ * Java2D one are counted.
+ *
+ * <pre>
+ * java -cp build/classes com.TETOSOFT.tilegame.headless.RasterBenchmark [map] [frames] [threads] [width [height]]
+ * </pre>
+ */
+public class RasterBenchmark {
+
+    /** Frames drawn before timing, so every backend is compiled and its caches baked. */
+    private static final int WARM_UP_FRAMES = 120;
+
+    public static void main(String[] args) {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+
+        int map     = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+        int frames  = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : GameOptions.rasterThreads();
+        int w       = args.length > 3 ? Integer.parseInt(args[3]) : 1920;
+        int h       = args.length > 4 ? Integer.parseInt(args[4]) : 1080;
+
+        GraphicsConfiguration gc = HeadlessRuntime.imageConfiguration();
+        MapLoader loader = new MapLoader(gc);
+        System.out.println("map " + map + ", " + frames + " frames at " + w + "x" + h
+                + ", " + Runtime.getRuntime().availableProcessors() + " cores:");
+
+        BufferedImage reference = gc.createCompatibleImage(w, h);
+        report("java2d", run(loader, map, frames, w, h, reference, null), -1);
+
+        int[] counts = threads > 1 ? new int[] { 1, threads } : new int[] { 1 };
+        for (int n : counts) {
+            BufferedImage out = gc.createCompatibleImage(w, h);
+            SoftwareRaster raster = new SoftwareRaster(gc, w, h, n);
+            try {
+                report("software x" + raster.getThreads(), run(loader, map, frames, w, h, out, raster),
+                        diff(reference, out));
+            } finally {
+                raster.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Plays {@code map} and draws a frame per tick into {@code out}, through
+     * {@code raster} when it is not null; returns the nanoseconds of the
+     * timed frames. {@code out} keeps the last one.
+     */
+    private static long[] run(MapLoader loader, int map, int frames, int w, int h,
+                              BufferedImage out, SoftwareRaster raster) {
+        int stepMs = GameOptions.tickStepMillis();
+        GameWorld world = new GameWorld(loader.newLoaderSharingAssets(), new PlayerController());
+        world.setViewWidth(w);
+        world.startAt(map);
+        InputScript script = InputScript.runRight();
+        JitWarmUp.FrameRenderer renderer = GameEngine.createFrameRenderer(loader.getAssets());
+        CRTOverlay crt = new CRTOverlay();
+        WorldSnapshot snap = new WorldSnapshot();
+
+        long[] nanos = new long[frames];
+        Graphics2D g = out.createGraphics();
+        try {
+            for (int i = 0; i < WARM_UP_FRAMES + frames; i++) {
+                if (world.update(script.inputAt((long) i * stepMs), stepMs) != GameWorld.Status.RUNNING)
+                    world.startAt(map);
+                snap.capture(GameEngine.GameState.PLAYING, 0, System.nanoTime(), world.getMap(),
+                        world.getLives(), world.getCoins(), map, false);
+
+                long t0 = System.nanoTime();
+                if (raster == null) {
+                    renderer.render(g, snap, w, h);
+                    crt.draw(g, w, h, stepMs);
+                } else {
+                    raster.begin();
+                    renderer.render(raster, snap, w, h);
+                    crt.draw(raster, w, h, stepMs);
+                    raster.present(g);
+                }
+                if (i >= WARM_UP_FRAMES) nanos[i - WARM_UP_FRAMES] = System.nanoTime() - t0;
+            }
+        } finally {
+            g.dispose();
+            world.shutdown();
+        }
+        return nanos;
+    }
+
+    /** Pixels whose RGB differs. */
+    private static int diff(BufferedImage a, BufferedImage b) {
+        int w = a.getWidth(), h = a.getHeight();
+        int[] pa = a.getRGB(0, 0, w, h, null, 0, w);
+        int[] pb = b.getRGB(0, 0, w, h, null, 0, w);
+        int n = 0;
+        for (int i = 0; i < pa.length; i++) {
+            if (((pa[i] ^ pb[i]) & 0xffffff) != 0) n++;
+        }
+        return n;
+    }
+
+    private static void report(String label, long[] nanos, int diff) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        double p50 = sorted[sorted.length / 2] / 1e6;
+        double p95 = sorted[Math.min(sorted.length - 1, (int) (sorted.length * 0.95))] / 1e6;
+        System.out.println(String.format(Locale.ROOT, "  %-12s p50 %7.2f ms  p95 %7.2f ms%s",
+                label, p50, p95, diff < 0 ? "" : "  pixels != java2d: " + diff));
+    }
+}
@@ -0,0 +1,340 @@
+package com.TETOSOFT.tilegame.headless;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.TreeSet;
+
+import com.TETOSOFT.core.AllocationCounter;
+import com.TETOSOFT.core.GameConstants;
+import com.TETOSOFT.core.GameOptions;
+import com.TETOSOFT.tilegame.GameEngine;
+import com.TETOSOFT.tilegame.GameWorld;
+import com.TETOSOFT.tilegame.MapLoader;
+import com.TETOSOFT.tilegame.TileMap;
+import com.TETOSOFT.tilegame.WorldSnapshot;
+import com.TETOSOFT.tilegame.replay.Replay;
+import com.TETOSOFT.tilegame.replay.ReplayPlayer;
+import com.TETOSOFT.tilegame.replay.ReplayRecorder;
+import com.TETOSOFT.tilegame.systems.PlayerController;
+
+/**
+ * Frame-budget regression suite over the replay library ({@code replays/}).
+ *
+ * Every replay is played without a window, first once to warm the JIT up
+ * and check determinism (the world must end exactly where the recording
+ * did), then {@link GameConstants#REGRESSION_PASSES} more times timing
+ * every world tick and an offscreen frame every
+ * {@link GameConstants#REGRESSION_RENDER_EVERY} ticks. Samples of all timed
+ * passes are pooled (one pass of a short replay leaves p99 to a handful of
+ * ticks); the p95/p99 of both are compared with
+ * {@code replays/baselines.properties} and fail when they are more than
+ * {@link GameOptions#regressionTolerance()} worse.
+ *
+ * The timed passes also count the bytes allocated by this thread
+ * ({@link AllocationCounter}). A steady-state world tick (no map load, no
+ * sprite spawned) plus the snapshot capture must allocate nothing, and so
+ * must a steady-state offscreen frame (no cached image rebuilt). The best
+ * pass counts, so a one-off JIT recompilation does not fail the suite while
+ * garbage made on every pass does.
+ *
+ * <pre>
+ * java -cp build/classes com.TETOSOFT.tilegame.headless.RegressionRunner [check|update] [dir]
+ * java -cp build/classes com.TETOSOFT.tilegame.headless.RegressionRunner record map simSeconds idle|right|random file
+ * </pre>
+ * {@code update} rewrites the baselines with this machine's numbers (do it
+ * on the machine the suite runs on). {@code record} makes a replay from an
+ * input script; games recorded with {@code -Dgame.record=dir} can be
+ * copied into the library as they are. Exit status 1 on any regression or
+ * divergence.
+ */
+public class RegressionRunner {
+
+    /** File with the stored p95/p99 per replay, in the library directory. */
+    public static final String BASELINES = "baselines.properties";
+
+    private static final String[] METRICS = { "sim.p95", "sim.p99", "render.p95", "render.p99" };
+
+    /** Measurements of one replay. Times in microseconds. */
+    public static class Measurement {
+        public final String  name;
+        public final boolean deterministic;
+        public final String  divergence;
+        public final long    worldTicks;
+        public final int     frames;
+        /** Same order as {@link #METRICS}. */
+        final double[] values;
+        /** Bytes allocated by all steady-state ticks of the best pass; -1 if not measurable. */
+        public final long    tickAllocBytes;
+        /** Most bytes a steady-state offscreen frame allocated, best pass; -1 if not measurable. */
+        public final long    frameAllocBytes;
+
+        Measurement(String name, String divergence, long worldTicks, int frames, double[] values,
+                    long tickAllocBytes, long frameAllocBytes) {
+            this.name            = name;
+            this.deterministic   = divergence == null;
+            this.divergence      = divergence;
+            this.worldTicks      = worldTicks;
+            this.frames          = frames;
+            this.values          = values;
+            this.tickAllocBytes  = tickAllocBytes;
+            this.frameAllocBytes = frameAllocBytes;
+        }
+    }
+
+    private final MapLoader shared;
+    private final JitWarmUp.FrameRenderer renderer;
+    private final BufferedImage target;
+    private final int stepMs = GameOptions.tickStepMillis();
+
+    public RegressionRunner() {
+        GraphicsConfiguration gc = HeadlessRuntime.imageConfiguration();
+        shared   = new MapLoader(gc);
+        renderer = GameEngine.createFrameRenderer(shared.getAssets());
+        target   = gc.createCompatibleImage(GameConstants.WINDOW_WIDTH, GameConstants.WINDOW_HEIGHT);
+    }
+
+    /** Plays {@code replay}: determinism check first, then the timed passes. */
+    public Measurement measure(String name, Replay replay) {
+        String divergence = play(replay, null, null, null, null);
+
+        int passes = GameConstants.REGRESSION_PASSES;
+        int ticks  = (int) replay.getWorldTickCount();
+        long[] sim = new long[ticks * passes];
+        long[] render = new long[(ticks / GameConstants.REGRESSION_RENDER_EVERY + 1) * passes];
+        int[] counts = new int[2];
+        long[] alloc = new long[2];
+        long tickAlloc = Long.MAX_VALUE, frameAlloc = Long.MAX_VALUE;
+        for (int pass = 1; pass <= passes; pass++) {
+            String again = play(replay, sim, render, counts, alloc);
+            if (divergence == null && again != null) divergence = "pasada " + (pass + 1) + ": " + again;
+            tickAlloc  = Math.min(tickAlloc, alloc[0]);
+            frameAlloc = Math.min(frameAlloc, alloc[1]);
+        }
+
+        long[] s = Arrays.copyOf(sim, counts[0]);
+        long[] r = Arrays.copyOf(render, counts[1]);
+        Arrays.sort(s);
+        Arrays.sort(r);
+        double[] values = {
+                percentile(s, 0.95) / 1e3, percentile(s, 0.99) / 1e3,
+                percentile(r, 0.95) / 1e3, percentile(r, 0.99) / 1e3 };
+        return new Measurement(name, divergence, ticks, counts[1] / passes, values,
+                AllocationCounter.isSupported() ? tickAlloc : -1,
+                AllocationCounter.isSupported() ? frameAlloc : -1);
+    }
+
+    /**
+     * Plays a replay on a fresh world. With {@code sim} non-null, appends
+     * the time of every world tick and of the offscreen frames to
+     * {@code sim} and {@code render}; {@code counts} holds how many of each
+     * are filled. {@code alloc} receives the bytes allocated by the
+     * steady-state ticks (snapshot capture included) and the most any
+     * steady-state frame allocated (one after steady ticks only that did
+     * not rebuild a cached image, {@link JitWarmUp.FrameRenderer#getCacheRebuilds()}).
+     *
+     * @return {@code null} if it ended in the recorded outcome, else a description
+     */
+    private String play(Replay replay, long[] sim, long[] render, int[] counts, long[] alloc) {
+        GameWorld world = new GameWorld(shared.newLoaderSharingAssets(), new PlayerController());
+        ReplayPlayer player = new ReplayPlayer(replay);
+        player.startWorld(world);
+        WorldSnapshot snap = new WorldSnapshot();
+        int worldTicks = 0;
+        long tickBytes = 0, frameBytes = 0;
+        boolean steady = false; // todos los ticks desde el último frame fueron estables
+        boolean captured = false;
+
+        // Un solo Graphics para toda la pasada: crear uno por frame también reserva memoria
+        Graphics2D g = target.createGraphics();
+        AllocationCounter counter = new AllocationCounter();
+        try {
+            while (player.advance()) {
+                TileMap map = world.getMap();
+                int sprites = map.getSpriteCount();
+                counter.sample();
+                long t0 = System.nanoTime();
+                if (!player.playTick(world) || sim == null) continue;
+                sim[counts[0]++] = System.nanoTime() - t0;
+                long bytes = counter.sample();
+
+                // Cargar un mapa o crear sprites reserva memoria a propósito
+                boolean steadyTick = world.getMap() == map && map.getSpriteCount() <= sprites;
+                steady &= steadyTick;
+
+                if (++worldTicks % GameConstants.REGRESSION_RENDER_EVERY == 0) {
+                    long t1 = System.nanoTime();
+                    snap.capture(GameEngine.GameState.PLAYING, 0, t1, world.getMap(),
+                            world.getLives(), world.getCoins(), world.getMapNumber(), false);
+                    long capture = counter.sample();
+                    // La primera captura dimensiona los arrays del snapshot
+                    if (captured) bytes += capture;
+                    captured = true;
+                    long rebuilds = renderer.getCacheRebuilds();
+                    renderer.render(g, snap, target.getWidth(), target.getHeight());
+                    render[counts[1]++] = System.nanoTime() - t1;
+                    long drawn = counter.sample();
+
+                    // Rehacer chunks de tiles o el HUD reserva memoria a propósito
+                    if (steady && renderer.getCacheRebuilds() == rebuilds)
+                        frameBytes = Math.max(frameBytes, drawn);
+                    steady = true;
+                }
+                if (steadyTick) tickBytes += bytes;
+            }
+        } finally {
+            g.dispose();
+            world.shutdown();
+        }
+        if (alloc != null) {
+            alloc[0] = tickBytes;
+            alloc[1] = frameBytes;
+        }
+
+        Replay.Outcome actual = Replay.Outcome.of(world);
+        return actual.equals(replay.getOutcome()) ? null
+                : "esperado " + replay.getOutcome() + ", obtenido " + actual;
+    }
+
+    /**
+     * Plays {@code script} on {@code mapNumber} like the game would and
+     * records it, stopping early at a game over, victory or exit.
+     */
+    public Replay record(int mapNumber, long ticks, InputScript script) {
+        GameWorld world = new GameWorld(shared.newLoaderSharingAssets(), new PlayerController());
+        world.setViewWidth(GameConstants.WINDOW_WIDTH);
+        world.startAt(mapNumber);
+        ReplayRecorder recorder = new ReplayRecorder(mapNumber, GameConstants.WINDOW_WIDTH);
+        for (long tick = 0; tick < ticks; tick++) {
+            int input = script.inputAt(tick * stepMs);
+            GameWorld.Status status = world.update(input, stepMs);
+            recorder.record(stepMs, input, 0, Replay.WORLD_TICK, world.getSimulationDistance());
+            if (status != GameWorld.Status.RUNNING) break;
+        }
+        world.shutdown();
+        return recorder.finish(world);
+    }
+
+    // -------------------------------------------------------------------------
+    // Main
+    // -------------------------------------------------------------------------
+
+    public static void main(String[] args) throws IOException {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+
+        String mode = args.length > 0 ? args[0] : "check";
+        if (mode.equals("record")) {
+            if (args.length < 5) {
+                System.err.println("Uso: RegressionRunner record map simSeconds idle|right|random file");
+                System.exit(2);
+            }
+            int map = Integer.parseInt(args[1]);
+            long ticks = Math.round(Double.parseDouble(args[2]) * 1000 / GameOptions.tickStepMillis());
+            Replay replay = new RegressionRunner().record(map, ticks, InputScript.named(args[3], map));
+            File file = new File(args[4]);
+            replay.write(file);
+            System.out.println("Grabado " + file + ": " + replay.getTickCount() + " ticks, "
+                    + file.length() + " bytes, final " + replay.getOutcome());
+            return;
+        }
+        if (!mode.equals("check") && !mode.equals("update")) {
+            System.err.println("Modo desconocido: " + mode + " (check | update | record)");
+            System.exit(2);
+        }
+
+        File dir = new File(args.length > 1 ? args[1] : "replays");
+        File[] files = dir.listFiles((d, n) -> n.endsWith(Replay.EXTENSION));
+        if (files == null || files.length == 0) {
+            System.err.println("No hay replays en " + dir);
+            System.exit(2);
+        }
+        Arrays.sort(files);
+
+        File baselineFile = new File(dir, BASELINES);
+        Properties baselines = new Properties();
+        if (baselineFile.exists()) {
+            try (InputStream in = new FileInputStream(baselineFile)) {
+                baselines.load(in);
+            }
+        }
+
+        double tolerance = GameOptions.regressionTolerance();
+        RegressionRunner runner = new RegressionRunner();
+        List<String> failures = new ArrayList<>();
+
+        System.out.println("Tiempos en us, memoria reservada en bytes");
+        System.out.printf(Locale.ROOT, "%-28s %7s %7s %9s %9s %9s %9s %9s %9s%n",
+                "replay", "ticks", "frames", "sim p95", "sim p99", "draw p95", "draw p99",
+                "B ticks", "B/frame");
+        for (File f : files) {
+            String name = f.getName().substring(0, f.getName().length() - Replay.EXTENSION.length());
+            Measurement m = runner.measure(name, Replay.read(f));
+            System.out.printf(Locale.ROOT, "%-28s %7d %7d %9.1f %9.1f %9.1f %9.1f %9d %9d%n",
+                    name, m.worldTicks, m.frames, m.values[0], m.values[1], m.values[2], m.values[3],
+                    m.tickAllocBytes, m.frameAllocBytes);
+
+            if (!m.deterministic)
+                failures.add(name + ": no determinista, " + m.divergence);
+            if (m.tickAllocBytes > 0)
+                failures.add(name + ": los ticks estables reservaron " + m.tickAllocBytes
+                        + " bytes (deben ser 0)");
+            if (m.frameAllocBytes > 0)
+                failures.add(name + ": un frame estable reservó " + m.frameAllocBytes
+                        + " bytes (deben ser 0)");
+
+            for (int i = 0; i < METRICS.length; i++) {
+                String key = name + "." + METRICS[i];
+                if (mode.equals("update")) {
+                    baselines.setProperty(key, String.format(Locale.ROOT, "%.1f", m.values[i]));
+                    continue;
+                }
+                String stored = baselines.getProperty(key);
+                if (stored == null) {
+                    System.out.println("  " + key + ": sin baseline");
+                    continue;
+                }
+                double base = Double.parseDouble(stored);
+                if (m.values[i] > base * (1 + tolerance)) {
+                    failures.add(String.format(Locale.ROOT, "%s: %.1f us, baseline %.1f us (+%.0f %%, tolerancia %.0f %%)",
+                            key, m.values[i], base, (m.values[i] / base - 1) * 100, tolerance * 100));
+                }
+            }
+        }
+
+        if (mode.equals("update")) {
+            // Ordenadas, para que los cambios se lean bien en un diff
+            try (PrintWriter out = new PrintWriter(baselineFile, "ISO-8859-1")) {
+                out.println("# p95/p99 en microsegundos; regenerar con RegressionRunner update");
+                for (String key : new TreeSet<>(baselines.stringPropertyNames()))
+                    out.println(key + "=" + baselines.getProperty(key));
+            }
+            System.out.println("Baselines guardadas en " + baselineFile);
+        }
+
+        if (failures.isEmpty()) {
+            System.out.println("OK: " + files.length + " replays");
+        } else {
+            System.out.println("FALLOS:");
+            for (String f : failures) System.out.println("  " + f);
+            System.exit(1);
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int i = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, i))];
+    }
+}
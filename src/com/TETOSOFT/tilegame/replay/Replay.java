@@ -0,0 +1,189 @@
+package com.TETOSOFT.tilegame.replay;
+
+import java.io.*;
+
+import com.TETOSOFT.tilegame.GameWorld;
+
+/**
+ * A recorded session: the input of every tick from JUGAR until the game
+ * went back to a menu, and the state the world ended in.
+ *
+ * The simulation only depends on the player input, the elapsed time, the
+ * simulation distance (chosen by the quality governor) and the view width
+ * (enemies wake up when they enter the view), so that is what is stored;
+ * replaying it on the same maps must end in the same {@link Outcome}.
+ *
+ * Ticks are stored run-length encoded: a run is {@code count, elapsed,
+ * player input, menu input, flags, simulation distance}, and a player
+ * holding the same keys for a second is one run of 15 bytes.
+ */
+public final class Replay {
+
+    /** Extension of replay files. */
+    public static final String EXTENSION = ".smr";
+
+    /** Flag: the world was updated on this tick (playing, not paused). */
+    public static final int WORLD_TICK = 1;
+
+    private static final int MAGIC   = 0x534D5250; // "SMRP"
+    private static final int VERSION = 1;
+
+    /** World state compared at the end of a replay. */
+    public static final class Outcome {
+        public final int   mapNumber;
+        public final int   lives;
+        public final int   coins;
+        public final float playerX;
+        public final float playerY;
+
+        public Outcome(int mapNumber, int lives, int coins, float playerX, float playerY) {
+            this.mapNumber = mapNumber;
+            this.lives     = lives;
+            this.coins     = coins;
+            this.playerX   = playerX;
+            this.playerY   = playerY;
+        }
+
+        public static Outcome of(GameWorld world) {
+            return new Outcome(world.getMapNumber(), world.getLives(), world.getCoins(),
+                    world.getPlayer().getX(), world.getPlayer().getY());
+        }
+
+        /** Exact comparison: positions must match to the bit. */
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Outcome)) return false;
+            Outcome other = (Outcome) o;
+            return mapNumber == other.mapNumber && lives == other.lives && coins == other.coins
+                    && Float.floatToIntBits(playerX) == Float.floatToIntBits(other.playerX)
+                    && Float.floatToIntBits(playerY) == Float.floatToIntBits(other.playerY);
+        }
+
+        @Override
+        public int hashCode() {
+            return ((mapNumber * 31 + lives) * 31 + coins) * 31
+                    + Float.floatToIntBits(playerX) * 17 + Float.floatToIntBits(playerY);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("mapa %d, vidas %d, monedas %d, jugador (%s, %s)",
+                    mapNumber, lives, coins, playerX, playerY);
+        }
+    }
+
+    private final int startMap;
+    private final int viewWidth;
+    private final int runCount;
+    private final int[] runLength;
+    private final int[] elapsed;
+    private final int[] playerInput;
+    private final int[] menuInput;
+    private final int[] flags;
+    private final int[] simulationDistance;
+    private final Outcome outcome;
+
+    Replay(int startMap, int viewWidth, int runCount, int[] runLength, int[] elapsed,
+           int[] playerInput, int[] menuInput, int[] flags, int[] simulationDistance,
+           Outcome outcome) {
+        this.startMap           = startMap;
+        this.viewWidth          = viewWidth;
+        this.runCount           = runCount;
+        this.runLength          = runLength;
+        this.elapsed            = elapsed;
+        this.playerInput        = playerInput;
+        this.menuInput          = menuInput;
+        this.flags              = flags;
+        this.simulationDistance = simulationDistance;
+        this.outcome            = outcome;
+    }
+
+    /** Map the session started on. */
+    public int getStartMap()     { return startMap; }
+    /** View width the session was played at. */
+    public int getViewWidth()    { return viewWidth; }
+    /** Expected world state after the last tick. */
+    public Outcome getOutcome()  { return outcome; }
+
+    /** Total ticks, world ticks or not. */
+    public long getTickCount() {
+        long n = 0;
+        for (int i = 0; i < runCount; i++) n += runLength[i];
+        return n;
+    }
+
+    /** Ticks in which the world was updated. */
+    public long getWorldTickCount() {
+        long n = 0;
+        for (int i = 0; i < runCount; i++)
+            if ((flags[i] & WORLD_TICK) != 0) n += runLength[i];
+        return n;
+    }
+
+    // Acceso por tramo, para ReplayPlayer
+    int getRunCount()                  { return runCount; }
+    int getRunLength(int run)          { return runLength[run]; }
+    int getElapsed(int run)            { return elapsed[run]; }
+    int getPlayerInput(int run)        { return playerInput[run]; }
+    int getMenuInput(int run)          { return menuInput[run]; }
+    int getFlags(int run)              { return flags[run]; }
+    int getSimulationDistance(int run) { return simulationDistance[run]; }
+
+    // -------------------------------------------------------------------------
+    // Fichero
+    // -------------------------------------------------------------------------
+
+    public void write(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(startMap);
+            out.writeInt(viewWidth);
+            out.writeInt(runCount);
+            for (int i = 0; i < runCount; i++) {
+                out.writeInt(runLength[i]);
+                out.writeInt(elapsed[i]);
+                out.writeByte(playerInput[i]);
+                out.writeByte(menuInput[i]);
+                out.writeByte(flags[i]);
+                out.writeInt(simulationDistance[i]);
+            }
+            out.writeInt(outcome.mapNumber);
+            out.writeInt(outcome.lives);
+            out.writeInt(outcome.coins);
+            out.writeFloat(outcome.playerX);
+            out.writeFloat(outcome.playerY);
+        }
+    }
+
+    /** @throws IOException if the file cannot be read or is not a replay */
+    public static Replay read(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC)
+                throw new IOException(file + " no es un replay");
+            int version = in.readShort();
+            if (version != VERSION)
+                throw new IOException(file + ": versión de replay " + version + " no soportada");
+
+            int startMap  = in.readInt();
+            int viewWidth = in.readInt();
+            int runs      = in.readInt();
+            int[] length = new int[runs], elapsed = new int[runs], player = new int[runs],
+                  menu = new int[runs], flags = new int[runs], distance = new int[runs];
+            for (int i = 0; i < runs; i++) {
+                length[i]   = in.readInt();
+                elapsed[i]  = in.readInt();
+                player[i]   = in.readUnsignedByte();
+                menu[i]     = in.readUnsignedByte();
+                flags[i]    = in.readUnsignedByte();
+                distance[i] = in.readInt();
+            }
+            Outcome outcome = new Outcome(in.readInt(), in.readInt(), in.readInt(),
+                    in.readFloat(), in.readFloat());
+            return new Replay(startMap, viewWidth, runs, length, elapsed, player, menu,
+                    flags, distance, outcome);
+        }
+    }
+}
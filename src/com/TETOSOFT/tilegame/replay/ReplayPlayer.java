@@ -0,0 +1,67 @@
+package com.TETOSOFT.tilegame.replay;
+
+import com.TETOSOFT.tilegame.GameWorld;
+
+/**
+ * Steps through a {@link Replay} one tick at a time. In the game,
+ * {@link com.TETOSOFT.tilegame.systems.PlayerController} and
+ * {@link com.TETOSOFT.tilegame.systems.MenuController} read their input
+ * from it instead of the keyboard; headless tools use {@link #playTick}.
+ */
+public final class ReplayPlayer {
+
+    private final Replay replay;
+    private int run = -1;
+    private int leftInRun;
+
+    public ReplayPlayer(Replay replay) {
+        this.replay = replay;
+    }
+
+    public Replay getReplay() {
+        return replay;
+    }
+
+    /**
+     * Moves to the next tick.
+     *
+     * @return {@code false} when the replay is over
+     */
+    public boolean advance() {
+        while (leftInRun == 0) {
+            if (run + 1 >= replay.getRunCount()) return false;
+            run++;
+            leftInRun = replay.getRunLength(run);
+        }
+        leftInRun--;
+        return true;
+    }
+
+    public int getElapsed()            { return replay.getElapsed(run); }
+    public int getPlayerInput()        { return run < 0 ? 0 : replay.getPlayerInput(run); }
+    public int getMenuInput()          { return run < 0 ? 0 : replay.getMenuInput(run); }
+    public int getSimulationDistance() { return replay.getSimulationDistance(run); }
+
+    public boolean isWorldTick() {
+        return (replay.getFlags(run) & Replay.WORLD_TICK) != 0;
+    }
+
+    /**
+     * Applies the current tick to a world without a window: updates it if
+     * the world ticked in the recording.
+     *
+     * @return whether the world was updated
+     */
+    public boolean playTick(GameWorld world) {
+        if (!isWorldTick()) return false;
+        world.setSimulationDistance(getSimulationDistance());
+        world.update(getPlayerInput(), getElapsed());
+        return true;
+    }
+
+    /** Prepares {@code world} to play this replay from its first tick. */
+    public void startWorld(GameWorld world) {
+        world.setViewWidth(replay.getViewWidth());
+        world.startAt(replay.getStartMap());
+    }
+}
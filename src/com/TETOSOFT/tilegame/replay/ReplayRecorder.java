@@ -0,0 +1,84 @@
+package com.TETOSOFT.tilegame.replay;
+
+import java.util.Arrays;
+
+import com.TETOSOFT.tilegame.GameWorld;
+
+/**
+ * Builds a {@link Replay} one tick at a time. Consecutive identical ticks
+ * extend the current run, so recording a tick normally allocates nothing.
+ */
+public final class ReplayRecorder {
+
+    private final int startMap;
+    private final int viewWidth;
+
+    private int   runCount;
+    private int[] runLength          = new int[256];
+    private int[] elapsed            = new int[256];
+    private int[] playerInput        = new int[256];
+    private int[] menuInput          = new int[256];
+    private int[] flags              = new int[256];
+    private int[] simulationDistance = new int[256];
+
+    /**
+     * @param startMap  map the session starts on
+     * @param viewWidth width of the view the world wakes enemies up with
+     */
+    public ReplayRecorder(int startMap, int viewWidth) {
+        this.startMap  = startMap;
+        this.viewWidth = viewWidth;
+    }
+
+    /**
+     * Records one tick.
+     *
+     * @param elapsedMs   ms passed to the tick
+     * @param player      {@link com.TETOSOFT.tilegame.systems.PlayerController} bitmask
+     * @param menu        {@link com.TETOSOFT.tilegame.systems.MenuController} bitmask
+     * @param tickFlags   {@link Replay#WORLD_TICK} if the world was updated
+     * @param simDistance simulation distance the world used
+     */
+    public void record(long elapsedMs, int player, int menu, int tickFlags, int simDistance) {
+        int last = runCount - 1;
+        if (last >= 0 && elapsed[last] == elapsedMs && playerInput[last] == player
+                && menuInput[last] == menu && flags[last] == tickFlags
+                && simulationDistance[last] == simDistance) {
+            runLength[last]++;
+            return;
+        }
+        if (runCount == runLength.length) grow();
+        runLength[runCount]          = 1;
+        elapsed[runCount]            = (int) elapsedMs;
+        playerInput[runCount]        = player;
+        menuInput[runCount]          = menu;
+        flags[runCount]              = tickFlags;
+        simulationDistance[runCount] = simDistance;
+        runCount++;
+    }
+
+    public long getTickCount() {
+        long n = 0;
+        for (int i = 0; i < runCount; i++) n += runLength[i];
+        return n;
+    }
+
+    /** Ends the recording with the current state of {@code world} as the expected outcome. */
+    public Replay finish(GameWorld world) {
+        return new Replay(startMap, viewWidth, runCount,
+                Arrays.copyOf(runLength, runCount), Arrays.copyOf(elapsed, runCount),
+                Arrays.copyOf(playerInput, runCount), Arrays.copyOf(menuInput, runCount),
+                Arrays.copyOf(flags, runCount), Arrays.copyOf(simulationDistance, runCount),
+                Replay.Outcome.of(world));
+    }
+
+    private void grow() {
+        int n = runLength.length * 2;
+        runLength          = Arrays.copyOf(runLength, n);
+        elapsed            = Arrays.copyOf(elapsed, n);
+        playerInput        = Arrays.copyOf(playerInput, n);
+        menuInput          = Arrays.copyOf(menuInput, n);
+        flags              = Arrays.copyOf(flags, n);
+        simulationDistance = Arrays.copyOf(simulationDistance, n);
+    }
+}
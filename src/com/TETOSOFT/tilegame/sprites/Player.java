@@ -1,9 +1,8 @@
 package com.TETOSOFT.tilegame.sprites;
 
-import java.awt.Image;
-
 import com.TETOSOFT.core.GameConstants;
 import com.TETOSOFT.graphics.Animation;
+import com.TETOSOFT.graphics.ImageRegion;
 
 /**
  * El personaje controlado por el jugador.
@@ -22,7 +21,7 @@ public class Player extends Creature {
     private boolean justBounced;
     private boolean facingRight = true;
     private boolean ducking     = false;
-    private Image   duckImage; // sprite agachado — cargado desde SpriteFactory
+    private ImageRegion duckImage; // sprite agachado — cargado desde SpriteFactory
 
     public Player(Animation left, Animation right,
                   Animation deadLeft, Animation deadRight) {
@@ -30,7 +29,7 @@ public class Player extends Creature {
     }
 
     /** Carga el sprite de agachado. Llamar desde SpriteFactory. */
-    public void setDuckImage(Image image) { this.duckImage = image; }
+    public void setDuckImage(ImageRegion image) { this.duckImage = image; }
 
     public void setDucking(boolean ducking) { this.ducking = ducking; }
     public boolean isDucking()              { return ducking; }
@@ -177,7 +176,7 @@ public class Player extends Creature {
     }
 
     @Override
-    public Image getImage() {
+    public ImageRegion getImage() {
         if (ducking && duckImage != null) return duckImage;
         return super.getImage();
     }
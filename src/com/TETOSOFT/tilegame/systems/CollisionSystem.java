@@ -1,7 +1,6 @@
 package com.TETOSOFT.tilegame.systems;
 
-import java.util.Iterator;
-
+import com.TETOSOFT.core.EntityStats;
 import com.TETOSOFT.core.GameConstants;
 import com.TETOSOFT.graphics.Sprite;
 import com.TETOSOFT.tilegame.TileMap;
@@ -83,6 +82,7 @@ public class CollisionSystem {
 
     private void handlePowerUp(Player player, TileMap map, PowerUp powerUp) {
         map.removeSprite(powerUp);
+        EntityStats.removed(powerUp.getClass());
         if (powerUp instanceof PowerUp.Star) {
             listener.onCoinCollected();
         } else if (powerUp instanceof PowerUp.Goal) {
@@ -115,9 +115,8 @@ public class CollisionSystem {
      * or {@code null} if there is no collision.
      */
     private Sprite getFirstCollision(Sprite sprite, TileMap map) {
-        Iterator<Sprite> it = map.getSprites();
-        while (it.hasNext()) {
-            Sprite other = it.next();
+        for (int i = 0, n = map.getSpriteCount(); i < n; i++) {
+            Sprite other = map.getSprite(i);
             if (overlaps(sprite, other))
                 return other;
         }
@@ -132,6 +131,7 @@ public class CollisionSystem {
             return false;
         if (b instanceof Creature && !((Creature) b).isAlive())
             return false;
+        EntityStats.aabbTest();
 
         int ax = Math.round(a.getX()), ay = Math.round(a.getY());
         int bx = Math.round(b.getX()), by = Math.round(b.getY());
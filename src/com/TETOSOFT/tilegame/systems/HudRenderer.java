@@ -2,18 +2,23 @@ package com.TETOSOFT.tilegame.systems;
 
 import java.awt.*;
 import java.awt.geom.RoundRectangle2D;
-import java.util.Iterator;
+import java.awt.image.BufferedImage;
 
-import com.TETOSOFT.graphics.Sprite;
-import com.TETOSOFT.tilegame.TileMap;
-import com.TETOSOFT.tilegame.TileMapDrawer;
-import com.TETOSOFT.tilegame.sprites.Player;
+import com.TETOSOFT.graphics.ImageRegion;
+import com.TETOSOFT.graphics.Java2DTarget;
+import com.TETOSOFT.graphics.RenderTarget;
+import com.TETOSOFT.tilegame.WorldSnapshot;
 
 /**
  * Draws the heads-up display and optional debug hitboxes.
  *
  * Layout: panel izquierdo (vidas), panel central (monedas), panel derecho (nivel).
  * Estética arcade retro con fondo semitransparente y tipografía monoespaciada.
+ *
+ * Los paneles y los indicadores se componen en una imagen que solo se
+ * vuelve a pintar cuando cambia algo de lo que muestran; el resto de frames
+ * el HUD es un único drawImage y no reserva memoria, sobre cualquier
+ * {@link RenderTarget}.
  */
 public class HudRenderer {
 
@@ -28,39 +33,96 @@ public class HudRenderer {
     private static final Color COLOR_LABEL   = new Color(180, 180, 180);  // gris claro
     private static final Color COLOR_SPRINT  = new Color(255, 140, 0);    // naranja
     private static final Color COLOR_DEBUG   = new Color(0,   255, 200);  // cian
+    private static final Color HEART_EMPTY   = new Color(80,  40,  40);
+    private static final Color SPRINT_FILL   = withAlpha(COLOR_SPRINT, 40);
+    private static final Color SPRINT_EDGE   = withAlpha(COLOR_SPRINT, 100);
+    private static final Color DEBUG_FILL    = withAlpha(COLOR_DEBUG, 40);
+    private static final Color DEBUG_EDGE    = withAlpha(COLOR_DEBUG, 100);
+    private static final Color HITBOX_PLAYER = new Color(0,   255, 0,   160);
+    private static final Color HITBOX_SPRITE = new Color(255, 0,   0,   160);
+    private static final Color HITBOX_PLAYER_FILL = withAlpha(HITBOX_PLAYER, 40);
+    private static final Color HITBOX_SPRITE_FILL = withAlpha(HITBOX_SPRITE, 40);
 
     private static final int PANEL_H        = 44;
     private static final int PANEL_RADIUS   = 8;
     private static final int PADDING        = 12;
     private static final int TOP            = 10;
+    private static final int PANEL_W        = 160;
+    private static final int PANEL_GAP      = 10;
+    private static final int TOTAL_W        = PANEL_W * 3 + PANEL_GAP * 2;
+    private static final int FLOATING_Y     = TOP + PANEL_H + 14;
+    private static final int BADGE_H        = 20;
+
+    // -------------------------------------------------------------------------
+    // Caché: lo que hay pintado en {@link #cache}
+    // -------------------------------------------------------------------------
+    private final RoundRectangle2D.Float panelRect = new RoundRectangle2D.Float();
+    private BufferedImage cache;
+    private int     shownLives = -1, shownCoins = -1, shownLevel = -1;
+    private boolean shownSprint, shownDebug;
+    private long    repaints;
+    private final Java2DTarget java2d = new Java2DTarget();
 
     // -------------------------------------------------------------------------
     // Draw principal
     // -------------------------------------------------------------------------
 
-    public void draw(Graphics2D g, Player player,
-                     int lives, int coins, int currentMap, boolean debugHitboxes,
-                     int screenW) {
+    public void draw(Graphics2D g, WorldSnapshot snap, int screenW) {
+        enableAntialiasing(g); // lo que se dibuja después (overlays) cuenta con ello
+        draw(java2d.of(g), snap, screenW);
+    }
 
-        enableAntialiasing(g);
+    public void draw(RenderTarget g, WorldSnapshot snap, int screenW) {
+        int     lives         = snap.getLives();
+        int     coins         = snap.getCoins();
+        int     currentMap    = snap.getMapNumber();
+        boolean sprinting     = snap.isSprinting();
+        boolean debugHitboxes = snap.isDebugHitboxes();
+
+        if (cache == null || lives != shownLives || coins != shownCoins || currentMap != shownLevel
+                || sprinting != shownSprint || debugHitboxes != shownDebug) {
+            shownLives  = lives;
+            shownCoins  = coins;
+            shownLevel  = currentMap;
+            shownSprint = sprinting;
+            shownDebug  = debugHitboxes;
+            repaints++;
+            repaintCache();
+        }
 
-        // Tres paneles: vidas | monedas | nivel
-        int panelW = 160;
-        int gap    = 10;
-        int totalW = panelW * 3 + gap * 2;
-        int startX = (screenW - totalW) / 2;
+        // Tres paneles centrados: vidas | monedas | nivel
+        g.drawImage(cache, (screenW - TOTAL_W) / 2, 0);
+    }
 
-        drawLivesPanel  (g, startX,                     TOP, panelW, PANEL_H, lives);
-        drawCoinsPanel  (g, startX + panelW + gap,      TOP, panelW, PANEL_H, coins);
-        drawLevelPanel  (g, startX + (panelW + gap) * 2, TOP, panelW, PANEL_H, currentMap);
+    /** Veces que se ha vuelto a pintar la caché (cambió algún valor). */
+    public long getRepaints() {
+        return repaints;
+    }
 
-        // Indicadores flotantes (sprint, debug)
-        int floatingY = TOP + PANEL_H + 14;
-        if (player.isSprinting()) {
-            drawFloatingBadge(g, startX, floatingY, "▶▶ SPRINT", COLOR_SPRINT);
-        }
-        if (debugHitboxes) {
-            drawFloatingBadge(g, startX + panelW + gap, floatingY, "HITBOX [F1]", COLOR_DEBUG);
+    /** Pinta paneles e indicadores con los valores shownXxx, con x = 0 en el primer panel. */
+    private void repaintCache() {
+        if (cache == null)
+            cache = new BufferedImage(TOTAL_W + 1, FLOATING_Y + BADGE_H + 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = cache.createGraphics();
+        try {
+            g.setComposite(AlphaComposite.Clear);
+            g.fillRect(0, 0, cache.getWidth(), cache.getHeight());
+            g.setComposite(AlphaComposite.SrcOver);
+            enableAntialiasing(g);
+
+            drawLivesPanel(g, 0,                         TOP, PANEL_W, PANEL_H, shownLives);
+            drawCoinsPanel(g, PANEL_W + PANEL_GAP,       TOP, PANEL_W, PANEL_H, shownCoins);
+            drawLevelPanel(g, (PANEL_W + PANEL_GAP) * 2, TOP, PANEL_W, PANEL_H, shownLevel);
+
+            // Indicadores flotantes (sprint, debug)
+            if (shownSprint) {
+                drawFloatingBadge(g, 0, FLOATING_Y, "▶▶ SPRINT", COLOR_SPRINT, SPRINT_FILL, SPRINT_EDGE);
+            }
+            if (shownDebug) {
+                drawFloatingBadge(g, PANEL_W + PANEL_GAP, FLOATING_Y, "HITBOX [F1]", COLOR_DEBUG, DEBUG_FILL, DEBUG_EDGE);
+            }
+        } finally {
+            g.dispose();
         }
     }
 
@@ -80,7 +142,7 @@ public class HudRenderer {
         int heartY = y + 22;
         for (int i = 0; i < Math.min(lives, 6); i++) {
             drawHeart(g, heartX + i * 20, heartY,
-                    i < lives ? COLOR_LIVES : new Color(80, 40, 40));
+                    i < lives ? COLOR_LIVES : HEART_EMPTY);
         }
         // Si hay más de 6 vidas, mostrar número
         if (lives > 6) {
@@ -119,32 +181,33 @@ public class HudRenderer {
     // -------------------------------------------------------------------------
 
     private void drawPanel(Graphics2D g, int x, int y, int w, int h) {
-        RoundRectangle2D rect = new RoundRectangle2D.Float(x, y, w, h, PANEL_RADIUS, PANEL_RADIUS);
+        panelRect.setRoundRect(x, y, w, h, PANEL_RADIUS, PANEL_RADIUS);
 
         // Fondo semitransparente
         g.setColor(PANEL_BG);
-        g.fill(rect);
+        g.fill(panelRect);
 
         // Borde sutil
         g.setColor(PANEL_BORDER);
-        g.draw(rect);
+        g.draw(panelRect);
     }
 
     private void drawHeart(Graphics2D g, int x, int y, Color color) {
-        g.setFont(new Font("Dialog", Font.PLAIN, 14));
+        g.setFont(HEART_FONT);
         g.setColor(color);
         g.drawString("♥", x, y + 14);
     }
 
-    private void drawFloatingBadge(Graphics2D g, int x, int y, String text, Color color) {
+    private void drawFloatingBadge(Graphics2D g, int x, int y, String text,
+                                   Color color, Color fill, Color edge) {
         FontMetrics fm = g.getFontMetrics(labelFont());
         int tw = fm.stringWidth(text);
         int bw = tw + PADDING * 2;
-        int bh = 20;
+        int bh = BADGE_H;
 
-        g.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), 40));
+        g.setColor(fill);
         g.fillRoundRect(x, y, bw, bh, 6, 6);
-        g.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), 100));
+        g.setColor(edge);
         g.drawRoundRect(x, y, bw, bh, 6, 6);
 
         g.setFont(labelFont());
@@ -156,9 +219,18 @@ public class HudRenderer {
     // Fuentes
     // -------------------------------------------------------------------------
 
-    private Font labelFont()    { return new Font("Monospaced", Font.BOLD,  10); }
-    private Font valueFont()    { return new Font("Monospaced", Font.BOLD,  16); }
-    private Font bigValueFont() { return new Font("Monospaced", Font.BOLD,  22); }
+    private static final Font LABEL_FONT     = new Font("Monospaced", Font.BOLD,  10);
+    private static final Font VALUE_FONT     = new Font("Monospaced", Font.BOLD,  16);
+    private static final Font BIG_VALUE_FONT = new Font("Monospaced", Font.BOLD,  22);
+    private static final Font HEART_FONT     = new Font("Dialog",     Font.PLAIN, 14);
+
+    private Font labelFont()    { return LABEL_FONT; }
+    private Font valueFont()    { return VALUE_FONT; }
+    private Font bigValueFont() { return BIG_VALUE_FONT; }
+
+    private static Color withAlpha(Color c, int alpha) {
+        return new Color(c.getRed(), c.getGreen(), c.getBlue(), alpha);
+    }
 
     // -------------------------------------------------------------------------
     // Antialiasing
@@ -173,30 +245,29 @@ public class HudRenderer {
     // Hitboxes debug
     // -------------------------------------------------------------------------
 
-    public void drawHitboxes(Graphics2D g, TileMap map, int screenWidth, int screenHeight) {
-        Sprite player  = map.getPlayer();
-        int mapWidth   = TileMapDrawer.tilesToPixels(map.getWidth());
-
-        int offsetX = screenWidth / 2 - Math.round(player.getX()) - 64;
-        offsetX = Math.min(offsetX, 0);
-        offsetX = Math.max(offsetX, screenWidth - mapWidth);
-        int offsetY = screenHeight - TileMapDrawer.tilesToPixels(map.getHeight());
+    public void drawHitboxes(Graphics2D g, WorldSnapshot snap, int screenWidth, int screenHeight, float alpha) {
+        int offsetX = snap.getOffsetX(alpha, screenWidth);
+        int offsetY = snap.getOffsetY(screenHeight);
 
-        drawBox(g, player, offsetX, offsetY, new Color(0, 255, 0, 160));
+        drawBox(g, snap.getPlayerImage(), snap.getPlayerX(alpha), snap.getPlayerY(alpha),
+                offsetX, offsetY, HITBOX_PLAYER, HITBOX_PLAYER_FILL);
 
-        Iterator<Sprite> it = map.getSprites();
-        while (it.hasNext()) {
-            drawBox(g, it.next(), offsetX, offsetY, new Color(255, 0, 0, 160));
+        for (int i = 0, n = snap.getSpriteCount(); i < n; i++) {
+            drawBox(g, snap.getSpriteImage(i), snap.getSpriteX(i, alpha), snap.getSpriteY(i, alpha),
+                    offsetX, offsetY, HITBOX_SPRITE, HITBOX_SPRITE_FILL);
         }
     }
 
-    private void drawBox(Graphics2D g, Sprite sprite, int offsetX, int offsetY, Color color) {
-        int x = Math.round(sprite.getX()) + offsetX;
-        int y = Math.round(sprite.getY()) + offsetY;
+    private void drawBox(Graphics2D g, ImageRegion image, float spriteX, float spriteY,
+                         int offsetX, int offsetY, Color color, Color fill) {
+        int x = Math.round(spriteX) + offsetX;
+        int y = Math.round(spriteY) + offsetY;
+        int w = image.getWidth();
+        int h = image.getHeight();
 
-        g.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), 40));
-        g.fillRect(x, y, sprite.getWidth(), sprite.getHeight());
+        g.setColor(fill);
+        g.fillRect(x, y, w, h);
         g.setColor(color);
-        g.drawRect(x, y, sprite.getWidth(), sprite.getHeight());
+        g.drawRect(x, y, w, h);
     }
 }
@@ -5,20 +5,38 @@ import javax.swing.JFrame;
 
 import com.TETOSOFT.input.GameAction;
 import com.TETOSOFT.input.InputManager;
+import com.TETOSOFT.tilegame.replay.ReplayPlayer;
 
 /**
  * Gestiona el input de navegación en los menús (↑ ↓ ENTER ESC P).
  * Separado de PlayerController para no interferir con el input del juego.
+ *
+ * {@link #poll()} lee las pulsaciones una vez por tick y los
+ * {@code isXxxPressed()} devuelven lo leído, así el input de un tick se puede
+ * grabar y reproducir como una máscara de bits.
  */
 public class MenuController {
 
+    // Bits de la máscara de input de un tick
+    public static final int UP       = 1;
+    public static final int DOWN     = 1 << 1;
+    public static final int ENTER    = 1 << 2;
+    public static final int PAUSE    = 1 << 3;
+    public static final int ESCAPE   = 1 << 4;
+    public static final int PROFILER = 1 << 5;
+    public static final int OVERDRAW = 1 << 6;
+
     private InputManager inputManager;
+    private ReplayPlayer replay;
+    private int input;
 
     private final GameAction up     = new GameAction("up",     GameAction.DETECT_INITAL_PRESS_ONLY);
     private final GameAction down   = new GameAction("down",   GameAction.DETECT_INITAL_PRESS_ONLY);
     private final GameAction enter  = new GameAction("enter",  GameAction.DETECT_INITAL_PRESS_ONLY);
     private final GameAction pause  = new GameAction("pause",  GameAction.DETECT_INITAL_PRESS_ONLY);
     private final GameAction escape = new GameAction("escape", GameAction.DETECT_INITAL_PRESS_ONLY);
+    private final GameAction profiler = new GameAction("profiler", GameAction.DETECT_INITAL_PRESS_ONLY);
+    private final GameAction overdraw = new GameAction("overdraw", GameAction.DETECT_INITAL_PRESS_ONLY);
 
     public void init(JFrame window) {
         inputManager = new InputManager(window);
@@ -27,11 +45,39 @@ public class MenuController {
         inputManager.mapToKey(enter,  KeyEvent.VK_ENTER);
         inputManager.mapToKey(pause,  KeyEvent.VK_P);
         inputManager.mapToKey(escape, KeyEvent.VK_ESCAPE);
+        inputManager.mapToKey(profiler, KeyEvent.VK_F2);
+        inputManager.mapToKey(overdraw, KeyEvent.VK_F3);
+    }
+
+    /**
+     * Lee las pulsaciones de este tick (o las del replay, si hay uno) y las
+     * devuelve como máscara de bits. Llamar una vez al principio de cada tick.
+     */
+    public int poll() {
+        int keys = 0;
+        if (up.isPressed())       keys |= UP;
+        if (down.isPressed())     keys |= DOWN;
+        if (enter.isPressed())    keys |= ENTER;
+        if (pause.isPressed())    keys |= PAUSE;
+        if (escape.isPressed())   keys |= ESCAPE;
+        if (profiler.isPressed()) keys |= PROFILER;
+        if (overdraw.isPressed()) keys |= OVERDRAW;
+        input = replay != null ? replay.getMenuInput() : keys;
+        return input;
+    }
+
+    /** Reads input from {@code replay} instead of the keyboard; {@code null} to go back. */
+    public void replayFrom(ReplayPlayer replay) {
+        this.replay = replay;
     }
 
-    public boolean isUpPressed()     { return up.isPressed();     }
-    public boolean isDownPressed()   { return down.isPressed();   }
-    public boolean isEnterPressed()  { return enter.isPressed();  }
-    public boolean isPausePressed()  { return pause.isPressed();  }
-    public boolean isEscapePressed() { return escape.isPressed(); }
+    public boolean isUpPressed()     { return (input & UP)     != 0; }
+    public boolean isDownPressed()   { return (input & DOWN)   != 0; }
+    public boolean isEnterPressed()  { return (input & ENTER)  != 0; }
+    public boolean isPausePressed()  { return (input & PAUSE)  != 0; }
+    public boolean isEscapePressed() { return (input & ESCAPE) != 0; }
+    /** F2: muestra / oculta el overlay del profiler (en cualquier pantalla). */
+    public boolean isProfilerTogglePressed() { return (input & PROFILER) != 0; }
+    /** F3: muestra / oculta el mapa de calor de overdraw. */
+    public boolean isOverdrawTogglePressed() { return (input & OVERDRAW) != 0; }
 }
@@ -19,12 +19,34 @@ public class MenuRenderer {
     private static final Color BTN_BORDER = new Color(255, 255, 255, 80);
     private static final Color BTN_TEXT = Color.WHITE;
     private static final Color PAUSE_COLOR = new Color(255, 255, 255, 220);
+    private static final Color GAME_OVER_COLOR = new Color(220, 50, 50);
+    private static final Color VICTORY_COLOR = new Color(50, 220, 80);
+    private static final Color SUBTITLE_COLOR = new Color(200, 200, 200);
+    private static final Color HINT_COLOR = new Color(160, 160, 160);
+    private static final Color PAUSE_DIM = new Color(0, 0, 0, 120);
+    private static final Color PAUSE_BOX = new Color(20, 20, 40, 220);
+
+    // Fuentes y textos creados una vez, no en cada frame
+    private static final Font FONT_BOLD_18 = new Font("Monospaced", Font.BOLD, 18);
+    private static final Font FONT_BOLD_20 = new Font("Monospaced", Font.BOLD, 20);
+    private static final Font FONT_BOLD_24 = new Font("Monospaced", Font.BOLD, 24);
+    private static final Font FONT_BOLD_42 = new Font("Monospaced", Font.BOLD, 42);
+    private static final Font FONT_BOLD_64 = new Font("Monospaced", Font.BOLD, 64);
+    private static final Font FONT_BOLD_72 = new Font("Monospaced", Font.BOLD, 72);
+    private static final Font FONT_PLAIN_13 = new Font("Monospaced", Font.PLAIN, 13);
+    private static final Font FONT_PLAIN_14 = new Font("Monospaced", Font.PLAIN, 14);
+
+    private static final String[] MAIN_LABELS      = { "▶  JUGAR", "⚙  AJUSTES", "✕  SALIR" };
+    private static final String[] GAME_OVER_LABELS = { "↺  VOLVER A JUGAR", "⌂  MENÚ PRINCIPAL" };
+    private static final String[] VICTORY_LABELS   = { "▶  JUGAR DE NUEVO", "⌂  MENÚ PRINCIPAL" };
 
     private static final int BTN_W = 300;
     private static final int BTN_H = 54;
     private static final int BTN_GAP = 18;
     private static final int BTN_RADIUS = 12;
 
+    private final RoundRectangle2D.Float rect = new RoundRectangle2D.Float();
+
     // -------------------------------------------------------------------------
     // Menú principal
     // -------------------------------------------------------------------------
@@ -33,13 +55,13 @@ public class MenuRenderer {
         enableAA(g);
 
         // Título
-        g.setFont(new Font("Monospaced", Font.BOLD, 64));
+        g.setFont(FONT_BOLD_64);
         drawCenteredText(g, "SUPER CIDE BROS", sw, sh / 2 - 120, TITLE_COLOR);
 
-        g.setFont(new Font("Monospaced", Font.BOLD, 20));
+        g.setFont(FONT_BOLD_20);
 
         // Botones: 0=Jugar 1=Ajustes 2=Salir
-        String[] labels = { "▶  JUGAR", "⚙  AJUSTES", "✕  SALIR" };
+        String[] labels = MAIN_LABELS;
         int startY = sh / 2;
         for (int i = 0; i < labels.length; i++) {
             int x = (sw - BTN_W) / 2;
@@ -48,7 +70,7 @@ public class MenuRenderer {
         }
 
         // Hint teclado
-        g.setFont(new Font("Monospaced", Font.PLAIN, 13));
+        g.setFont(FONT_PLAIN_13);
 
     }
 
@@ -63,11 +85,11 @@ public class MenuRenderer {
         g.fillRect(0, 0, sw, sh);
 
         // Título
-        g.setFont(new Font("Monospaced", Font.BOLD, 72));
-        drawCenteredText(g, "GAME OVER", sw, sh / 2 - 100, new Color(220, 50, 50));
+        g.setFont(FONT_BOLD_72);
+        drawCenteredText(g, "GAME OVER", sw, sh / 2 - 100, GAME_OVER_COLOR);
 
         // Botones: 0=Volver a jugar 1=Menú principal
-        String[] labels = { "↺  VOLVER A JUGAR", "⌂  MENÚ PRINCIPAL" };
+        String[] labels = GAME_OVER_LABELS;
         int startY = sh / 2;
         for (int i = 0; i < labels.length; i++) {
             int x = (sw - BTN_W) / 2;
@@ -75,9 +97,9 @@ public class MenuRenderer {
             drawButton(g, x, y, BTN_W, BTN_H, labels[i], hoveredButton == i);
         }
 
-        g.setFont(new Font("Monospaced", Font.PLAIN, 13));
+        g.setFont(FONT_PLAIN_13);
         drawCenteredText(g, "↑ ↓ para navegar  ·  ENTER para seleccionar",
-                sw, sh - 40, new Color(160, 160, 160));
+                sw, sh - 40, HINT_COLOR);
     }
 
     // -------------------------------------------------------------------------
@@ -88,22 +110,23 @@ public class MenuRenderer {
         enableAA(g);
 
         // Overlay semitransparente sobre el juego
-        g.setColor(new Color(0, 0, 0, 120));
+        g.setColor(PAUSE_DIM);
         g.fillRect(0, 0, sw, sh);
 
         // Caja central
         int bw = 320, bh = 100;
         int bx = (sw - bw) / 2, by = (sh - bh) / 2;
-        g.setColor(new Color(20, 20, 40, 220));
-        g.fill(new RoundRectangle2D.Float(bx, by, bw, bh, 16, 16));
+        g.setColor(PAUSE_BOX);
+        rect.setRoundRect(bx, by, bw, bh, 16, 16);
+        g.fill(rect);
         g.setColor(BTN_BORDER);
-        g.draw(new RoundRectangle2D.Float(bx, by, bw, bh, 16, 16));
+        g.draw(rect);
 
-        g.setFont(new Font("Monospaced", Font.BOLD, 42));
+        g.setFont(FONT_BOLD_42);
         drawCenteredText(g, "PAUSA", sw, by + 58, PAUSE_COLOR);
 
-        g.setFont(new Font("Monospaced", Font.PLAIN, 14));
-        drawCenteredText(g, "Pulsa P para continuar", sw, by + 84, new Color(160, 160, 160));
+        g.setFont(FONT_PLAIN_14);
+        drawCenteredText(g, "Pulsa P para continuar", sw, by + 84, HINT_COLOR);
     }
 
     // -------------------------------------------------------------------------
@@ -112,7 +135,7 @@ public class MenuRenderer {
 
     private void drawButton(Graphics2D g, int x, int y, int w, int h,
             String label, boolean hovered) {
-        RoundRectangle2D rect = new RoundRectangle2D.Float(x, y, w, h, BTN_RADIUS, BTN_RADIUS);
+        rect.setRoundRect(x, y, w, h, BTN_RADIUS, BTN_RADIUS);
 
         g.setColor(hovered ? BTN_HOVER : BTN_NORMAL);
         g.fill(rect);
@@ -120,7 +143,7 @@ public class MenuRenderer {
         g.setColor(hovered ? Color.WHITE : BTN_BORDER);
         g.draw(rect);
 
-        g.setFont(new Font("Monospaced", Font.BOLD, 18));
+        g.setFont(FONT_BOLD_18);
         g.setColor(BTN_TEXT);
 
         FontMetrics fm = g.getFontMetrics();
@@ -135,13 +158,13 @@ public class MenuRenderer {
         g.setColor(BG_OVERLAY);
         g.fillRect(0, 0, sw, sh);
 
-        g.setFont(new Font("Monospaced", Font.BOLD, 72));
-        drawCenteredText(g, "¡VICTORIA!", sw, sh / 2 - 100, new Color(50, 220, 80));
+        g.setFont(FONT_BOLD_72);
+        drawCenteredText(g, "¡VICTORIA!", sw, sh / 2 - 100, VICTORY_COLOR);
 
-        g.setFont(new Font("Monospaced", Font.BOLD, 24));
-        drawCenteredText(g, "Has completado todos los niveles", sw, sh / 2 - 30, new Color(200, 200, 200));
+        g.setFont(FONT_BOLD_24);
+        drawCenteredText(g, "Has completado todos los niveles", sw, sh / 2 - 30, SUBTITLE_COLOR);
 
-        String[] labels = { "▶  JUGAR DE NUEVO", "⌂  MENÚ PRINCIPAL" };
+        String[] labels = VICTORY_LABELS;
         int startY = sh / 2 + 20;
         for (int i = 0; i < labels.length; i++) {
             int x = (sw - BTN_W) / 2;
@@ -149,9 +172,16 @@ public class MenuRenderer {
             drawButton(g, x, y, BTN_W, BTN_H, labels[i], hoveredButton == i);
         }
 
-        g.setFont(new Font("Monospaced", Font.PLAIN, 13));
+        g.setFont(FONT_PLAIN_13);
         drawCenteredText(g, "↑ ↓ para navegar  ·  ENTER para seleccionar",
-                sw, sh - 40, new Color(160, 160, 160));
+                sw, sh - 40, HINT_COLOR);
+    }
+
+    /** Línea de estado discreta al pie de la pantalla (p. ej. progreso del warm-up). */
+    public void drawStatusLine(Graphics2D g, int sw, int sh, String text) {
+        enableAA(g);
+        g.setFont(FONT_PLAIN_13);
+        drawCenteredText(g, text, sw, sh - 40, HINT_COLOR);
     }
 
     private void drawCenteredText(Graphics2D g, String text, int sw, int y, Color color) {
@@ -0,0 +1,54 @@
+package com.TETOSOFT.tilegame.systems;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+import com.TETOSOFT.graphics.OverdrawStats;
+
+/**
+ * Vista de depuración del overdraw (F3): el mapa de calor de
+ * {@link OverdrawStats} semitransparente sobre el frame y la tabla de
+ * llamadas / píxeles por pasada arriba a la izquierda.
+ */
+public class OverdrawOverlay {
+
+    private static final Color PANEL_BG   = new Color(0, 0, 0, 190);
+    private static final Color TEXT       = new Color(220, 220, 220);
+    private static final Color HEADER     = new Color(0, 255, 200);
+    private static final Font  FONT       = new Font("Monospaced", Font.PLAIN, 13);
+    private static final float HEAT_ALPHA = 0.6f;
+    private static final int   LINE_H     = 16;
+    private static final int   MARGIN     = 10;
+    private static final String LEGEND    = "azul = 1 escritura ... rojo = "
+            + (OverdrawStats.HEAT_SATURATION - 1) + ", blanco = " + OverdrawStats.HEAT_SATURATION + "+";
+
+    private BufferedImage heat;
+
+    /** Dibuja el mapa de calor del frame que acaba de contarse y la tabla. */
+    public void draw(Graphics2D g, OverdrawStats stats) {
+        heat = stats.toImage(heat);
+        Composite original = g.getComposite();
+        g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, HEAT_ALPHA));
+        g.drawImage(heat, 0, 0, null);
+        g.setComposite(original);
+
+        String[] lines = stats.summaryLines();
+        g.setFont(FONT);
+        FontMetrics fm = g.getFontMetrics();
+        int w = fm.stringWidth(LEGEND);
+        for (String line : lines) w = Math.max(w, fm.stringWidth(line));
+        w += 2 * MARGIN;
+        int h = (lines.length + 1) * LINE_H + 2 * MARGIN;
+        int x = MARGIN;
+        int y = 60;
+
+        g.setColor(PANEL_BG);
+        g.fillRect(x, y, w, h);
+        for (int i = 0; i < lines.length; i++) {
+            g.setColor(i == 0 ? HEADER : TEXT);
+            g.drawString(lines[i], x + MARGIN, y + MARGIN + (i + 1) * LINE_H - 4);
+        }
+        g.setColor(TEXT);
+        g.drawString(LEGEND, x + MARGIN, y + MARGIN + (lines.length + 1) * LINE_H - 4);
+    }
+}
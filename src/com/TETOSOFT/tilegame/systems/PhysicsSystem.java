@@ -2,6 +2,7 @@ package com.TETOSOFT.tilegame.systems;
 
 import java.awt.Point;
 
+import com.TETOSOFT.core.EntityStats;
 import com.TETOSOFT.core.GameConstants;
 import com.TETOSOFT.tilegame.TileMap;
 import com.TETOSOFT.tilegame.TileMapDrawer;
@@ -29,6 +30,11 @@ public class PhysicsSystem {
 
     public void setBlockHitListener(BlockHitListener l) { this.blockHitListener = l; }
 
+    /**
+     * Punto reutilizado que devuelve {@link #getTileCollision}. Es estado del
+     * sistema, así que cada mundo necesita su propio PhysicsSystem (GameWorld
+     * crea el suyo) y una instancia nunca se comparte entre hilos.
+     */
     private final Point tileCache = new Point();
 
     /**
@@ -107,6 +113,7 @@ public class PhysicsSystem {
      * at the given position, or {@code null} if the path is clear.
      */
     public Point getTileCollision(Creature creature, TileMap map, float newX, float newY) {
+        EntityStats.tileQuery();
         float fromX = Math.min(creature.getX(), newX);
         float fromY = Math.min(creature.getY(), newY);
         float toX   = Math.max(creature.getX(), newX);
@@ -3,19 +3,34 @@ package com.TETOSOFT.tilegame.systems;
 import java.awt.event.KeyEvent;
 import javax.swing.JFrame;
 
+import com.TETOSOFT.core.InputLatency;
 import com.TETOSOFT.input.GameAction;
 import com.TETOSOFT.input.InputManager;
+import com.TETOSOFT.tilegame.replay.ReplayPlayer;
 import com.TETOSOFT.tilegame.sprites.Player;
 
 /**
- * Reads player input each frame and applies it to the {@link Player} sprite.
+ * Reads player input each tick and applies it to the {@link Player} sprite.
  *
  * Key bindings are defined once in {@link #init(JFrame)} and can be changed
- * without touching any other class.
+ * without touching any other class. Reading ({@link #poll()}) and applying
+ * ({@link #apply}) are separate so scripted input can drive the player
+ * without a window, and {@link #replayFrom} makes {@link #poll()} return
+ * a recorded session instead of the keyboard.
  */
 public class PlayerController {
 
+    // Bits de la máscara de input de un tick
+    public static final int MOVE_LEFT    = 1;
+    public static final int MOVE_RIGHT   = 1 << 1;
+    public static final int JUMP         = 1 << 2;
+    public static final int DUCK         = 1 << 3;
+    public static final int SPRINT       = 1 << 4;
+    public static final int EXIT         = 1 << 5;
+    public static final int TOGGLE_DEBUG = 1 << 6;
+
     private InputManager inputManager;
+    private ReplayPlayer replay;
 
     private final GameAction moveLeft = new GameAction("moveLeft");
     private final GameAction moveRight = new GameAction("moveRight");
@@ -25,6 +40,13 @@ public class PlayerController {
     private final GameAction exit = new GameAction("exit", GameAction.DETECT_INITAL_PRESS_ONLY);
     private final GameAction toggleDebug = new GameAction("toggleDebug", GameAction.DETECT_INITAL_PRESS_ONLY);
 
+    // Latencia de input: acciones medidas, en el orden de InputLatency.Action
+    private static final InputLatency.Action[] LATENCY_ACTIONS = InputLatency.Action.values();
+    private static final int[] LATENCY_BITS = { JUMP, MOVE_LEFT, MOVE_RIGHT, SPRINT };
+    private final GameAction[] latencyActions = { jump, moveLeft, moveRight, sprint };
+    private final long[] pressTimes = new long[LATENCY_BITS.length];
+    private int lastKeyboardInput;
+
     /**
      * Attaches the input manager to the game window and registers key bindings.
      */
@@ -46,39 +68,87 @@ public class PlayerController {
         inputManager.mapToKey(jump, KeyEvent.VK_SPACE);
     }
 
-    /** Returns true if the debug toggle was pressed this frame. */
-    public boolean isDebugTogglePressed() {
-        return toggleDebug.isPressed();
+    /**
+     * Lee el estado de todas las acciones una sola vez y lo devuelve como
+     * máscara de bits ({@link #MOVE_LEFT}, {@link #JUMP}, ...). Solo tiene
+     * sentido después de {@link #init(JFrame)}.
+     *
+     * Durante un replay devuelve el input grabado; el teclado se sigue
+     * leyendo (y descartando) para que no queden pulsaciones pendientes.
+     */
+    public int poll() {
+        int input = 0;
+        if (moveLeft.isPressed())    input |= MOVE_LEFT;
+        if (moveRight.isPressed())   input |= MOVE_RIGHT;
+        if (jump.isPressed())        input |= JUMP;
+        if (duck.isPressed())        input |= DUCK;
+        if (sprint.isPressed())      input |= SPRINT;
+        if (exit.isPressed())        input |= EXIT;
+        if (toggleDebug.isPressed()) input |= TOGGLE_DEBUG;
+        takePressTimes(input);
+        return replay != null ? replay.getPlayerInput() : input;
+    }
+
+    /**
+     * Keeps the key-event time of the measured actions that went from
+     * released to pressed in this tick's input; a key held down (or its
+     * autorepeat) keeps no time.
+     */
+    private void takePressTimes(int input) {
+        int newlyPressed = input & ~lastKeyboardInput;
+        lastKeyboardInput = input;
+        for (int i = 0; i < LATENCY_BITS.length; i++) {
+            long t = latencyActions[i].takePressTime();
+            pressTimes[i] = replay == null && (newlyPressed & LATENCY_BITS[i]) != 0 ? t : 0;
+        }
+    }
+
+    /**
+     * Tells {@link InputLatency} that the world tick just run acted on the
+     * presses read by the last {@link #poll()}.
+     */
+    public void reportConsumedPresses() {
+        for (int i = 0; i < pressTimes.length; i++) {
+            InputLatency.consumed(LATENCY_ACTIONS[i], pressTimes[i]);
+        }
+    }
+
+    /** Reads input from {@code replay} instead of the keyboard; {@code null} to go back. */
+    public void replayFrom(ReplayPlayer replay) {
+        this.replay = replay;
     }
 
     /**
-     * Aplica el input del frame al jugador.
+     * Aplica el input del tick al jugador. No necesita ventana: el input
+     * puede venir de {@link #poll()} o de un script.
      *
-     * @param elapsedTime ms desde el último frame (necesario para el boost de
+     * @param input       máscara de bits de este tick
+     * @param elapsedTime ms desde el último tick (necesario para el boost de
      *                    salto)
      * @return true si se pulsó exit
      */
-    public boolean update(Player player, long elapsedTime) {
+    public boolean apply(Player player, int input, long elapsedTime) {
+        boolean exitPressed = (input & EXIT) != 0;
         if (!player.isAlive())
-            return exit.isPressed();
+            return exitPressed;
 
-        player.setSprinting(sprint.isPressed());
+        player.setSprinting((input & SPRINT) != 0);
 
-        // Leer duck una sola vez — isPressed() consume el estado
-        boolean isDucking = duck.isPressed();
+        boolean isDucking = (input & DUCK) != 0;
         player.setDucking(isDucking);
 
         float vx = 0;
         // Agachado: no puede moverse a los lados
         if (!isDucking) {
-            if (moveLeft.isPressed())
+            if ((input & MOVE_LEFT) != 0)
                 vx -= player.getMaxSpeed();
-            if (moveRight.isPressed())
+            if ((input & MOVE_RIGHT) != 0)
                 vx += player.getMaxSpeed();
         }
         player.setVelocityX(vx);
 
-        if (jump.isPressed()) {
+        boolean jumpPressed = (input & JUMP) != 0;
+        if (jumpPressed) {
             player.jump(false);
             player.holdJump(elapsedTime);
         } else {
@@ -87,10 +157,10 @@ public class PlayerController {
 
         // Rebote + salto: si se pisa enemigo y se pulsa salto a la vez,
         // combinar ambas fuerzas en lugar del salto normal
-        if (player.consumeBounce() && jump.isPressed()) {
+        if (player.consumeBounce() && jumpPressed) {
             player.jumpFromBounce();
         }
 
-        return exit.isPressed();
+        return exitPressed;
     }
 }
@@ -0,0 +1,137 @@
+package com.TETOSOFT.tilegame.systems;
+
+import java.awt.*;
+
+import com.TETOSOFT.core.AllocationCounter;
+import com.TETOSOFT.core.FrameProfiler;
+import com.TETOSOFT.core.FrameProfiler.Phase;
+import com.TETOSOFT.tilegame.TileChunkCache;
+
+/**
+ * Tabla del {@link FrameProfiler} (F2): p50 / p95 / p99 / max por fase,
+ * y debajo los bytes reservados por frame (y por vuelta del hilo de ticks
+ * si va aparte) según {@link AllocationCounter}: media en la columna p50 y
+ * máximo en la de max. La última línea son los aciertos y fallos del
+ * {@link TileChunkCache}.
+ *
+ * Las cifras se recogen y se formatean una vez por segundo; el resto de
+ * frames solo se dibujan las líneas ya construidas.
+ */
+public class ProfilerOverlay {
+
+    private static final Color PANEL_BG   = new Color(0, 0, 0, 190);
+    private static final Color TEXT       = new Color(220, 220, 220);
+    private static final Color HEADER     = new Color(0, 255, 200);
+    private static final Font  FONT       = new Font("Monospaced", Font.PLAIN, 13);
+    private static final long  REFRESH_NS = 1_000_000_000L;
+    private static final int   LINE_H     = 16;
+    private static final int   MARGIN     = 10;
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final String[] lines = new String[PHASES.length + 4];
+    private final long[] stats = new long[5];
+    private long nextRefresh;
+
+    private final AllocLine frameAlloc = new AllocLine("memoria frame (B)");
+    private final AllocLine tickAlloc  = new AllocLine("memoria tick (B)");
+    private long chunkHits, chunkMisses, chunkRefresh;
+
+    public ProfilerOverlay() {
+        lines[0] = "Sin datos todavía";
+    }
+
+    /**
+     * Dibuja el panel arriba a la derecha. Los contadores de memoria y la
+     * caché de chunks pueden ser {@code null} (no se muestra su línea).
+     */
+    public void draw(Graphics2D g, int screenW, AllocationCounter frames, AllocationCounter ticks,
+                     TileChunkCache chunks) {
+        long now = System.nanoTime();
+        if (now - nextRefresh >= 0) {
+            nextRefresh = now + REFRESH_NS;
+            refresh();
+            int n = PHASES.length + 1;
+            lines[n]     = frameAlloc.refresh(frames);
+            lines[n + 1] = tickAlloc.refresh(ticks);
+            lines[n + 2] = chunkLine(chunks, now);
+        }
+
+        g.setFont(FONT);
+        FontMetrics fm = g.getFontMetrics();
+        int w = fm.stringWidth(lines[0]) + 2 * MARGIN;
+        int h = lines.length * LINE_H + 2 * MARGIN;
+        int x = screenW - w - MARGIN;
+        int y = 60;
+
+        g.setColor(PANEL_BG);
+        g.fillRect(x, y, w, h);
+        for (int i = 0; i < lines.length; i++) {
+            if (lines[i] == null) continue;
+            g.setColor(i == 0 ? HEADER : TEXT);
+            g.drawString(lines[i], x + MARGIN, y + MARGIN + (i + 1) * LINE_H - 4);
+        }
+    }
+
+    private void refresh() {
+        FrameProfiler.collect();
+        double seconds = Math.max(1e-9, FrameProfiler.getIntervalNanos() / 1e9);
+
+        lines[0] = String.format("%-20s %7s %7s %7s %7s %7s",
+                "fase (ms)", "/s", "p50", "p95", "p99", "max");
+        for (int i = 0; i < PHASES.length; i++) {
+            FrameProfiler.intervalStats(PHASES[i], stats);
+            lines[i + 1] = String.format("%-20s %7.0f %7.2f %7.2f %7.2f %7.2f",
+                    PHASES[i].getLabel(), stats[0] / seconds,
+                    stats[1] / 1e6, stats[2] / 1e6, stats[3] / 1e6, stats[4] / 1e6);
+        }
+    }
+
+    private String chunkLine(TileChunkCache chunks, long now) {
+        if (chunks == null) return null;
+        long hits = chunks.getHits(), misses = chunks.getMisses();
+        double seconds = Math.max(1e-9, (now - chunkRefresh) / 1e9);
+        String line = chunkRefresh == 0 ? null : String.format("%-20s %7.0f ok/s %6.0f fallo/s %d/%d",
+                "chunks de tiles", (hits - chunkHits) / seconds, (misses - chunkMisses) / seconds,
+                chunks.getImageCount(), chunks.getMaxChunks());
+        chunkHits    = hits;
+        chunkMisses  = misses;
+        chunkRefresh = now;
+        return line;
+    }
+
+    /** Una línea de memoria: diferencias del contador desde el refresco anterior. */
+    private static final class AllocLine {
+        private final String label;
+        private AllocationCounter counter;
+        private long total, samples, lastRefresh;
+
+        AllocLine(String label) {
+            this.label = label;
+        }
+
+        String refresh(AllocationCounter c) {
+            long now = System.nanoTime();
+            if (c != counter) {
+                // Contador nuevo (o ninguno): empezar a contar desde aquí
+                counter = c;
+                if (c != null) {
+                    total   = c.getTotal();
+                    samples = c.getSamples();
+                    c.takeMax();
+                }
+                lastRefresh = now;
+                return null;
+            }
+            if (c == null) return null;
+            long t = c.getTotal(), n = c.getSamples();
+            long dt = t - total, dn = n - samples;
+            double seconds = Math.max(1e-9, (now - lastRefresh) / 1e9);
+            total = t;
+            samples = n;
+            lastRefresh = now;
+            return String.format("%-20s %7.0f %7.0f %7s %7s %7d",
+                    label, dn / seconds, dn == 0 ? 0.0 : (double) dt / dn, "-", "-", c.takeMax());
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.TETOSOFT.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Declaration checks and run order of {@link SystemScheduler}.
+ */
+public class SystemSchedulerTest {
+
+    private enum Res { A, B, C }
+
+    private static final Runnable NOOP = () -> { };
+
+    @Test
+    public void conflictingWritesWithoutOrderAreRejected() {
+        SystemScheduler<Res> s = new SystemScheduler<>(Res.class);
+        s.system("uno", NOOP).writes(Res.A);
+        s.system("dos", NOOP).reads(Res.A);
+
+        List<String> problems = s.checkDeclarations();
+        assertEquals(1, problems.size());
+        assertTrue(problems.get(0), problems.get(0).contains("uno y dos comparten [A]"));
+        try {
+            s.build();
+            fail("build() aceptó un conflicto sin orden");
+        } catch (IllegalStateException expected) {
+            assertTrue(expected.getMessage().contains("uno y dos"));
+        }
+    }
+
+    @Test
+    public void conflictWithTransitiveOrderIsAccepted() {
+        SystemScheduler<Res> s = new SystemScheduler<>(Res.class);
+        s.system("uno", NOOP).writes(Res.A);
+        s.system("medio", NOOP).reads(Res.B).after("uno");
+        s.system("dos", NOOP).writes(Res.A).after("medio");
+
+        assertTrue(s.checkDeclarations().isEmpty());
+        s.build();
+    }
+
+    @Test
+    public void sharedReadsDoNotConflict() {
+        SystemScheduler<Res> s = new SystemScheduler<>(Res.class);
+        s.system("uno", NOOP).reads(Res.A).writes(Res.B);
+        s.system("dos", NOOP).reads(Res.A).writes(Res.C);
+
+        assertTrue(s.checkDeclarations().isEmpty());
+        assertEquals("[uno, dos]", s.build().toString());
+    }
+
+    @Test
+    public void unknownAndCircularAfterAreReported() {
+        SystemScheduler<Res> unknown = new SystemScheduler<>(Res.class);
+        unknown.system("uno", NOOP).after("nadie");
+        assertEquals(1, unknown.checkDeclarations().size());
+        assertTrue(unknown.checkDeclarations().get(0).contains("nadie"));
+
+        SystemScheduler<Res> circular = new SystemScheduler<>(Res.class);
+        circular.system("uno", NOOP).after("dos");
+        circular.system("dos", NOOP).after("uno");
+        assertEquals(2, circular.checkDeclarations().size());
+    }
+
+    @Test
+    public void serialAndParallelRunInDependencyOrder() {
+        for (boolean parallel : new boolean[] { false, true }) {
+            List<String> ran = new ArrayList<>();
+            SystemScheduler<Res> s = new SystemScheduler<>(Res.class);
+            s.system("final", () -> ran.add("final")).writes(Res.A, Res.B).after("a", "b");
+            s.system("a", () -> { synchronized (ran) { ran.add("a"); } }).writes(Res.A);
+            s.system("b", () -> { synchronized (ran) { ran.add("b"); } }).writes(Res.B);
+            s.build();
+            assertEquals("[a, b] -> [final]", s.toString());
+
+            s.setParallel(parallel);
+            try {
+                for (int i = 0; i < 100; i++) {
+                    ran.clear();
+                    s.run();
+                    assertEquals(3, ran.size());
+                    assertEquals("final", ran.get(2));
+                }
+            } finally {
+                s.shutdown();
+            }
+        }
+    }
+}
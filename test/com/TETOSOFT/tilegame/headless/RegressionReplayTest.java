@@ -0,0 +1,43 @@
+package com.TETOSOFT.tilegame.headless;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.TETOSOFT.core.AllocationCounter;
+import com.TETOSOFT.tilegame.replay.Replay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * The replay library ({@code replays/}) through {@link RegressionRunner#measure}:
+ * every replay ends as recorded, and its steady-state ticks and offscreen
+ * frames allocate nothing. Times are left to {@code RegressionRunner check},
+ * which compares them with the baselines of the machine it runs on.
+ *
+ * Runs from the project directory, headless ({@code test-sys-prop} in
+ * {@code nbproject/project.properties}).
+ */
+public class RegressionReplayTest {
+
+    @Test
+    public void replaysAreDeterministicAndSteadyStateAllocatesNothing() throws IOException {
+        File[] files = new File("replays").listFiles((d, n) -> n.endsWith(Replay.EXTENSION));
+        assertTrue("No hay replays en replays/", files != null && files.length > 0);
+        Arrays.sort(files);
+
+        RegressionRunner runner = new RegressionRunner();
+        for (File f : files) {
+            RegressionRunner.Measurement m = runner.measure(f.getName(), Replay.read(f));
+            assertTrue(f.getName() + ": no determinista, " + m.divergence, m.deterministic);
+            if (!AllocationCounter.isSupported()) continue;
+            assertEquals(f.getName() + ": bytes de los ticks estables", 0, m.tickAllocBytes);
+            assertEquals(f.getName() + ": bytes de un frame estable", 0, m.frameAllocBytes);
+        }
+        assumeTrue("La JVM no cuenta la memoria reservada por hilo", AllocationCounter.isSupported());
+    }
+}